@@ -25,16 +25,23 @@
 #include "gen-cpp/CatalogInternalService_types.h"
 #include "gen-cpp/CatalogObjects_types.h"
 #include "gen-cpp/CatalogService_types.h"
+#include "gen-cpp/ImpalaHiveServer2Service.h"
+#include "rpc/thrift-client.h"
 #include "statestore/statestore-subscriber.h"
 #include "util/debug-util.h"
 #include "util/event-metrics.h"
 #include "util/logging-support.h"
+#include "util/network-util.h"
+#include "util/openssl-util.h"
+#include "util/pretty-printer.h"
+#include "util/time.h"
 #include "util/webserver.h"
 
 #include "common/names.h"
 
 using boost::bind;
 using boost::mem_fn;
+using namespace apache::hive::service::cli::thrift;
 using namespace apache::thrift;
 using namespace impala;
 using namespace rapidjson;
@@ -71,11 +78,19 @@ DEFINE_int64_hidden(catalog_partial_fetch_rpc_queue_timeout_s, LLONG_MAX, "Maxim
     "(in seconds) a partial catalog object fetch RPC spends in the queue waiting "
     "to run. Must be set to a value greater than zero.");
 
+DEFINE_string(stats_maintenance_coordinator, "", "The host:port of the HiveServer2 "
+    "endpoint of an impalad coordinator. If set and --stats_maintenance_interval_s is "
+    "positive, catalogd runs the COMPUTE STATS statements recommended by every "
+    "evaluation of the freshness of table statistics on this coordinator, one at a time. "
+    "The statements run as the user that catalogd authenticates as. If empty, the "
+    "statements are only listed on the /catalog page of the catalogd web UI.");
+
 DECLARE_string(state_store_host);
 DECLARE_int32(state_store_subscriber_port);
 DECLARE_int32(state_store_port);
 DECLARE_string(hostname);
 DECLARE_bool(compact_catalog_topic);
+DECLARE_int32(stats_maintenance_interval_s);
 
 string CatalogServer::IMPALA_CATALOG_TOPIC = "catalog-update";
 
@@ -85,6 +100,23 @@ const string CATALOG_SERVER_TOPIC_PROCESSING_TIMES =
 const string CATALOG_SERVER_PARTIAL_FETCH_RPC_QUEUE_LEN =
     "catalog.partial-fetch-rpc.queue-len";
 
+const string CATALOG_SERVER_SENTRY_NUM_SYNCS = "catalog.sentry-sync.count";
+const string CATALOG_SERVER_SENTRY_LAST_SYNC_DURATION =
+    "catalog.sentry-sync.last-duration-ms";
+const string CATALOG_SERVER_SENTRY_LAST_SYNC_NUM_PRIVILEGES =
+    "catalog.sentry-sync.last-num-privileges";
+const string CATALOG_SERVER_SENTRY_LAST_SYNC_NUM_CHANGES =
+    "catalog.sentry-sync.last-num-changes";
+
+const string CATALOG_SERVER_STATS_MAINTENANCE_NUM_STALE_TABLES =
+    "catalog.stats-maintenance.num-stale-tables";
+const string CATALOG_SERVER_STATS_MAINTENANCE_NUM_EVALUATIONS =
+    "catalog.stats-maintenance.num-evaluations";
+const string CATALOG_SERVER_STATS_MAINTENANCE_NUM_RUNS =
+    "catalog.stats-maintenance.num-runs";
+const string CATALOG_SERVER_STATS_MAINTENANCE_NUM_FAILED_RUNS =
+    "catalog.stats-maintenance.num-failed-runs";
+
 const string CATALOG_WEB_PAGE = "/catalog";
 const string CATALOG_TEMPLATE = "catalog.tmpl";
 const string CATALOG_OBJECT_WEB_PAGE = "/catalog_object";
@@ -96,6 +128,56 @@ const string EVENT_METRICS_TEMPLATE = "events.tmpl";
 
 const int REFRESH_METRICS_INTERVAL_MS = 1000;
 
+// Interval at which the state of a running stats maintenance statement is polled.
+const int STATS_MAINTENANCE_POLL_INTERVAL_MS = 1000;
+
+namespace {
+
+typedef ThriftClient<ImpalaHiveServer2ServiceClient> HS2Client;
+
+// Runs 'stmt' in 'session' through 'client' and waits for it to finish. Returns an error
+// if the statement failed or the coordinator could not be reached.
+Status RunStatsMaintenanceStmt(HS2Client* client, const TSessionHandle& session,
+    const string& stmt) {
+  try {
+    TExecuteStatementReq exec_req;
+    exec_req.__set_sessionHandle(session);
+    exec_req.__set_statement(stmt);
+    TExecuteStatementResp exec_resp;
+    client->iface()->ExecuteStatement(exec_resp, exec_req);
+    RETURN_IF_ERROR(Status(exec_resp.status));
+    Status status;
+    while (true) {
+      TGetOperationStatusReq status_req;
+      status_req.__set_operationHandle(exec_resp.operationHandle);
+      TGetOperationStatusResp status_resp;
+      client->iface()->GetOperationStatus(status_resp, status_req);
+      status = Status(status_resp.status);
+      if (!status.ok()) break;
+      TOperationState::type state = status_resp.operationState;
+      if (state == TOperationState::FINISHED_STATE) break;
+      if (state != TOperationState::INITIALIZED_STATE
+          && state != TOperationState::PENDING_STATE
+          && state != TOperationState::RUNNING_STATE) {
+        status = Status(status_resp.__isset.errorMessage ? status_resp.errorMessage :
+            Substitute("Statement ended in state $0", state));
+        break;
+      }
+      SleepForMs(STATS_MAINTENANCE_POLL_INTERVAL_MS);
+    }
+    TCloseOperationReq close_req;
+    close_req.__set_operationHandle(exec_resp.operationHandle);
+    TCloseOperationResp close_resp;
+    client->iface()->CloseOperation(close_resp, close_req);
+    return status;
+  } catch (const TException& e) {
+    return Status(Substitute("Error communicating with $0: $1",
+        FLAGS_stats_maintenance_coordinator, e.what()));
+  }
+}
+
+}
+
 // Implementation for the CatalogService thrift interface.
 class CatalogServiceThriftIf : public CatalogServiceIf {
  public:
@@ -197,7 +279,7 @@ class CatalogServiceThriftIf : public CatalogServiceIf {
   void PrioritizeLoad(TPrioritizeLoadResponse& resp, const TPrioritizeLoadRequest& req)
       override {
     VLOG_RPC << "PrioritizeLoad(): request=" << ThriftDebugString(req);
-    Status status = catalog_server_->catalog()->PrioritizeLoad(req);
+    Status status = catalog_server_->catalog()->PrioritizeLoad(req, &resp);
     if (!status.ok()) LOG(ERROR) << status.GetDetail();
     TStatus thrift_status;
     status.ToThrift(&thrift_status);
@@ -236,6 +318,21 @@ CatalogServer::CatalogServer(MetricGroup* metrics)
       CATALOG_SERVER_TOPIC_PROCESSING_TIMES);
   partial_fetch_rpc_queue_len_metric_ =
       metrics->AddGauge(CATALOG_SERVER_PARTIAL_FETCH_RPC_QUEUE_LEN, 0);
+  sentry_num_syncs_metric_ = metrics->AddCounter(CATALOG_SERVER_SENTRY_NUM_SYNCS, 0);
+  sentry_last_sync_duration_metric_ =
+      metrics->AddGauge(CATALOG_SERVER_SENTRY_LAST_SYNC_DURATION, 0);
+  sentry_last_sync_num_privileges_metric_ =
+      metrics->AddGauge(CATALOG_SERVER_SENTRY_LAST_SYNC_NUM_PRIVILEGES, 0);
+  sentry_last_sync_num_changes_metric_ =
+      metrics->AddGauge(CATALOG_SERVER_SENTRY_LAST_SYNC_NUM_CHANGES, 0);
+  stats_maintenance_num_stale_tables_metric_ =
+      metrics->AddGauge(CATALOG_SERVER_STATS_MAINTENANCE_NUM_STALE_TABLES, 0);
+  stats_maintenance_num_evaluations_metric_ =
+      metrics->AddCounter(CATALOG_SERVER_STATS_MAINTENANCE_NUM_EVALUATIONS, 0);
+  stats_maintenance_num_runs_metric_ =
+      metrics->AddCounter(CATALOG_SERVER_STATS_MAINTENANCE_NUM_RUNS, 0);
+  stats_maintenance_num_failed_runs_metric_ =
+      metrics->AddCounter(CATALOG_SERVER_STATS_MAINTENANCE_NUM_FAILED_RUNS, 0);
 }
 
 Status CatalogServer::Start() {
@@ -253,6 +350,11 @@ Status CatalogServer::Start() {
       &catalog_update_gathering_thread_));
   RETURN_IF_ERROR(Thread::Create("catalog-server", "catalog-metrics-refresh-thread",
       &CatalogServer::RefreshMetrics, this, &catalog_metrics_refresh_thread_));
+  if (FLAGS_stats_maintenance_interval_s > 0
+      && !FLAGS_stats_maintenance_coordinator.empty()) {
+    RETURN_IF_ERROR(Thread::Create("catalog-server", "stats-maintenance-thread",
+        &CatalogServer::StatsMaintenanceThread, this, &stats_maintenance_thread_));
+  }
 
   statestore_subscriber_.reset(new StatestoreSubscriber(
      Substitute("catalog-server@$0", TNetworkAddressToString(server_address)),
@@ -396,11 +498,96 @@ void CatalogServer::UpdateCatalogTopicCallback(
     }
     partial_fetch_rpc_queue_len_metric_->SetValue(
         response.catalog_partial_fetch_rpc_queue_len);
+    if (response.__isset.sentry_num_syncs) {
+      sentry_num_syncs_metric_->SetValue(response.sentry_num_syncs);
+      sentry_last_sync_duration_metric_->SetValue(response.sentry_last_sync_duration_ms);
+      sentry_last_sync_num_privileges_metric_->SetValue(
+          response.sentry_last_sync_num_privileges);
+      sentry_last_sync_num_changes_metric_->SetValue(
+          response.sentry_last_sync_num_changes);
+    }
+    if (response.__isset.stats_maintenance_num_evaluations) {
+      stats_maintenance_num_stale_tables_metric_->SetValue(
+          response.stats_maintenance_num_stale_tables);
+      stats_maintenance_num_evaluations_metric_->SetValue(
+          response.stats_maintenance_num_evaluations);
+    }
     TEventProcessorMetrics eventProcessorMetrics = response.event_metrics;
     MetastoreEventMetrics::refresh(&eventProcessorMetrics);
   }
 }
 
+[[noreturn]] void CatalogServer::StatsMaintenanceThread() {
+  TNetworkAddress address = MakeNetworkAddress(FLAGS_stats_maintenance_coordinator);
+  int64_t last_evaluation_seq = 0;
+  while (true) {
+    SleepForMs(FLAGS_stats_maintenance_interval_s * 1000L);
+    TGetCatalogUsageResponse usage;
+    Status status = catalog_->GetCatalogUsage(&usage);
+    if (!status.ok()) {
+      LOG(ERROR) << "Error getting the tables with stale statistics: "
+                 << status.GetDetail();
+      continue;
+    }
+    // Run the statements of every evaluation at most once.
+    if (!usage.__isset.stats_evaluation_seq
+        || usage.stats_evaluation_seq == last_evaluation_seq) {
+      continue;
+    }
+    last_evaluation_seq = usage.stats_evaluation_seq;
+    vector<string> stmts;
+    for (const TTableStatsFreshness& stale_table : usage.stale_stats_tables) {
+      if (stale_table.__isset.recommended_stmt) {
+        stmts.push_back(stale_table.recommended_stmt);
+      }
+    }
+    if (stmts.empty()) continue;
+
+    HS2Client client(address.hostname, address.port, "", nullptr,
+        IsInternalTlsConfigured());
+    status = client.Open();
+    TSessionHandle session;
+    if (status.ok()) {
+      try {
+        TOpenSessionReq open_req;
+        open_req.__set_client_protocol(TProtocolVersion::HIVE_CLI_SERVICE_PROTOCOL_V6);
+        TOpenSessionResp open_resp;
+        client.iface()->OpenSession(open_resp, open_req);
+        status = Status(open_resp.status);
+        session = open_resp.sessionHandle;
+      } catch (const TException& e) {
+        status = Status(e.what());
+      }
+    }
+    if (!status.ok()) {
+      LOG(WARNING) << "Could not open a session on the stats maintenance coordinator "
+                   << FLAGS_stats_maintenance_coordinator << ": " << status.GetDetail();
+      stats_maintenance_num_failed_runs_metric_->Increment(stmts.size());
+      continue;
+    }
+    for (const string& stmt : stmts) {
+      LOG(INFO) << "Running stats maintenance statement: " << stmt;
+      status = RunStatsMaintenanceStmt(&client, session, stmt);
+      if (status.ok()) {
+        stats_maintenance_num_runs_metric_->Increment(1);
+      } else {
+        LOG(WARNING) << "Stats maintenance statement failed: " << stmt << ": "
+                     << status.GetDetail();
+        stats_maintenance_num_failed_runs_metric_->Increment(1);
+      }
+    }
+    try {
+      TCloseSessionReq close_req;
+      close_req.__set_sessionHandle(session);
+      TCloseSessionResp close_resp;
+      client.iface()->CloseSession(close_resp, close_req);
+    } catch (const TException& e) {
+      LOG(WARNING) << "Could not close the session on the stats maintenance "
+                   << "coordinator: " << e.what();
+    }
+  }
+}
+
 void CatalogServer::CatalogUrlCallback(const Webserver::ArgumentMap& args,
     Document* document) {
   GetCatalogUsage(document);
@@ -511,6 +698,41 @@ void CatalogServer::GetCatalogUsage(Document* document) {
   num_frequent_tables.SetInt(catalog_usage_result.frequently_accessed_tables.size());
   document->AddMember("num_frequent_tables", num_frequent_tables,
       document->GetAllocator());
+
+  // Collect information about the tables with missing, corrupt or stale statistics.
+  if (!catalog_usage_result.__isset.stale_stats_tables) return;
+  Value stale_stats_tables(kArrayType);
+  for (const auto& stale_table : catalog_usage_result.stale_stats_tables) {
+    Value tbl_obj(kObjectType);
+    Value tbl_name(Substitute("$0.$1", stale_table.table_name.db_name,
+        stale_table.table_name.table_name).c_str(), document->GetAllocator());
+    tbl_obj.AddMember("name", tbl_name, document->GetAllocator());
+    tbl_obj.AddMember("num_rows", stale_table.num_rows, document->GetAllocator());
+    Value total_file_bytes(PrettyPrinter::Print(stale_table.total_file_bytes,
+        TUnit::BYTES).c_str(), document->GetAllocator());
+    tbl_obj.AddMember("total_file_bytes", total_file_bytes, document->GetAllocator());
+    Value num_modified_rows(stale_table.num_modified_rows < 0 ? "unknown" :
+        std::to_string(stale_table.num_modified_rows).c_str(),
+        document->GetAllocator());
+    tbl_obj.AddMember("num_modified_rows", num_modified_rows, document->GetAllocator());
+    Value reason(stale_table.reason.c_str(), document->GetAllocator());
+    tbl_obj.AddMember("reason", reason, document->GetAllocator());
+    Value recommended_stmt(stale_table.__isset.recommended_stmt ?
+        stale_table.recommended_stmt.c_str() : "over budget",
+        document->GetAllocator());
+    tbl_obj.AddMember("recommended_stmt", recommended_stmt, document->GetAllocator());
+    stale_stats_tables.PushBack(tbl_obj, document->GetAllocator());
+  }
+  Value has_stale_stats_tables;
+  has_stale_stats_tables.SetBool(true);
+  document->AddMember("has_stale_stats_tables", has_stale_stats_tables,
+      document->GetAllocator());
+  document->AddMember("stale_stats_tables", stale_stats_tables,
+      document->GetAllocator());
+  Value num_stale_stats_tables;
+  num_stale_stats_tables.SetInt(catalog_usage_result.stale_stats_tables.size());
+  document->AddMember("num_stale_stats_tables", num_stale_stats_tables,
+      document->GetAllocator());
 }
 
 void CatalogServer::EventMetricsUrlCallback(
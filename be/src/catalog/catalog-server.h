@@ -93,12 +93,28 @@ class CatalogServer {
   /// Tracks the partial fetch RPC call queue length on the Catalog server.
   IntGauge* partial_fetch_rpc_queue_len_metric_;
 
+  /// Statistics of the periodic syncs of the authorization policy with Sentry.
+  IntCounter* sentry_num_syncs_metric_;
+  IntGauge* sentry_last_sync_duration_metric_;
+  IntGauge* sentry_last_sync_num_privileges_metric_;
+  IntGauge* sentry_last_sync_num_changes_metric_;
+
+  /// Statistics of the stats maintenance, see --stats_maintenance_interval_s.
+  IntGauge* stats_maintenance_num_stale_tables_metric_;
+  IntCounter* stats_maintenance_num_evaluations_metric_;
+  IntCounter* stats_maintenance_num_runs_metric_;
+  IntCounter* stats_maintenance_num_failed_runs_metric_;
+
   /// Thread that polls the catalog for any updates.
   std::unique_ptr<Thread> catalog_update_gathering_thread_;
 
   /// Thread that periodically wakes up and refreshes certain Catalog metrics.
   std::unique_ptr<Thread> catalog_metrics_refresh_thread_;
 
+  /// Thread that periodically submits the recommended COMPUTE STATS statements to the
+  /// --stats_maintenance_coordinator. Only started if that flag is set.
+  std::unique_ptr<Thread> stats_maintenance_thread_;
+
   /// Protects catalog_update_cv_, pending_topic_updates_,
   /// catalog_objects_to/from_version_, and last_sent_catalog_version.
   boost::mutex catalog_lock_;
@@ -152,6 +168,14 @@ class CatalogServer {
   /// Executed by the catalog_metrics_refresh_thread_. Refreshes certain catalog metrics.
   [[noreturn]] void RefreshMetrics();
 
+  /// Executed by the stats_maintenance_thread_. Every --stats_maintenance_interval_s,
+  /// fetches the tables with missing, corrupt or stale statistics from the JniCatalog
+  /// and runs the recommended statements of a new evaluation one by one through the
+  /// HiveServer2 interface of the --stats_maintenance_coordinator. The statements of an
+  /// evaluation are run at most once. A failed statement is counted and logged, and is
+  /// recommended again by a later evaluation if the statistics are still stale.
+  [[noreturn]] void StatsMaintenanceThread();
+
   /// Example output:
   /// "databases": [
   ///         {
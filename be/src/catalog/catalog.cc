@@ -69,7 +69,7 @@ Catalog::Catalog() {
     {"getCatalogVersion", "()J", &get_catalog_version_id_},
     {"getCatalogServerMetrics", "()[B", &get_catalog_server_metrics_},
     {"getEventProcessorSummary", "()[B", &get_event_processor_summary_},
-    {"prioritizeLoad", "([B)V", &prioritize_load_id_},
+    {"prioritizeLoad", "([B)[B", &prioritize_load_id_},
     {"getPartitionStats", "([B)[B", &get_partition_stats_id_},
     {"updateTableUsage", "([B)V", &update_table_usage_id_},
   };
@@ -175,8 +175,9 @@ Status Catalog::GetFunctions(const TGetFunctionsRequest& request,
   return JniUtil::CallJniMethod(catalog_, get_functions_id_, request, response);
 }
 
-Status Catalog::PrioritizeLoad(const TPrioritizeLoadRequest& req) {
-  return JniUtil::CallJniMethod(catalog_, prioritize_load_id_, req);
+Status Catalog::PrioritizeLoad(
+    const TPrioritizeLoadRequest& req, TPrioritizeLoadResponse* resp) {
+  return JniUtil::CallJniMethod(catalog_, prioritize_load_id_, req, resp);
 }
 
 Status Catalog::GetPartitionStats(
@@ -118,8 +118,9 @@ class Catalog {
       TGetFunctionsResponse *response);
 
   /// Prioritizes the loading of metadata for the catalog objects specified in the
-  /// TPrioritizeLoadRequest.
-  Status PrioritizeLoad(const TPrioritizeLoadRequest& req);
+  /// TPrioritizeLoadRequest. If requested, the loaded objects are returned in 'resp'.
+  Status PrioritizeLoad(
+      const TPrioritizeLoadRequest& req, TPrioritizeLoadResponse* resp);
 
   /// Get partition statistics for the partitions specified in TGetPartitionStatsRequest.
   Status GetPartitionStats(
@@ -227,6 +227,64 @@ DEFINE_bool(pull_incremental_statistics, true,
     "coordinators. If used, the flag must be set on both catalogd and all impalad "
     "coordinators. This feature should not be used when --use_local_catalog is true.");
 
+DEFINE_bool(fetch_loaded_tables_directly, false,
+    "When set, impalad coordinators that need to load table metadata in the legacy "
+    "catalog mode ask catalogd to return the loaded tables in the response of the load "
+    "request and add them to their catalog cache right away, instead of waiting for "
+    "the tables to arrive via the next statestore topic update. Has no effect when "
+    "--use_local_catalog is true.");
+
+DEFINE_int32(num_catalog_update_threads, 4,
+    "Number of threads that impalad coordinators use to deserialize the objects of a "
+    "catalog topic update in parallel, before applying them to the catalog cache. If "
+    "set to 1, the objects are deserialized serially while applying the update. Has no "
+    "effect when --use_local_catalog is true.");
+
+DEFINE_int32(authorization_decision_cache_size, 100000,
+    "Maximum number of authorization decisions cached by impalad coordinators when "
+    "authorization is enabled. Cached decisions are dropped whenever the authorization "
+    "policy changes. Set to 0 to disable the cache.");
+
+DEFINE_int32(authorization_group_cache_refresh_s, 60,
+    "Age in seconds after which the cached groups of a user are reloaded in the "
+    "background. The cached groups are still used while they are being reloaded.");
+
+DEFINE_int32(authorization_group_cache_expiry_s, 600,
+    "Age in seconds after which the cached groups of a user are dropped, e.g. because "
+    "they could not be reloaded. Set to 0 to disable the cache of user groups.");
+
+DEFINE_int32(stats_maintenance_interval_s, 0,
+    "Interval in seconds at which catalogd re-evaluates the freshness of table "
+    "statistics and builds the list of tables whose statistics should be recomputed, "
+    "along with the recommended COMPUTE STATS statement. The list is shown on the "
+    "/catalog page of the catalogd web UI and the statements are run on the "
+    "--stats_maintenance_coordinator if it is set. Set to 0 to disable the tracking of "
+    "stale statistics.");
+
+DEFINE_double(stats_maintenance_stale_ratio, 0.1,
+    "The fraction of a table's row count that needs to be modified by inserts since "
+    "the last COMPUTE STATS before catalogd considers its statistics stale.");
+
+DEFINE_int64(stats_maintenance_budget_bytes, 1LL << 40,
+    "Maximum total number of bytes that the statements recommended by one evaluation of "
+    "the stats maintenance are expected to scan. Tables that do not fit in the "
+    "remaining budget are recommended to be sampled with TABLESAMPLE if possible.");
+
+DEFINE_int32(exec_feedback_max_entries, 0,
+    "Maximum number of plan node cardinalities observed in completed queries that the "
+    "planner of this impalad remembers. The planner uses an observed cardinality "
+    "instead of its estimate when it plans a matching node again. Set to 0 to disable "
+    "the execution feedback.");
+
+DEFINE_int32(exec_feedback_ttl_s, 86400,
+    "Age in seconds after which an observed plan node cardinality is no longer used "
+    "by the planner.");
+
+DEFINE_int32(slow_planning_log_threshold_ms, 10000, "Statements whose planning takes "
+    "longer than this many milliseconds are logged with the time spent in each planner "
+    "phase and the sizes of the referenced tables. A value of 0 or less disables the "
+    "logging.");
+
 DEFINE_int32(invalidate_tables_timeout_s, 0, "If a table has not been referenced in a "
     "SQL statement for more than the configured amount of time, the catalog server will "
     "automatically evict its cached metadata about this table. This has the same effect "
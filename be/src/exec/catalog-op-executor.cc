@@ -17,6 +17,7 @@
 
 #include "exec/catalog-op-executor.h"
 
+#include <cmath>
 #include <sstream>
 
 #include "common/status.h"
@@ -135,7 +136,8 @@ Status CatalogOpExecutor::ExecComputeStats(
           compute_stats_params.expected_partitions,
           col_stats_data, compute_stats_params.num_partition_cols, &update_stats_params);
     } else {
-      SetColumnStats(col_stats_schema, col_stats_data, &update_stats_params);
+      SetColumnStats(col_stats_schema, col_stats_data,
+          compute_stats_params.histogram_cols, &update_stats_params);
     }
   }
 
@@ -247,16 +249,19 @@ void CatalogOpExecutor::SetTableStats(const TTableSchema& tbl_stats_schema,
 }
 
 void CatalogOpExecutor::SetColumnStats(const TTableSchema& col_stats_schema,
-    const TRowSet& col_stats_data, TAlterTableUpdateStatsParams* params) {
+    const TRowSet& col_stats_data, const vector<string>& histogram_cols,
+    TAlterTableUpdateStatsParams* params) {
   // Expect exactly one result row.
   DCHECK_EQ(1, col_stats_data.rows.size());
   const TRow& col_stats_row = col_stats_data.rows[0];
+  int num_stats_vals = col_stats_row.colVals.size() - histogram_cols.size();
+  DCHECK_GE(num_stats_vals, 0);
 
   // Set per-column stats. For a column at position i in its source table,
   // the NDVs and the number of NULLs are at position i and i + 1 of the
   // col_stats_row, respectively. Positions i + 2 and i + 3 contain the max/avg
   // length for string columns, and -1 for non-string columns.
-  for (int i = 0; i < col_stats_row.colVals.size(); i += 4) {
+  for (int i = 0; i < num_stats_vals; i += 4) {
     TColumnStats col_stats;
     col_stats.__set_num_distinct_values(col_stats_row.colVals[i].i64Val.value);
     col_stats.__set_num_nulls(col_stats_row.colVals[i + 1].i64Val.value);
@@ -264,6 +269,41 @@ void CatalogOpExecutor::SetColumnStats(const TTableSchema& col_stats_schema,
     col_stats.__set_avg_size(col_stats_row.colVals[i + 3].doubleVal.value);
     params->column_stats[col_stats_schema.columns[i].columnName] = col_stats;
   }
+
+  // The histograms of 'histogram_cols' follow the per-column stats, one value per
+  // column. Each histogram is a comma-separated list of bucket upper bounds, or NULL
+  // if the column only has NULL values.
+  for (int i = 0; i < histogram_cols.size(); ++i) {
+    const TColumnValue& col_val = col_stats_row.colVals[num_stats_vals + i];
+    if (!col_val.stringVal.__isset.value) continue;
+    auto it = params->column_stats.find(histogram_cols[i]);
+    if (it == params->column_stats.end()) continue;
+    const string& histogram = col_val.stringVal.value;
+    vector<double> bounds;
+    bool valid = true;
+    size_t start = 0;
+    while (valid && start < histogram.size()) {
+      size_t end = histogram.find(',', start);
+      if (end == string::npos) end = histogram.size();
+      size_t val_start = histogram.find_first_not_of(' ', start);
+      if (val_start == string::npos || val_start >= end) {
+        valid = false;
+        break;
+      }
+      StringParser::ParseResult result;
+      double bound = StringParser::StringToFloat<double>(
+          histogram.c_str() + val_start, end - val_start, &result);
+      valid = result == StringParser::PARSE_SUCCESS && !std::isnan(bound);
+      bounds.push_back(bound);
+      start = end + 1;
+    }
+    if (!valid || bounds.empty()) {
+      VLOG_QUERY << "Ignoring invalid histogram for column " << histogram_cols[i]
+                 << ": " << histogram;
+      continue;
+    }
+    it->second.__set_histogram_bounds(bounds);
+  }
   params->__isset.column_stats = true;
 }
 
@@ -109,6 +109,7 @@ class CatalogOpExecutor {
   static void SetColumnStats(
       const apache::hive::service::cli::thrift::TTableSchema& col_stats_schema,
       const apache::hive::service::cli::thrift::TRowSet& col_stats_data,
+      const std::vector<std::string>& histogram_cols,
       TAlterTableUpdateStatsParams* params);
 
   /// Response from executing the DDL request, see ddl_exec_response().
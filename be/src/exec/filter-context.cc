@@ -77,6 +77,11 @@ bool FilterContext::Eval(TupleRow* row) const noexcept {
   return filter->Eval(val, expr_eval->root().type());
 }
 
+bool FilterContext::EvalMinMax(TupleRow* row) const noexcept {
+  void* val = expr_eval->GetValue(row);
+  return filter->EvalMinMax(val, expr_eval->root().type());
+}
+
 void FilterContext::Insert(TupleRow* row) const noexcept {
   if (filter->is_bloom_filter()) {
     if (local_bloom_filter == nullptr) return;
@@ -111,6 +111,9 @@ struct FilterContext {
   /// a match in 'filter'. Returns false otherwise.
   bool Eval(TupleRow* row) const noexcept;
 
+  /// Same as Eval() for min-max filters, see RuntimeFilter::EvalMinMax().
+  bool EvalMinMax(TupleRow* row) const noexcept;
+
   /// Evaluates 'row' with 'expr_eval' and inserts the value into 'local_bloom_filter'
   /// or 'local_min_max_filter' as appropriate.
   void Insert(TupleRow* row) const noexcept;
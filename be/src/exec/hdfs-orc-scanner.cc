@@ -155,7 +155,7 @@ Status HdfsOrcScanner::Open(ScannerContext* context) {
     DCHECK(ctx.filter != nullptr);
     filter_ctxs_.push_back(&ctx);
   }
-  filter_stats_.resize(filter_ctxs_.size());
+  InitFilterStats();
   reader_mem_pool_.reset(new OrcMemPool(this));
   reader_options_.setMemoryPool(*reader_mem_pool_);
 
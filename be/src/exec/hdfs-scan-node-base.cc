@@ -44,6 +44,7 @@
 #include "runtime/runtime-filter.inline.h"
 #include "runtime/runtime-state.h"
 #include "util/disk-info.h"
+#include "util/flat_buffer.h"
 #include "util/hdfs-util.h"
 #include "util/periodic-counter-updater.h"
 #include "util/scope-exit-trigger.h"
@@ -58,6 +59,7 @@ namespace filesystem = boost::filesystem;
 using namespace impala;
 using namespace impala::io;
 using namespace strings;
+using namespace org::apache::impala::fb;
 
 const string HdfsScanNodeBase::HDFS_SPLIT_STATS_DESC =
     "Hdfs split stats (<volume id>:<# splits>/<split lengths>)";
@@ -192,6 +194,19 @@ Status HdfsScanNodeBase::Prepare(RuntimeState* state) {
       << "Must call SetScanRanges() before calling Prepare()";
   int num_ranges_missing_volume_id = 0;
   for (const TScanRangeParams& params: *scan_range_params_) {
+    if (params.scan_range.__isset.file_split_spec) {
+      const TFileSplitGeneratorSpec& spec = params.scan_range.file_split_spec;
+      HdfsPartitionDescriptor* partition_desc =
+          hdfs_table_->GetPartition(spec.partition_id);
+      if (partition_desc == nullptr) {
+        return Status("Query encountered invalid metadata, likely due to IMPALA-1702."
+                      " Try rerunning the query.");
+      }
+      partition_ids_.insert(spec.partition_id);
+      deferred_split_specs_.push_back(&params);
+      deferred_file_formats_.insert(partition_desc->file_format());
+      continue;
+    }
     DCHECK(params.scan_range.__isset.hdfs_file_split);
     const THdfsFileSplit& split = params.scan_range.hdfs_file_split;
     partition_ids_.insert(split.partition_id);
@@ -274,7 +289,11 @@ void HdfsScanNodeBase::Codegen(RuntimeState* state) {
     vector<HdfsFileDesc*>& file_descs =
         per_type_files_[static_cast<THdfsFileFormat::type>(format)];
 
-    if (file_descs.empty()) continue;
+    // The files of deferred split specs are only known once the filters have arrived.
+    if (file_descs.empty() && deferred_file_formats_.count(
+            static_cast<THdfsFileFormat::type>(format)) == 0) {
+      continue;
+    }
 
     // Randomize the order this node processes the files. We want to do this to avoid
     // issuing remote reads to the same DN from different impalads. In file formats such
@@ -476,8 +495,15 @@ Status HdfsScanNodeBase::IssueInitialScanRanges(RuntimeState* state) {
   }
 
   if (filter_ctxs_.size() > 0) WaitForRuntimeFilters();
-  // Apply dynamic partition-pruning per-file.
   FileFormatsMap matching_per_type_files;
+  if (!deferred_split_specs_.empty()) {
+    RETURN_IF_ERROR(ExpandDeferredSplitSpecs(&matching_per_type_files));
+    // Only the splits of the expanded files are known now.
+    int64_t total_splits = 0;
+    for (const auto& fd: file_descs_) total_splits += fd.second->splits.size();
+    progress_.Init(Substitute("Splits complete (node=$0)", id_), total_splits);
+  }
+  // Apply dynamic partition-pruning per-file.
   for (const FileFormatsMap::value_type& v: per_type_files_) {
     vector<HdfsFileDesc*>* matching_files = &matching_per_type_files[v.first];
     for (HdfsFileDesc* file: v.second) {
@@ -535,6 +561,87 @@ bool HdfsScanNodeBase::FilePassesFilterPredicates(
   return true;
 }
 
+Status HdfsScanNodeBase::ExpandDeferredSplitSpecs(
+    FileFormatsMap* matching_per_type_files) {
+  HdfsFsCache::HdfsFsMap fs_cache;
+  int num_expanded_specs = 0;
+  for (const TScanRangeParams* params: deferred_split_specs_) {
+    const TFileSplitGeneratorSpec* spec = &params->scan_range.file_split_spec;
+    if (!PartitionPassesFilters(spec->partition_id, FilterStats::FILES_KEY,
+            filter_ctxs_)) {
+      continue;
+    }
+    const FbFileDesc* fb_desc =
+        flatbuffers::GetRoot<FbFileDesc>(spec->file_desc.file_desc_data.c_str());
+    HdfsPartitionDescriptor* partition_desc =
+        hdfs_table_->GetPartition(spec->partition_id);
+    DCHECK(partition_desc != nullptr);
+    filesystem::path file_path(partition_desc->location());
+    file_path.append(fb_desc->file_name()->str(), filesystem::path::codecvt());
+    const string& native_file_path = file_path.native();
+
+    // The blocks of a file may be spread over several specs that share one descriptor.
+    HdfsFileDesc*& file_desc = file_descs_[make_pair(partition_desc->id(),
+        native_file_path)];
+    if (file_desc == nullptr) {
+      file_desc = runtime_state_->obj_pool()->Add(new HdfsFileDesc(native_file_path));
+      file_desc->file_length = fb_desc->length();
+      file_desc->mtime = fb_desc->last_modification_time();
+      file_desc->is_erasure_coded = fb_desc->is_ec();
+      RETURN_IF_ERROR(
+          FromFbCompression(fb_desc->compression(), &file_desc->file_compression));
+      RETURN_IF_ERROR(HdfsFsCache::instance()->GetConnection(
+          native_file_path, &file_desc->fs, &fs_cache));
+    }
+
+    // Specs of splittable files cover a block or a byte range of the file. Other specs
+    // cover the whole file, which is split at its block boundaries if it is splittable.
+    // Files without blocks are treated as a single block. Non-splittable files are read
+    // with a single range.
+    vector<pair<int64_t, int64_t>> blocks;
+    bool has_blocks =
+        fb_desc->file_blocks() != nullptr && fb_desc->file_blocks()->size() > 0;
+    if (spec->__isset.offset && spec->__isset.length) {
+      DCHECK(spec->is_splittable);
+      blocks.emplace_back(spec->offset, spec->length);
+    } else if (!spec->is_splittable || !has_blocks) {
+      blocks.emplace_back(0, fb_desc->length());
+    } else {
+      for (const FbFileBlock* block: *fb_desc->file_blocks()) {
+        blocks.emplace_back(block->offset(), block->length());
+      }
+    }
+    // The scheduler placed the spec by the replicas of its blocks.
+    bool expected_local = params->__isset.is_remote && !params->is_remote;
+    bool try_cache = params->is_cached;
+    size_t num_splits = file_desc->splits.size();
+    for (const auto& block: blocks) {
+      int64_t offset = block.first;
+      int64_t remaining = block.second;
+      while (remaining > 0) {
+        int64_t length = remaining;
+        if (spec->is_splittable && spec->max_block_size > 0) {
+          length = min(length, spec->max_block_size);
+        }
+        file_desc->splits.push_back(AllocateScanRange(file_desc->fs,
+            file_desc->filename.c_str(), length, offset, spec->partition_id,
+            params->volume_id, expected_local, file_desc->is_erasure_coded,
+            file_desc->mtime, BufferOpts(try_cache)));
+        offset += length;
+        remaining -= length;
+      }
+    }
+    if (file_desc->splits.size() == num_splits) continue;
+    ++num_expanded_specs;
+    if (num_splits == 0) {
+      (*matching_per_type_files)[partition_desc->file_format()].push_back(file_desc);
+    }
+  }
+  runtime_profile()->AddInfoString("Deferred split specs expanded",
+      Substitute("$0 of $1", num_expanded_specs, deferred_split_specs_.size()));
+  return Status::OK();
+}
+
 Status HdfsScanNodeBase::StartNextScanRange(int64_t* reservation,
     ScanRange** scan_range) {
   DiskIoMgr* io_mgr = ExecEnv::GetInstance()->disk_io_mgr();
@@ -763,7 +870,8 @@ bool HdfsScanNodeBase::PartitionPassesFilters(int32_t partition_id,
     }
 
     bool has_filter = ctx.filter->HasFilter();
-    bool passed_filter = !has_filter || ctx.Eval(tuple_row_mem);
+    bool passed_filter = !has_filter || (ctx.filter->is_min_max_filter() ?
+        ctx.EvalMinMax(tuple_row_mem) : ctx.Eval(tuple_row_mem));
     ctx.stats->IncrCounters(stats_name, 1, has_filter, !passed_filter);
     if (!passed_filter) return false;
   }
@@ -21,6 +21,7 @@
 
 #include <stdint.h>
 #include <memory>
+#include <set>
 #include <unordered_set>
 #include <vector>
 #include <tuple>
@@ -447,6 +448,14 @@ class HdfsScanNodeBase : public ScanNode {
     FileFormatsMap;
   FileFormatsMap per_type_files_;
 
+  /// Scan range params of whole files whose scan ranges are generated once the runtime
+  /// filters have arrived, see TScanRangeSpec.defer_split_specs. Owned by the instance
+  /// ctx.
+  std::vector<const TScanRangeParams*> deferred_split_specs_;
+
+  /// File formats of the partitions of 'deferred_split_specs_'. Populated in Prepare().
+  std::set<THdfsFileFormat::type> deferred_file_formats_;
+
   /// Scanner specific per file metadata (e.g. header information) and associated lock.
   /// Key of the map is partition_id, filename pair
   /// TODO: Remove this lock when removing the legacy scanners and scan nodes.
@@ -661,6 +670,16 @@ class HdfsScanNodeBase : public ScanNode {
   bool FilePassesFilterPredicates(const std::vector<FilterContext>& filter_ctxs,
       const THdfsFileFormat::type& file_type, HdfsFileDesc* file);
 
+  /// Creates the file descriptors and scan ranges of the specs in
+  /// 'deferred_split_specs_' whose partitions pass the runtime filters, and adds the
+  /// files to 'matching_per_type_files'. The specs of one file share its descriptor.
+  /// The files of the other partitions are never opened. The ranges cover the byte
+  /// range of a spec, or the blocks of its file if no range is set, and are split at
+  /// the maximum length of the specs. They are read from the volume and cache that the
+  /// scheduler assigned to the spec.
+  Status ExpandDeferredSplitSpecs(
+      FileFormatsMap* matching_per_type_files) WARN_UNUSED_RESULT;
+
   /// Stops periodic counters and aggregates counter values for the entire scan node.
   /// This should be called as soon as the scan node is complete to get the most accurate
   /// counter values.
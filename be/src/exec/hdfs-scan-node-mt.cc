@@ -56,6 +56,14 @@ Status HdfsScanNodeMt::Prepare(RuntimeState* state) {
       return Status(msg.str());
     }
   }
+  for (THdfsFileFormat::type format: deferred_file_formats_) {
+    if (format != THdfsFileFormat::PARQUET && format != THdfsFileFormat::ORC
+        && format != THdfsFileFormat::TEXT) {
+      stringstream msg;
+      msg << "Unsupported file format with HdfsScanNodeMt: " << format;
+      return Status(msg.str());
+    }
+  }
   return Status::OK();
 }
 
@@ -766,6 +766,13 @@ void HdfsScanner::ReportColumnParseError(const SlotDescriptor* desc,
   }
 }
 
+void HdfsScanner::InitFilterStats() {
+  filter_stats_.resize(filter_ctxs_.size());
+  for (int i = 0; i < filter_ctxs_.size(); ++i) {
+    if (filter_ctxs_[i]->filter->is_min_max_filter()) filter_stats_[i].enabled = 0;
+  }
+}
+
 void HdfsScanner::CheckFiltersEffectiveness() {
   for (int i = 0; i < filter_stats_.size(); ++i) {
     LocalFilterStats* stats = &filter_stats_[i];
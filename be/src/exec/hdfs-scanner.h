@@ -334,6 +334,11 @@ class HdfsScanner {
       "You can increase FOOTER_SIZE if you want, "
       "just don't forget to increase READ_SIZE_MIN_VALUE as well.");
 
+  /// Initializes 'filter_stats_' with one entry per filter in 'filter_ctxs_'. Min-max
+  /// filters are only evaluated per partition by the scan node, so their per-row
+  /// evaluation is disabled.
+  void InitFilterStats();
+
   /// Check runtime filters' effectiveness every BATCHES_PER_FILTER_SELECTIVITY_CHECK
   /// row batches. Will update 'filter_stats_'.
   void CheckFiltersEffectiveness();
@@ -202,6 +202,10 @@ Status KuduScanner::OpenNextScanToken(const string& scan_token, bool* eos) {
           int64_t int_max;
           if (col_type.type != filter->type()) {
             DCHECK(col_type.IsIntegerType());
+            // The planner does not assign filters from inequality predicates through
+            // casts, since a one-sided bound outside of the column range does not mean
+            // that all rows are filtered out.
+            DCHECK(!ctx.filter->filter_desc().__isset.compare_op);
 
             if (!filter->GetCastIntMinMax(col_type, &int_min, &int_max)) {
               // The min/max for this filter is outside the range for the target column,
@@ -214,19 +218,34 @@ Status KuduScanner::OpenNextScanToken(const string& scan_token, bool* eos) {
             max = &int_max;
           }
 
-          KuduValue* min_value;
-          RETURN_IF_ERROR(CreateKuduValue(col_type, min, &min_value));
-          KUDU_RETURN_IF_ERROR(
-              scanner_->AddConjunctPredicate(scan_node_->table_->NewComparisonPredicate(
-                  col_name, KuduPredicate::ComparisonOp::GREATER_EQUAL, min_value)),
-              BuildErrorString("Failed to add min predicate"));
-
-          KuduValue* max_value;
-          RETURN_IF_ERROR(CreateKuduValue(col_type, max, &max_value));
-          KUDU_RETURN_IF_ERROR(
-              scanner_->AddConjunctPredicate(scan_node_->table_->NewComparisonPredicate(
-                  col_name, KuduPredicate::ComparisonOp::LESS_EQUAL, max_value)),
-              BuildErrorString("Failed to add max predicate"));
+          // A filter generated from an inequality predicate only implies one bound.
+          // The inclusive comparison is used for strict inequalities, which is correct
+          // but may let some non-matching rows pass.
+          const TRuntimeFilterDesc& filter_desc = ctx.filter->filter_desc();
+          bool apply_min = !filter_desc.__isset.compare_op
+              || filter_desc.compare_op == extdatasource::TComparisonOp::GT
+              || filter_desc.compare_op == extdatasource::TComparisonOp::GE;
+          bool apply_max = !filter_desc.__isset.compare_op
+              || filter_desc.compare_op == extdatasource::TComparisonOp::LT
+              || filter_desc.compare_op == extdatasource::TComparisonOp::LE;
+
+          if (apply_min) {
+            KuduValue* min_value;
+            RETURN_IF_ERROR(CreateKuduValue(col_type, min, &min_value));
+            KUDU_RETURN_IF_ERROR(scanner_->AddConjunctPredicate(
+                scan_node_->table_->NewComparisonPredicate(
+                    col_name, KuduPredicate::ComparisonOp::GREATER_EQUAL, min_value)),
+                BuildErrorString("Failed to add min predicate"));
+          }
+
+          if (apply_max) {
+            KuduValue* max_value;
+            RETURN_IF_ERROR(CreateKuduValue(col_type, max, &max_value));
+            KUDU_RETURN_IF_ERROR(scanner_->AddConjunctPredicate(
+                scan_node_->table_->NewComparisonPredicate(
+                    col_name, KuduPredicate::ComparisonOp::LESS_EQUAL, max_value)),
+                BuildErrorString("Failed to add max predicate"));
+          }
         }
       }
     }
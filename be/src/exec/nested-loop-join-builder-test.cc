@@ -0,0 +1,228 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+#include <vector>
+#include <boost/scoped_ptr.hpp>
+
+#include "common/init.h"
+#include "exec/nested-loop-join-builder.h"
+#include "gutil/strings/substitute.h"
+#include "runtime/descriptors.h"
+#include "runtime/mem-pool.h"
+#include "runtime/row-batch.h"
+#include "runtime/runtime-filter-bank.h"
+#include "runtime/runtime-filter.inline.h"
+#include "runtime/test-env.h"
+#include "runtime/tuple-row.h"
+#include "service/fe-support.h"
+#include "testutil/gtest-util.h"
+#include "util/min-max-filter.h"
+#include "util/runtime-profile-counters.h"
+#include "util/test-info.h"
+
+#include "common/names.h"
+
+using namespace impala;
+using strings::Substitute;
+
+namespace impala {
+
+/// Tests the min-max runtime filters that the NljBuilder builds from its build rows
+/// and publishes to the local consumers of the fragment.
+class NljBuilderTest : public testing::Test {
+ protected:
+  scoped_ptr<TestEnv> test_env_;
+  RuntimeState* runtime_state_;
+  ObjectPool pool_;
+  RowDescriptor* row_desc_;
+
+  /// Owns the build batches. Cleared before the query states are torn down because the
+  /// batches reference the instance mem tracker.
+  ObjectPool batch_pool_;
+
+  virtual void SetUp() {
+    test_env_.reset(new TestEnv());
+    ASSERT_OK(test_env_->Init());
+
+    // Build rows consist of a single tuple with a single non-nullable int slot.
+    TTupleDescriptor tuple_desc;
+    tuple_desc.__set_id(0);
+    tuple_desc.__set_byteSize(4);
+    tuple_desc.__set_numNullBytes(0);
+    TDescriptorTable thrift_desc_tbl;
+    thrift_desc_tbl.tupleDescriptors.push_back(tuple_desc);
+    TSlotDescriptor slot_desc;
+    slot_desc.__set_id(0);
+    slot_desc.__set_parent(0);
+    slot_desc.__set_slotType(ColumnType(TYPE_INT).ToThrift());
+    slot_desc.__set_materializedPath(vector<int>(1, 0));
+    slot_desc.__set_byteOffset(0);
+    slot_desc.__set_nullIndicatorByte(0);
+    slot_desc.__set_nullIndicatorBit(-1);
+    slot_desc.__set_slotIdx(0);
+    thrift_desc_tbl.slotDescriptors.push_back(slot_desc);
+    DescriptorTbl* desc_tbl;
+    ASSERT_OK(DescriptorTbl::Create(&pool_, thrift_desc_tbl, &desc_tbl));
+    row_desc_ = pool_.Add(new RowDescriptor(*desc_tbl, vector<TTupleId>(1, 0),
+        vector<bool>(1, false)));
+
+    TQueryOptions query_options;
+    query_options.__set_runtime_filter_mode(TRuntimeFilterMode::GLOBAL);
+    ASSERT_OK(test_env_->CreateQueryState(0, &query_options, &runtime_state_, desc_tbl));
+    ASSERT_OK(runtime_state_->InitFilterBank(0));
+  }
+
+  virtual void TearDown() {
+    batch_pool_.Clear();
+    test_env_->TearDownQueries();
+    test_env_.reset();
+    pool_.Clear();
+  }
+
+  /// Returns the descriptor of a min-max filter on the int slot with a local target.
+  /// The comparison op is only set if 'compare_op' is non-NULL.
+  TRuntimeFilterDesc CreateFilterDesc(
+      int filter_id, const extdatasource::TComparisonOp::type* compare_op) {
+    TSlotRef slot_ref;
+    slot_ref.__set_slot_id(0);
+    TExprNode node;
+    node.__set_node_type(TExprNodeType::SLOT_REF);
+    node.__set_type(ColumnType(TYPE_INT).ToThrift());
+    node.__set_num_children(0);
+    node.__set_is_constant(false);
+    node.__set_slot_ref(slot_ref);
+    TExpr src_expr;
+    src_expr.nodes.push_back(node);
+
+    TRuntimeFilterDesc desc;
+    desc.__set_filter_id(filter_id);
+    desc.__set_src_expr(src_expr);
+    desc.__set_is_broadcast_join(true);
+    desc.__set_has_local_targets(true);
+    desc.__set_has_remote_targets(false);
+    desc.__set_applied_on_partition_columns(false);
+    desc.__set_type(TRuntimeFilterType::MIN_MAX);
+    if (compare_op != nullptr) desc.__set_compare_op(*compare_op);
+    return desc;
+  }
+
+  /// Returns a batch with one build row per value in 'vals'. The batch has the same
+  /// capacity as the builder's batches so that the builder can acquire its state.
+  RowBatch* CreateRowBatch(const vector<int32_t>& vals) {
+    RowBatch* batch = batch_pool_.Add(new RowBatch(row_desc_,
+        runtime_state_->batch_size(), runtime_state_->instance_mem_tracker()));
+    int32_t* tuple_mem = reinterpret_cast<int32_t*>(
+        batch->tuple_data_pool()->Allocate(sizeof(int32_t) * vals.size()));
+    for (int32_t val : vals) {
+      TupleRow* row = batch->GetRow(batch->AddRow());
+      *tuple_mem = val;
+      row->SetTuple(0, reinterpret_cast<Tuple*>(tuple_mem));
+      batch->CommitLastRow();
+      ++tuple_mem;
+    }
+    return batch;
+  }
+
+  /// Sends 'batches' through a builder that produces the filters in 'filter_descs'.
+  /// Checks that the builder reports 'expected_published' published filters.
+  void BuildFilters(const vector<TRuntimeFilterDesc>& filter_descs,
+      const vector<RowBatch*>& batches, int expected_published) {
+    NljBuilder builder(row_desc_, runtime_state_);
+    ASSERT_OK(builder.InitFilters(runtime_state_, filter_descs));
+    ASSERT_OK(builder.Prepare(runtime_state_, runtime_state_->instance_mem_tracker()));
+    ASSERT_OK(builder.Open(runtime_state_));
+    for (RowBatch* batch : batches) ASSERT_OK(builder.Send(runtime_state_, batch));
+    ASSERT_OK(builder.FlushFinal(runtime_state_));
+    const string* info = builder.profile()->GetInfoString("Runtime filters");
+    ASSERT_TRUE(info != nullptr);
+    EXPECT_EQ(Substitute("$0 of $1 Runtime Filter$2 Published", expected_published,
+        filter_descs.size(), filter_descs.size() == 1 ? "" : "s"), *info);
+    builder.Close(runtime_state_);
+  }
+};
+
+// Tests that the builder publishes the min and max of the build rows to the local
+// consumers and that the consumers only check the bound implied by the comparison op.
+TEST_F(NljBuilderTest, PublishRangeFilters) {
+  extdatasource::TComparisonOp::type lt = extdatasource::TComparisonOp::LT;
+  extdatasource::TComparisonOp::type gt = extdatasource::TComparisonOp::GT;
+  vector<TRuntimeFilterDesc> filter_descs;
+  filter_descs.push_back(CreateFilterDesc(0, &lt));
+  filter_descs.push_back(CreateFilterDesc(1, &gt));
+  filter_descs.push_back(CreateFilterDesc(2, nullptr));
+  vector<RuntimeFilter*> consumers;
+  for (const TRuntimeFilterDesc& desc : filter_descs) {
+    consumers.push_back(runtime_state_->filter_bank()->RegisterFilter(desc, false));
+    EXPECT_FALSE(consumers.back()->HasFilter());
+  }
+
+  vector<RowBatch*> batches;
+  batches.push_back(CreateRowBatch({15, 10}));
+  batches.push_back(CreateRowBatch({20, 12}));
+  BuildFilters(filter_descs, batches, 3);
+
+  ColumnType int_type(TYPE_INT);
+  for (RuntimeFilter* consumer : consumers) {
+    ASSERT_TRUE(consumer->HasFilter());
+    MinMaxFilter* min_max = consumer->get_min_max();
+    ASSERT_TRUE(min_max != nullptr);
+    EXPECT_EQ(10, *reinterpret_cast<int32_t*>(min_max->GetMin()));
+    EXPECT_EQ(20, *reinterpret_cast<int32_t*>(min_max->GetMax()));
+  }
+
+  int32_t below = 5;
+  int32_t within = 15;
+  int32_t max = 20;
+  int32_t above = 25;
+  // 'target < src' rejects values that are not less than the max.
+  EXPECT_TRUE(consumers[0]->EvalMinMax(&below, int_type));
+  EXPECT_TRUE(consumers[0]->EvalMinMax(&within, int_type));
+  EXPECT_FALSE(consumers[0]->EvalMinMax(&max, int_type));
+  EXPECT_FALSE(consumers[0]->EvalMinMax(&above, int_type));
+  // 'target > src' rejects values that are not greater than the min.
+  EXPECT_FALSE(consumers[1]->EvalMinMax(&below, int_type));
+  EXPECT_TRUE(consumers[1]->EvalMinMax(&within, int_type));
+  EXPECT_TRUE(consumers[1]->EvalMinMax(&above, int_type));
+  // A filter without a comparison op rejects values outside of [min, max].
+  EXPECT_FALSE(consumers[2]->EvalMinMax(&below, int_type));
+  EXPECT_TRUE(consumers[2]->EvalMinMax(&max, int_type));
+  EXPECT_FALSE(consumers[2]->EvalMinMax(&above, int_type));
+}
+
+// Tests that an empty build side publishes filters that reject all rows.
+TEST_F(NljBuilderTest, PublishEmptyRangeFilter) {
+  extdatasource::TComparisonOp::type lt = extdatasource::TComparisonOp::LT;
+  vector<TRuntimeFilterDesc> filter_descs(1, CreateFilterDesc(0, &lt));
+  RuntimeFilter* consumer =
+      runtime_state_->filter_bank()->RegisterFilter(filter_descs[0], false);
+  BuildFilters(filter_descs, vector<RowBatch*>(), 1);
+
+  ASSERT_TRUE(consumer->HasFilter());
+  EXPECT_TRUE(consumer->AlwaysFalse());
+  int32_t val = 5;
+  EXPECT_FALSE(consumer->EvalMinMax(&val, ColumnType(TYPE_INT)));
+  EXPECT_FALSE(consumer->EvalMinMax(nullptr, ColumnType(TYPE_INT)));
+}
+
+}
+
+int main(int argc, char** argv) {
+  ::testing::InitGoogleTest(&argc, argv);
+  impala::InitCommonRuntime(argc, argv, true, impala::TestInfo::BE_TEST);
+  impala::InitFeSupport();
+  return RUN_ALL_TESTS();
+}
@@ -18,25 +18,64 @@
 #include "exec/nested-loop-join-builder.h"
 
 #include <utility>
+#include <gutil/strings/substitute.h>
 
+#include "exprs/scalar-expr-evaluator.h"
+#include "exprs/scalar-expr.h"
 #include "runtime/mem-tracker.h"
 #include "runtime/row-batch.h"
+#include "runtime/runtime-filter-bank.h"
+#include "runtime/runtime-filter.h"
 #include "runtime/runtime-state.h"
+#include "util/min-max-filter.h"
 
 #include "common/names.h"
 
 using namespace impala;
+using strings::Substitute;
 
 NljBuilder::NljBuilder(const RowDescriptor* row_desc, RuntimeState* state)
   : DataSink(-1, row_desc, "Nested Loop Join Builder", state),
-    build_batch_cache_(row_desc, state->batch_size()) {}
+    build_batch_cache_(row_desc, state->batch_size()),
+    runtime_state_(state) {}
+
+Status NljBuilder::InitFilters(RuntimeState* state,
+    const vector<TRuntimeFilterDesc>& filter_descs) {
+  for (const TRuntimeFilterDesc& filter_desc : filter_descs) {
+    DCHECK(state->query_options().runtime_filter_mode == TRuntimeFilterMode::GLOBAL ||
+        filter_desc.is_broadcast_join);
+    DCHECK(!state->query_options().disable_row_runtime_filtering ||
+        filter_desc.applied_on_partition_columns);
+    // The planner only generates min-max filters for nested loop joins.
+    DCHECK_EQ(filter_desc.type, TRuntimeFilterType::MIN_MAX);
+    ScalarExpr* filter_expr;
+    RETURN_IF_ERROR(
+        ScalarExpr::Create(filter_desc.src_expr, *row_desc_, state, &filter_expr));
+    filter_exprs_.push_back(filter_expr);
+    filter_ctxs_.emplace_back();
+    filter_ctxs_.back().filter = state->filter_bank()->RegisterFilter(filter_desc, true);
+  }
+  return Status::OK();
+}
 
 Status NljBuilder::Prepare(RuntimeState* state, MemTracker* parent_mem_tracker) {
   RETURN_IF_ERROR(DataSink::Prepare(state, parent_mem_tracker));
+  DCHECK_EQ(filter_exprs_.size(), filter_ctxs_.size());
+  for (int i = 0; i < filter_exprs_.size(); ++i) {
+    RETURN_IF_ERROR(ScalarExprEvaluator::Create(*filter_exprs_[i], state, &obj_pool_,
+        expr_perm_pool_.get(), expr_results_pool_.get(), &filter_ctxs_[i].expr_eval));
+  }
   return Status::OK();
 }
 
 Status NljBuilder::Open(RuntimeState* state) {
+  for (FilterContext& ctx : filter_ctxs_) {
+    RETURN_IF_ERROR(ctx.expr_eval->Open(state));
+    if (ctx.local_min_max_filter == nullptr) {
+      ctx.local_min_max_filter = state->filter_bank()->AllocateScratchMinMaxFilter(
+          ctx.filter->id(), ctx.expr_eval->root().type());
+    }
+  }
   return Status::OK();
 }
 
@@ -69,9 +108,34 @@ Status NljBuilder::FlushFinal(RuntimeState* state) {
 
   DCHECK(copied_build_batches_.total_num_rows() == 0 ||
       input_build_batches_.total_num_rows() == 0);
+  if (!filter_ctxs_.empty()) BuildAndPublishRuntimeFilters(GetFinalBuildBatches());
   return Status::OK();
 }
 
+void NljBuilder::BuildAndPublishRuntimeFilters(RowBatchList* build_batches) {
+  for (RowBatchList::BatchIterator it = build_batches->BatchesBegin();
+       it != build_batches->BatchesEnd(); ++it) {
+    RowBatch* batch = *it;
+    for (int i = 0; i < batch->num_rows(); ++i) {
+      TupleRow* row = batch->GetRow(i);
+      for (const FilterContext& ctx : filter_ctxs_) ctx.Insert(row);
+    }
+    for (const FilterContext& ctx : filter_ctxs_) ctx.MaterializeValues();
+    expr_results_pool_->Clear();
+  }
+  int num_enabled_filters = 0;
+  for (const FilterContext& ctx : filter_ctxs_) {
+    if (ctx.local_min_max_filter != nullptr && !ctx.local_min_max_filter->AlwaysTrue()) {
+      ++num_enabled_filters;
+    }
+    runtime_state_->filter_bank()->UpdateFilterFromLocal(
+        ctx.filter->id(), nullptr, ctx.local_min_max_filter);
+  }
+  profile()->AddInfoString("Runtime filters",
+      Substitute("$0 of $1 Runtime Filter$2 Published", num_enabled_filters,
+          filter_ctxs_.size(), filter_ctxs_.size() == 1 ? "" : "s"));
+}
+
 void NljBuilder::Reset() {
   build_batch_cache_.Reset();
   input_build_batches_.Reset();
@@ -80,6 +144,11 @@ void NljBuilder::Reset() {
 
 void NljBuilder::Close(RuntimeState* state) {
   if (closed_) return;
+  for (const FilterContext& ctx : filter_ctxs_) {
+    if (ctx.expr_eval != nullptr) ctx.expr_eval->Close(state);
+  }
+  ScalarExpr::Close(filter_exprs_);
+  obj_pool_.Clear();
   build_batch_cache_.Clear();
   input_build_batches_.Reset();
   copied_build_batches_.Reset();
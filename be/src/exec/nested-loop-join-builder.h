@@ -20,6 +20,7 @@
 
 #include "exec/blocking-join-node.h"
 #include "exec/data-sink.h"
+#include "exec/filter-context.h"
 #include "exec/row-batch-cache.h"
 #include "exec/row-batch-list.h"
 #include "runtime/descriptors.h"
@@ -35,10 +36,19 @@ namespace impala {
 /// tuple memory, the non-copying mode is used and row batches are simply accumulated in
 /// the builder. If the batches reference tuple data they do not own, the copying mode
 /// is used and all data is deep copied into memory owned by the builder.
+///
+/// The builder also populates the min-max runtime filters of the join from the final
+/// build rows in FlushFinal(). These are generated by the planner from the inequality
+/// predicates of the join.
 class NljBuilder : public DataSink {
  public:
   NljBuilder(const RowDescriptor* row_desc, RuntimeState* state);
 
+  /// Creates the source exprs of the runtime filters in 'filter_descs' and registers the
+  /// filters as produced by this builder. Must be called before Prepare().
+  Status InitFilters(RuntimeState* state,
+      const std::vector<TRuntimeFilterDesc>& filter_descs) WARN_UNUSED_RESULT;
+
   /// Implementations of DataSink interface methods.
   virtual Status Prepare(RuntimeState* state, MemTracker* parent_mem_tracker) override;
   virtual Status Open(RuntimeState* state) override;
@@ -83,6 +93,21 @@ class NljBuilder : public DataSink {
   /// the row batches to be cleaned up later when the node is closed.
   Status DeepCopyBuildBatches(RuntimeState* state);
 
+  /// Inserts all rows of 'build_batches' into the runtime filters and publishes the
+  /// filters to the fragment-local RuntimeFilterBank.
+  void BuildAndPublishRuntimeFilters(RowBatchList* build_batches);
+
+  RuntimeState* const runtime_state_;
+
+  /// Pool for objects with the same lifetime as the builder.
+  ObjectPool obj_pool_;
+
+  /// Expressions for evaluating build rows for insertion into runtime filters.
+  std::vector<ScalarExpr*> filter_exprs_;
+
+  /// List of filters to build. One-to-one correspondence with exprs in 'filter_exprs_'.
+  std::vector<FilterContext> filter_ctxs_;
+
   /// Creates and caches RowBatches for the build side. The RowBatch objects are owned
   /// by this cache. The cache helps to avoid creating new RowBatches after a Reset().
   RowBatchCache build_batch_cache_;
@@ -59,6 +59,8 @@ Status NestedLoopJoinNode::Init(const TPlanNode& tnode, RuntimeState* state) {
       full_row_desc, state, &join_conjuncts_));
   DCHECK(tnode.nested_loop_join_node.join_op != TJoinOp::CROSS_JOIN ||
       join_conjuncts_.size() == 0) << "Join conjuncts in a cross join";
+  builder_.reset(new NljBuilder(child(1)->row_desc(), state));
+  RETURN_IF_ERROR(builder_->InitFilters(state, tnode.runtime_filters));
   return Status::OK();
 }
 
@@ -102,7 +104,6 @@ Status NestedLoopJoinNode::Prepare(RuntimeState* state) {
   RETURN_IF_ERROR(BlockingJoinNode::Prepare(state));
   RETURN_IF_ERROR(ScalarExprEvaluator::Create(join_conjuncts_, state,
       pool_, expr_perm_pool(), expr_results_pool(), &join_conjunct_evals_));
-  builder_.reset(new NljBuilder(child(1)->row_desc(), state));
   RETURN_IF_ERROR(builder_->Prepare(state, mem_tracker()));
   runtime_profile()->PrependChild(builder_->profile());
 
@@ -161,7 +161,7 @@ Status HdfsParquetScanner::Open(ScannerContext* context) {
     DCHECK(ctx->filter != nullptr);
     filter_ctxs_.push_back(ctx);
   }
-  filter_stats_.resize(filter_ctxs_.size());
+  InitFilterStats();
 
   DCHECK(parse_status_.ok()) << "Invalid parse_status_" << parse_status_.GetDetail();
 
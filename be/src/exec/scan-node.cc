@@ -97,10 +97,13 @@ Status ScanNode::Init(const TPlanNode& tnode, RuntimeState* state) {
     FilterContext& filter_ctx = filter_ctxs_.back();
     filter_ctx.filter = state->filter_bank()->RegisterFilter(filter_desc, false);
     // TODO: Enable stats for min-max filters when Kudu exposes info about filters
-    // (KUDU-2162).
-    if (filter_ctx.filter->is_bloom_filter()) {
-      string filter_profile_title = Substitute("Filter $0 ($1)", filter_desc.filter_id,
-          PrettyPrinter::Print(filter_ctx.filter->filter_size(), TUnit::BYTES));
+    // (KUDU-2162). HDFS scans evaluate min-max filters per partition and track them.
+    if (filter_ctx.filter->is_bloom_filter()
+        || tnode.node_type == TPlanNodeType::HDFS_SCAN_NODE) {
+      string filter_profile_title = filter_ctx.filter->is_bloom_filter() ?
+          Substitute("Filter $0 ($1)", filter_desc.filter_id,
+              PrettyPrinter::Print(filter_ctx.filter->filter_size(), TUnit::BYTES)) :
+          Substitute("Filter $0 (min-max)", filter_desc.filter_id);
       RuntimeProfile* profile =
           RuntimeProfile::Create(state->obj_pool(), filter_profile_title);
       runtime_profile_->AddChild(profile);
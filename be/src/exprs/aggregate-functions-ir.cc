@@ -1392,10 +1392,13 @@ StringVal AggregateFunctions::HistogramFinalize(FunctionContext* ctx,
   src_state->SortSamples();
 
   stringstream out;
-  int num_buckets = min(src_state->num_samples(), NUM_BUCKETS);
-  int samples_per_bucket = max(src_state->num_samples() / NUM_BUCKETS, 1);
+  int64_t num_samples = src_state->num_samples();
+  int num_buckets = min<int64_t>(num_samples, NUM_BUCKETS);
   for (int bucket_idx = 0; bucket_idx < num_buckets; ++bucket_idx) {
-    int sample_idx = (bucket_idx + 1) * samples_per_bucket - 1;
+    // The upper bound of bucket i is the sample at rank ceil((i + 1) * n / num_buckets),
+    // which spreads the samples evenly over the buckets and makes the upper bound of the
+    // last bucket the largest sample.
+    int sample_idx = ((bucket_idx + 1) * num_samples + num_buckets - 1) / num_buckets - 1;
     PrintSample<T>(*(src_state->GetSample(sample_idx)), &out);
     if (bucket_idx < (num_buckets - 1)) out << ", ";
   }
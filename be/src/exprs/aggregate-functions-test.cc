@@ -93,6 +93,30 @@ TEST(HistogramTest, TestInt) {
         << test_histogram.GetErrorMsg();
   }
 
+  // All 150 input values are kept in the sample. The upper bound of bucket i is the
+  // value at rank ceil((i + 1) * 150 / 100), and the last upper bound is the maximum.
+  {
+    vector<IntVal> input;
+    for (int i = 0; i < 150; ++i) input.push_back(i);
+    char expected[] = "1, 2, 4, 5, 7, 8, 10, 11, 13, 14, 16, 17, 19, 20, 22, 23, 25, 26, "
+      "28, 29, 31, 32, 34, 35, 37, 38, 40, 41, 43, 44, 46, 47, 49, 50, 52, 53, 55, 56, "
+      "58, 59, 61, 62, 64, 65, 67, 68, 70, 71, 73, 74, 76, 77, 79, 80, 82, 83, 85, 86, "
+      "88, 89, 91, 92, 94, 95, 97, 98, 100, 101, 103, 104, 106, 107, 109, 110, 112, 113, "
+      "115, 116, 118, 119, 121, 122, 124, 125, 127, 128, 130, 131, 133, 134, 136, 137, "
+      "139, 140, 142, 143, 145, 146, 148, 149";
+    EXPECT_TRUE(test_histogram.Execute(input, StringVal(&expected[0])))
+        << test_histogram.GetErrorMsg();
+  }
+
+  // Fewer input values than buckets. Every value is the upper bound of a bucket.
+  {
+    vector<IntVal> input;
+    for (int i = 0; i < 5; ++i) input.push_back(4 - i);
+    char expected[] = "0, 1, 2, 3, 4";
+    EXPECT_TRUE(test_histogram.Execute(input, StringVal(&expected[0])))
+        << test_histogram.GetErrorMsg();
+  }
+
   // Now check input values ranging from 0 to 100,000. Each bucket should have 1000
   // values, i.e. bucket i should approximately contain values [100*i, 100*(i+1)]. We
   // check the distribution of the deltas between histogram values is not too large.
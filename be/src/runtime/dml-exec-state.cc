@@ -137,9 +137,12 @@ int64_t DmlExecState::GetNumModifiedRows() {
 
 bool DmlExecState::PrepareCatalogUpdate(TUpdateCatalogRequest* catalog_update) {
   lock_guard<mutex> l(lock_);
+  int64_t num_modified_rows = 0;
   for (const PartitionStatusMap::value_type& partition : per_partition_status_) {
     catalog_update->created_partitions.insert(partition.first);
+    num_modified_rows += partition.second.num_modified_rows();
   }
+  catalog_update->__set_num_modified_rows(num_modified_rows);
   return catalog_update->created_partitions.size() != 0;
 }
 
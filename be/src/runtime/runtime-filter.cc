@@ -35,3 +35,28 @@ bool RuntimeFilter::WaitForArrival(int32_t timeout_ms) const {
 
   return HasFilter();
 }
+
+bool RuntimeFilter::EvalMinMax(void* val, const ColumnType& col_type) const {
+  DCHECK(is_min_max_filter());
+  MinMaxFilter* filter = min_max_filter_.Load();
+  if (filter == nullptr || filter->AlwaysTrue()) return true;
+  if (filter->AlwaysFalse()) return false;
+  if (val == nullptr) return true;
+  if (!filter_desc_.__isset.compare_op) {
+    return RawValue::Compare(val, filter->GetMin(), col_type) >= 0
+        && RawValue::Compare(val, filter->GetMax(), col_type) <= 0;
+  }
+  switch (filter_desc_.compare_op) {
+    case extdatasource::TComparisonOp::LT:
+      return RawValue::Compare(val, filter->GetMax(), col_type) < 0;
+    case extdatasource::TComparisonOp::LE:
+      return RawValue::Compare(val, filter->GetMax(), col_type) <= 0;
+    case extdatasource::TComparisonOp::GT:
+      return RawValue::Compare(val, filter->GetMin(), col_type) > 0;
+    case extdatasource::TComparisonOp::GE:
+      return RawValue::Compare(val, filter->GetMin(), col_type) >= 0;
+    default:
+      DCHECK(false) << "Unexpected compare op " << filter_desc_.compare_op;
+      return true;
+  }
+}
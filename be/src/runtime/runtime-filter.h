@@ -76,6 +76,13 @@ class RuntimeFilter {
   /// Inlined in IR so that the constant 'col_type' can be propagated.
   bool IR_ALWAYS_INLINE Eval(void* val, const ColumnType& col_type) const noexcept;
 
+  /// Returns false iff this is a min-max filter that has arrived and 'val' lies outside
+  /// of the bounds of the filter. If the filter was generated from an inequality
+  /// predicate, only the bound implied by 'compare_op' of the filter descriptor is
+  /// checked. NULL values are never rejected. Not inlined in IR because min-max filters
+  /// are only evaluated per partition, not per row.
+  bool EvalMinMax(void* val, const ColumnType& col_type) const;
+
   /// Returns the amount of time waited since registration for the filter to
   /// arrive. Returns 0 if filter has not yet arrived.
   int32_t arrival_delay() const {
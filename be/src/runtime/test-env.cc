@@ -132,8 +132,8 @@ int64_t TestEnv::TotalQueryMemoryConsumption() {
   return total;
 }
 
-Status TestEnv::CreateQueryState(
-    int64_t query_id, const TQueryOptions* query_options, RuntimeState** runtime_state) {
+Status TestEnv::CreateQueryState(int64_t query_id, const TQueryOptions* query_options,
+    RuntimeState** runtime_state, DescriptorTbl* desc_tbl) {
   TQueryCtx query_ctx;
   if (query_options != nullptr) query_ctx.client_request.query_options = *query_options;
   query_ctx.query_id.hi = 0;
@@ -160,6 +160,7 @@ Status TestEnv::CreateQueryState(
   rpc_params.__set_fragment_instance_ctxs(
       vector<TPlanFragmentInstanceCtx>({TPlanFragmentInstanceCtx()}));
   RETURN_IF_ERROR(qs->Init(rpc_params));
+  if (desc_tbl != nullptr) qs->desc_tbl_ = desc_tbl;
   FragmentInstanceState* fis = qs->obj_pool()->Add(
       new FragmentInstanceState(qs, qs->exec_rpc_params().fragment_ctxs[0],
           qs->exec_rpc_params().fragment_instance_ctxs[0]));
@@ -60,9 +60,11 @@ class TestEnv {
   /// Create a QueryState and a RuntimeState for a query with the given query options.
   /// The states are owned by the TestEnv. Returns an error if CreateQueryState() has
   /// been called with the same query ID already. 'runtime_state' is set to the newly
-  /// created RuntimeState. The QueryState can be obtained via 'runtime_state'.
-  Status CreateQueryState(
-      int64_t query_id, const TQueryOptions* query_options, RuntimeState** runtime_state);
+  /// created RuntimeState. The QueryState can be obtained via 'runtime_state'. If
+  /// 'desc_tbl' is non-NULL, it is installed as the descriptor table of the query. It
+  /// must stay alive until TearDownQueries() is called.
+  Status CreateQueryState(int64_t query_id, const TQueryOptions* query_options,
+      RuntimeState** runtime_state, DescriptorTbl* desc_tbl = nullptr);
 
   /// Destroy all query states and associated RuntimeStates, etc, that were created since
   /// the last TearDownQueries() call.
@@ -80,6 +80,8 @@ DEFINE_bool(disable_pool_max_requests, false, "Disables all per-pool limits on t
 static const string DEFAULT_POOL_NAME = "default-pool";
 
 static const string RESOLVE_POOL_METRIC_NAME = "request-pool-service.resolve-pool-duration-ms";
+static const string GET_POOL_CONFIG_METRIC_NAME =
+    "request-pool-service.get-pool-config-duration-ms";
 
 static const string ERROR_USER_TO_POOL_MAPPING_NOT_FOUND =
     "No mapping found for request from user '$0' with requested pool '$1'";
@@ -89,10 +91,12 @@ static const string ERROR_USER_NOT_SPECIFIED = "User must be specified because "
     "-require_username=true.";
 
 RequestPoolService::RequestPoolService(MetricGroup* metrics) :
-    resolve_pool_ms_metric_(NULL) {
+    resolve_pool_ms_metric_(NULL), get_pool_config_ms_metric_(NULL) {
   DCHECK(metrics != NULL);
   resolve_pool_ms_metric_ =
       StatsMetric<double>::CreateAndRegister(metrics, RESOLVE_POOL_METRIC_NAME);
+  get_pool_config_ms_metric_ =
+      StatsMetric<double>::CreateAndRegister(metrics, GET_POOL_CONFIG_METRIC_NAME);
 
   if (FLAGS_fair_scheduler_allocation_path.empty()) {
     default_pool_only_ = true;
@@ -166,10 +170,12 @@ Status RequestPoolService::ResolveRequestPool(const TQueryCtx& ctx,
   params.__set_user(user);
   params.__set_requested_pool(requested_pool);
   TResolveRequestPoolResult result;
-  int64_t start_time = MonotonicMillis();
+  // Resolutions are usually served from the cache in the FE and take well below a
+  // millisecond, so the duration is measured in microseconds.
+  int64_t start_time = MonotonicMicros();
   Status status = JniUtil::CallJniMethod(request_pool_service_, resolve_request_pool_id_,
       params, &result);
-  resolve_pool_ms_metric_->Update(MonotonicMillis() - start_time);
+  resolve_pool_ms_metric_->Update((MonotonicMicros() - start_time) / 1000.0);
 
   if (result.status.status_code != TErrorCode::OK) {
     return Status(boost::algorithm::join(result.status.error_msgs, "; "));
@@ -203,8 +209,11 @@ Status RequestPoolService::GetPoolConfig(const string& pool_name,
 
   TPoolConfigParams params;
   params.__set_pool(pool_name);
-  RETURN_IF_ERROR(JniUtil::CallJniMethod(
-        request_pool_service_, get_pool_config_id_, params, pool_config));
+  int64_t start_time = MonotonicMicros();
+  Status status = JniUtil::CallJniMethod(
+      request_pool_service_, get_pool_config_id_, params, pool_config);
+  get_pool_config_ms_metric_->Update((MonotonicMicros() - start_time) / 1000.0);
+  RETURN_IF_ERROR(status);
   if (FLAGS_disable_pool_max_requests) pool_config->__set_max_requests(-1);
   if (FLAGS_disable_pool_mem_limits) pool_config->__set_max_mem_resources(-1);
   return Status::OK();
@@ -56,6 +56,9 @@ class RequestPoolService {
   /// Metric measuring the time ResolveRequestPool() takes, in milliseconds.
   StatsMetric<double>* resolve_pool_ms_metric_;
 
+  /// Metric measuring the time GetPoolConfig() takes, in milliseconds.
+  StatsMetric<double>* get_pool_config_ms_metric_;
+
   /// True if the pool configuration files are not provided. ResolveRequestPool() will
   /// always return the default-pool and GetPoolConfig() will always return the limits
   /// specified by the default pool gflags, which are unlimited unless specified via
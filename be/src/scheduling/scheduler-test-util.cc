@@ -236,8 +236,20 @@ const TScanRangeSpec& Plan::scan_range_specs() const {
 void Plan::AddTableScan(const TableName& table_name) {
   const Table& table = schema_.GetTable(table_name);
   const vector<Block>& blocks = table.blocks;
+  // Deferred blocks are shipped like the planner does, as one spec per block of a single
+  // file that covers all blocks of the table.
+  int64_t file_length = 0;
+  for (const Block& block : blocks) file_length += block.length;
+  int64_t block_offset = 0;
   for (int i = 0; i < blocks.size(); ++i) {
     const Block& block = blocks[i];
+    if (scan_range_specs_.defer_split_specs) {
+      TFileSplitGeneratorSpec spec;
+      BuildBlockSpec(table_name, block, block_offset, file_length, &spec);
+      scan_range_specs_.split_specs.push_back(spec);
+      block_offset += block.length;
+      continue;
+    }
     TScanRangeLocationList scan_range_locations;
     BuildTScanRangeLocationList(table_name, block, i, &scan_range_locations);
     scan_range_specs_.concrete_ranges.push_back(scan_range_locations);
@@ -280,9 +292,43 @@ void Plan::BuildScanRange(const TableName& table_name, const Block& block, int b
   file_split.file_length = block.length;
   file_split.file_compression = THdfsCompression::NONE;
   file_split.mtime = 1;
+  if (num_buckets_ > 0) file_split.__set_bucket_id(block_idx % num_buckets_);
   scan_range->__set_hdfs_file_split(file_split);
 }
 
+void Plan::BuildBlockSpec(const TableName& table_name, const Block& block,
+    int64_t offset, int64_t file_length, TFileSplitGeneratorSpec* thrift_spec) {
+  const vector<int>& replica_idxs = block.replica_host_idxs;
+  const vector<bool>& is_cached = block.replica_host_idx_is_cached;
+  DCHECK_EQ(replica_idxs.size(), is_cached.size());
+  // The replica host indexes are plan-local and store whether the replica is cached in
+  // their most significant bit.
+  vector<uint16_t> fb_replica_idxs;
+  for (int i = 0; i < replica_idxs.size(); ++i) {
+    int host_idx = FindOrInsertDatanodeIndex(replica_idxs[i]);
+    fb_replica_idxs.push_back(host_idx | (is_cached[i] ? 1 << 15 : 0));
+  }
+
+  flatbuffers::FlatBufferBuilder fb_builder;
+  auto file_name = fb_builder.CreateString(table_name + "_file");
+  auto fb_block = CreateFbFileBlock(
+      fb_builder, offset, block.length, fb_builder.CreateVector(fb_replica_idxs));
+  auto fb_file_desc = CreateFbFileDesc(fb_builder, file_name, file_length,
+      FbCompression_NONE, 1, fb_builder.CreateVector(&fb_block, 1));
+  fb_builder.Finish(fb_file_desc);
+
+  THdfsFileDesc thrift_file;
+  string buffer(
+      reinterpret_cast<const char*>(fb_builder.GetBufferPointer()), fb_builder.GetSize());
+  thrift_file.__set_file_desc_data(buffer);
+  thrift_spec->__set_partition_id(0);
+  thrift_spec->__set_file_desc(thrift_file);
+  thrift_spec->__set_max_block_size(block.length);
+  thrift_spec->__set_is_splittable(true);
+  thrift_spec->__set_offset(offset);
+  thrift_spec->__set_length(block.length);
+}
+
 void Plan::BuildScanRangeSpec(const TableName& table_name,
     const FileSplitGeneratorSpec& spec, int spec_idx,
     TFileSplitGeneratorSpec* thrift_spec) {
@@ -449,8 +495,15 @@ void Result::ProcessAssignments(const AssignmentCallback& cb) const {
             per_node_ranges_elem.second;
         for (const TScanRangeParams& scan_range_params : scan_range_params_vector) {
           const TScanRange& scan_range = scan_range_params.scan_range;
-          DCHECK(scan_range.__isset.hdfs_file_split);
-          const THdfsFileSplit& hdfs_file_split = scan_range.hdfs_file_split;
+          THdfsFileSplit hdfs_file_split;
+          if (scan_range.__isset.file_split_spec) {
+            // Deferred specs are assigned as a single split of their byte range.
+            hdfs_file_split.length =
+                Scheduler::GetSplitSpecLength(scan_range.file_split_spec);
+          } else {
+            DCHECK(scan_range.__isset.hdfs_file_split);
+            hdfs_file_split = scan_range.hdfs_file_split;
+          }
           bool is_cached =
               scan_range_params.__isset.is_cached ? scan_range_params.is_cached : false;
           bool is_remote =
@@ -505,10 +558,31 @@ SchedulerWrapper::SchedulerWrapper(const Plan& plan)
 }
 
 Status SchedulerWrapper::Compute(bool exec_at_coord, Result* result) {
+  return ComputeAssignment(exec_at_coord, result->AddAssignment());
+}
+
+Status SchedulerWrapper::ComputeBucketed(Result* result, int* num_instances) {
+  FragmentScanRangeAssignment assignment;
+  RETURN_IF_ERROR(ComputeAssignment(false, &assignment));
+  TPlanFragment fragment;
+  fragment.partition.type = TPartitionType::BUCKET_PARTITIONED;
+  FragmentExecParams fragment_params(fragment);
+  fragment_params.scan_range_assignment = move(assignment);
+  ObjectPool pool;
+  QuerySchedule schedule(TUniqueId(), TQueryExecRequest(), plan_.query_options(),
+      RuntimeProfile::Create(&pool, "QuerySchedule"));
+  scheduler_->CreateBucketedScanInstances(
+      *scheduler_->GetExecutorsConfig(), &fragment_params, &schedule);
+  *num_instances = fragment_params.instance_exec_params.size();
+  *result->AddAssignment() = fragment_params.scan_range_assignment;
+  return Status::OK();
+}
+
+Status SchedulerWrapper::ComputeAssignment(
+    bool exec_at_coord, FragmentScanRangeAssignment* assignment) {
   DCHECK(scheduler_ != nullptr);
 
   // Compute Assignment.
-  FragmentScanRangeAssignment* assignment = result->AddAssignment();
   const vector<TScanRangeLocationList>* locations = nullptr;
   vector<TScanRangeLocationList> expanded_locations;
   if (plan_.scan_range_specs().split_specs.empty()) {
@@ -519,8 +593,13 @@ Status SchedulerWrapper::Compute(bool exec_at_coord, Result* result) {
     for (const TScanRangeLocationList& range : plan_.scan_range_specs().concrete_ranges) {
       expanded_locations.push_back(range);
     }
-    RETURN_IF_ERROR(scheduler_->GenerateScanRanges(
-        plan_.scan_range_specs().split_specs, &expanded_locations));
+    if (plan_.scan_range_specs().defer_split_specs) {
+      Scheduler::DeferScanRanges(
+          plan_.scan_range_specs().split_specs, &expanded_locations);
+    } else {
+      RETURN_IF_ERROR(scheduler_->GenerateScanRanges(
+          plan_.scan_range_specs().split_specs, &expanded_locations));
+    }
     locations = &expanded_locations;
   }
   DCHECK(locations != nullptr);
@@ -594,6 +673,7 @@ void SchedulerWrapper::AddHostToTopicDelta(const Host& host, TTopicDelta* delta)
   be_desc.address.hostname = host.ip;
   be_desc.address.port = host.be_port;
   be_desc.ip_address = host.ip;
+  be_desc.__set_krpc_address(MakeNetworkAddress(host.ip, FLAGS_krpc_port));
   be_desc.__set_is_coordinator(host.is_coordinator);
   be_desc.__set_is_executor(host.is_executor);
 
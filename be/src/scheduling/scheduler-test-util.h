@@ -268,6 +268,15 @@ class Plan {
 
   void SetRandomReplica(bool b) { query_options_.schedule_random_replica = b; }
   void SetNumRemoteExecutorCandidates(int32_t num);
+
+  /// Defers the expansion of the split specs of the scan to the executors. Blocks of
+  /// tables that are scanned afterwards are added as one split spec per block of a
+  /// single file.
+  void SetDeferSplitSpecs(bool b) { scan_range_specs_.__set_defer_split_specs(b); }
+
+  /// Tags the blocks of tables that are scanned afterwards with Hive bucket ids. Block
+  /// 'i' of each table belongs to bucket 'i % num_buckets'. 0 disables the tagging.
+  void SetNumBuckets(int num_buckets) { num_buckets_ = num_buckets; }
   const Cluster& cluster() const { return schema_.cluster(); }
 
   const std::vector<TNetworkAddress>& referenced_datanodes() const;
@@ -295,6 +304,10 @@ class Plan {
   /// Scan range specs that are scheduled by the Scheduler.
   TScanRangeSpec scan_range_specs_;
 
+  /// Number of Hive buckets that the blocks of scanned tables are assigned to, 0 if the
+  /// scan ranges have no bucket ids.
+  int num_buckets_ = 0;
+
   /// Initialize a TScanRangeLocationList object in place.
   void BuildTScanRangeLocationList(const TableName& table_name, const Block& block,
       int block_idx, TScanRangeLocationList* scan_range_locations);
@@ -303,6 +316,11 @@ class Plan {
   void BuildScanRange(
       const TableName& table_name, const Block& block, int block_idx, TScanRange* range);
 
+  /// Initializes a deferred split spec for the Block at 'offset' of the file of a
+  /// table. The file is 'file_length' bytes long.
+  void BuildBlockSpec(const TableName& table_name, const Block& block, int64_t offset,
+      int64_t file_length, TFileSplitGeneratorSpec* thrift_spec);
+
   /// Initializes a scan range for a FileSplitGeneratorSpec.
   void BuildScanRangeSpec(const TableName& table_name, const FileSplitGeneratorSpec& spec,
       int spec_idx, TFileSplitGeneratorSpec* thrift_spec);
@@ -473,6 +491,12 @@ class SchedulerWrapper {
   /// Call ComputeScanRangeAssignment().
   Status Compute(bool exec_at_coord, Result* result);
 
+  /// Call ComputeScanRangeAssignment() and pass the assignment to
+  /// CreateBucketedScanInstances() for a fragment that is partitioned by the Hive
+  /// buckets of its scan. Stores the scan ranges of the created instances in 'result'
+  /// and sets 'num_instances' to the number of created instances.
+  Status ComputeBucketed(Result* result, int* num_instances);
+
   /// Reset the state of the scheduler by re-creating and initializing it.
   void Reset() { InitializeScheduler(); }
 
@@ -501,6 +525,9 @@ class SchedulerWrapper {
   /// initialize the scheduler and exercise the UpdateMembership() method in tests.
   void InitializeScheduler();
 
+  /// Call ComputeScanRangeAssignment() and store the result in 'assignment'.
+  Status ComputeAssignment(bool exec_at_coord, FragmentScanRangeAssignment* assignment);
+
   /// Add a single host to the given TTopicDelta.
   void AddHostToTopicDelta(const Host& host, TTopicDelta* delta) const;
 
@@ -20,6 +20,8 @@
 #include "scheduling/scheduler-test-util.h"
 #include "testutil/gtest-util.h"
 
+#include "common/names.h"
+
 using namespace impala;
 using namespace impala::test;
 
@@ -550,6 +552,145 @@ TEST_F(SchedulerTest, TestBlockAndGenerateSplit) {
   EXPECT_EQ(0, result.NumCachedAssignedBytes());
 }
 
+/// Test that deferred split specs are assigned as a single scan range per file.
+TEST_F(SchedulerTest, TestDeferredSplitSpecs) {
+  Cluster cluster;
+
+  cluster.AddHosts(3, true, true);
+  Schema schema(cluster);
+  schema.AddFileSplitGeneratorSpecs(
+      "T", {{100, 100, true}, {100, 1, false}, {100, 10, true}});
+
+  Plan plan(schema);
+  plan.SetDeferSplitSpecs(true);
+  plan.AddTableScan("T");
+
+  Result result(plan);
+  SchedulerWrapper scheduler(plan);
+  ASSERT_OK(scheduler.Compute(&result));
+
+  // Files without blocks have no replicas and are read remotely.
+  EXPECT_EQ(3, result.NumTotalAssignments());
+  EXPECT_EQ(300, result.NumTotalAssignedBytes());
+  EXPECT_EQ(300, result.NumRemoteAssignedBytes());
+  EXPECT_EQ(3, result.NumDistinctBackends());
+}
+
+/// Test that deferred split specs are assigned to the hosts of their block replicas, and
+/// that the blocks of a file are spread over the hosts that store them.
+TEST_F(SchedulerTest, TestDeferredSplitSpecsLocality) {
+  Cluster cluster;
+
+  cluster.AddHosts(3, true, true);
+  Schema schema(cluster);
+  schema.AddMultiBlockTable("T1", 3, ReplicaPlacement::LOCAL_ONLY, 1);
+  // 1 of the 3 replicas is cached.
+  schema.AddSingleBlockTable("T2", {0, 2}, {1});
+
+  Plan plan(schema);
+  plan.SetDeferSplitSpecs(true);
+  plan.AddTableScan("T1");
+
+  Result result(plan);
+  SchedulerWrapper scheduler(plan);
+  ASSERT_OK(scheduler.Compute(&result));
+  EXPECT_EQ(3, result.NumTotalAssignments());
+  EXPECT_EQ(3 * Block::DEFAULT_BLOCK_SIZE, result.NumDiskAssignedBytes());
+  EXPECT_EQ(0, result.NumRemoteAssignedBytes());
+
+  Plan cached_plan(schema);
+  cached_plan.SetDeferSplitSpecs(true);
+  cached_plan.AddTableScan("T2");
+
+  Result cached_result(cached_plan);
+  SchedulerWrapper cached_scheduler(cached_plan);
+  ASSERT_OK(cached_scheduler.Compute(&cached_result));
+  EXPECT_EQ(1 * Block::DEFAULT_BLOCK_SIZE, cached_result.NumCachedAssignedBytes(1));
+  EXPECT_EQ(0, cached_result.NumDiskAssignedBytes());
+  EXPECT_EQ(0, cached_result.NumRemoteAssignedBytes());
+
+  // Every host stores a replica of each block of the file. The blocks are assigned
+  // separately and spread over the hosts.
+  schema.AddMultiBlockTable("T3", 3, ReplicaPlacement::LOCAL_ONLY, 3);
+  Plan spread_plan(schema);
+  spread_plan.SetDeferSplitSpecs(true);
+  spread_plan.AddTableScan("T3");
+
+  Result spread_result(spread_plan);
+  SchedulerWrapper spread_scheduler(spread_plan);
+  ASSERT_OK(spread_scheduler.Compute(&spread_result));
+  EXPECT_EQ(3, spread_result.NumTotalAssignments());
+  EXPECT_EQ(3, spread_result.NumDistinctBackends());
+  EXPECT_EQ(1 * Block::DEFAULT_BLOCK_SIZE, spread_result.MaxNumAssignedBytesPerHost());
+}
+
+/// Verify that all scan ranges of a Hive bucket are executed on the same host, across
+/// all scanned tables, and that a single instance is created per host.
+TEST_F(SchedulerTest, TestBucketedScanInstances) {
+  Cluster cluster;
+
+  cluster.AddHosts(3, true, true);
+  Schema schema(cluster);
+  schema.AddMultiBlockTable("T1", 8, ReplicaPlacement::LOCAL_ONLY, 1);
+  schema.AddMultiBlockTable("T2", 4, ReplicaPlacement::LOCAL_ONLY, 1);
+
+  Plan plan(schema);
+  plan.SetNumBuckets(4);
+  plan.AddTableScan("T1");
+  plan.AddTableScan("T2");
+
+  Result result(plan);
+  SchedulerWrapper scheduler(plan);
+  int num_instances;
+  ASSERT_OK(scheduler.ComputeBucketed(&result, &num_instances));
+  EXPECT_EQ(12, result.NumTotalAssignments());
+  EXPECT_EQ(12 * Block::DEFAULT_BLOCK_SIZE, result.NumTotalAssignedBytes());
+  EXPECT_EQ(result.NumDistinctBackends(), num_instances);
+  EXPECT_LE(num_instances, 3);
+
+  map<int32_t, set<TNetworkAddress>> bucket_hosts;
+  for (const auto& host_entry : result.GetAssignment()) {
+    for (const auto& node_entry : host_entry.second) {
+      for (const TScanRangeParams& params : node_entry.second) {
+        ASSERT_TRUE(params.scan_range.hdfs_file_split.__isset.bucket_id);
+        bucket_hosts[params.scan_range.hdfs_file_split.bucket_id].insert(
+            host_entry.first);
+      }
+    }
+  }
+  EXPECT_EQ(4, bucket_hosts.size());
+  for (const auto& entry : bucket_hosts) EXPECT_EQ(1, entry.second.size());
+}
+
+/// Verify that a bucket is executed on the host with most of its bytes and that its
+/// scan ranges on other hosts are read remotely.
+TEST_F(SchedulerTest, TestBucketedScanInstancesLocality) {
+  Cluster cluster;
+
+  cluster.AddHosts(3, true, true);
+  Schema schema(cluster);
+  // All tables consist of a single block of bucket 0.
+  schema.AddSingleBlockTable("T1", {0});
+  schema.AddSingleBlockTable("T2", {1});
+  schema.AddSingleBlockTable("T3", {0});
+
+  Plan plan(schema);
+  plan.SetNumBuckets(2);
+  plan.AddTableScan("T1");
+  plan.AddTableScan("T2");
+  plan.AddTableScan("T3");
+
+  Result result(plan);
+  SchedulerWrapper scheduler(plan);
+  int num_instances;
+  ASSERT_OK(scheduler.ComputeBucketed(&result, &num_instances));
+  EXPECT_EQ(1, num_instances);
+  EXPECT_EQ(3, result.NumTotalAssignments(0));
+  EXPECT_EQ(2, result.NumDiskAssignments(0));
+  EXPECT_EQ(1, result.NumRemoteAssignments(0));
+  EXPECT_EQ(0, result.NumTotalAssignments(1));
+}
+
 /// IMPALA-4329: Test scheduling with no backends.
 /// With the fix for IMPALA-5058, the scheduler is no longer responsible for
 /// registering the local backend with itself. This functionality is moved to
@@ -274,6 +274,7 @@ Status Scheduler::GenerateScanRanges(const vector<TFileSplitGeneratorSpec>& spec
       hdfs_scan_range.__set_offset(scan_range_offset);
       hdfs_scan_range.__set_partition_id(spec.partition_id);
       hdfs_scan_range.__set_is_erasure_coded(fb_desc->is_ec());
+      if (spec.__isset.bucket_id) hdfs_scan_range.__set_bucket_id(spec.bucket_id);
       TScanRange scan_range;
       scan_range.__set_hdfs_file_split(hdfs_scan_range);
       TScanRangeLocationList scan_range_list;
@@ -289,6 +290,69 @@ Status Scheduler::GenerateScanRanges(const vector<TFileSplitGeneratorSpec>& spec
   return Status::OK();
 }
 
+void Scheduler::DeferScanRanges(const vector<TFileSplitGeneratorSpec>& specs,
+    vector<TScanRangeLocationList>* deferred_scan_ranges) {
+  // Replica host indexes store whether the replica is cached in the most significant bit.
+  constexpr uint16_t REPLICA_CACHED_MASK = 1 << 15;
+  for (const auto& spec : specs) {
+    TScanRange scan_range;
+    scan_range.__set_file_split_spec(spec);
+    TScanRangeLocationList scan_range_list;
+    scan_range_list.__set_scan_range(scan_range);
+
+    // The file is read by a single executor, so it is local to the hosts that store a
+    // replica of each of its blocks. The replica host indexes of the file descriptor
+    // refer to TQueryExecRequest.host_list. Files without blocks have no locations.
+    const FbFileDesc* fb_desc =
+        flatbuffers::GetRoot<FbFileDesc>(spec.file_desc.file_desc_data.c_str());
+    int num_blocks =
+        fb_desc->file_blocks() == nullptr ? 0 : fb_desc->file_blocks()->size();
+    // Number of blocks with a replica on each host and the location of the host.
+    map<int, std::pair<int, TScanRangeLocation>> replica_hosts;
+    for (int i = 0; i < num_blocks; ++i) {
+      const FbFileBlock* block = fb_desc->file_blocks()->Get(i);
+      if (block->replica_host_idxs() == nullptr) break;
+      for (int j = 0; j < block->replica_host_idxs()->size(); ++j) {
+        uint16_t replica_idx = block->replica_host_idxs()->Get(j);
+        int host_idx = replica_idx & ~REPLICA_CACHED_MASK;
+        bool is_cached = (replica_idx & REPLICA_CACHED_MASK) != 0;
+        // Disk ids are stored as signed shorts with -1 for an unknown disk.
+        int volume_id = block->disk_ids() == nullptr || block->disk_ids()->size() <= j ?
+            -1 : static_cast<int16_t>(block->disk_ids()->Get(j));
+        auto it = replica_hosts.find(host_idx);
+        if (it == replica_hosts.end()) {
+          if (i > 0) continue;
+          TScanRangeLocation location;
+          location.__set_host_idx(host_idx);
+          location.__set_volume_id(volume_id);
+          location.__set_is_cached(is_cached);
+          replica_hosts.emplace(host_idx, make_pair(1, location));
+        } else if (it->second.first == i) {
+          // A file is only cached on a host if all of its blocks are, and its blocks
+          // only share a volume id if they are stored on the same disk.
+          TScanRangeLocation& location = it->second.second;
+          if (location.volume_id != volume_id) location.__set_volume_id(-1);
+          location.__set_is_cached(location.is_cached && is_cached);
+          ++it->second.first;
+        }
+      }
+    }
+    vector<TScanRangeLocation> locations;
+    for (const auto& entry : replica_hosts) {
+      if (entry.second.first == num_blocks) locations.push_back(entry.second.second);
+    }
+    scan_range_list.__set_locations(locations);
+    deferred_scan_ranges->push_back(scan_range_list);
+  }
+}
+
+int64_t Scheduler::GetSplitSpecLength(const TFileSplitGeneratorSpec& spec) {
+  if (spec.__isset.length) return spec.length;
+  const FbFileDesc* fb_desc =
+      flatbuffers::GetRoot<FbFileDesc>(spec.file_desc.file_desc_data.c_str());
+  return fb_desc->length();
+}
+
 Status Scheduler::ComputeScanRangeAssignment(
     const BackendConfig& executor_config, QuerySchedule* schedule) {
   RuntimeProfile::Counter* total_assignment_timer =
@@ -324,8 +388,13 @@ Status Scheduler::ComputeScanRangeAssignment(
         // union concrete ranges and expanded specs.
         expanded_locations.insert(expanded_locations.end(),
             entry.second.concrete_ranges.begin(), entry.second.concrete_ranges.end());
-        RETURN_IF_ERROR(
-            GenerateScanRanges(entry.second.split_specs, &expanded_locations));
+        if (entry.second.defer_split_specs) {
+          // The executors expand the specs once the runtime filters have arrived.
+          DeferScanRanges(entry.second.split_specs, &expanded_locations);
+        } else {
+          RETURN_IF_ERROR(
+              GenerateScanRanges(entry.second.split_specs, &expanded_locations));
+        }
         locations = &expanded_locations;
       }
       DCHECK(locations != nullptr);
@@ -432,6 +501,12 @@ void Scheduler::ComputeFragmentExecParams(const BackendConfig& executor_config,
   }
 
   PlanNodeId leftmost_scan_id = FindLeftmostScan(fragment.plan);
+  if (fragment.partition.type == TPartitionType::BUCKET_PARTITIONED
+      && !fragment_params->scan_range_assignment.empty()) {
+    // case 2a: leaf fragment with scans of Hive-bucketed tables
+    CreateBucketedScanInstances(executor_config, fragment_params, schedule);
+    return;
+  }
   if (leftmost_scan_id != g_ImpalaInternalService_constants.INVALID_PLAN_NODE_ID) {
     // case 2: leaf fragment with leftmost scan
     // TODO: check that there's only one scan in this fragment
@@ -495,6 +570,11 @@ void Scheduler::CreateScanInstances(const BackendConfig& executor_config,
   int max_num_instances =
       schedule->request().query_ctx.client_request.query_options.mt_dop;
   if (max_num_instances == 0) max_num_instances = 1;
+  // The planner may have selected a lower degree of parallelism for this fragment.
+  const TPlanFragment& fragment = fragment_params->fragment;
+  if (fragment.__isset.max_instances_per_host && fragment.max_instances_per_host > 0) {
+    max_num_instances = ::min(max_num_instances, fragment.max_instances_per_host);
+  }
 
   if (fragment_params->scan_range_assignment.empty()) {
     DCHECK(local_backend_descriptor_.__isset.krpc_address);
@@ -524,6 +604,8 @@ void Scheduler::CreateScanInstances(const BackendConfig& executor_config,
     for (const TScanRangeParams& params : params_list) {
       if (params.scan_range.__isset.hdfs_file_split) {
         total_size += params.scan_range.hdfs_file_split.length;
+      } else if (params.scan_range.__isset.file_split_spec) {
+        total_size += GetSplitSpecLength(params.scan_range.file_split_spec);
       } else {
         // fake load-balancing for Kudu and Hbase: every split has length 1
         // TODO: implement more accurate logic for Kudu and Hbase
@@ -556,6 +638,9 @@ void Scheduler::CreateScanInstances(const BackendConfig& executor_config,
             scan_range_params);
         if (scan_range_params.scan_range.__isset.hdfs_file_split) {
           total_assigned_bytes += scan_range_params.scan_range.hdfs_file_split.length;
+        } else if (scan_range_params.scan_range.__isset.file_split_spec) {
+          total_assigned_bytes +=
+              GetSplitSpecLength(scan_range_params.scan_range.file_split_spec);
         } else {
           // for Kudu and Hbase every split has length 1
           ++total_assigned_bytes;
@@ -577,6 +662,82 @@ void Scheduler::CreateScanInstances(const BackendConfig& executor_config,
   }
 }
 
+void Scheduler::CreateBucketedScanInstances(const BackendConfig& executor_config,
+    FragmentExecParams* fragment_params, QuerySchedule* schedule) {
+  FragmentScanRangeAssignment* assignment = &fragment_params->scan_range_assignment;
+  // Number of bytes of each bucket that the locality-aware assignment placed on each
+  // host, summed over all scans of the fragment.
+  map<int32_t, map<TNetworkAddress, int64_t>> bucket_host_bytes;
+  for (const auto& host_entry : *assignment) {
+    for (const auto& node_entry : host_entry.second) {
+      for (const TScanRangeParams& params : node_entry.second) {
+        DCHECK(params.scan_range.__isset.hdfs_file_split);
+        const THdfsFileSplit& split = params.scan_range.hdfs_file_split;
+        DCHECK(split.__isset.bucket_id);
+        bucket_host_bytes[split.bucket_id][host_entry.first] += split.length;
+      }
+    }
+  }
+
+  // Execute each bucket on the host that holds most of its bytes. Ties are broken in
+  // favor of the host with the fewest bytes assigned so far.
+  map<int32_t, TNetworkAddress> bucket_hosts;
+  map<TNetworkAddress, int64_t> host_bytes;
+  for (const auto& bucket_entry : bucket_host_bytes) {
+    const TNetworkAddress* best_host = nullptr;
+    int64_t best_bytes = -1;
+    for (const auto& entry : bucket_entry.second) {
+      if (entry.second > best_bytes
+          || (entry.second == best_bytes && host_bytes[entry.first]
+              < host_bytes[*best_host])) {
+        best_host = &entry.first;
+        best_bytes = entry.second;
+      }
+    }
+    DCHECK(best_host != nullptr);
+    bucket_hosts[bucket_entry.first] = *best_host;
+    for (const auto& entry : bucket_entry.second) {
+      host_bytes[*best_host] += entry.second;
+    }
+  }
+
+  // Move all scan ranges of a bucket to the host of the bucket. Ranges that are moved
+  // to a different host are read remotely.
+  FragmentScanRangeAssignment bucketed_assignment;
+  for (const auto& host_entry : *assignment) {
+    for (const auto& node_entry : host_entry.second) {
+      for (const TScanRangeParams& params : node_entry.second) {
+        int32_t bucket_id = params.scan_range.hdfs_file_split.bucket_id;
+        const TNetworkAddress& host = bucket_hosts[bucket_id];
+        vector<TScanRangeParams>* host_ranges =
+            &bucketed_assignment[host][node_entry.first];
+        host_ranges->push_back(params);
+        if (host != host_entry.first) {
+          host_ranges->back().__set_volume_id(-1);
+          host_ranges->back().__set_is_cached(false);
+          host_ranges->back().__set_is_remote(true);
+        }
+      }
+    }
+  }
+  *assignment = move(bucketed_assignment);
+
+  // Create a single instance per host with all scan ranges of its buckets.
+  int per_fragment_instance_idx = 0;
+  for (const auto& assignment_entry : *assignment) {
+    const TNetworkAddress& host = assignment_entry.first;
+    const TBackendDescriptor& backend_descriptor =
+        LookUpBackendDesc(executor_config, host);
+    DCHECK(backend_descriptor.__isset.krpc_address);
+    const TNetworkAddress& krpc_host = backend_descriptor.krpc_address;
+    DCHECK(IsResolvedAddress(krpc_host));
+    fragment_params->instance_exec_params.emplace_back(schedule->GetNextInstanceId(),
+        host, krpc_host, per_fragment_instance_idx++, *fragment_params);
+    fragment_params->instance_exec_params.back().per_node_scan_ranges =
+        assignment_entry.second;
+  }
+}
+
 void Scheduler::CreateCollocatedInstances(
     FragmentExecParams* fragment_params, QuerySchedule* schedule) {
   DCHECK_GE(fragment_params->input_fragments.size(), 1);
@@ -1009,6 +1170,9 @@ void Scheduler::AssignmentCtx::RecordScanRangeAssignment(
   int64_t scan_range_length = 0;
   if (scan_range_locations.scan_range.__isset.hdfs_file_split) {
     scan_range_length = scan_range_locations.scan_range.hdfs_file_split.length;
+  } else if (scan_range_locations.scan_range.__isset.file_split_spec) {
+    scan_range_length =
+        GetSplitSpecLength(scan_range_locations.scan_range.file_split_spec);
   } else if (scan_range_locations.scan_range.__isset.kudu_scan_token) {
     // Hack so that kudu ranges are well distributed.
     // TODO: KUDU-1133 Use the tablet size instead.
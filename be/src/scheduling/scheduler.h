@@ -106,6 +106,10 @@ class Scheduler {
       const TNetworkAddress& backend_address, const TNetworkAddress& krpc_address,
       const IpAddr& ip, int64_t admit_mem_limit);
 
+  /// Returns the number of bytes covered by 'spec', i.e. the length of its byte range
+  /// if it is set and the length of its file otherwise.
+  static int64_t GetSplitSpecLength(const TFileSplitGeneratorSpec& spec);
+
  private:
   /// Map from a host's IP address to the next executor to be round-robin scheduled for
   /// that host (needed for setups with multiple executors on a single host)
@@ -360,6 +364,13 @@ class Scheduler {
   Status GenerateScanRanges(const std::vector<TFileSplitGeneratorSpec>& specs,
       std::vector<TScanRangeLocationList>* generated_scan_ranges);
 
+  /// Wraps each of 'specs' into a scan range of its file or block that is expanded by
+  /// the executor, and places them in 'deferred_scan_ranges'. The locations of a range
+  /// are the hosts that store a replica of every block in the file descriptor of the
+  /// spec. The range is cached on a host if all its replicas there are cached.
+  static void DeferScanRanges(const std::vector<TFileSplitGeneratorSpec>& specs,
+      std::vector<TScanRangeLocationList>* deferred_scan_ranges);
+
   /// Compute the assignment of scan ranges to hosts for each scan node in
   /// the schedule's TQueryExecRequest.plan_exec_info.
   /// Unpartitioned fragments are assigned to the coordinator. Populate the schedule's
@@ -473,6 +484,16 @@ class Scheduler {
   void CreateScanInstances(const BackendConfig& executor_config, PlanNodeId scan_id,
       FragmentExecParams* fragment_params, QuerySchedule* schedule);
 
+  /// Create instances of the fragment corresponding to fragment_params, which is
+  /// partitioned by the Hive buckets of its scans (BUCKET_PARTITIONED). All scan ranges
+  /// with the same bucket id, across all scans of the fragment, must be processed by
+  /// the same instance. Each bucket is assigned to the host that the locality-aware
+  /// scan range assignment placed most of its bytes on, and a single instance is
+  /// created per host. Updates the scan range assignment of fragment_params
+  /// accordingly.
+  void CreateBucketedScanInstances(const BackendConfig& executor_config,
+      FragmentExecParams* fragment_params, QuerySchedule* schedule);
+
   /// For each instance of fragment_params's input fragment, create a collocated
   /// instance for fragment_params's fragment.
   /// Expects that fragment_params only has a single input fragment.
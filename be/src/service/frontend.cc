@@ -82,6 +82,7 @@ Frontend::Frontend() {
     {"checkConfiguration", "()Ljava/lang/String;", &check_config_id_},
     {"updateCatalogCache", "([B)[B", &update_catalog_cache_id_},
     {"updateExecutorMembership", "([B)V", &update_membership_id_},
+    {"recordExecFeedback", "([B)V", &record_exec_feedback_id_},
     {"getCatalogMetrics", "()[B", &get_catalog_metrics_id_},
     {"getTableNames", "([B)[B", &get_table_names_id_},
     {"describeDb", "([B)[B", &describe_db_id_},
@@ -133,6 +134,10 @@ Status Frontend::UpdateExecutorMembership(const TUpdateExecutorMembershipRequest
   return JniUtil::CallJniMethod(fe_, update_membership_id_, req);
 }
 
+Status Frontend::RecordExecFeedback(const TExecFeedback& feedback) {
+  return JniUtil::CallJniMethod(fe_, record_exec_feedback_id_, feedback);
+}
+
 Status Frontend::DescribeDb(const TDescribeDbParams& params,
     TDescribeResult* response) {
   return JniUtil::CallJniMethod(fe_, describe_db_id_, params, response);
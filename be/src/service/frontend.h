@@ -49,6 +49,10 @@ class Frontend {
   /// The TUpdateExecutorMembershipRequest contains the latest set of executor nodes.
   Status UpdateExecutorMembership(const TUpdateExecutorMembershipRequest& req);
 
+  /// Sends the actual plan node cardinalities of a completed query to the FE, which
+  /// records them as execution feedback for planning later queries.
+  Status RecordExecFeedback(const TExecFeedback& feedback);
+
   /// Call FE to get explain plan
   Status GetExplainPlan(const TQueryCtx& query_ctx, std::string* explain_string);
 
@@ -195,6 +199,7 @@ class Frontend {
   jmethodID check_config_id_; // JniFrontend.checkConfiguration()
   jmethodID update_catalog_cache_id_; // JniFrontend.updateCatalogCache(byte[][])
   jmethodID update_membership_id_; // JniFrontend.updateMembership()
+  jmethodID record_exec_feedback_id_; // JniFrontend.recordExecFeedback()
   jmethodID get_catalog_metrics_id_; // JniFrontend.getCatalogMetrics()
   jmethodID get_table_names_id_; // JniFrontend.getTableNames
   jmethodID describe_db_id_; // JniFrontend.describeDb
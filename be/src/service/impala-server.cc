@@ -125,6 +125,7 @@ DECLARE_string(authorized_proxy_group_config_delimiter);
 DECLARE_bool(abort_on_config_error);
 DECLARE_bool(disk_spill_encryption);
 DECLARE_bool(use_local_catalog);
+DECLARE_int32(exec_feedback_max_entries);
 
 DEFINE_int32(beeswax_port, 21000, "port on which Beeswax client requests are served."
     "If 0 or less, the Beeswax server is not started.");
@@ -893,6 +894,9 @@ void ImpalaServer::AddPoolConfiguration(TQueryCtx* ctx,
              << " GetConfigPool status: " << status.GetDetail();
     return;
   }
+  if (config.max_query_mem_limit > 0) {
+    ctx->__set_pool_max_query_mem_limit(config.max_query_mem_limit);
+  }
 
   TQueryOptions pool_options;
   QueryOptionsMask set_pool_options_mask;
@@ -1152,6 +1156,32 @@ void ImpalaServer::UpdateExecSummary(
       request_state->GetCoordinator()->GetErrorLog());
 }
 
+void ImpalaServer::RecordExecFeedback(const ClientRequestState& request_state) const {
+  // Only queries that ran to completion report the full cardinalities of their plan
+  // nodes.
+  if (request_state.stmt_type() != TStmtType::QUERY || !request_state.eos()
+      || !request_state.query_status().ok()) {
+    return;
+  }
+  TExecSummary t_exec_summary;
+  request_state.GetCoordinator()->GetTExecSummary(&t_exec_summary);
+  TExecFeedback feedback;
+  feedback.__set_query_id(request_state.query_id());
+  for (const TPlanNodeExecSummary& node : t_exec_summary.nodes) {
+    // Data sinks have no plan node id.
+    if (node.node_id < 0) continue;
+    int64_t cardinality = 0;
+    for (const TExecStats& stats : node.exec_stats) cardinality += stats.cardinality;
+    feedback.node_cardinalities[node.node_id] = cardinality;
+  }
+  feedback.__isset.node_cardinalities = true;
+  Status status = exec_env_->frontend()->RecordExecFeedback(feedback);
+  if (!status.ok()) {
+    LOG(WARNING) << "Could not record execution feedback of query "
+                 << PrintId(request_state.query_id()) << ": " << status.GetDetail();
+  }
+}
+
 Status ImpalaServer::UnregisterQuery(const TUniqueId& query_id, bool check_inflight,
     const Status* cause) {
   VLOG_QUERY << "UnregisterQuery(): query_id=" << PrintId(query_id);
@@ -1197,6 +1227,7 @@ Status ImpalaServer::UnregisterQuery(const TUniqueId& query_id, bool check_infli
 
   if (request_state->GetCoordinator() != nullptr) {
     UpdateExecSummary(request_state);
+    if (FLAGS_exec_feedback_max_entries > 0) RecordExecFeedback(*request_state);
   }
 
   if (request_state->schedule() != nullptr) {
@@ -1227,6 +1258,26 @@ Status ImpalaServer::UpdateCatalogMetrics() {
   RETURN_IF_ERROR(exec_env_->frontend()->GetCatalogMetrics(&metrics));
   ImpaladMetrics::CATALOG_NUM_DBS->SetValue(metrics.num_dbs);
   ImpaladMetrics::CATALOG_NUM_TABLES->SetValue(metrics.num_tables);
+  if (metrics.__isset.authz_decision_cache_hit_count) {
+    DCHECK(metrics.__isset.authz_decision_cache_miss_count);
+    int64_t hits = metrics.authz_decision_cache_hit_count;
+    int64_t misses = metrics.authz_decision_cache_miss_count;
+    ImpaladMetrics::AUTHZ_DECISION_CACHE_HIT_COUNT->SetValue(hits);
+    ImpaladMetrics::AUTHZ_DECISION_CACHE_MISS_COUNT->SetValue(misses);
+    ImpaladMetrics::AUTHZ_DECISION_CACHE_HIT_RATE->SetValue(
+        hits + misses == 0 ? 0 : static_cast<double>(hits) / (hits + misses));
+  }
+  if (metrics.__isset.group_cache_hit_count) {
+    ImpaladMetrics::AUTHZ_GROUP_CACHE_HIT_COUNT->SetValue(metrics.group_cache_hit_count);
+    ImpaladMetrics::AUTHZ_GROUP_CACHE_MISS_COUNT->SetValue(
+        metrics.group_cache_miss_count);
+    ImpaladMetrics::AUTHZ_GROUP_CACHE_STALE_HIT_COUNT->SetValue(
+        metrics.group_cache_stale_hit_count);
+    ImpaladMetrics::AUTHZ_GROUP_CACHE_LOAD_FAILURE_COUNT->SetValue(
+        metrics.group_cache_load_failure_count);
+    ImpaladMetrics::AUTHZ_GROUP_CACHE_AVG_LOAD_TIME->SetValue(
+        metrics.group_cache_avg_load_time_ms);
+  }
   if (!FLAGS_use_local_catalog) return Status::OK();
   DCHECK(metrics.__isset.cache_eviction_count);
   DCHECK(metrics.__isset.cache_hit_count);
@@ -1618,6 +1669,13 @@ void ImpalaServer::CatalogUpdateCallback(
       catalog_update_info_.UpdateCatalogVersionMetrics();
     }
     ImpaladMetrics::CATALOG_READY->SetValue(resp.new_catalog_version > 0);
+    if (resp.__isset.deserialize_time_ms) {
+      ImpaladMetrics::CATALOG_UPDATE_DESERIALIZE_TIME->Increment(
+          resp.deserialize_time_ms);
+    }
+    if (resp.__isset.apply_time_ms) {
+      ImpaladMetrics::CATALOG_UPDATE_APPLY_TIME->Increment(resp.apply_time_ms);
+    }
     // TODO: deal with an error status
     discard_result(UpdateCatalogMetrics());
   }
@@ -688,6 +688,11 @@ class ImpalaServer : public ImpalaServiceIf,
   /// Collect ExecSummary and update it to the profile in request_state
   void UpdateExecSummary(std::shared_ptr<ClientRequestState> request_state) const;
 
+  /// Sends the actual plan node cardinalities of 'request_state' to the frontend if the
+  /// query returned all its rows successfully. Only called if the execution feedback is
+  /// enabled with --exec_feedback_max_entries.
+  void RecordExecFeedback(const ClientRequestState& request_state) const;
+
   /// Initialize "default_configs_" to show the default values for ImpalaQueryOptions and
   /// "support_start_over/false" to indicate that Impala does not support start over
   /// in the fetch call.
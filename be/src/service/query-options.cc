@@ -823,6 +823,57 @@ Status impala::SetQueryOption(const string& key, const string& value,
         query_options->__set_num_rows_produced_limit(num_rows_produced_limit);
         break;
       }
+      case TImpalaQueryOptions::MAX_DP_JOIN_RELATIONS: {
+        StringParser::ParseResult result;
+        const int32_t max_dp_join_relations =
+            StringParser::StringToInt<int32_t>(value.c_str(), value.length(), &result);
+        if (result != StringParser::PARSE_SUCCESS || max_dp_join_relations < 0
+            || max_dp_join_relations > 16) {
+          return Status(
+              Substitute("$0 is not valid for max_dp_join_relations. "
+                         "Valid values are in [0, 16].", value));
+        }
+        query_options->__set_max_dp_join_relations(max_dp_join_relations);
+        break;
+      }
+      case TImpalaQueryOptions::COMPUTE_COLUMN_HISTOGRAMS: {
+        query_options->__set_compute_column_histograms(
+            iequals(value, "true") || iequals(value, "1"));
+        break;
+      }
+      case TImpalaQueryOptions::USE_HIVE_BUCKETING: {
+        query_options->__set_use_hive_bucketing(
+            iequals(value, "true") || iequals(value, "1"));
+        break;
+      }
+      case TImpalaQueryOptions::MAX_AUTO_MT_DOP: {
+        StringParser::ParseResult result;
+        const int32_t max_auto_mt_dop =
+            StringParser::StringToInt<int32_t>(value.c_str(), value.length(), &result);
+        if (result != StringParser::PARSE_SUCCESS || max_auto_mt_dop < 0
+            || max_auto_mt_dop > 64) {
+          return Status(
+              Substitute("$0 is not valid for max_auto_mt_dop. "
+                         "Valid values are in [0, 64].", value));
+        }
+        query_options->__set_max_auto_mt_dop(max_auto_mt_dop);
+        break;
+      }
+      case TImpalaQueryOptions::ENABLE_RANGE_RUNTIME_FILTERS: {
+        query_options->__set_enable_range_runtime_filters(
+            iequals(value, "true") || iequals(value, "1"));
+        break;
+      }
+      case TImpalaQueryOptions::DEFER_FILTERED_SCAN_RANGES: {
+        query_options->__set_defer_filtered_scan_ranges(
+            iequals(value, "true") || iequals(value, "1"));
+        break;
+      }
+      case TImpalaQueryOptions::ENABLE_EAGER_AGGREGATION: {
+        query_options->__set_enable_eager_aggregation(
+            iequals(value, "true") || iequals(value, "1"));
+        break;
+      }
       default:
         if (IsRemovedQueryOption(key)) {
           LOG(WARNING) << "Ignoring attempt to set removed query option '" << key << "'";
@@ -41,7 +41,7 @@ typedef std::unordered_map<string, beeswax::TQueryOptionLevel::type>
 // the DCHECK.
 #define QUERY_OPTS_TABLE\
   DCHECK_EQ(_TImpalaQueryOptions_VALUES_TO_NAMES.size(),\
-      TImpalaQueryOptions::PLANNER_TESTCASE_MODE + 1);\
+      TImpalaQueryOptions::ENABLE_EAGER_AGGREGATION + 1);\
   REMOVED_QUERY_OPT_FN(abort_on_default_limit_exceeded, ABORT_ON_DEFAULT_LIMIT_EXCEEDED)\
   QUERY_OPT_FN(abort_on_error, ABORT_ON_ERROR, TQueryOptionLevel::REGULAR)\
   REMOVED_QUERY_OPT_FN(allow_unsupported_formats, ALLOW_UNSUPPORTED_FORMATS)\
@@ -151,7 +151,19 @@ typedef std::unordered_map<string, beeswax::TQueryOptionLevel::type>
   QUERY_OPT_FN(num_rows_produced_limit, NUM_ROWS_PRODUCED_LIMIT,\
       TQueryOptionLevel::ADVANCED)\
   QUERY_OPT_FN(\
-      planner_testcase_mode, PLANNER_TESTCASE_MODE, TQueryOptionLevel::DEVELOPMENT)
+      planner_testcase_mode, PLANNER_TESTCASE_MODE, TQueryOptionLevel::DEVELOPMENT)\
+  QUERY_OPT_FN(max_dp_join_relations, MAX_DP_JOIN_RELATIONS,\
+      TQueryOptionLevel::ADVANCED)\
+  QUERY_OPT_FN(compute_column_histograms, COMPUTE_COLUMN_HISTOGRAMS,\
+      TQueryOptionLevel::ADVANCED)\
+  QUERY_OPT_FN(use_hive_bucketing, USE_HIVE_BUCKETING, TQueryOptionLevel::ADVANCED)\
+  QUERY_OPT_FN(max_auto_mt_dop, MAX_AUTO_MT_DOP, TQueryOptionLevel::ADVANCED)\
+  QUERY_OPT_FN(enable_range_runtime_filters, ENABLE_RANGE_RUNTIME_FILTERS,\
+      TQueryOptionLevel::ADVANCED)\
+  QUERY_OPT_FN(defer_filtered_scan_ranges, DEFER_FILTERED_SCAN_RANGES,\
+      TQueryOptionLevel::ADVANCED)\
+  QUERY_OPT_FN(enable_eager_aggregation, ENABLE_EAGER_AGGREGATION,\
+      TQueryOptionLevel::ADVANCED)
   ;
 
 /// Enforce practical limits on some query options to avoid undesired query state.
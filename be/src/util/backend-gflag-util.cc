@@ -72,6 +72,17 @@ DECLARE_int64(exchg_node_buffer_size_bytes);
 DECLARE_int32(kudu_mutation_buffer_size);
 DECLARE_int32(kudu_error_buffer_size);
 DECLARE_int32(hms_event_polling_interval_s);
+DECLARE_bool(fetch_loaded_tables_directly);
+DECLARE_int32(num_catalog_update_threads);
+DECLARE_int32(authorization_decision_cache_size);
+DECLARE_int32(authorization_group_cache_refresh_s);
+DECLARE_int32(authorization_group_cache_expiry_s);
+DECLARE_int32(stats_maintenance_interval_s);
+DECLARE_double(stats_maintenance_stale_ratio);
+DECLARE_int64(stats_maintenance_budget_bytes);
+DECLARE_int32(exec_feedback_max_entries);
+DECLARE_int32(exec_feedback_ttl_s);
+DECLARE_int32(slow_planning_log_threshold_ms);
 
 namespace impala {
 
@@ -143,6 +154,18 @@ Status GetThriftBackendGflags(JNIEnv* jni_env, jbyteArray* cfg_bytes) {
   cfg.__set_kudu_error_buffer_size(FLAGS_kudu_error_buffer_size);
   cfg.__set_hms_event_polling_interval_s(FLAGS_hms_event_polling_interval_s);
   cfg.__set_impala_build_version(::GetDaemonBuildVersion());
+  cfg.__set_fetch_loaded_tables_directly(FLAGS_fetch_loaded_tables_directly);
+  cfg.__set_num_catalog_update_threads(FLAGS_num_catalog_update_threads);
+  cfg.__set_authorization_decision_cache_size(FLAGS_authorization_decision_cache_size);
+  cfg.__set_authorization_group_cache_refresh_s(
+      FLAGS_authorization_group_cache_refresh_s);
+  cfg.__set_authorization_group_cache_expiry_s(FLAGS_authorization_group_cache_expiry_s);
+  cfg.__set_stats_maintenance_interval_s(FLAGS_stats_maintenance_interval_s);
+  cfg.__set_stats_maintenance_stale_ratio(FLAGS_stats_maintenance_stale_ratio);
+  cfg.__set_stats_maintenance_budget_bytes(FLAGS_stats_maintenance_budget_bytes);
+  cfg.__set_exec_feedback_max_entries(FLAGS_exec_feedback_max_entries);
+  cfg.__set_exec_feedback_ttl_s(FLAGS_exec_feedback_ttl_s);
+  cfg.__set_slow_planning_log_threshold_ms(FLAGS_slow_planning_log_threshold_ms);
   RETURN_IF_ERROR(SerializeThriftMsg(jni_env, &cfg, cfg_bytes));
   return Status::OK();
 }
@@ -90,6 +90,25 @@ const char* ImpaladMetricKeys::CATALOG_VERSION = "catalog.curr-version";
 const char* ImpaladMetricKeys::CATALOG_TOPIC_VERSION = "catalog.curr-topic";
 const char* ImpaladMetricKeys::CATALOG_SERVICE_ID = "catalog.curr-serviceid";
 const char* ImpaladMetricKeys::CATALOG_READY = "catalog.ready";
+const char* ImpaladMetricKeys::CATALOG_UPDATE_DESERIALIZE_TIME =
+    "catalog.update.deserialize-time-ms";
+const char* ImpaladMetricKeys::CATALOG_UPDATE_APPLY_TIME = "catalog.update.apply-time-ms";
+const char* ImpaladMetricKeys::AUTHZ_DECISION_CACHE_HIT_COUNT =
+    "authorization.decision-cache.hit-count";
+const char* ImpaladMetricKeys::AUTHZ_DECISION_CACHE_MISS_COUNT =
+    "authorization.decision-cache.miss-count";
+const char* ImpaladMetricKeys::AUTHZ_DECISION_CACHE_HIT_RATE =
+    "authorization.decision-cache.hit-rate";
+const char* ImpaladMetricKeys::AUTHZ_GROUP_CACHE_HIT_COUNT =
+    "authorization.group-cache.hit-count";
+const char* ImpaladMetricKeys::AUTHZ_GROUP_CACHE_MISS_COUNT =
+    "authorization.group-cache.miss-count";
+const char* ImpaladMetricKeys::AUTHZ_GROUP_CACHE_STALE_HIT_COUNT =
+    "authorization.group-cache.stale-hit-count";
+const char* ImpaladMetricKeys::AUTHZ_GROUP_CACHE_LOAD_FAILURE_COUNT =
+    "authorization.group-cache.load-failure-count";
+const char* ImpaladMetricKeys::AUTHZ_GROUP_CACHE_AVG_LOAD_TIME =
+    "authorization.group-cache.average-load-time-ms";
 const char* ImpaladMetricKeys::CATALOG_CACHE_AVG_LOAD_TIME =
     "catalog.cache.average-load-time";
 const char* ImpaladMetricKeys::CATALOG_CACHE_EVICTION_COUNT =
@@ -169,6 +188,14 @@ IntCounter* ImpaladMetrics::CATALOG_CACHE_LOAD_SUCCESS_COUNT = NULL;
 IntCounter* ImpaladMetrics::CATALOG_CACHE_MISS_COUNT = NULL;
 IntCounter* ImpaladMetrics::CATALOG_CACHE_REQUEST_COUNT = NULL;
 IntCounter* ImpaladMetrics::CATALOG_CACHE_TOTAL_LOAD_TIME = NULL;
+IntCounter* ImpaladMetrics::CATALOG_UPDATE_DESERIALIZE_TIME = NULL;
+IntCounter* ImpaladMetrics::CATALOG_UPDATE_APPLY_TIME = NULL;
+IntCounter* ImpaladMetrics::AUTHZ_DECISION_CACHE_HIT_COUNT = NULL;
+IntCounter* ImpaladMetrics::AUTHZ_DECISION_CACHE_MISS_COUNT = NULL;
+IntCounter* ImpaladMetrics::AUTHZ_GROUP_CACHE_HIT_COUNT = NULL;
+IntCounter* ImpaladMetrics::AUTHZ_GROUP_CACHE_MISS_COUNT = NULL;
+IntCounter* ImpaladMetrics::AUTHZ_GROUP_CACHE_STALE_HIT_COUNT = NULL;
+IntCounter* ImpaladMetrics::AUTHZ_GROUP_CACHE_LOAD_FAILURE_COUNT = NULL;
 
 // Gauges
 IntGauge* ImpaladMetrics::CATALOG_NUM_DBS = NULL;
@@ -195,6 +222,8 @@ DoubleGauge* ImpaladMetrics::CATALOG_CACHE_AVG_LOAD_TIME = NULL;
 DoubleGauge* ImpaladMetrics::CATALOG_CACHE_HIT_RATE = NULL;
 DoubleGauge* ImpaladMetrics::CATALOG_CACHE_LOAD_EXCEPTION_RATE = NULL;
 DoubleGauge* ImpaladMetrics::CATALOG_CACHE_MISS_RATE = NULL;
+DoubleGauge* ImpaladMetrics::AUTHZ_DECISION_CACHE_HIT_RATE = NULL;
+DoubleGauge* ImpaladMetrics::AUTHZ_GROUP_CACHE_AVG_LOAD_TIME = NULL;
 
 // Properties
 BooleanProperty* ImpaladMetrics::CATALOG_READY = NULL;
@@ -223,6 +252,26 @@ void ImpaladMetrics::InitCatalogMetrics(MetricGroup* m) {
       catalog_metrics->AddProperty<string>(ImpaladMetricKeys::CATALOG_SERVICE_ID, "");
   CATALOG_READY =
       catalog_metrics->AddProperty<bool>(ImpaladMetricKeys::CATALOG_READY, false);
+  CATALOG_UPDATE_DESERIALIZE_TIME = catalog_metrics->AddCounter(
+      ImpaladMetricKeys::CATALOG_UPDATE_DESERIALIZE_TIME, 0);
+  CATALOG_UPDATE_APPLY_TIME =
+      catalog_metrics->AddCounter(ImpaladMetricKeys::CATALOG_UPDATE_APPLY_TIME, 0);
+  AUTHZ_DECISION_CACHE_HIT_COUNT = catalog_metrics->AddCounter(
+      ImpaladMetricKeys::AUTHZ_DECISION_CACHE_HIT_COUNT, 0);
+  AUTHZ_DECISION_CACHE_MISS_COUNT = catalog_metrics->AddCounter(
+      ImpaladMetricKeys::AUTHZ_DECISION_CACHE_MISS_COUNT, 0);
+  AUTHZ_DECISION_CACHE_HIT_RATE = catalog_metrics->AddDoubleGauge(
+      ImpaladMetricKeys::AUTHZ_DECISION_CACHE_HIT_RATE, 0);
+  AUTHZ_GROUP_CACHE_HIT_COUNT = catalog_metrics->AddCounter(
+      ImpaladMetricKeys::AUTHZ_GROUP_CACHE_HIT_COUNT, 0);
+  AUTHZ_GROUP_CACHE_MISS_COUNT = catalog_metrics->AddCounter(
+      ImpaladMetricKeys::AUTHZ_GROUP_CACHE_MISS_COUNT, 0);
+  AUTHZ_GROUP_CACHE_STALE_HIT_COUNT = catalog_metrics->AddCounter(
+      ImpaladMetricKeys::AUTHZ_GROUP_CACHE_STALE_HIT_COUNT, 0);
+  AUTHZ_GROUP_CACHE_LOAD_FAILURE_COUNT = catalog_metrics->AddCounter(
+      ImpaladMetricKeys::AUTHZ_GROUP_CACHE_LOAD_FAILURE_COUNT, 0);
+  AUTHZ_GROUP_CACHE_AVG_LOAD_TIME = catalog_metrics->AddDoubleGauge(
+      ImpaladMetricKeys::AUTHZ_GROUP_CACHE_AVG_LOAD_TIME, 0);
   // CatalogdMetaProvider cache metrics. Valid only when --use_local_catalog is set.
   if (FLAGS_use_local_catalog) {
     CATALOG_CACHE_AVG_LOAD_TIME = catalog_metrics->AddDoubleGauge(
@@ -140,6 +140,13 @@ class ImpaladMetricKeys {
   /// a catalog server with an unexpected ID.
   static const char* CATALOG_READY;
 
+  /// Total time spent deserializing catalog objects of catalog topic updates.
+  static const char* CATALOG_UPDATE_DESERIALIZE_TIME;
+
+  /// Total time spent applying deserialized catalog topic updates to the catalog cache
+  /// while holding the catalog lock.
+  static const char* CATALOG_UPDATE_APPLY_TIME;
+
   /// Average time spent loading new values into the Impalad Catalog Cache.
   static const char* CATALOG_CACHE_AVG_LOAD_TIME;
 
@@ -181,6 +188,30 @@ class ImpaladMetricKeys {
   /// Total time spent in Impalad Catalog cache loading new values.
   static const char* CATALOG_CACHE_TOTAL_LOAD_TIME;
 
+  /// Total number of authorization decisions served from the decision cache.
+  static const char* AUTHZ_DECISION_CACHE_HIT_COUNT;
+
+  /// Total number of authorization decisions not found in the decision cache.
+  static const char* AUTHZ_DECISION_CACHE_MISS_COUNT;
+
+  /// Ratio of authorization decisions served from the decision cache.
+  static const char* AUTHZ_DECISION_CACHE_HIT_RATE;
+
+  /// Total number of user group lookups served from the group cache.
+  static const char* AUTHZ_GROUP_CACHE_HIT_COUNT;
+
+  /// Total number of user group lookups that had to wait for the group mapping service.
+  static const char* AUTHZ_GROUP_CACHE_MISS_COUNT;
+
+  /// Total number of user group lookups served from entries due for a reload.
+  static const char* AUTHZ_GROUP_CACHE_STALE_HIT_COUNT;
+
+  /// Total number of failed group mapping service lookups.
+  static const char* AUTHZ_GROUP_CACHE_LOAD_FAILURE_COUNT;
+
+  /// Average time of a group mapping service lookup.
+  static const char* AUTHZ_GROUP_CACHE_AVG_LOAD_TIME;
+
   /// Number of files open for insert
   static const char* NUM_FILES_OPEN_FOR_INSERT;
 
@@ -257,6 +288,14 @@ class ImpaladMetrics {
   static IntCounter* CATALOG_CACHE_MISS_COUNT;
   static IntCounter* CATALOG_CACHE_REQUEST_COUNT;
   static IntCounter* CATALOG_CACHE_TOTAL_LOAD_TIME;
+  static IntCounter* CATALOG_UPDATE_DESERIALIZE_TIME;
+  static IntCounter* CATALOG_UPDATE_APPLY_TIME;
+  static IntCounter* AUTHZ_DECISION_CACHE_HIT_COUNT;
+  static IntCounter* AUTHZ_DECISION_CACHE_MISS_COUNT;
+  static IntCounter* AUTHZ_GROUP_CACHE_HIT_COUNT;
+  static IntCounter* AUTHZ_GROUP_CACHE_MISS_COUNT;
+  static IntCounter* AUTHZ_GROUP_CACHE_STALE_HIT_COUNT;
+  static IntCounter* AUTHZ_GROUP_CACHE_LOAD_FAILURE_COUNT;
 
   // Gauges
   static IntGauge* CATALOG_NUM_DBS;
@@ -267,6 +306,8 @@ class ImpaladMetrics {
   static DoubleGauge* CATALOG_CACHE_HIT_RATE;
   static DoubleGauge* CATALOG_CACHE_LOAD_EXCEPTION_RATE;
   static DoubleGauge* CATALOG_CACHE_MISS_RATE;
+  static DoubleGauge* AUTHZ_DECISION_CACHE_HIT_RATE;
+  static DoubleGauge* AUTHZ_GROUP_CACHE_AVG_LOAD_TIME;
   static IntGauge* IMPALA_SERVER_NUM_OPEN_BEESWAX_SESSIONS;
   static IntGauge* IMPALA_SERVER_NUM_OPEN_HS2_SESSIONS;
   static IntGauge* IO_MGR_NUM_BUFFERS;
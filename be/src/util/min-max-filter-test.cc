@@ -20,6 +20,7 @@
 
 #include "runtime/decimal-value.h"
 #include "runtime/decimal-value.inline.h"
+#include "runtime/runtime-filter.inline.h"
 #include "runtime/string-value.inline.h"
 #include "runtime/test-env.h"
 #include "service/fe-support.h"
@@ -134,6 +135,84 @@ TEST(MinMaxFilterTest, TestNumericMinMaxFilter) {
   int_filter2->Close();
 }
 
+// Returns the result of RuntimeFilter::EvalMinMax() for 'val' against a filter that
+// was built from 'min_max_filter'. The filter checks the bound implied by 'compare_op',
+// or both bounds if 'compare_op' is nullptr.
+bool EvalMinMax(MinMaxFilter* min_max_filter,
+    const extdatasource::TComparisonOp::type* compare_op, int32_t* val) {
+  TRuntimeFilterDesc desc;
+  desc.__set_type(TRuntimeFilterType::MIN_MAX);
+  if (compare_op != nullptr) desc.__set_compare_op(*compare_op);
+  RuntimeFilter filter(desc, 0);
+  filter.SetFilter(nullptr, min_max_filter);
+  return filter.EvalMinMax(val, ColumnType(PrimitiveType::TYPE_INT));
+}
+
+// Tests that RuntimeFilter::EvalMinMax() only checks the bound implied by the
+// comparison op of filters that were generated from inequality join predicates.
+TEST(MinMaxFilterTest, TestEvalMinMax) {
+  MemTracker mem_tracker;
+  ObjectPool obj_pool;
+
+  ColumnType int_type(PrimitiveType::TYPE_INT);
+  MinMaxFilter* int_filter = MinMaxFilter::Create(int_type, &obj_pool, &mem_tracker);
+  int32_t i1 = 10;
+  int_filter->Insert(&i1);
+  int32_t i2 = 20;
+  int_filter->Insert(&i2);
+
+  int32_t below = 5;
+  int32_t within = 15;
+  int32_t above = 25;
+  // Without a comparison op, values must lie within [min, max].
+  EXPECT_FALSE(EvalMinMax(int_filter, nullptr, &below));
+  EXPECT_TRUE(EvalMinMax(int_filter, nullptr, &i1));
+  EXPECT_TRUE(EvalMinMax(int_filter, nullptr, &within));
+  EXPECT_TRUE(EvalMinMax(int_filter, nullptr, &i2));
+  EXPECT_FALSE(EvalMinMax(int_filter, nullptr, &above));
+
+  // 'target < src' can only be true if 'target' is less than the max of 'src'.
+  extdatasource::TComparisonOp::type op = extdatasource::TComparisonOp::LT;
+  EXPECT_TRUE(EvalMinMax(int_filter, &op, &below));
+  EXPECT_TRUE(EvalMinMax(int_filter, &op, &within));
+  EXPECT_FALSE(EvalMinMax(int_filter, &op, &i2));
+  EXPECT_FALSE(EvalMinMax(int_filter, &op, &above));
+  op = extdatasource::TComparisonOp::LE;
+  EXPECT_TRUE(EvalMinMax(int_filter, &op, &below));
+  EXPECT_TRUE(EvalMinMax(int_filter, &op, &i2));
+  EXPECT_FALSE(EvalMinMax(int_filter, &op, &above));
+
+  // 'target > src' can only be true if 'target' is greater than the min of 'src'.
+  op = extdatasource::TComparisonOp::GT;
+  EXPECT_FALSE(EvalMinMax(int_filter, &op, &below));
+  EXPECT_FALSE(EvalMinMax(int_filter, &op, &i1));
+  EXPECT_TRUE(EvalMinMax(int_filter, &op, &within));
+  EXPECT_TRUE(EvalMinMax(int_filter, &op, &above));
+  op = extdatasource::TComparisonOp::GE;
+  EXPECT_FALSE(EvalMinMax(int_filter, &op, &below));
+  EXPECT_TRUE(EvalMinMax(int_filter, &op, &i1));
+  EXPECT_TRUE(EvalMinMax(int_filter, &op, &above));
+
+  // NULL values are never rejected.
+  EXPECT_TRUE(EvalMinMax(int_filter, &op, nullptr));
+  EXPECT_TRUE(EvalMinMax(int_filter, nullptr, nullptr));
+
+  // A filter without any values rejects everything, even with a comparison op.
+  MinMaxFilter* empty_filter = MinMaxFilter::Create(int_type, &obj_pool, &mem_tracker);
+  EXPECT_FALSE(EvalMinMax(empty_filter, &op, &above));
+  EXPECT_FALSE(EvalMinMax(empty_filter, nullptr, &within));
+
+  // A filter that has not arrived yet rejects nothing.
+  TRuntimeFilterDesc desc;
+  desc.__set_type(TRuntimeFilterType::MIN_MAX);
+  desc.__set_compare_op(extdatasource::TComparisonOp::LT);
+  RuntimeFilter filter(desc, 0);
+  EXPECT_TRUE(filter.EvalMinMax(&above, int_type));
+
+  int_filter->Close();
+  empty_filter->Close();
+}
+
 void CheckStringVals(MinMaxFilter* filter, const string& min, const string& max) {
   StringValue actual_min = *reinterpret_cast<StringValue*>(filter->GetMin());
   StringValue actual_max = *reinterpret_cast<StringValue*>(filter->GetMax());
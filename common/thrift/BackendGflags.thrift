@@ -117,4 +117,26 @@ struct TBackendGflags {
   45: required i32 hms_event_polling_interval_s
 
   46: required string impala_build_version
+
+  47: required bool fetch_loaded_tables_directly
+
+  48: required i32 num_catalog_update_threads
+
+  49: required i32 authorization_decision_cache_size
+
+  50: required i32 authorization_group_cache_refresh_s
+
+  51: required i32 authorization_group_cache_expiry_s
+
+  52: required i32 stats_maintenance_interval_s
+
+  53: required double stats_maintenance_stale_ratio
+
+  54: required i64 stats_maintenance_budget_bytes
+
+  55: required i32 exec_feedback_max_entries
+
+  56: required i32 exec_feedback_ttl_s
+
+  57: required i32 slow_planning_log_threshold_ms
 }
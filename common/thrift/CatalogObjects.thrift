@@ -164,6 +164,11 @@ struct TColumnStats {
 
   // Estimated number of null values.
   4: required i64 num_nulls
+
+  // Sorted upper bounds of an equi-height histogram over the column values. Bound i
+  // is the approximate (i+1)/n quantile, where n is the number of bounds. Only set for
+  // numeric columns whose stats were computed with a non-incremental COMPUTE STATS.
+  5: optional list<double> histogram_bounds
 }
 
 // Intermediate state for the computation of per-column stats. Impala can aggregate these
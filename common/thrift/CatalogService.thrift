@@ -192,6 +192,10 @@ struct TUpdateCatalogRequest {
 
   // True if the update corresponds to an "insert overwrite" operation
   7: required bool is_overwrite;
+
+  // Total number of rows written by the insert. Used by the catalog to track how much
+  // a table was modified since its statistics were last computed.
+  8: optional i64 num_modified_rows;
 }
 
 // Response from a TUpdateCatalogRequest
@@ -360,6 +364,11 @@ struct TDbInfoSelector {
 
   // The response should include the list of function names in the DB.
   3: bool want_function_names
+
+  // The response should include the HMS Table objects of the given tables. Tables that
+  // are not loaded are fetched from the HMS without loading their metadata in the
+  // catalog. Used to serve schema-only requests like HiveServer2 GetColumns.
+  4: optional list<string> want_hms_tables
 }
 
 // Returned information about a Database, as selected by TDbInfoSelector.
@@ -367,6 +376,10 @@ struct TPartialDbInfo {
   1: optional hive_metastore.Database hms_database
   2: optional list<string> table_names
   3: optional list<string> function_names
+
+  // Set if 'want_hms_tables' was set in TDbInfoSelector. Tables that do not exist are
+  // omitted.
+  4: optional list<hive_metastore.Table> hms_tables
 }
 
 // RPC request for GetPartialCatalogObject.
@@ -437,6 +450,15 @@ struct TGetCatalogObjectResponse {
 struct TGetPartitionStatsRequest {
   1: required CatalogServiceVersion protocol_version = CatalogServiceVersion.V1
   2: required CatalogObjects.TTableName table_name
+
+  // If set, only the statistics of these partitions are considered. Partitions are
+  // identified by name, like in TGetPartitionStatsResponse.
+  3: optional list<string> partition_names
+
+  // If true, the incremental statistics of all considered partitions are merged by
+  // the catalog and returned as a single TPartitionStats in merged_partition_stats,
+  // instead of returning the statistics of every partition in partition_stats.
+  4: optional bool merge_stats
 }
 
 // Response for requesting partition statistics. All partition statistics
@@ -447,9 +469,15 @@ struct TGetPartitionStatsRequest {
 // An OK or null status means that the call succeeded.
 // If there was an error, an error status is returned and partition_stats
 // is left unset.
+// If merge_stats was requested, partition_stats is left unset and the incremental
+// statistics of the partitions in merged_partition_names are returned merged into a
+// single, deflate-compressed TPartitionStats. Only partitions with incremental
+// statistics are merged. merged_partition_stats is unset if there are none.
 struct TGetPartitionStatsResponse {
   1: optional Status.TStatus status
   2: optional map<string, binary> partition_stats
+  3: optional binary merged_partition_stats
+  4: optional list<string> merged_partition_names
 }
 
 // Instructs the Catalog Server to prioritizing loading of metadata for the specified
@@ -464,11 +492,24 @@ struct TPrioritizeLoadRequest {
   // A list of catalog objects descriptors for which to prioritize loading. A catalog
   // object descriptor is a TCatalogObject with only the object name and type fields set.
   3: required list<CatalogObjects.TCatalogObject> object_descs
+
+  // If true, the catalog server waits for the requested tables to be loaded and
+  // returns them in the response, so that the caller does not have to wait for them
+  // to arrive via a statestore topic update.
+  4: optional bool want_loaded_objects = false
 }
 
 struct TPrioritizeLoadResponse {
   // The status of the operation, OK if the operation was successful.
   1: required Status.TStatus status
+
+  // The service ID of the catalog server that loaded 'loaded_objects'. Only set if
+  // want_loaded_objects was true in the request.
+  2: optional Types.TUniqueId catalog_service_id
+
+  // The fully loaded tables/views that were requested. Objects that no longer exist
+  // are not included. Only set if want_loaded_objects was true in the request.
+  3: optional list<CatalogObjects.TCatalogObject> loaded_objects
 }
 
 // Request to perform a privilege check with the Sentry Service to determine
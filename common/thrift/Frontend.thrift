@@ -116,6 +116,18 @@ struct TGetCatalogMetricsResult {
   12: optional double cache_hit_rate
   13: optional double cache_load_exception_rate
   14: optional double cache_miss_rate
+  // Statistics of the authorization decision cache since the process boot time. Set
+  // regardless of the catalog mode.
+  15: optional i64 authz_decision_cache_hit_count
+  16: optional i64 authz_decision_cache_miss_count
+  // Statistics of the user group caches since the process boot time. Set regardless of
+  // the catalog mode.
+  17: optional i64 group_cache_hit_count
+  18: optional i64 group_cache_miss_count
+  // Number of hits on groups that were due for a background reload.
+  19: optional i64 group_cache_stale_hit_count
+  20: optional i64 group_cache_load_failure_count
+  21: optional double group_cache_avg_load_time_ms
 }
 
 // Arguments to getDbs, which returns a list of dbs that match an optional pattern
@@ -761,6 +773,13 @@ struct TUpdateCatalogCacheResponse {
 
   // The updated catalog version needed by the backend.
   3: required i64 new_catalog_version
+
+  // Time spent deserializing the catalog objects of the update, in milliseconds.
+  4: optional i64 deserialize_time_ms
+
+  // Time spent applying the deserialized objects to the catalog cache while holding
+  // the catalog lock, in milliseconds.
+  5: optional i64 apply_time_ms
 }
 
 // Sent from the impalad BE to FE with the latest membership snapshot of the
@@ -777,6 +796,17 @@ struct TUpdateExecutorMembershipRequest {
   3: i32 num_executors
 }
 
+// Sent from the impalad BE to FE when a query completes successfully. Contains the
+// actual cardinalities of the plan nodes, which the planner records as execution
+// feedback for later queries with matching plan nodes.
+struct TExecFeedback {
+  1: required Types.TUniqueId query_id
+
+  // Map from plan node id to the total number of rows returned by all instances of the
+  // plan node.
+  2: required map<Types.TPlanNodeId, i64> node_cardinalities
+}
+
 // Contains all interesting statistics from a single 'memory pool' in the JVM.
 // All numeric values are measured in bytes.
 struct TJvmMemoryPool {
@@ -323,6 +323,27 @@ struct TQueryOptions {
 
   // See comment in ImpalaService.thrift
   78: optional bool planner_testcase_mode = false;
+
+  // See comment in ImpalaService.thrift
+  79: optional i32 max_dp_join_relations = 0;
+
+  // See comment in ImpalaService.thrift
+  80: optional bool compute_column_histograms = false;
+
+  // See comment in ImpalaService.thrift
+  81: optional bool use_hive_bucketing = false;
+
+  // See comment in ImpalaService.thrift
+  82: optional i32 max_auto_mt_dop = 0;
+
+  // See comment in ImpalaService.thrift
+  83: optional bool enable_range_runtime_filters = false;
+
+  // See comment in ImpalaService.thrift
+  84: optional bool defer_filtered_scan_ranges = false;
+
+  // See comment in ImpalaService.thrift
+  85: optional bool enable_eager_aggregation = false;
 }
 
 // Impala currently has two types of sessions: Beeswax and HiveServer2
@@ -469,6 +490,10 @@ struct TQueryCtx {
   // Flag to enable tracing of resource usage consumption for all fragment instances of a
   // query. Set in ImpalaServer::PrepareQueryContext().
   21: required bool trace_resource_usage = false
+
+  // Maximum memory limit of a query in the resource pool of the query, if the pool
+  // limits it. Set in ImpalaServer::AddPoolConfiguration().
+  22: optional i64 pool_max_query_mem_limit
 }
 
 // Specification of one output destination of a plan fragment
@@ -377,6 +377,56 @@ enum TImpalaQueryOptions {
   // debugging a testcase. Should not be set in user clusters. If set, a warning
   // is emitted in the query runtime profile.
   PLANNER_TESTCASE_MODE = 77
+
+  // The maximum number of relations in a join for which the planner enumerates join
+  // orders, including bushy ones, with dynamic programming over the estimated network
+  // and hash table build costs. Joins of more relations are ordered greedily.
+  // A value of 0 disables the dynamic programming join enumeration.
+  MAX_DP_JOIN_RELATIONS = 78
+
+  // If true, non-incremental COMPUTE STATS also builds an equi-height histogram for
+  // every integer column. The planner uses the histograms to estimate the selectivity
+  // of range predicates and of equality predicates on frequent values.
+  COMPUTE_COLUMN_HISTOGRAMS = 79
+
+  // If true, scans of Hive-bucketed tables whose files follow the Hive bucket file
+  // naming are treated as partitioned by the bucketing columns. Joins and aggregations
+  // on the bucketing columns of tables with the same number of buckets are then
+  // executed without exchanges. Only applies if MT_DOP is 0. Requires that the files
+  // were written by Hive with bucketing enforced.
+  USE_HIVE_BUCKETING = 80
+
+  // Upper bound of the degree of intra-node parallelism that the planner selects per
+  // plan fragment when MT_DOP is not set to a positive value. The planner chooses the
+  // parallelism of each fragment from its estimated scan bytes, processed rows and
+  // per-host memory, see the query plan for the reasoning. Resource pools can bound
+  // the parallelism through their default query options. Only applies to queries that
+  // can be executed with MT_DOP. A value of 0 disables the automatic selection.
+  MAX_AUTO_MT_DOP = 81
+
+  // If true, the planner also generates min/max runtime filters from the inequality
+  // predicates of joins, e.g. t.ts BETWEEN r.start AND r.end, and lets nested loop
+  // joins build them. The filters bound the probe-side values by the minimum or
+  // maximum value of the build side. They are applied by Kudu scans and, if the target
+  // is bound by partition columns, by HDFS scans to skip partitions.
+  ENABLE_RANGE_RUNTIME_FILTERS = 82
+
+  // If true, HDFS scans that are the target of a runtime filter on partition columns
+  // ship one scan range spec per file block instead of the scan ranges of the block.
+  // The scheduler assigns each block to a host that stores a replica of it, and the
+  // executors only generate the scan ranges of files in partitions that pass the
+  // runtime filters. This reduces the number of scan ranges to schedule for scans over
+  // many partitions while keeping the blocks of a file spread over the hosts. Each
+  // spec only carries the metadata of its own block.
+  DEFER_FILTERED_SCAN_RANGES = 83
+
+  // If true, the planner pushes a partial aggregation below the joins of a grouping
+  // query if all the aggregate functions are SUM, COUNT, MIN or MAX over the columns of
+  // a single inner-joined table. The pushed-down aggregation groups the table by the
+  // columns that are referenced outside of the aggregate functions, e.g. the join keys,
+  // and is only added if the column stats estimate that it reduces the number of rows
+  // that are joined by at least 10x.
+  ENABLE_EAGER_AGGREGATION = 84
 }
 
 // The summary of a DML statement.
@@ -597,6 +597,11 @@ struct TComputeStatsParams {
   // Sum of file sizes in the table. Only set for tables of type HDFS_TABLE and if
   // is_incremental is false.
   9: optional i64 total_file_bytes
+
+  // Names of the columns, in order, for which col_stats_query returns a histogram. The
+  // histograms are the trailing values of the col_stats_query result row, after the
+  // regular per-column stats.
+  10: optional list<string> histogram_cols
 }
 
 // Parameters for CREATE/DROP ROLE
@@ -708,6 +713,28 @@ struct TTableUsageMetrics {
   3: optional i64 num_metadata_operations
 }
 
+// Freshness of the statistics of a table whose statistics are missing, corrupt or stale.
+struct TTableStatsFreshness {
+  1: required CatalogObjects.TTableName table_name
+
+  // Row count statistic of the table, -1 if it is missing.
+  2: required i64 num_rows
+
+  // Total size of the table's files in bytes.
+  3: required i64 total_file_bytes
+
+  // Number of rows inserted since the statistics were last computed, -1 if the table
+  // was also modified by external systems and the number is unknown.
+  4: required i64 num_modified_rows
+
+  // Human-readable reason why the statistics are considered stale.
+  5: required string reason
+
+  // Statement recommended to refresh the statistics. Not set if refreshing the
+  // statistics does not fit in the configured budget.
+  6: optional string recommended_stmt
+}
+
 // Response to a GetCatalogUsage request.
 struct TGetCatalogUsageResponse{
   // List of the largest (in terms of memory requirements) tables.
@@ -716,6 +743,14 @@ struct TGetCatalogUsageResponse{
   // List of the most frequently accessed (in terms of number of metadata operations)
   // tables.
   2: required list<TTableUsageMetrics> frequently_accessed_tables
+
+  // List of the tables with missing, corrupt or stale statistics, most stale first. Only
+  // set if --stats_maintenance_interval_s is positive.
+  3: optional list<TTableStatsFreshness> stale_stats_tables
+
+  // Sequence number of the evaluation that produced 'stale_stats_tables'. Set together
+  // with 'stale_stats_tables'.
+  4: optional i64 stats_evaluation_seq
 }
 
 struct TColumnName {
@@ -780,6 +815,29 @@ struct TGetCatalogServerMetricsResponse {
 
   // gets the events processor metrics if configured
   2: optional TEventProcessorMetrics event_metrics;
+
+  // Statistics of the periodic syncs of the authorization policy with Sentry. Only set
+  // if the Sentry Service is configured.
+  // Total number of syncs.
+  3: optional i64 sentry_num_syncs
+
+  // Time taken by the last sync, including the reads from the Sentry Service.
+  4: optional i64 sentry_last_sync_duration_ms
+
+  // Number of privileges read by the last sync.
+  5: optional i64 sentry_last_sync_num_privileges
+
+  // Number of catalog objects added or removed by the last sync.
+  6: optional i64 sentry_last_sync_num_changes
+
+  // Statistics of the stats maintenance. Only set if --stats_maintenance_interval_s is
+  // positive.
+  // Number of tables with missing, corrupt or stale statistics as of the last
+  // evaluation.
+  7: optional i64 stats_maintenance_num_stale_tables
+
+  // Total number of evaluations of the freshness of table statistics.
+  8: optional i64 stats_maintenance_num_evaluations
 }
 
 // Request to copy the generated testcase from a given input path.
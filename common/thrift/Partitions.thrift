@@ -39,6 +39,11 @@ enum TPartitionType {
   // schemes. We should add something like lists of TDataPartitions to reflect that
   // and then this can be removed. (IMPALA-5255)
   KUDU = 4
+
+  // unordered partition on a set of exprs with the bucketing function of a Hive table
+  // (the partitions are the buckets of the scanned files). Only used for the data
+  // partition of fragments, never as the output partition of a data stream sender.
+  BUCKET_PARTITIONED = 5
 }
 
 // Specification of how a single logical data stream is partitioned.
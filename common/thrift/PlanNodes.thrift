@@ -156,6 +156,12 @@ struct TRuntimeFilterDesc {
   // The size of the filter based on the ndv estimate and the min/max limit specified in
   // the query options. Should be greater than zero for bloom filters, zero otherwise.
   11: optional i64 filter_size_bytes
+
+  // Set for min/max filters that are generated from an inequality predicate of the
+  // form <target_expr> <compare_op> <src_expr>. Only the bound of the filter that is
+  // implied by the operator is applied: the maximum for LT and LE, the minimum for GT
+  // and GE. If not set, target values must lie within the minimum and maximum.
+  12: optional ExternalDataSource.TComparisonOp compare_op
 }
 
 // The information contained in subclasses of ScanNode captured in two separate
@@ -191,6 +197,10 @@ struct THdfsFileSplit {
 
   // whether this file is erasure-coded
   8: required bool is_erasure_coded
+
+  // Hive bucket of the file. Only set if the scan node is partitioned by the buckets
+  // of the table, see TPartitionType.BUCKET_PARTITIONED.
+  9: optional i32 bucket_id
 }
 
 // key range for single THBaseScanNode
@@ -207,7 +217,10 @@ struct THBaseKeyRange {
 // Specifies how THdfsFileSplits can be generated from HDFS files.
 // Currently used for files that do not have block locations,
 // such as S3, ADLS, and Local. The Frontend creates these and the
-// coordinator's scheduler expands them into THdfsFileSplits.
+// coordinator's scheduler expands them into THdfsFileSplits. Scans with deferred
+// scan ranges also use them for files with block locations, in which case they are
+// expanded by the executors and the replica host indexes of 'file_desc' refer to
+// TQueryExecRequest.host_list.
 // The plan is to use TFileSplitGeneratorSpec as well for HDFS
 // files with block information. Doing so will permit the FlatBuffer
 // representation used to represent block information to pass from the
@@ -223,6 +236,15 @@ struct TFileSplitGeneratorSpec {
 
   // ID of partition within the THdfsTable associated with this scan node.
   4: required i64 partition_id
+
+  // Hive bucket of the file, copied into the generated THdfsFileSplits.
+  5: optional i32 bucket_id
+
+  // Byte range of the file covered by this spec. Only set for the deferred specs of
+  // splittable files, which cover one block each. 'file_desc' then only contains that
+  // block. If not set, the spec covers the whole file.
+  6: optional i64 offset
+  7: optional i64 length
 }
 
 // Specification of an individual data range which is held in its entirety
@@ -232,6 +254,10 @@ struct TScanRange {
   1: optional THdfsFileSplit hdfs_file_split
   2: optional THBaseKeyRange hbase_key_range
   3: optional binary kudu_scan_token
+
+  // A file or a block of a file of an HDFS scan whose splits are generated by the
+  // executor, see TScanRangeSpec.defer_split_specs.
+  4: optional TFileSplitGeneratorSpec file_split_spec
 }
 
 struct THdfsScanNode {
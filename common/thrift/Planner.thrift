@@ -78,6 +78,11 @@ struct TPlanFragment {
   // Maximum number of required threads that will be executing concurrently for this plan
   // fragment, i.e. the number of threads that this query needs to execute successfully.
   10: optional i64 thread_reservation
+
+  // Maximum number of instances of this fragment per host. Set if the planner selected
+  // the degree of parallelism of the fragment, see the MAX_AUTO_MT_DOP query option.
+  // Bounds the query-wide MT_DOP for this fragment.
+  11: optional i32 max_instances_per_host
 }
 
 // location information for a single scan range
@@ -107,6 +112,13 @@ struct TScanRangeLocationList {
 struct TScanRangeSpec {
    1: optional list<TScanRangeLocationList> concrete_ranges
    2: optional list<PlanNodes.TFileSplitGeneratorSpec> split_specs
+
+   // If true, the scheduler does not expand the split specs but assigns each of them as
+   // a single scan range, placed by the replicas of the blocks in its file descriptor.
+   // The executors expand the specs of files in partitions that pass the runtime
+   // filters of the scan.
+   // See DEFER_FILTERED_SCAN_RANGES.
+   3: optional bool defer_split_specs
 }
 
 // A plan: tree of plan fragments that materializes either a query result or the build
@@ -41,7 +41,10 @@ import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.common.Pair;
 import org.apache.impala.common.RuntimeEnv;
+import org.apache.impala.rewrite.BatchedConstantFolder;
 import org.apache.impala.rewrite.ExprRewriter;
+import org.apache.impala.service.FrontendProfile;
+import org.apache.impala.service.FrontendProfile.PhaseTimer;
 import org.apache.impala.thrift.TAccessEvent;
 import org.apache.impala.thrift.TLineageGraph;
 import org.apache.impala.thrift.TQueryCtx;
@@ -441,8 +444,8 @@ public class AnalysisContext {
 
   /**
    * Analyzes the statement set in 'analysisResult_' with a new Analyzer based on the
-   * given loaded tables. Performs expr and subquery rewrites which require re-analyzing
-   * the transformed statement.
+   * given loaded tables. Performs expr, subquery and eager aggregation rewrites which
+   * require re-analyzing the transformed statement.
    */
   private void analyze(StmtTableCache stmtTableCache) throws AnalysisException {
     Preconditions.checkNotNull(analysisResult_);
@@ -454,17 +457,45 @@ public class AnalysisContext {
     // Apply expr and subquery rewrites.
     boolean reAnalyze = false;
     ExprRewriter rewriter = analysisResult_.analyzer_.getExprRewriter();
-    if (analysisResult_.requiresExprRewrite()) {
-      rewriter.reset();
-      analysisResult_.stmt_.rewriteExprs(rewriter);
-      reAnalyze = rewriter.changed();
+    try (PhaseTimer timer = FrontendProfile.startPhase("Rewrites")) {
+      if (analysisResult_.requiresExprRewrite()) {
+        rewriter.reset();
+        if (getQueryOptions().enable_expr_rewrites) {
+          // Fold the constants of the whole statement with a single BE call before
+          // applying the rules one expr at a time.
+          reAnalyze = BatchedConstantFolder.foldConstants(
+              analysisResult_.stmt_, analysisResult_.analyzer_) > 0;
+        }
+        analysisResult_.stmt_.rewriteExprs(rewriter);
+        rewriter.addStatsToProfile();
+        reAnalyze |= rewriter.changed();
+      }
+      if (analysisResult_.requiresSubqueryRewrite()) {
+        new StmtRewriter.SubqueryRewriter().rewrite(analysisResult_);
+        reAnalyze = true;
+      }
     }
-    if (analysisResult_.requiresSubqueryRewrite()) {
-      new StmtRewriter.SubqueryRewriter().rewrite(analysisResult_);
-      reAnalyze = true;
+    if (reAnalyze) reAnalyzeRewrittenStmt(stmtTableCache, isExplain);
+
+    // The eager aggregation rewrite relies on the analysis of the statement after the
+    // other rewrites, so it requires a separate re-analysis.
+    if (analysisResult_.requiresExprRewrite()
+        && getQueryOptions().isEnable_eager_aggregation()) {
+      StmtRewriter.EagerAggregationRewriter eagerAggRewriter =
+          new StmtRewriter.EagerAggregationRewriter();
+      try (PhaseTimer timer = FrontendProfile.startPhase("EagerAggregation")) {
+        eagerAggRewriter.rewrite(analysisResult_);
+      }
+      if (eagerAggRewriter.changed()) reAnalyzeRewrittenStmt(stmtTableCache, isExplain);
     }
-    if (!reAnalyze) return;
+  }
 
+  /**
+   * Resets the rewritten statement in 'analysisResult_' and re-analyzes it with a new
+   * Analyzer. 'isExplain' is true if the original statement is an EXPLAIN.
+   */
+  private void reAnalyzeRewrittenStmt(StmtTableCache stmtTableCache, boolean isExplain)
+      throws AnalysisException {
     // The rewrites should have no user-visible effect. Remember the original result
     // types and column labels to restore them after the rewritten stmt has been
     // reset() and re-analyzed. For a CTAS statement, the types represent column types
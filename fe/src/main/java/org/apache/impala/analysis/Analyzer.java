@@ -81,7 +81,6 @@ import org.apache.impala.util.DisjointSet;
 import org.apache.impala.util.Graph.RandomAccessibleGraph;
 import org.apache.impala.util.Graph.SccCondensedGraph;
 import org.apache.impala.util.Graph.WritableGraph;
-import org.apache.impala.util.IntIterator;
 import org.apache.impala.util.ListMap;
 import org.apache.impala.util.TSessionStateUtil;
 import org.slf4j.Logger;
@@ -2105,20 +2104,18 @@ public class Analyzer {
   }
 
   /**
-   * Returns sorted slot IDs with value transfers from 'srcSid'.
-   * Time complexity: O(V) where V = number of slots
+   * Returns sorted slot IDs with value transfers from 'srcSid'. The targets are sorted
+   * because an unsorted result drastically changes the runtime filter assignment and
+   * results in worse plans.
+   * Time complexity: O(T) where T = number of targets, the sorted targets are cached
+   * in the value transfer graph.
    */
   public List<SlotId> getValueTransferTargets(SlotId srcSid) {
     SccCondensedGraph g = globalState_.valueTransferGraph;
     if (srcSid.asInt() >= g.numVertices()) return Collections.singletonList(srcSid);
-    List<SlotId> result = new ArrayList<>();
-    for (IntIterator dstIt = g.dstIter(srcSid.asInt()); dstIt.hasNext(); dstIt.next()) {
-      result.add(new SlotId(dstIt.peek()));
-    }
-    // Unsorted result drastically changes the runtime filter assignment and results in
-    // worse plan.
-    // TODO: Investigate the call sites and remove this sort.
-    Collections.sort(result);
+    int[] dsts = g.sortedDstVids(srcSid.asInt());
+    List<SlotId> result = new ArrayList<>(dsts.length);
+    for (int dst: dsts) result.add(new SlotId(dst));
     return result;
   }
 
@@ -2540,12 +2537,22 @@ public class Analyzer {
     return db;
   }
 
+  /**
+   * Returns the Db with the given name or null if it does not exist. Prefers the Db
+   * pinned by the StmtTableCache, so that all lookups of a statement see the same
+   * version of a database.
+   */
+  private FeDb getDbNoThrow(String dbName) {
+    FeDb db = globalState_.stmtTableCache.getDb(dbName);
+    return db != null ? db : getCatalog().getDb(dbName);
+  }
+
   /**
    * Returns a Catalog Db object without checking for privileges.
    */
   public FeDb getDb(String dbName, boolean throwIfDoesNotExist)
       throws AnalysisException {
-    FeDb db = getCatalog().getDb(dbName);
+    FeDb db = getDbNoThrow(dbName);
     if (db == null && throwIfDoesNotExist) {
       throw new AnalysisException(DB_DOES_NOT_EXIST_ERROR_MSG + dbName);
     }
@@ -2565,7 +2572,7 @@ public class Analyzer {
     registerPrivReq(new PrivilegeRequestBuilder().allOf(privilege)
         .onTable(dbName,  tableName).toRequest());
     try {
-      FeDb db = getCatalog().getDb(dbName);
+      FeDb db = getDbNoThrow(dbName);
       if (db == null) {
         throw new DatabaseNotFoundException("Database not found: " + dbName);
       }
@@ -2623,6 +2630,10 @@ public class Analyzer {
     return hasValueTransfer(a, b) && hasValueTransfer(b, a);
   }
 
+  /**
+   * Returns whether there is a value transfer from 'a' to 'b'.
+   * Time complexity: O(1)
+   */
   public boolean hasValueTransfer(SlotId a, SlotId b) {
     SccCondensedGraph g = globalState_.valueTransferGraph;
     return a.equals(b) || (a.asInt() < g.numVertices() && b.asInt() < g.numVertices()
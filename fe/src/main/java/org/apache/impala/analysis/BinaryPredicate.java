@@ -23,6 +23,7 @@ import java.util.List;
 
 import org.apache.impala.catalog.Db;
 import org.apache.impala.catalog.Function.CompareMode;
+import org.apache.impala.catalog.Histogram;
 import org.apache.impala.catalog.ScalarFunction;
 import org.apache.impala.catalog.Type;
 import org.apache.impala.common.AnalysisException;
@@ -211,18 +212,60 @@ public class BinaryPredicate extends Predicate {
 
     // Determine selectivity
     // TODO: Compute selectivity for nested predicates.
-    // TODO: Improve estimation using histograms.
     Reference<SlotRef> slotRefRef = new Reference<SlotRef>();
+    Reference<Integer> idxRef = new Reference<Integer>();
     if ((op_ == Operator.EQ || op_ == Operator.NOT_DISTINCT)
-        && isSingleColumnPredicate(slotRefRef, null)) {
+        && isSingleColumnPredicate(slotRefRef, idxRef)) {
       long distinctValues = slotRefRef.getRef().getNumDistinctValues();
       if (distinctValues > 0) {
         selectivity_ = 1.0 / distinctValues;
         selectivity_ = Math.max(0, Math.min(1, selectivity_));
       }
+      computeHistogramSelectivity(slotRefRef.getRef(), idxRef.getRef());
+    } else if ((op_ == Operator.LT || op_ == Operator.LE || op_ == Operator.GT
+        || op_ == Operator.GE) && isSingleColumnPredicate(slotRefRef, idxRef)) {
+      computeHistogramSelectivity(slotRefRef.getRef(), idxRef.getRef());
     }
   }
 
+  /**
+   * Sets the selectivity of this single-column predicate based on the histogram of the
+   * column referenced by 'slotRef', if there is one and the other operand is a numeric
+   * literal. 'slotRefIdx' is the child index of the slot ref. Leaves the selectivity
+   * unchanged otherwise. NULLs never satisfy the predicate, so the fraction of the
+   * non-NULL values estimated with the histogram is scaled by the fraction of non-NULL
+   * rows.
+   */
+  private void computeHistogramSelectivity(SlotRef slotRef, int slotRefIdx) {
+    Histogram histogram = getHistogram(slotRef);
+    if (histogram == null) return;
+    Expr other = getChild(1 - slotRefIdx);
+    if (!(other instanceof NumericLiteral)) return;
+    double value = ((NumericLiteral) other).getDoubleValue();
+    Operator op = slotRefIdx == 0 ? op_ : op_.converse();
+    double selectivity;
+    switch (op) {
+      case EQ:
+      case NOT_DISTINCT:
+        selectivity = histogram.getEqualityFraction(
+            value, slotRef.getNumDistinctValues());
+        if (selectivity < 0) return;
+        break;
+      case LT: selectivity = histogram.getFractionLessThan(value, false); break;
+      case LE: selectivity = histogram.getFractionLessThan(value, true); break;
+      case GT: selectivity = 1 - histogram.getFractionLessThan(value, true); break;
+      case GE: selectivity = 1 - histogram.getFractionLessThan(value, false); break;
+      default: return;
+    }
+    // The histogram is based on a sample, so a range that contains none of the
+    // sampled values may still contain some values. Assume at least half a bucket.
+    if (op != Operator.EQ && op != Operator.NOT_DISTINCT) {
+      selectivity = Math.max(selectivity, 0.5 / histogram.getNumBuckets());
+    }
+    selectivity *= getNonNullFraction(slotRef);
+    selectivity_ = Math.max(0, Math.min(1, selectivity));
+  }
+
   @Override
   protected float computeEvalCost() {
     if (!hasChildCosts()) return UNKNOWN_COST;
@@ -17,7 +17,7 @@
 
 package org.apache.impala.analysis;
 
-import java.nio.ByteBuffer;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -34,13 +34,17 @@ import org.apache.impala.catalog.FeCatalogUtils;
 import org.apache.impala.catalog.FeFsPartition;
 import org.apache.impala.catalog.FeFsTable;
 import org.apache.impala.catalog.FeHBaseTable;
+import org.apache.impala.catalog.FeKuduTable;
 import org.apache.impala.catalog.FeTable;
 import org.apache.impala.catalog.HdfsFileFormat;
 import org.apache.impala.catalog.HdfsPartition.FileDescriptor;
 import org.apache.impala.catalog.HdfsTable;
+import org.apache.impala.catalog.Histogram;
 import org.apache.impala.catalog.PartitionStatsUtil;
 import org.apache.impala.catalog.Type;
 import org.apache.impala.common.AnalysisException;
+import org.apache.impala.common.ImpalaException;
+import org.apache.impala.common.ImpalaRuntimeException;
 import org.apache.impala.common.PrintUtils;
 import org.apache.impala.common.RuntimeEnv;
 import org.apache.impala.service.BackendConfig;
@@ -48,6 +52,7 @@ import org.apache.impala.service.CatalogOpExecutor;
 import org.apache.impala.service.FrontendProfile;
 import org.apache.impala.thrift.TComputeStatsParams;
 import org.apache.impala.thrift.TErrorCode;
+import org.apache.impala.thrift.TGetPartitionStatsRequest;
 import org.apache.impala.thrift.TGetPartitionStatsResponse;
 import org.apache.impala.thrift.TPartitionStats;
 import org.apache.impala.thrift.TTableName;
@@ -91,6 +96,11 @@ import com.google.common.collect.Sets;
  *
  *   By default, statistics are computed for all columns. To control which columns are
  *   analyzed, a whitelist of columns names can be optionally specified.
+ * - Kudu and HBase tables:
+ *   Only table-level statistics are computed, so the TABLESAMPLE clause does not
+ *   require stats extrapolation. The sample consists of a percentage of the tablets or
+ *   regions of the table, see TableSampleClause.getUnitsSample(), and the row count
+ *   and NDVs are extrapolated like for HDFS tables.
  *
  * 2. COMPUTE INCREMENTAL STATS <table> [PARTITION <part_spec>]
  * - Stats extrapolation enabled:
@@ -144,11 +154,16 @@ public class ComputeStatsStmt extends StatementBase {
   // Set during analysis.
   protected FeTable table_;
 
-  // Effective sampling percent based on the total number of bytes in the files sample.
-  // Set to -1 for non-HDFS tables or if TABLESAMPLE was not specified.
+  // Effective sampling percent based on the total number of bytes in the files sample
+  // for HDFS tables and on the number of sampled tablets or regions for Kudu and HBase
+  // tables. Set to -1 if TABLESAMPLE was not specified.
   // We run the regular COMPUTE STATS for 0.0 and 1.0 where sampling has no benefit.
   protected double effectiveSamplePerc_ = -1;
 
+  // Random seed of the sample of the tablets or regions of a Kudu or HBase table. Set
+  // during analysis if the sample still has to be computed by computeUnitsSample().
+  private Long unitsSampleSeed_;
+
   // Query for getting the per-partition row count and the total row count.
   // Set during analysis.
   protected String tableStatsQueryStr_;
@@ -191,6 +206,10 @@ public class ComputeStatsStmt extends StatementBase {
   // column for HDFS tables. If the set is null, no columns are restricted.
   private Set<Column> validatedColumnWhitelist_;
 
+  // Names of the columns for which the column stats query computes a histogram, in the
+  // order of the histograms in the query result. Populated in analyze().
+  private final List<String> histogramCols_ = new ArrayList<>();
+
   /**
    * Should only be constructed via static creation functions.
    */
@@ -237,6 +256,9 @@ public class ComputeStatsStmt extends StatementBase {
 
   private List<String> getBaseColumnStatsQuerySelectList(Analyzer analyzer) {
     List<String> columnStatsSelectList = new ArrayList<>();
+    histogramCols_.clear();
+    boolean computeHistograms = !isIncremental_ &&
+        analyzer.getQueryOptions().isCompute_column_histograms();
     // For Hdfs tables, exclude partition columns from stats gathering because Hive
     // cannot store them as part of the non-partition column stats. For HBase tables,
     // include the single clustering column (the row key).
@@ -285,6 +307,14 @@ public class ComputeStatsStmt extends StatementBase {
         // Need the count in order to properly combine per-partition column stats
         columnStatsSelectList.add("COUNT(" + colRefSql + ")");
       }
+      if (computeHistograms && Histogram.isSupportedColType(type)) {
+        histogramCols_.add(c.getName());
+      }
+    }
+    // The histograms follow the per-column stats of all columns, so that the backend
+    // can process the per-column stats in groups of four values.
+    for (String colName: histogramCols_) {
+      columnStatsSelectList.add("HISTOGRAM(" + ToSqlUtils.getIdentSql(colName) + ")");
     }
     return columnStatsSelectList;
   }
@@ -305,6 +335,8 @@ public class ComputeStatsStmt extends StatementBase {
    *        NDV(c2), CAST(-1 as typeof(c2)), MAX(length(c2)), AVG(length(c2)),
    *        ...
    * FROM tbl
+   * If the COMPUTE_COLUMN_HISTOGRAMS query option is set, HISTOGRAM(c) of every
+   * integer column is appended to the select list. This also applies to 2.1.
    *
    * 2. COMPUTE STATS with TABLESAMPLE
    * 2.1 Row counts:
@@ -345,6 +377,7 @@ public class ComputeStatsStmt extends StatementBase {
    */
   @Override
   public void analyze(Analyzer analyzer) throws AnalysisException {
+    super.analyze(analyzer);
     // Resolve and analyze this table ref so we can evaluate partition predicates.
     TableRef tableRef = new TableRef(tableName_.toPath(), null, Privilege.ALTER);
     tableRef = analyzer.resolveTableRef(tableRef);
@@ -456,22 +489,21 @@ public class ComputeStatsStmt extends StatementBase {
         // Get incremental statistics from all relevant partitions.
         Collection<? extends FeFsPartition> allPartitions =
             FeCatalogUtils.loadAllPartitions(hdfsTable);
-        Map<Long, TPartitionStats> partitionStats =
+        ExistingPartitionStats partitionStats =
             getOrFetchPartitionStats(analyzer, hdfsTable, allPartitions,
                 /* excludedPartitions= */ Collections.<Long>emptySet());
         for (FeFsPartition p: allPartitions) {
-          TPartitionStats partStats = partitionStats.get(p.getId());
-          if (partStats == null || tableIsMissingColStats) {
+          if (!partitionStats.partitionIds_.contains(p.getId())
+              || tableIsMissingColStats) {
             if (!tableIsMissingColStats) filterPreds.add(p.getConjunctSql());
             // TODO(vercegovac): check what happens when "NULL" is used as a partitioning
             // value.
             List<String> partValues = PartitionKeyValue.getPartitionKeyValueStringList(
                 p.getPartitionValues(), "NULL");
             expectedPartitions_.add(partValues);
-          } else {
-            validPartStats_.add(partStats);
           }
         }
+        if (!tableIsMissingColStats) validPartStats_.addAll(partitionStats.stats_);
         if (expectedPartitions_.size() == hdfsTable.getPartitions().size()) {
           expectedPartitions_.clear();
           expectAllPartitions_ = true;
@@ -494,9 +526,9 @@ public class ComputeStatsStmt extends StatementBase {
         // Get incremental statistics for partitions that are not recomputed.
         Collection<? extends FeFsPartition> allPartitions =
             FeCatalogUtils.loadAllPartitions(hdfsTable);
-        Map<Long, TPartitionStats> partitionStats = getOrFetchPartitionStats(
+        ExistingPartitionStats partitionStats = getOrFetchPartitionStats(
             analyzer, hdfsTable, allPartitions, targetPartitions);
-        validPartStats_.addAll(partitionStats.values());
+        validPartStats_.addAll(partitionStats.stats_);
       }
       if (filterPreds.size() == 0 && validPartStats_.size() != 0) {
         if (LOG.isTraceEnabled()) {
@@ -525,7 +557,14 @@ public class ComputeStatsStmt extends StatementBase {
 
     // Tablesample clause to be used for all child queries.
     String tableSampleSql = analyzeTableSampleClause(analyzer);
+    buildChildQueries(tableSampleSql, filterPreds);
+  }
 
+  /**
+   * Builds the child queries, see analyze(), with 'tableSampleSql' as the TABLESAMPLE
+   * clause and 'filterPreds' as the partition filters of both queries.
+   */
+  private void buildChildQueries(String tableSampleSql, List<String> filterPreds) {
     // Query for getting the per-partition row count and the total row count.
     StringBuilder tableStatsQueryBuilder = new StringBuilder("SELECT ");
     String countSql = "COUNT(*)";
@@ -537,7 +576,7 @@ public class ComputeStatsStmt extends StatementBase {
     // Add group by columns for incremental stats or with extrapolation disabled.
     List<String> groupByCols = new ArrayList<>();
     if (!updateTableStatsOnly()) {
-      for (Column partCol: hdfsTable.getClusteringColumns()) {
+      for (Column partCol: table_.getClusteringColumns()) {
         groupByCols.add(ToSqlUtils.getIdentSql(partCol.getName()));
       }
       tableStatsSelectList.addAll(groupByCols);
@@ -546,7 +585,7 @@ public class ComputeStatsStmt extends StatementBase {
     tableStatsQueryBuilder.append(" FROM " + tableName_.toSql() + tableSampleSql);
 
     // Query for getting the per-column NDVs and number of NULLs.
-    List<String> columnStatsSelectList = getBaseColumnStatsQuerySelectList(analyzer);
+    List<String> columnStatsSelectList = getBaseColumnStatsQuerySelectList(analyzer_);
 
     if (isIncremental_) columnStatsSelectList.addAll(groupByCols);
 
@@ -588,13 +627,26 @@ public class ComputeStatsStmt extends StatementBase {
     if (LOG.isTraceEnabled()) LOG.trace("Column stats query: " + columnStatsQueryStr_);
   }
 
+  /**
+   * The existing incremental statistics of a set of partitions. The statistics are
+   * either one TPartitionStats per partition or, if fetched from the catalog, the
+   * statistics of all partitions merged into a single TPartitionStats. Either form can
+   * be used as TComputeStatsParams.existing_part_stats, since the backend only uses the
+   * aggregate of the existing statistics.
+   */
+  private static class ExistingPartitionStats {
+    // Ids of the partitions with incremental statistics.
+    final Set<Long> partitionIds_ = new HashSet<>();
+    final List<TPartitionStats> stats_ = new ArrayList<>();
+  }
+
   /**
    *  Get partition statistics from the list of partitions, omitting those in
    *  excludedPartitions and those for which incremental statistics are not present.
    *  If configured to pull incremental statistics directly from the
    *  catalog, partition statistics are fetched from the catalog.
    */
-  private static Map<Long, TPartitionStats> getOrFetchPartitionStats(Analyzer analyzer,
+  private static ExistingPartitionStats getOrFetchPartitionStats(Analyzer analyzer,
       FeFsTable table, Collection<? extends FeFsPartition> partitions,
       Set<Long> excludedPartitions) throws AnalysisException {
     Preconditions.checkNotNull(partitions);
@@ -620,73 +672,82 @@ public class ComputeStatsStmt extends StatementBase {
       return fetchPartitionStats(analyzer, table, partitionsToFetch);
     }
     // Get the statistics directly from the partition, if present.
-    Map<Long, TPartitionStats> ret = Maps.newHashMapWithExpectedSize(expectedNumStats);
+    ExistingPartitionStats ret = new ExistingPartitionStats();
     for (FeFsPartition p: partitions) {
       if (excludedPartitions.contains(p.getId())) continue;
       if (!p.hasIncrementalStats()) continue;
       TPartitionStats stats = p.getPartitionStats();
       Preconditions.checkNotNull(stats);
-      ret.put(p.getId(), stats);
+      ret.partitionIds_.add(p.getId());
+      ret.stats_.add(stats);
     }
     return ret;
   }
 
   /**
    * Fetches statistics for the partitions specified from the target table directly
-   * from catalogd. The partition statistics that are returned are the ones where:
+   * from catalogd. The statistics of the partitions where:
    * - incremental statistics are present
    * - the partition is whitelisted in 'partitions'
    * - the partition is present in the local impalad catalog
+   * are merged by catalogd and returned as a single TPartitionStats, so that only the
+   * names of the partitions and their aggregate statistics are transferred.
    * TODO(vercegovac): Look into parallelizing the fetch while child-queries are
    *                   running. Easiest would be to move this fetch to the backend.
    */
-  private static Map<Long, TPartitionStats> fetchPartitionStats(Analyzer analyzer,
+  private static ExistingPartitionStats fetchPartitionStats(Analyzer analyzer,
       FeFsTable table, List<FeFsPartition> partitions) throws AnalysisException {
     Preconditions.checkNotNull(partitions);
     Preconditions.checkState(BackendConfig.INSTANCE.pullIncrementalStatistics()
         && !RuntimeEnv.INSTANCE.isTestEnv());
-    if (partitions.isEmpty()) return Collections.emptyMap();
+    ExistingPartitionStats result = new ExistingPartitionStats();
+    if (partitions.isEmpty()) return result;
     Stopwatch sw = new Stopwatch().start();
     int numCompressedBytes = 0;
     int totalPartitions = 0;
     int numPartitionsWithStats = 0;
     try {
+      // The table in catalogd may be newer than the local, impalad catalog. As a
+      // result, it might have partitions not present locally and might not have
+      // partitions that are present locally. After stats are computed, they are sent to
+      // catalogd to update the HMS and catalog state. The catalogd already handles the
+      // case where the list of partitions are out of sync (see
+      // CatalogOpExecutor#alterTableUpdateStats). As a result, only the local partitions
+      // are requested, and at most those partitions in the intersection between remote
+      // and local catalogs are merged.
+      Map<String, Long> partitionIds = Maps.newHashMapWithExpectedSize(partitions.size());
+      for (FeFsPartition part: partitions) {
+        partitionIds.put(FeCatalogUtils.getPartitionName(part), part.getId());
+      }
+      totalPartitions = partitions.size();
+      TGetPartitionStatsRequest request = new TGetPartitionStatsRequest();
+      request.setTable_name(table.getTableName().toThrift());
+      request.setPartition_names(new ArrayList<>(partitionIds.keySet()));
+      request.setMerge_stats(true);
       TGetPartitionStatsResponse response =
-          analyzer.getCatalog().getPartitionStats(table.getTableName());
+          analyzer.getCatalog().getPartitionStats(request);
       if (response.status.status_code != TErrorCode.OK) {
         throw new AnalysisException(
             "Error fetching partition statistics: " + response.status.toString());
       }
-      if (!response.isSetPartition_stats()) return Collections.emptyMap();
-
-      // The response from catalogd is from a version of the table that may be newer
-      // than the local, impalad catalog. As a result, the response might include
-      // partitions not present locally and might not include partitions that are
-      // present locally. After stats are computed, they are sent to catalogd to update
-      // the HMS and catalog state. The catalogd already handles the case where the list
-      // of partitions are out of sync (see CatalogOpExecutor#alterTableUpdateStats).
-      // As a result, at most those partitions in the intersection between remote and
-      // local catalogs are returned.
-      Map<Long, TPartitionStats> partitionStats =
-          Maps.newHashMapWithExpectedSize(partitions.size());
-      totalPartitions = partitions.size();
-      for (FeFsPartition part: partitions) {
-        ByteBuffer compressedStats = response.partition_stats.get(
-            FeCatalogUtils.getPartitionName(part));
-        if (compressedStats != null) {
-          byte[] compressedStatsBytes = new byte[compressedStats.remaining()];
-          numCompressedBytes += compressedStatsBytes.length;
-          compressedStats.get(compressedStatsBytes);
-          TPartitionStats remoteStats =
-              PartitionStatsUtil.partStatsFromCompressedBytes(
-                  compressedStatsBytes, part);
-          if (remoteStats != null && remoteStats.isSetIntermediate_col_stats()) {
-            ++numPartitionsWithStats;
-            partitionStats.put(part.getId(), remoteStats);
-          }
-        }
+      if (!response.isSetMerged_partition_stats()) return result;
+
+      for (String partName: response.getMerged_partition_names()) {
+        Long partId = partitionIds.get(partName);
+        Preconditions.checkState(partId != null,
+            "Unexpected partition in merged statistics: %s", partName);
+        result.partitionIds_.add(partId);
+      }
+      byte[] compressedStats = response.getMerged_partition_stats();
+      numCompressedBytes = compressedStats.length;
+      TPartitionStats mergedStats =
+          PartitionStatsUtil.partStatsFromCompressedBytes(compressedStats, null);
+      if (mergedStats == null || !mergedStats.isSetIntermediate_col_stats()) {
+        throw new AnalysisException("Invalid merged partition statistics");
       }
-      return partitionStats;
+      result.stats_.add(mergedStats);
+      numPartitionsWithStats = result.partitionIds_.size();
+      return result;
     } catch (Exception e) {
       Throwables.propagateIfInstanceOf(e, AnalysisException.class);
       throw new AnalysisException("Error fetching partition statistics", e);
@@ -721,8 +782,12 @@ public class ComputeStatsStmt extends StatementBase {
    */
   private String analyzeTableSampleClause(Analyzer analyzer) throws AnalysisException {
     if (sampleParams_ == null) return "";
+    if (table_ instanceof FeKuduTable || table_ instanceof FeHBaseTable) {
+      return analyzeUnitsTableSampleClause(analyzer);
+    }
     if (!(table_ instanceof FeFsTable)) {
-      throw new AnalysisException("TABLESAMPLE is only supported on HDFS tables.");
+      throw new AnalysisException(
+          "TABLESAMPLE is only supported on HDFS, Kudu and HBase tables.");
     }
     FeFsTable hdfsTable = (FeFsTable) table_;
     if (!FeFsTable.Utils.isStatsExtrapolationEnabled(hdfsTable)) {
@@ -777,6 +842,77 @@ public class ComputeStatsStmt extends StatementBase {
     return " " + sampleParams_.toSql(sampleSeed);
   }
 
+  /**
+   * Analyzes the TABLESAMPLE clause of a Kudu or HBase table, which are sampled by
+   * tablets or regions. Looking up the number of tablets or regions requires an RPC to
+   * Kudu or HBase, so the sample is computed after analysis by computeUnitsSample().
+   * Until then, the child queries do not sample and an empty string is returned.
+   */
+  private String analyzeUnitsTableSampleClause(Analyzer analyzer)
+      throws AnalysisException {
+    Preconditions.checkState(
+        table_ instanceof FeKuduTable || table_ instanceof FeHBaseTable);
+    sampleParams_.analyze(analyzer);
+    if (sampleParams_.hasRandomSeed()) {
+      unitsSampleSeed_ = sampleParams_.getRandomSeed();
+    } else {
+      unitsSampleSeed_ = System.currentTimeMillis();
+    }
+    return "";
+  }
+
+  /**
+   * Computes the sample of the tablets or regions of a Kudu or HBase table for the
+   * TABLESAMPLE clause, sets 'effectiveSamplePerc_' to the fraction of sampled tablets
+   * or regions and rebuilds the child queries to sample and extrapolate accordingly.
+   * The scan nodes of the child queries select the same tablets or regions. This is
+   * done once when the statement is planned, not during analysis, because it requires
+   * an RPC to Kudu or HBase. Returns a warning for the user or null. No-op if there is
+   * no such sample to compute.
+   */
+  public String computeUnitsSample() throws ImpalaException {
+    if (unitsSampleSeed_ == null) return null;
+    Preconditions.checkState(
+        table_ instanceof FeKuduTable || table_ instanceof FeHBaseTable);
+    String unitName;
+    int numUnits;
+    try {
+      if (table_ instanceof FeKuduTable) {
+        unitName = "tablets";
+        numUnits = FeKuduTable.Utils.getNumTablets((FeKuduTable) table_);
+      } else {
+        unitName = "regions";
+        numUnits = FeHBaseTable.Util.getNumRegions((FeHBaseTable) table_);
+      }
+    } catch (IOException e) {
+      throw new ImpalaRuntimeException("Error computing the sample of table: " +
+          table_.getFullName(), e);
+    }
+    int numSampledUnits =
+        TableSampleClause.getUnitsSampleSize(numUnits, sampleParams_.getPercentBytes());
+    if (numUnits > 0) {
+      effectiveSamplePerc_ = (double) numSampledUnits / (double) numUnits;
+    } else {
+      effectiveSamplePerc_ = 0;
+    }
+    Preconditions.checkState(effectiveSamplePerc_ >= 0.0 && effectiveSamplePerc_ <= 1.0);
+    long sampleSeed = unitsSampleSeed_;
+    unitsSampleSeed_ = null;
+
+    // Warn if we will ignore TABLESAMPLE and run the regular COMPUTE STATS.
+    if (effectiveSamplePerc_ == 1.0) {
+      Preconditions.checkState(!isSampling());
+      return String.format(
+          "Ignoring TABLESAMPLE because the effective sampling rate is 100%%.\n" +
+          "The sample includes all %d %s of the table", numUnits, unitName);
+    }
+    if (!isSampling()) return null;
+    // Kudu and HBase tables have no partition filters.
+    buildChildQueries(" " + sampleParams_.toSql(sampleSeed),
+        Collections.<String>emptyList());
+    return null;
+  }
+
   /**
    * Checks whether the column definitions from the CREATE TABLE stmt match the columns
    * in the Avro schema. If there is a mismatch, then COMPUTE STATS cannot update the
@@ -942,6 +1078,7 @@ public class ComputeStatsStmt extends StatementBase {
     if (table_ instanceof FeFsTable) {
       params.setTotal_file_bytes(((FeFsTable)table_).getTotalHdfsBytes());
     }
+    if (!histogramCols_.isEmpty()) params.setHistogram_cols(histogramCols_);
     return params;
   }
 }
@@ -17,10 +17,13 @@
 
 package org.apache.impala.analysis;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.impala.catalog.Db;
 import org.apache.impala.catalog.Function.CompareMode;
+import org.apache.impala.catalog.Histogram;
 import org.apache.impala.catalog.PrimitiveType;
 import org.apache.impala.catalog.ScalarFunction;
 import org.apache.impala.catalog.Type;
@@ -183,10 +186,40 @@ public class InPredicate extends Predicate {
         selectivity_ = (double) (getChildren().size() - 1)
             / (double) slotRefRef.getRef().getNumDistinctValues();
       }
+      double histogramSelectivity = getHistogramSelectivity(slotRefRef.getRef());
+      if (histogramSelectivity >= 0) {
+        // NULLs satisfy neither IN nor NOT IN.
+        selectivity_ = getNonNullFraction(slotRefRef.getRef()) *
+            (isNotIn() ? 1.0 - histogramSelectivity : histogramSelectivity);
+      }
       selectivity_ = Math.max(0.0, Math.min(1.0, selectivity_));
     }
   }
 
+  /**
+   * Returns the combined selectivity of the IN-list values among the non-NULL values of
+   * the column referenced by 'slotRef', estimated with its histogram, which accounts
+   * for frequent values. Returns -1 if there is no histogram or not all values are
+   * numeric literals.
+   */
+  private double getHistogramSelectivity(SlotRef slotRef) {
+    Histogram histogram = getHistogram(slotRef);
+    if (histogram == null) return -1;
+    Set<Double> values = new HashSet<>();
+    for (int i = 1; i < children_.size(); ++i) {
+      if (!(getChild(i) instanceof NumericLiteral)) return -1;
+      values.add(((NumericLiteral) getChild(i)).getDoubleValue());
+    }
+    double selectivity = 0;
+    for (double value: values) {
+      double fraction =
+          histogram.getEqualityFraction(value, slotRef.getNumDistinctValues());
+      if (fraction < 0) return -1;
+      selectivity += fraction;
+    }
+    return selectivity;
+  }
+
   @Override
   protected float computeEvalCost() {
     if (!hasChildCosts()) return UNKNOWN_COST;
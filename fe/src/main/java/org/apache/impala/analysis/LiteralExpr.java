@@ -20,6 +20,8 @@ package org.apache.impala.analysis;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.impala.catalog.ScalarType;
 import org.apache.impala.catalog.Type;
@@ -32,6 +34,7 @@ import org.apache.impala.service.FeSupport;
 import org.apache.impala.thrift.TColumnValue;
 import org.apache.impala.thrift.TExprNode;
 import org.apache.impala.thrift.TQueryCtx;
+import org.apache.impala.thrift.TResultRow;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -184,6 +187,8 @@ public abstract class LiteralExpr extends Expr implements Comparable<LiteralExpr
     Preconditions.checkState(constExpr.isConstant());
     Preconditions.checkState(constExpr.getType().isValid());
     if (constExpr instanceof LiteralExpr) return (LiteralExpr) constExpr;
+    LiteralExpr feResult = createInFe(constExpr);
+    if (feResult != null) return feResult;
 
     TColumnValue val = null;
     try {
@@ -193,7 +198,93 @@ public abstract class LiteralExpr extends Expr implements Comparable<LiteralExpr
           constExpr.toSql(), e.getMessage()));
       return null;
     }
+    return fromColumnValue(constExpr, val);
+  }
+
+  /**
+   * Evaluates the given analyzed constant exprs with a single call into the BE and
+   * returns their results in the same order. Individual results may be null for the
+   * same reasons as in create(Expr, TQueryCtx). Returns null if the batch as a whole
+   * could not be evaluated, e.g. because one of the exprs failed in the BE. Callers
+   * are expected to fall back to evaluating the exprs one at a time in that case.
+   */
+  public static List<LiteralExpr> createBatch(List<Expr> constExprs, TQueryCtx queryCtx)
+      throws AnalysisException {
+    for (Expr constExpr: constExprs) {
+      Preconditions.checkState(constExpr.isConstant());
+      Preconditions.checkState(constExpr.getType().isValid());
+    }
+    TResultRow vals = null;
+    try {
+      vals = FeSupport.EvalExprBatch(constExprs, queryCtx);
+    } catch (InternalException e) {
+      LOG.warn(String.format("Failed to evaluate a batch of %d exprs: %s",
+          constExprs.size(), e.getMessage()));
+      return null;
+    }
+    Preconditions.checkState(vals.getColValsSize() == constExprs.size());
+    List<LiteralExpr> results = new ArrayList<>(constExprs.size());
+    for (int i = 0; i < constExprs.size(); ++i) {
+      results.add(fromColumnValue(constExprs.get(i), vals.getColVals().get(i)));
+    }
+    return results;
+  }
+
+  /**
+   * Evaluates simple integer arithmetic and integer casts over literals directly in
+   * the FE without a round trip to the BE. Returns null if 'constExpr' is not of a
+   * supported form or if the result might differ from the BE evaluation, e.g. because
+   * of an overflow.
+   */
+  public static LiteralExpr createInFe(Expr constExpr) {
+    if (constExpr instanceof LiteralExpr) return (LiteralExpr) constExpr;
+    Type type = constExpr.getType();
+    if (!type.isIntegerType()) return null;
+    BigDecimal value = null;
+    if (constExpr instanceof CastExpr) {
+      BigDecimal childValue = getFeIntegerValue(constExpr.getChild(0));
+      if (childValue == null) return null;
+      value = childValue;
+    } else if (constExpr instanceof ArithmeticExpr) {
+      ArithmeticExpr arithExpr = (ArithmeticExpr) constExpr;
+      if (!arithExpr.getOp().isBinary()) return null;
+      BigDecimal lhs = getFeIntegerValue(arithExpr.getChild(0));
+      if (lhs == null) return null;
+      BigDecimal rhs = getFeIntegerValue(arithExpr.getChild(1));
+      if (rhs == null) return null;
+      switch (arithExpr.getOp()) {
+        case ADD: value = lhs.add(rhs); break;
+        case SUBTRACT: value = lhs.subtract(rhs); break;
+        case MULTIPLY: value = lhs.multiply(rhs); break;
+        default: return null;
+      }
+    } else {
+      return null;
+    }
+    try {
+      // Throws if the value overflows 'type'. The BE would wrap around in that case.
+      return new NumericLiteral(value, type);
+    } catch (SqlCastException e) {
+      return null;
+    }
+  }
 
+  /**
+   * Helper for createInFe(). Returns the value of 'expr' if it is an integer literal
+   * or can itself be evaluated in the FE. Returns null otherwise.
+   */
+  private static BigDecimal getFeIntegerValue(Expr expr) {
+    if (!expr.getType().isIntegerType()) return null;
+    LiteralExpr literal = createInFe(expr);
+    if (!(literal instanceof NumericLiteral)) return null;
+    return ((NumericLiteral) literal).getValue();
+  }
+
+  /**
+   * Converts the BE evaluation result 'val' of 'constExpr' into a LiteralExpr.
+   */
+  private static LiteralExpr fromColumnValue(Expr constExpr, TColumnValue val)
+      throws AnalysisException {
     LiteralExpr result = null;
     switch (constExpr.getType().getPrimitiveType()) {
       case NULL_TYPE:
@@ -17,6 +17,9 @@
 
 package org.apache.impala.analysis;
 
+import org.apache.impala.catalog.ColumnStats;
+import org.apache.impala.catalog.FeTable;
+import org.apache.impala.catalog.Histogram;
 import org.apache.impala.catalog.Type;
 import org.apache.impala.common.AnalysisException;
 import org.apache.impala.common.Pair;
@@ -76,6 +79,31 @@ public abstract class Predicate extends Expr {
     return true;
   }
 
+  /**
+   * Returns the histogram of the column referenced by 'slotRef', or null if the column
+   * has no histogram.
+   */
+  protected static Histogram getHistogram(SlotRef slotRef) {
+    ColumnStats stats = slotRef.getDesc().getStats();
+    return stats == null ? null : stats.getHistogram();
+  }
+
+  /**
+   * Returns the fraction of the rows of the table of 'slotRef' in which the referenced
+   * column is not NULL. Histograms only describe the non-NULL values, so fractions
+   * derived from them are scaled by this. Returns 1 if the number of NULLs or the
+   * number of rows is unknown.
+   */
+  protected static double getNonNullFraction(SlotRef slotRef) {
+    ColumnStats stats = slotRef.getDesc().getStats();
+    FeTable table = slotRef.getDesc().getParent().getTable();
+    if (stats == null || table == null) return 1;
+    long numNulls = stats.getNumNulls();
+    long numRows = table.getNumRows();
+    if (numNulls < 0 || numRows <= 0) return 1;
+    return Math.max(0, 1 - (double) numNulls / numRows);
+  }
+
   public static boolean isEquivalencePredicate(Expr expr) {
     return (expr instanceof BinaryPredicate)
         && ((BinaryPredicate) expr).getOp().isEquivalence();
@@ -18,17 +18,20 @@
 package org.apache.impala.analysis;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.impala.catalog.Db;
 import org.apache.impala.catalog.FeCatalog;
 import org.apache.impala.catalog.FeDb;
 import org.apache.impala.catalog.FeTable;
 import org.apache.impala.catalog.FeView;
 import org.apache.impala.common.InternalException;
+import org.apache.impala.service.BackendConfig;
 import org.apache.impala.service.Frontend;
 import org.apache.impala.util.EventSequence;
 import org.apache.impala.util.TUniqueIdUtil;
@@ -54,7 +57,7 @@ public class StmtMetadataLoader {
   private final EventSequence timeline_;
 
   // Results of the loading process. See StmtTableCache.
-  private final Set<String> dbs_ = new HashSet<>();
+  private final Map<String, FeDb> dbs_ = new HashMap<>();
   private final Map<TableName, FeTable> loadedTbls_ = new HashMap<>();
 
   // Metrics for the metadata load.
@@ -64,25 +67,37 @@ public class StmtMetadataLoader {
   private int numCatalogUpdatesReceived_ = 0;
 
   /**
-   * Contains all statement-relevant tables and database names as well as the latest
+   * Contains all statement-relevant tables and databases as well as the latest
    * ImpaladCatalog. An entry in the tables map is guaranteed to point to a loaded
    * table. This could mean the table was loaded successfully or a load was attempted
    * but failed. The absence of a table or database name indicates that object was not
    * in the Catalog at the time this StmtTableCache was generated.
+   * The Db and Table objects are pinned for the lifetime of the statement, so that its
+   * analysis sees a consistent view of them even if the catalog replaces them in the
+   * meantime. Dbs of the ImpaladCatalog are pinned as snapshots, which also keep the
+   * set of their tables unchanged.
    */
   public static final class StmtTableCache {
     public final FeCatalog catalog;
     public final Set<String> dbs;
     public final Map<TableName, FeTable> tables;
+    private final Map<String, FeDb> dbsByName_;
 
-    public StmtTableCache(FeCatalog catalog, Set<String> dbs,
+    public StmtTableCache(FeCatalog catalog, Map<String, FeDb> dbs,
         Map<TableName, FeTable> tables) {
       this.catalog = Preconditions.checkNotNull(catalog);
-      this.dbs = Preconditions.checkNotNull(dbs);
+      this.dbsByName_ = Preconditions.checkNotNull(dbs);
+      this.dbs = Collections.unmodifiableSet(dbs.keySet());
       this.tables = Preconditions.checkNotNull(tables);
       validate();
     }
 
+    /**
+     * Returns the pinned database with the given name, or null if the database is not
+     * referenced by the statement. Callers should fall back to 'catalog' in that case.
+     */
+    public FeDb getDb(String dbName) { return dbsByName_.get(dbName.toLowerCase()); }
+
     private void validate() {
       // Checks that all entries in 'tables' have a matching entry in 'dbs'.
       for (TableName tbl: tables.keySet()) {
@@ -121,7 +136,8 @@ public class StmtMetadataLoader {
    * loaded, the set of table/views still to be loaded is expanded based on the view
    * definitions. For tables/views missing metadata this function issues a loading
    * request to the catalog server and then waits for the metadata to arrive through
-   * a statestore topic update.
+   * a statestore topic update, unless the catalog added the loaded tables directly
+   * from the response of the loading request.
    * This function succeeds even across catalog restarts for the following reasons:
    * - The loading process is strictly additive, i.e., a new loaded table may be added
    *   to the 'loadedTbls_' map, but an existing entry is never removed, even if the
@@ -170,6 +186,17 @@ public class StmtMetadataLoader {
         catalog.prioritizeLoad(missingTbls);
         ++numLoadRequestsSent_;
         requestedTbls.addAll(missingTbls);
+        // With --fetch_loaded_tables_directly, the catalog adds the loaded tables
+        // directly from the response of the load request. Avoid waiting for a catalog
+        // update if that made progress. New missing tables from view expansion are
+        // requested right away.
+        if (BackendConfig.INSTANCE.fetchLoadedTablesDirectly()) {
+          Set<TableName> newMissingTbls = getMissingTables(catalog, missingTbls);
+          if (!newMissingTbls.equals(missingTbls)) {
+            missingTbls = newMissingTbls;
+            continue;
+          }
+        }
       }
 
       // Catalog may have been restarted, always use the latest reference.
@@ -233,8 +260,8 @@ public class StmtMetadataLoader {
   }
 
   /**
-   * Determines whether the 'tbls' are loaded in the given catalog or not. Adds the names
-   * of referenced databases that exist to 'dbs_', and loaded tables to 'loadedTbls_'.
+   * Determines whether the 'tbls' are loaded in the given catalog or not. Adds the
+   * referenced databases that exist to 'dbs_', and loaded tables to 'loadedTbls_'.
    * Returns the set of tables that are not loaded. Recursively collects loaded/missing
    * tables from views. Uses 'sessionDb_' to construct table candidates from views with
    * Path.getCandidateTables(). Non-existent tables are ignored and not returned or
@@ -247,7 +274,10 @@ public class StmtMetadataLoader {
       if (loadedTbls_.containsKey(tblName)) continue;
       FeDb db = catalog.getDb(tblName.getDb());
       if (db == null) continue;
-      dbs_.add(tblName.getDb());
+      // Pin a snapshot of the database so that later catalog updates don't change the
+      // tables that the analysis sees in it.
+      if (db instanceof Db) db = ((Db) db).snapshot();
+      dbs_.put(tblName.getDb().toLowerCase(), db);
       FeTable tbl = db.getTable(tblName.getTbl());
       if (tbl == null) continue;
       if (!tbl.isLoaded()) {
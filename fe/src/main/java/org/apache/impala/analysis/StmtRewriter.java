@@ -18,12 +18,19 @@
 package org.apache.impala.analysis;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.impala.analysis.AnalysisContext.AnalysisResult;
 import org.apache.impala.analysis.UnionStmt.UnionOperand;
+import org.apache.impala.catalog.Column;
 import org.apache.impala.common.AnalysisException;
+import org.apache.impala.common.TreeNode;
+import org.apache.impala.planner.PlanNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -1097,4 +1104,258 @@ public class StmtRewriter {
       return expr.substitute(smap, analyzer, false);
     }
   }
+
+  /**
+   * Pushes a partial aggregation of a single table below the joins of a grouping query
+   * block, also known as eager aggregation. For example, the query
+   *
+   *   SELECT d.x, SUM(f.y) FROM fact f JOIN dim d ON f.k = d.k GROUP BY d.x
+   *
+   * is rewritten into
+   *
+   *   SELECT d.x, SUM(f.$c$1)
+   *   FROM (SELECT k, SUM(y) FROM fact f GROUP BY k) f (k, $c$1)
+   *   JOIN dim d ON f.k = d.k GROUP BY d.x
+   *
+   * The pushed-down aggregation groups the table by all of its columns that are
+   * referenced outside of the aggregate functions, so every joined row of the original
+   * query is represented by exactly one row of the inline view. This requires that:
+   * - the block has a GROUP BY clause and no analytic functions,
+   * - all aggregate functions are non-distinct SUM, COUNT, MIN or MAX whose arguments
+   *   reference at most one base table with an explicit alias,
+   * - all joins are inner or cross joins without USING clauses.
+   * The rewrite is only applied if the column stats estimate that the inline view
+   * returns at most MAX_GROUPS_PER_INPUT_ROW of the rows of the table. WHERE conjuncts
+   * that only reference the table are moved into the inline view.
+   * The rewritten statement must be reset and re-analyzed.
+   */
+  static class EagerAggregationRewriter extends StmtRewriter {
+    private static final double MAX_GROUPS_PER_INPUT_ROW = 0.1;
+
+    // True if any query block was rewritten.
+    private boolean changed_ = false;
+
+    public boolean changed() { return changed_; }
+
+    @Override
+    protected void rewriteSelectStmtHook(SelectStmt stmt, Analyzer analyzer)
+        throws AnalysisException {
+      if (!stmt.hasGroupByClause() || !stmt.hasMultiAggInfo()
+          || stmt.hasAnalyticInfo() || stmt.fromClause_.size() < 2) {
+        return;
+      }
+      TableRef factRef = getFactTableRef(stmt);
+      if (factRef == null) return;
+      List<TupleId> factTids = factRef.getId().asList();
+
+      // WHERE conjuncts that only reference the fact table are evaluated before the
+      // pushed-down aggregation.
+      List<Expr> factConjuncts = new ArrayList<>();
+      List<Expr> otherConjuncts = new ArrayList<>();
+      if (stmt.whereClause_ != null) {
+        for (Expr conjunct: stmt.whereClause_.getConjuncts()) {
+          if (!conjunct.isConstant() && conjunct.isBoundByTupleIds(factTids)) {
+            factConjuncts.add(conjunct);
+          } else {
+            otherConjuncts.add(conjunct);
+          }
+        }
+      }
+
+      // Collect the columns of the fact table that are referenced outside of the
+      // aggregate functions. Non-aggregated references in the select list, HAVING and
+      // ORDER BY clauses are bound by the grouping exprs.
+      List<SlotRef> slotRefs = new ArrayList<>();
+      TreeNode.collect(stmt.getMultiAggInfo().getGroupingExprs(), SlotRef.class,
+          slotRefs);
+      TreeNode.collect(otherConjuncts, SlotRef.class, slotRefs);
+      for (TableRef tblRef: stmt.fromClause_) {
+        if (tblRef.getOnClause() != null) {
+          tblRef.getOnClause().collect(SlotRef.class, slotRefs);
+        }
+      }
+      Map<String, SlotDescriptor> groupingSlots = new LinkedHashMap<>();
+      for (SlotRef slotRef: slotRefs) {
+        if (!slotRef.isBoundByTupleIds(factTids)) continue;
+        Column col = slotRef.getDesc().getColumn();
+        if (col == null || !col.getType().isScalarType()) return;
+        groupingSlots.put(col.getName(), slotRef.getDesc());
+      }
+      if (groupingSlots.isEmpty()) return;
+      if (!isReducing(factRef, groupingSlots.values(), factConjuncts)) return;
+
+      // Create the select list of the inline view from the grouping columns and the
+      // aggregate functions of the block.
+      String alias = factRef.getUniqueAlias();
+      List<SelectListItem> viewItems = new ArrayList<>();
+      List<Expr> viewGroupingExprs = new ArrayList<>();
+      List<String> colLabels = new ArrayList<>();
+      for (String colName: groupingSlots.keySet()) {
+        viewItems.add(
+            new SelectListItem(new SlotRef(Lists.newArrayList(alias, colName)), null));
+        viewGroupingExprs.add(new SlotRef(Lists.newArrayList(alias, colName)));
+        colLabels.add(colName);
+      }
+      Map<String, FunctionCallExpr> aggExprs = new LinkedHashMap<>();
+      for (SelectListItem item: stmt.selectList_.getItems()) {
+        collectAggregates(item.getExpr(), aggExprs);
+      }
+      if (stmt.havingClause_ != null) collectAggregates(stmt.havingClause_, aggExprs);
+      if (stmt.orderByElements_ != null) {
+        for (OrderByElement orderByElem: stmt.orderByElements_) {
+          collectAggregates(orderByElem.getExpr(), aggExprs);
+        }
+      }
+      Map<String, Expr> mergeExprs = new HashMap<>();
+      for (Map.Entry<String, FunctionCallExpr> entry: aggExprs.entrySet()) {
+        String colLabel = stmt.getColumnAliasGenerator().getNextAlias();
+        viewItems.add(new SelectListItem(entry.getValue().clone(), null));
+        colLabels.add(colLabel);
+        mergeExprs.put(entry.getKey(), new FunctionCallExpr(
+            getMergeFnName(entry.getValue()),
+            Lists.<Expr>newArrayList(new SlotRef(Lists.newArrayList(alias, colLabel)))));
+      }
+
+      // Replace the aggregate functions with the merge of the partial aggregates.
+      for (SelectListItem item: stmt.selectList_.getItems()) {
+        item.setExpr(substituteAggregates(item.getExpr(), mergeExprs));
+      }
+      if (stmt.havingClause_ != null) {
+        stmt.havingClause_ = substituteAggregates(stmt.havingClause_, mergeExprs);
+      }
+      if (stmt.orderByElements_ != null) {
+        for (OrderByElement orderByElem: stmt.orderByElements_) {
+          orderByElem.setExpr(substituteAggregates(orderByElem.getExpr(), mergeExprs));
+        }
+      }
+
+      // Replace the fact table with the inline view, which takes over its join
+      // attributes.
+      TableRef viewTblRef = new TableRef(factRef);
+      viewTblRef.rawPath_ = factRef.getResolvedPath().getFullyQualifiedRawPath();
+      viewTblRef.setJoinOp(null);
+      viewTblRef.setOnClause(null);
+      viewTblRef.setJoinHints(new ArrayList<PlanHint>());
+      SelectStmt viewStmt = new SelectStmt(new SelectList(viewItems),
+          new FromClause(Lists.newArrayList(viewTblRef)),
+          CompoundPredicate.createConjunctivePredicate(factConjuncts), viewGroupingExprs,
+          null, null, null);
+      InlineViewRef inlineView = new InlineViewRef(alias, viewStmt, colLabels);
+      inlineView.setJoinOp(factRef.joinOp_);
+      inlineView.setOnClause(factRef.getOnClause());
+      inlineView.setJoinHints(factRef.getJoinHints());
+      stmt.fromClause_.set(stmt.fromClause_.getTableRefs().indexOf(factRef), inlineView);
+      stmt.whereClause_ = CompoundPredicate.createConjunctivePredicate(otherConjuncts);
+      changed_ = true;
+    }
+
+    /**
+     * Returns the table ref of 'stmt' that is referenced by the arguments of all its
+     * aggregate functions, or null if the block can't be rewritten.
+     */
+    private static TableRef getFactTableRef(SelectStmt stmt) {
+      for (TableRef tblRef: stmt.fromClause_) {
+        if (tblRef.getJoinOp() != JoinOperator.INNER_JOIN
+            && tblRef.getJoinOp() != JoinOperator.CROSS_JOIN) {
+          return null;
+        }
+        if (tblRef.isRelative() || tblRef.isCorrelated()
+            || tblRef.usingColNames_ != null) {
+          return null;
+        }
+      }
+      TupleId factTid = null;
+      for (FunctionCallExpr aggExpr: stmt.getMultiAggInfo().getAggExprs()) {
+        if (getMergeFnName(aggExpr) == null) return null;
+        List<TupleId> tids = new ArrayList<>();
+        aggExpr.getIds(tids, null);
+        for (TupleId tid: tids) {
+          if (factTid != null && !factTid.equals(tid)) return null;
+          factTid = tid;
+        }
+      }
+      // Aggregate functions like COUNT(*) alone don't determine the fact table.
+      if (factTid == null) return null;
+      for (TableRef tblRef: stmt.fromClause_) {
+        if (!tblRef.getId().equals(factTid)) continue;
+        if (!(tblRef instanceof BaseTableRef) || !tblRef.hasExplicitAlias()) return null;
+        return tblRef;
+      }
+      return null;
+    }
+
+    /**
+     * Returns true if grouping the rows of 'factRef' that pass 'factConjuncts' by
+     * 'groupingSlots' is estimated to return at most MAX_GROUPS_PER_INPUT_ROW of those
+     * rows. The number of rows is estimated like the cardinality of a scan with the
+     * conjuncts. Returns false if the table or column stats are missing.
+     */
+    private static boolean isReducing(TableRef factRef,
+        Collection<SlotDescriptor> groupingSlots, List<Expr> factConjuncts) {
+      long numRows = factRef.getTable().getNumRows();
+      if (numRows <= 0) return false;
+      double numInputRows = numRows;
+      if (!factConjuncts.isEmpty()) {
+        numInputRows *= PlanNode.computeCombinedSelectivity(factConjuncts);
+      }
+      numInputRows = Math.max(1, numInputRows);
+      double numGroups = 1;
+      for (SlotDescriptor slotDesc: groupingSlots) {
+        long ndv = slotDesc.getStats().getNumDistinctValues();
+        if (ndv < 0) return false;
+        numGroups *= Math.max(ndv, 1);
+      }
+      return Math.min(numGroups, numInputRows)
+          <= numInputRows * MAX_GROUPS_PER_INPUT_ROW;
+    }
+
+    /**
+     * Returns the name of the aggregate function that merges the partial results of
+     * 'fnCall', or null if 'fnCall' is not a non-distinct call to SUM, COUNT, MIN or
+     * MAX. 'fnCall' need not be analyzed.
+     */
+    private static String getMergeFnName(FunctionCallExpr fnCall) {
+      FunctionName fnName = fnCall.getFnName();
+      String name;
+      if (fnName.getFnNamePath() != null) {
+        if (fnName.getFnNamePath().size() != 1) return null;
+        name = fnName.getFnNamePath().get(0).toLowerCase();
+      } else {
+        if (fnName.getDb() != null && !fnName.isBuiltin()) return null;
+        name = fnName.getFunction();
+      }
+      if (fnCall.getParams().isDistinct()) return null;
+      if (name.equals("count")) return "sum";
+      if (name.equals("sum") || name.equals("min") || name.equals("max")) return name;
+      return null;
+    }
+
+    /**
+     * Adds the calls to aggregate functions in 'expr' to 'aggExprs', keyed by their SQL.
+     */
+    private static void collectAggregates(Expr expr,
+        Map<String, FunctionCallExpr> aggExprs) {
+      List<FunctionCallExpr> fnCalls = new ArrayList<>();
+      expr.collect(FunctionCallExpr.class, fnCalls);
+      for (FunctionCallExpr fnCall: fnCalls) {
+        if (getMergeFnName(fnCall) == null) continue;
+        aggExprs.put(fnCall.toSql().toLowerCase(), fnCall);
+      }
+    }
+
+    /**
+     * Replaces the calls to aggregate functions in 'expr' with their merge exprs in
+     * 'mergeExprs'. Returns the new expr.
+     */
+    private static Expr substituteAggregates(Expr expr, Map<String, Expr> mergeExprs) {
+      if (expr instanceof FunctionCallExpr) {
+        Expr mergeExpr = mergeExprs.get(expr.toSql().toLowerCase());
+        if (mergeExpr != null) return mergeExpr.clone();
+      }
+      for (int i = 0; i < expr.getChildren().size(); ++i) {
+        expr.setChild(i, substituteAggregates(expr.getChild(i), mergeExprs));
+      }
+      return expr;
+    }
+  }
 }
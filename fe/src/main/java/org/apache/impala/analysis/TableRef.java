@@ -27,6 +27,8 @@ import java.util.Set;
 
 import org.apache.impala.authorization.Privilege;
 import org.apache.impala.catalog.FeFsTable;
+import org.apache.impala.catalog.FeHBaseTable;
+import org.apache.impala.catalog.FeKuduTable;
 import org.apache.impala.catalog.FeTable;
 import org.apache.impala.common.AnalysisException;
 import org.apache.impala.planner.JoinNode.DistributionMode;
@@ -365,9 +367,12 @@ public class TableRef extends StmtNode {
     if (sampleParams_ == null) return;
     sampleParams_.analyze(analyzer);
     if (!(this instanceof BaseTableRef)
-        || !(resolvedPath_.destTable() instanceof FeFsTable)) {
+        || !(resolvedPath_.destTable() instanceof FeFsTable
+            || resolvedPath_.destTable() instanceof FeKuduTable
+            || resolvedPath_.destTable() instanceof FeHBaseTable)) {
       throw new AnalysisException(
-          "TABLESAMPLE is only supported on HDFS tables: " + getUniqueAlias());
+          "TABLESAMPLE is only supported on HDFS, Kudu and HBase tables: " +
+          getUniqueAlias());
     }
   }
 
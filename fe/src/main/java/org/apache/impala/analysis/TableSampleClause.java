@@ -17,6 +17,11 @@
 
 package org.apache.impala.analysis;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
 import org.apache.impala.common.AnalysisException;
 
 import com.google.common.base.Preconditions;
@@ -31,6 +36,10 @@ import static org.apache.impala.analysis.ToSqlOptions.DEFAULT;
  *
  * The first number specifies the percent of table bytes to sample.
  * The second number specifies the random seed to use.
+ *
+ * HDFS tables are sampled by files. Kudu and HBase tables are sampled by their units of
+ * distribution, tablets and regions, which are assumed to be of similar size, so the
+ * percent applies to the number of tablets or regions.
  */
 public class TableSampleClause extends StmtNode {
   // Required percent of bytes to sample.
@@ -59,6 +68,42 @@ public class TableSampleClause extends StmtNode {
     return randomSeed_.longValue();
   }
 
+  /**
+   * Returns the number of units, e.g. Kudu tablets or HBase regions, in a sample of
+   * 'percent' percent of 'numUnits' units. The sample contains at least one unit if
+   * 'numUnits' is not zero.
+   */
+  public static int getUnitsSampleSize(int numUnits, long percent) {
+    Preconditions.checkState(percent >= 0 && percent <= 100);
+    if (numUnits == 0) return 0;
+    return (int) Math.max(1, Math.round(numUnits * (double) percent / 100));
+  }
+
+  /**
+   * Selects a random sample of getUnitsSampleSize() units out of 'numUnits' units and
+   * returns the indexes of the selected units in ascending order. The given
+   * 'randomSeed' is used for random number generation, so the same units are selected
+   * for the same arguments.
+   */
+  public static List<Integer> getUnitsSample(int numUnits, long percent,
+      long randomSeed) {
+    int sampleSize = getUnitsSampleSize(numUnits, percent);
+    int[] idxs = new int[numUnits];
+    for (int i = 0; i < numUnits; ++i) idxs[i] = i;
+    // Partial Fisher-Yates shuffle: the first 'sampleSize' entries are the sample.
+    Random rnd = new Random(randomSeed);
+    List<Integer> result = new ArrayList<>(sampleSize);
+    for (int i = 0; i < sampleSize; ++i) {
+      int j = i + rnd.nextInt(numUnits - i);
+      int tmp = idxs[i];
+      idxs[i] = idxs[j];
+      idxs[j] = tmp;
+      result.add(idxs[i]);
+    }
+    Collections.sort(result);
+    return result;
+  }
+
   @Override
   public TableSampleClause clone() {
     return new TableSampleClause(percentBytes_, randomSeed_);
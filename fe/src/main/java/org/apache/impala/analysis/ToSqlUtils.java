@@ -20,6 +20,7 @@ package org.apache.impala.analysis;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -41,6 +42,7 @@ import org.apache.impala.catalog.FeView;
 import org.apache.impala.catalog.Function;
 import org.apache.impala.catalog.HdfsCompression;
 import org.apache.impala.catalog.HdfsFileFormat;
+import org.apache.impala.catalog.Histogram;
 import org.apache.impala.catalog.KuduColumn;
 import org.apache.impala.catalog.KuduTable;
 import org.apache.impala.catalog.RowFormat;
@@ -74,6 +76,11 @@ public class ToSqlUtils {
   @VisibleForTesting
   protected static void removeHiddenTableProperties(Map<String, String> tblProperties) {
     for (String key: HIDDEN_TABLE_PROPERTIES) tblProperties.remove(key);
+    // Column histograms are statistics and are recomputed by COMPUTE STATS.
+    Iterator<String> keys = tblProperties.keySet().iterator();
+    while (keys.hasNext()) {
+      if (keys.next().startsWith(Histogram.TBL_PROP_PREFIX)) keys.remove();
+    }
   }
 
   /**
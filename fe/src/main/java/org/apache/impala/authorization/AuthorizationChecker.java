@@ -20,44 +20,136 @@ package org.apache.impala.authorization;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.impala.authorization.Privilege.ImpalaAction;
 import org.apache.impala.catalog.AuthorizationException;
 import org.apache.impala.catalog.AuthorizationPolicy;
 import org.apache.impala.common.InternalException;
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.thrift.TGetCatalogMetricsResult;
 import org.apache.sentry.core.common.ActiveRoleSet;
 import org.apache.sentry.core.common.Subject;
 import org.apache.sentry.core.model.db.DBModelAuthorizable;
 import org.apache.sentry.provider.common.ResourceAuthorizationProvider;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 import org.apache.impala.util.SentryUtil;
 
 /**
  * Class used to check whether a user has access to a given resource.
+ * Access decisions are cached, keyed by the user, its groups and the request. The cache
+ * is bounded by --authorization_decision_cache_size and is invalidated whenever the
+ * version of the AuthorizationPolicy changes, i.e. when a role, user, privilege or
+ * grant group is added or removed. A new AuthorizationChecker is created when the
+ * policy is reloaded from a file or replaced by a full catalog update.
  */
 public class AuthorizationChecker {
+  // Statistics of the decision cache across all instances since process start.
+  private static final AtomicLong decisionCacheHits_ = new AtomicLong();
+  private static final AtomicLong decisionCacheMisses_ = new AtomicLong();
+
   private final ResourceAuthorizationProvider provider_;
   private final AuthorizationConfig config_;
   private final AuthorizeableServer server_;
+  private final AuthorizationPolicy policy_;
+  // Groups of the users, resolved through the group mapping of 'provider_'. Null if
+  // authorization is disabled.
+  private final UserGroupCache groupCache_;
+
+  // Cache of access decisions, null if disabled. Only valid for 'cachedPolicyVersion_'.
+  private final Cache<DecisionKey, Boolean> decisionCache_;
+  private final AtomicLong cachedPolicyVersion_ = new AtomicLong(-1);
+
+  /**
+   * Key of a cached access decision. Includes the policy version, so that a decision
+   * made concurrently with a policy change is never returned for the new version.
+   */
+  private static class DecisionKey {
+    private final long policyVersion_;
+    private final String userName_;
+    private final Set<String> groups_;
+    private final Class<?> authorizeableClass_;
+    private final String authorizeableName_;
+    private final Privilege privilege_;
+    private final boolean grantOption_;
+
+    DecisionKey(long policyVersion, String userName, Set<String> groups,
+        PrivilegeRequest request) {
+      policyVersion_ = policyVersion;
+      userName_ = userName;
+      groups_ = groups;
+      Authorizeable authorizeable = request.getAuthorizeable();
+      authorizeableClass_ = authorizeable == null ? null : authorizeable.getClass();
+      authorizeableName_ = authorizeable == null ? null : authorizeable.getName();
+      privilege_ = request.getPrivilege();
+      grantOption_ = request.hasGrantOption();
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(policyVersion_, userName_, groups_, authorizeableClass_,
+          authorizeableName_, privilege_, grantOption_);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) return true;
+      if (!(obj instanceof DecisionKey)) return false;
+      DecisionKey other = (DecisionKey) obj;
+      return policyVersion_ == other.policyVersion_ &&
+          grantOption_ == other.grantOption_ &&
+          privilege_ == other.privilege_ &&
+          userName_.equals(other.userName_) &&
+          groups_.equals(other.groups_) &&
+          Objects.equals(authorizeableClass_, other.authorizeableClass_) &&
+          Objects.equals(authorizeableName_, other.authorizeableName_);
+    }
+  }
 
   /*
    * Creates a new AuthorizationChecker based on the config values.
    */
   public AuthorizationChecker(AuthorizationConfig config, AuthorizationPolicy policy) {
+    this(config, policy, null);
+  }
+
+  /*
+   * Creates a new AuthorizationChecker that replaces 'previous', if not null. The cached
+   * user groups of 'previous' are kept unless the groups are defined by the policy file,
+   * which may have changed.
+   */
+  public AuthorizationChecker(AuthorizationConfig config, AuthorizationPolicy policy,
+      AuthorizationChecker previous) {
     Preconditions.checkNotNull(config);
     config_ = config;
+    policy_ = policy;
     if (config.isEnabled()) {
       server_ = new AuthorizeableServer(config.getServerName());
       provider_ = createProvider(config, policy);
       Preconditions.checkNotNull(provider_);
+      if (previous != null && previous.groupCache_ != null &&
+          !config.isFileBasedPolicy()) {
+        groupCache_ = previous.groupCache_;
+      } else {
+        groupCache_ = UserGroupCache.create(this::resolveUserGroups);
+      }
     } else {
       provider_ = null;
       server_ = null;
+      groupCache_ = null;
     }
+    int cacheSize = BackendConfig.INSTANCE.getAuthorizationDecisionCacheSize();
+    decisionCache_ = config.isEnabled() && cacheSize > 0 ?
+        CacheBuilder.newBuilder().maximumSize(cacheSize).<DecisionKey, Boolean>build() :
+        null;
   }
 
   /*
@@ -76,11 +168,16 @@ public class AuthorizationChecker {
   /**
    * Returns the set of groups this user belongs to. Uses the GroupMappingService
    * that is in the AuthorizationProvider to properly resolve Hadoop groups or
-   * local group mappings.
+   * local group mappings. The groups are cached, see UserGroupCache.
    */
   public Set<String> getUserGroups(User user) throws InternalException {
+    Preconditions.checkState(config_.isEnabled());
+    return groupCache_.getGroups(user.getShortName());
+  }
+
+  private Set<String> resolveUserGroups(String userName) {
     try {
-      return provider_.getGroupMapping().getGroups(user.getShortName());
+      return provider_.getGroupMapping().getGroups(userName);
     } catch (Exception e) {
       if (SentryUtil.isSentryGroupNotFound(e)) {
         // Sentry 2.1+ throws exceptions when user does not exist; swallow the
@@ -156,7 +253,30 @@ public class AuthorizationChecker {
     if (!config_.isEnabled() || user instanceof ImpalaInternalAdminUser) {
       return true;
     }
+    if (decisionCache_ == null) return hasAccessUncached(user, request);
 
+    long policyVersion = policy_ == null ? 0 : policy_.getVersion();
+    if (cachedPolicyVersion_.getAndSet(policyVersion) != policyVersion) {
+      decisionCache_.invalidateAll();
+    }
+    DecisionKey key = new DecisionKey(policyVersion, user.getShortName(),
+        ImmutableSet.copyOf(getUserGroups(user)), request);
+    Boolean hasAccess = decisionCache_.getIfPresent(key);
+    if (hasAccess != null) {
+      decisionCacheHits_.incrementAndGet();
+      return hasAccess;
+    }
+    decisionCacheMisses_.incrementAndGet();
+    hasAccess = hasAccessUncached(user, request);
+    decisionCache_.put(key, hasAccess);
+    return hasAccess;
+  }
+
+  /**
+   * Asks the authorization provider whether the given user has permission to execute
+   * the given request.
+   */
+  private boolean hasAccessUncached(User user, PrivilegeRequest request) {
     EnumSet<ImpalaAction> actions = request.getPrivilege().getSentryActions();
 
     List<DBModelAuthorizable> authorizeables = Lists.newArrayList(
@@ -189,4 +309,28 @@ public class AuthorizationChecker {
     return provider_.hasAccess(new Subject(user.getShortName()), authorizeables, actions,
         request.hasGrantOption(), ActiveRoleSet.ALL);
   }
+
+  /**
+   * Returns the objects that 'user' has any privilege on, computed in one pass over the
+   * privileges granted to the user and its groups. Returns null if the objects cannot be
+   * computed in bulk, i.e. with a file based policy, in which case callers must check
+   * each object with hasAccess(). Must only be called if authorization is enabled.
+   */
+  public VisibleObjects getVisibleObjects(User user) throws InternalException {
+    Preconditions.checkState(config_.isEnabled());
+    if (user instanceof ImpalaInternalAdminUser) return VisibleObjects.createAllVisible();
+    if (config_.isFileBasedPolicy() || policy_ == null) return null;
+    Set<String> groups = getUserGroups(user);
+    Set<String> privileges = policy_.listPrivileges(groups,
+        Collections.singleton(user.getShortName()), ActiveRoleSet.ALL);
+    return VisibleObjects.create(config_.getServerName(), privileges);
+  }
+
+  /**
+   * Adds the decision cache statistics of all AuthorizationCheckers to 'metrics'.
+   */
+  public static void populateDecisionCacheMetrics(TGetCatalogMetricsResult metrics) {
+    metrics.setAuthz_decision_cache_hit_count(decisionCacheHits_.get());
+    metrics.setAuthz_decision_cache_miss_count(decisionCacheMisses_.get());
+  }
 }
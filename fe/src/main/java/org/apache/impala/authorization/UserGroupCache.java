@@ -0,0 +1,229 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.authorization;
+
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.impala.common.InternalException;
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.thrift.TGetCatalogMetricsResult;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Caches the groups of users, as resolved by a GroupResolver, e.g. the Hadoop group
+ * mapping service, which may be backed by a slow LDAP server. Entries behave as follows:
+ * - an entry that is older than the refresh interval is still returned, but a reload
+ *   is started in the background, so that frequent users never wait for a lookup
+ * - if the background reload fails, the old groups continue to be served
+ * - an entry that is older than the expiry interval is dropped, bounding the staleness
+ *   of the groups if the resolver keeps failing or the user is inactive
+ * - users without any groups are cached like any other user (negative caching)
+ * Only the first lookup of a user, or of a user whose entry expired, waits for the
+ * resolver. Failed lookups are not cached.
+ * The refresh and expiry intervals are set by --authorization_group_cache_refresh_s and
+ * --authorization_group_cache_expiry_s. An expiry of 0 disables the cache.
+ */
+public class UserGroupCache {
+  // Maximum number of users in a cache.
+  private static final int MAX_NUM_USERS = 10000;
+  private static final int NUM_REFRESH_THREADS = 4;
+  private static final long NANOS_PER_MILLI = 1000000L;
+
+  // Statistics of all caches since process start.
+  private static final AtomicLong hits_ = new AtomicLong();
+  private static final AtomicLong misses_ = new AtomicLong();
+  private static final AtomicLong staleHits_ = new AtomicLong();
+  private static final AtomicLong numLoads_ = new AtomicLong();
+  private static final AtomicLong numLoadFailures_ = new AtomicLong();
+  private static final AtomicLong totalLoadTimeNs_ = new AtomicLong();
+
+  // Executes the background reloads of all caches. Created on first use.
+  private static ExecutorService refreshExecutor_;
+
+  /**
+   * Resolves the groups of a user.
+   */
+  public interface GroupResolver {
+    Set<String> getGroups(String userName) throws InternalException;
+  }
+
+  // The groups of a user and the time at which they were resolved.
+  private static class Entry {
+    final Set<String> groups_;
+    final long loadTimeNs_;
+
+    Entry(Set<String> groups, long loadTimeNs) {
+      groups_ = groups;
+      loadTimeNs_ = loadTimeNs;
+    }
+  }
+
+  private final GroupResolver resolver_;
+  private final long refreshIntervalNs_;
+  // Source of the load times of the entries, also used by the cache for the refresh and
+  // expiry intervals.
+  private final Ticker ticker_;
+  // Executes the background reloads of this cache instead of the shared threads if set.
+  private final Executor reloadExecutor_;
+  // Null if the cache is disabled.
+  private final LoadingCache<String, Entry> cache_;
+
+  public UserGroupCache(GroupResolver resolver, long refreshIntervalSec,
+      long expiryIntervalSec) {
+    this(resolver, refreshIntervalSec, expiryIntervalSec, Ticker.systemTicker(), null);
+  }
+
+  /**
+   * Creates a cache that reads the time from 'ticker' and runs the background reloads
+   * on 'reloadExecutor', or on the shared refresh threads if it is null.
+   */
+  @VisibleForTesting
+  UserGroupCache(GroupResolver resolver, long refreshIntervalSec,
+      long expiryIntervalSec, Ticker ticker, Executor reloadExecutor) {
+    Preconditions.checkNotNull(resolver);
+    Preconditions.checkNotNull(ticker);
+    resolver_ = resolver;
+    refreshIntervalNs_ = TimeUnit.SECONDS.toNanos(refreshIntervalSec);
+    ticker_ = ticker;
+    reloadExecutor_ = reloadExecutor;
+    if (expiryIntervalSec <= 0) {
+      cache_ = null;
+      return;
+    }
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+        .maximumSize(MAX_NUM_USERS)
+        .ticker(ticker)
+        .expireAfterWrite(expiryIntervalSec, TimeUnit.SECONDS);
+    if (refreshIntervalSec > 0 && refreshIntervalSec < expiryIntervalSec) {
+      builder.refreshAfterWrite(refreshIntervalSec, TimeUnit.SECONDS);
+    }
+    cache_ = builder.build(new CacheLoader<String, Entry>() {
+      @Override
+      public Entry load(String userName) throws InternalException {
+        return loadEntry(userName);
+      }
+
+      @Override
+      public ListenableFuture<Entry> reload(final String userName, Entry oldEntry) {
+        // A failed reload is logged by the cache, which keeps the old entry.
+        ListenableFutureTask<Entry> task =
+            ListenableFutureTask.create(() -> loadEntry(userName));
+        Executor executor =
+            reloadExecutor_ != null ? reloadExecutor_ : getRefreshExecutor();
+        executor.execute(task);
+        return task;
+      }
+    });
+  }
+
+  /**
+   * Creates a cache with the refresh and expiry intervals set by the backend flags.
+   */
+  public static UserGroupCache create(GroupResolver resolver) {
+    return new UserGroupCache(resolver,
+        BackendConfig.INSTANCE.getAuthorizationGroupCacheRefreshS(),
+        BackendConfig.INSTANCE.getAuthorizationGroupCacheExpiryS());
+  }
+
+  private static synchronized ExecutorService getRefreshExecutor() {
+    if (refreshExecutor_ == null) {
+      refreshExecutor_ = Executors.newFixedThreadPool(NUM_REFRESH_THREADS,
+          new ThreadFactoryBuilder().setDaemon(true)
+              .setNameFormat("UserGroupCacheRefresher-%d").build());
+    }
+    return refreshExecutor_;
+  }
+
+  private Entry loadEntry(String userName) throws InternalException {
+    long startNs = System.nanoTime();
+    try {
+      Set<String> groups = ImmutableSet.copyOf(resolver_.getGroups(userName));
+      return new Entry(groups, ticker_.read());
+    } catch (InternalException | RuntimeException e) {
+      numLoadFailures_.incrementAndGet();
+      throw e;
+    } finally {
+      numLoads_.incrementAndGet();
+      totalLoadTimeNs_.addAndGet(System.nanoTime() - startNs);
+    }
+  }
+
+  /**
+   * Returns the groups of 'userName'. The iteration order of the returned set is the
+   * order of the groups returned by the resolver.
+   */
+  public Set<String> getGroups(String userName) throws InternalException {
+    if (cache_ == null) return loadEntry(userName).groups_;
+    // getIfPresent() also starts a background reload of an entry that is due for one.
+    Entry entry = cache_.getIfPresent(userName);
+    if (entry != null) {
+      hits_.incrementAndGet();
+      if (refreshIntervalNs_ > 0 &&
+          ticker_.read() - entry.loadTimeNs_ > refreshIntervalNs_) {
+        staleHits_.incrementAndGet();
+      }
+      return entry.groups_;
+    }
+    misses_.incrementAndGet();
+    try {
+      return cache_.get(userName).groups_;
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), InternalException.class);
+      throw new InternalException("Error resolving the groups of user " + userName,
+          e.getCause());
+    }
+  }
+
+  /**
+   * Drops all cached groups.
+   */
+  public void invalidateAll() {
+    if (cache_ != null) cache_.invalidateAll();
+  }
+
+  /**
+   * Adds the statistics of all group caches to 'metrics'.
+   */
+  public static void populateMetrics(TGetCatalogMetricsResult metrics) {
+    metrics.setGroup_cache_hit_count(hits_.get());
+    metrics.setGroup_cache_miss_count(misses_.get());
+    metrics.setGroup_cache_stale_hit_count(staleHits_.get());
+    metrics.setGroup_cache_load_failure_count(numLoadFailures_.get());
+    long numLoads = numLoads_.get();
+    metrics.setGroup_cache_avg_load_time_ms(numLoads == 0 ? 0 :
+        totalLoadTimeNs_.get() / (double) NANOS_PER_MILLI / numLoads);
+  }
+}
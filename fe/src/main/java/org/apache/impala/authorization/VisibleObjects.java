@@ -0,0 +1,146 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.authorization;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.impala.catalog.PrincipalPrivilege;
+import org.apache.sentry.core.model.db.AccessConstants;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+
+/**
+ * The set of databases, tables and columns on which a user has any privilege, computed
+ * in a single pass over the Sentry privilege strings granted to the user. Used to filter
+ * the results of metadata operations like SHOW TABLES or the HiveServer2 GetTables and
+ * GetColumns calls in bulk, instead of checking every object with a separate
+ * PrivilegeRequest. Answers the same questions as the following requests:
+ * - isDbVisible(): any() on any column of any table of the database
+ * - isTableVisible(): any() on any column of the table
+ * - isColumnVisible(): any() on the column
+ * A privilege on an object implies privileges on all objects below it, e.g. a privilege
+ * on a database makes all its tables and columns visible. A '*' in a privilege matches
+ * any name. Privileges on URIs or other servers do not make any object visible.
+ */
+public class VisibleObjects {
+  private static final Splitter AUTHORIZABLE_SPLITTER =
+      Splitter.on(PrincipalPrivilege.AUTHORIZABLE_SEPARATOR);
+  private static final Splitter KV_SPLITTER =
+      Splitter.on(PrincipalPrivilege.KV_SEPARATOR).limit(2);
+
+  // Visibility of all objects, e.g. for users with a server-level privilege.
+  private boolean allVisible_ = false;
+  // Databases with a privilege on the database itself, all of their tables and columns
+  // are visible.
+  private final Set<String> fullyVisibleDbs_ = new HashSet<>();
+  // Databases with a privilege on the database or on any object below it.
+  private final Set<String> visibleDbs_ = new HashSet<>();
+  // Tables (as "db.table") with a privilege on the table itself.
+  private final Set<String> fullyVisibleTables_ = new HashSet<>();
+  // Tables (as "db.table") with a privilege on the table or any of its columns.
+  private final Set<String> visibleTables_ = new HashSet<>();
+  // Columns (as "db.table.column") with a privilege on the column.
+  private final Set<String> visibleColumns_ = new HashSet<>();
+
+  /**
+   * Returns a VisibleObjects for which all objects are visible.
+   */
+  public static VisibleObjects createAllVisible() {
+    VisibleObjects result = new VisibleObjects();
+    result.allVisible_ = true;
+    return result;
+  }
+
+  /**
+   * Builds the VisibleObjects from the given privilege strings in Sentry format, e.g.
+   * "server=server1->db=functional->table=alltypes->action=select". Only privileges on
+   * 'serverName' are considered.
+   */
+  public static VisibleObjects create(String serverName, Iterable<String> privileges) {
+    VisibleObjects result = new VisibleObjects();
+    for (String privilege: privileges) {
+      result.addPrivilege(serverName.toLowerCase(), privilege);
+      if (result.allVisible_) break;
+    }
+    return result;
+  }
+
+  private void addPrivilege(String serverName, String privilege) {
+    String server = null;
+    String db = null;
+    String table = null;
+    String column = null;
+    for (String authorizable: AUTHORIZABLE_SPLITTER.split(privilege)) {
+      List<String> kv = Lists.newArrayList(KV_SPLITTER.split(authorizable));
+      if (kv.size() != 2) continue;
+      String key = kv.get(0).trim().toLowerCase();
+      String value = kv.get(1).trim().toLowerCase();
+      switch (key) {
+        case "server": server = value; break;
+        case "db": db = value; break;
+        case "table": table = value; break;
+        case "column": column = value; break;
+        // Privileges on URIs do not make any database object visible.
+        case "uri": return;
+        default: break;
+      }
+    }
+    if (server == null || (!isAny(server) && !server.equals(serverName))) return;
+    if (db == null || isAny(db)) {
+      allVisible_ = true;
+      return;
+    }
+    visibleDbs_.add(db);
+    if (table == null || isAny(table)) {
+      fullyVisibleDbs_.add(db);
+      return;
+    }
+    String tableName = db + "." + table;
+    visibleTables_.add(tableName);
+    if (column == null || isAny(column)) {
+      fullyVisibleTables_.add(tableName);
+      return;
+    }
+    visibleColumns_.add(tableName + "." + column);
+  }
+
+  private static boolean isAny(String name) { return name.equals(AccessConstants.ALL); }
+
+  public boolean isDbVisible(String dbName) {
+    return allVisible_ || visibleDbs_.contains(dbName.toLowerCase());
+  }
+
+  public boolean isTableVisible(String dbName, String tableName) {
+    if (allVisible_) return true;
+    String db = dbName.toLowerCase();
+    return fullyVisibleDbs_.contains(db) ||
+        visibleTables_.contains(db + "." + tableName.toLowerCase());
+  }
+
+  public boolean isColumnVisible(String dbName, String tableName, String columnName) {
+    if (allVisible_) return true;
+    String db = dbName.toLowerCase();
+    if (fullyVisibleDbs_.contains(db)) return true;
+    String fullTableName = db + "." + tableName.toLowerCase();
+    return fullyVisibleTables_.contains(fullTableName) ||
+        visibleColumns_.contains(fullTableName + "." + columnName.toLowerCase());
+  }
+}
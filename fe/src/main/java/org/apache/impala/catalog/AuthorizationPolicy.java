@@ -23,6 +23,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.net.ntp.TimeStamp;
 import org.apache.impala.common.AnalysisException;
@@ -87,6 +88,16 @@ public class AuthorizationPolicy implements PrivilegeCache {
   // lookups of Role by group name.
   Map<String, Set<String>> groupsToRoles_ = new HashMap<>();
 
+  // Incremented on every change to the policy. Used to invalidate cached access
+  // decisions, see AuthorizationChecker.
+  private final AtomicLong version_ = new AtomicLong();
+
+  /**
+   * Returns the version of this policy, which changes whenever a principal, privilege
+   * or grant group is added or removed.
+   */
+  public long getVersion() { return version_.get(); }
+
   /**
    * Adds a new principal to the policy. If a principal with the same name already
    * exists and the principal ID's are different, it will be overwritten by the new
@@ -100,6 +111,7 @@ public class AuthorizationPolicy implements PrivilegeCache {
     // just return.
     if (existingPrincipal != null &&
         existingPrincipal.getCatalogVersion() >= principal.getCatalogVersion()) return;
+    version_.incrementAndGet();
 
     // If there was an existing principal that was replaced we first need to remove it.
     if (existingPrincipal != null) {
@@ -160,6 +172,7 @@ public class AuthorizationPolicy implements PrivilegeCache {
           principal.getName() + " with ID: " + principal.getId());
     }
     principal.addPrivilege(privilege);
+    version_.incrementAndGet();
   }
 
   /**
@@ -310,10 +323,21 @@ public class AuthorizationPolicy implements PrivilegeCache {
     PrincipalPrivilege existingPrivilege = principal.getPrivilege(privilegeName);
     if (existingPrivilege != null &&
         existingPrivilege.getCatalogVersion() < dropCatalogVersion) {
-      principal.removePrivilege(privilegeName);
+      removePrivilege(principal, privilegeName);
     }
   }
 
+  /**
+   * Removes the privilege with the given name from 'principal'. Returns the removed
+   * privilege or null if the principal did not have such a privilege.
+   */
+  public synchronized PrincipalPrivilege removePrivilege(Principal principal,
+      String privilegeName) {
+    PrincipalPrivilege removedPrivilege = principal.removePrivilege(privilegeName);
+    if (removedPrivilege != null) version_.incrementAndGet();
+    return removedPrivilege;
+  }
+
 
   /**
    * Removes a role. Returns the removed role or null if no role with
@@ -322,6 +346,7 @@ public class AuthorizationPolicy implements PrivilegeCache {
   public synchronized Role removeRole(String roleName) {
     Role removedRole = roleCache_.remove(roleName);
     if (removedRole == null) return null;
+    version_.incrementAndGet();
     // Cleanup grant groups
     for (String grantGroup: removedRole.getGrantGroups()) {
       // Remove this role from all of its grant groups.
@@ -340,6 +365,7 @@ public class AuthorizationPolicy implements PrivilegeCache {
   public synchronized User removeUser(String userName) {
     User removedUser = userCache_.remove(userName);
     if (removedUser == null) return null;
+    version_.incrementAndGet();
     // Cleanup user ID.
     principalIds_.remove(removedUser.getId());
     return removedUser;
@@ -355,6 +381,7 @@ public class AuthorizationPolicy implements PrivilegeCache {
     Role role = roleCache_.get(roleName);
     if (role == null) throw new CatalogException("Role does not exist: " + roleName);
     role.addGrantGroup(groupName);
+    version_.incrementAndGet();
     Set<String> grantedRoles = groupsToRoles_.get(groupName);
     if (grantedRoles == null) {
       grantedRoles = new HashSet<>();
@@ -374,6 +401,7 @@ public class AuthorizationPolicy implements PrivilegeCache {
     Role role = roleCache_.get(roleName);
     if (role == null) throw new CatalogException("Role does not exist: " + roleName);
     role.removeGrantGroup(groupName);
+    version_.incrementAndGet();
     Set<String> grantedRoles = groupsToRoles_.get(groupName);
     if (grantedRoles != null) {
       grantedRoles.remove(roleName.toLowerCase());
@@ -17,6 +17,9 @@
 
 package org.apache.impala.catalog;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -31,9 +34,14 @@ import com.google.common.collect.Lists;
  * entries only get applied if the new/updated object has a larger catalog version.
  * add() and remove() functions also update the entries of the global instance of
  * CatalogObjectVersionSet which keeps track of the catalog objects versions.
+ *
+ * A copy-on-write cache never modifies its map of objects. Updates replace the map with
+ * an updated copy, so that the maps returned by getSnapshot() never change. Use
+ * update() to apply several changes with a single copy.
  */
 public class CatalogObjectCache<T extends CatalogObject> implements Iterable<T> {
   private final boolean caseInsensitiveKeys_;
+  private final boolean copyOnWrite_;
 
   /**
    * Creates a new instance of the CatalogObjectCache that compares keys as
@@ -48,15 +56,36 @@ public class CatalogObjectCache<T extends CatalogObject> implements Iterable<T>
    * insensitive/sensitive based on whether 'caseInsensitiveKeys' is true/false.
    */
   public CatalogObjectCache(boolean caseInsensitiveKeys) {
+    this(caseInsensitiveKeys, false);
+  }
+
+  /**
+   * Same as above, but creates a copy-on-write cache if 'copyOnWrite' is true.
+   */
+  public CatalogObjectCache(boolean caseInsensitiveKeys, boolean copyOnWrite) {
     caseInsensitiveKeys_ = caseInsensitiveKeys;
+    copyOnWrite_ = copyOnWrite;
+    metadataCache_ = copyOnWrite ?
+        Collections.<String, T>emptyMap() : new ConcurrentHashMap<String, T>();
+  }
+
+  /**
+   * Creates a copy-on-write cache that contains the objects of 'snapshot', which must
+   * have been returned by getSnapshot() of a cache with the same key case sensitivity.
+   */
+  public CatalogObjectCache(boolean caseInsensitiveKeys, Map<String, T> snapshot) {
+    caseInsensitiveKeys_ = caseInsensitiveKeys;
+    copyOnWrite_ = true;
+    metadataCache_ = Preconditions.checkNotNull(snapshot);
   }
 
   // Map of lower-case object name to CatalogObject. New entries are added
   // by calling add(). Updates of the cache must be synchronized because adding
   // new entries may require two cache accesses that must be performed atomically.
+  // Unmodifiable if 'copyOnWrite_' is true, a ConcurrentHashMap otherwise.
   // TODO: For simplicity, consider using a (non-concurrent) HashMap and marking
   // all methods as synchronized.
-  private final Map<String, T> metadataCache_ = new ConcurrentHashMap<String, T>();
+  private volatile Map<String, T> metadataCache_;
 
   /**
    * Adds a new catalogObject to the cache. If a catalogObject with the same name already
@@ -67,11 +96,24 @@ public class CatalogObjectCache<T extends CatalogObject> implements Iterable<T>
    * Returns true if this item was added or false if the existing value was preserved.
    */
   public synchronized boolean add(T catalogObject) {
+    if (!copyOnWrite_) return add(metadataCache_, catalogObject);
+    Map<String, T> newCache = new HashMap<>(metadataCache_);
+    if (!add(newCache, catalogObject)) return false;
+    metadataCache_ = Collections.unmodifiableMap(newCache);
+    return true;
+  }
+
+  /**
+   * Adds 'catalogObject' to 'cache' as described in add(). 'cache' is either
+   * 'metadataCache_' or a copy of it.
+   */
+  private boolean add(Map<String, T> cache, T catalogObject) {
     Preconditions.checkNotNull(catalogObject);
     String key = catalogObject.getName();
     if (caseInsensitiveKeys_) key = key.toLowerCase();
-    T existingItem = metadataCache_.putIfAbsent(key, catalogObject);
+    T existingItem = cache.get(key);
     if (existingItem == null) {
+      cache.put(key, catalogObject);
       CatalogObjectVersionSet.INSTANCE.addVersion(
           catalogObject.getCatalogVersion());
       return true;
@@ -81,7 +123,7 @@ public class CatalogObjectCache<T extends CatalogObject> implements Iterable<T>
       // When existingItem != null it indicates there was already an existing entry
       // associated with the key. Add the updated object iff it has a catalog
       // version greater than the existing entry.
-      metadataCache_.put(key, catalogObject);
+      cache.put(key, catalogObject);
       CatalogObjectVersionSet.INSTANCE.updateVersions(
           existingItem.getCatalogVersion(), catalogObject.getCatalogVersion());
       return true;
@@ -94,8 +136,20 @@ public class CatalogObjectCache<T extends CatalogObject> implements Iterable<T>
    * if no item was removed.
    */
   public synchronized T remove(String name) {
+    if (!copyOnWrite_) return remove(metadataCache_, name);
+    Map<String, T> newCache = new HashMap<>(metadataCache_);
+    T removedObject = remove(newCache, name);
+    if (removedObject != null) metadataCache_ = Collections.unmodifiableMap(newCache);
+    return removedObject;
+  }
+
+  /**
+   * Removes the item with the given name from 'cache', which is either 'metadataCache_'
+   * or a copy of it.
+   */
+  private T remove(Map<String, T> cache, String name) {
     if (caseInsensitiveKeys_) name = name.toLowerCase();
-    T removedObject = metadataCache_.remove(name);
+    T removedObject = cache.remove(name);
     if (removedObject != null) {
       CatalogObjectVersionSet.INSTANCE.removeVersion(
           removedObject.getCatalogVersion());
@@ -103,18 +157,51 @@ public class CatalogObjectCache<T extends CatalogObject> implements Iterable<T>
     return removedObject;
   }
 
+  /**
+   * Adds 'addedObjects' and then removes the items named 'removedNames' like add() and
+   * remove() do. A copy-on-write cache is copied once for all changes.
+   */
+  public synchronized void update(Collection<T> addedObjects,
+      Collection<String> removedNames) {
+    if (addedObjects.isEmpty() && removedNames.isEmpty()) return;
+    Map<String, T> newCache =
+        copyOnWrite_ ? new HashMap<>(metadataCache_) : metadataCache_;
+    for (T catalogObject: addedObjects) add(newCache, catalogObject);
+    for (String name: removedNames) remove(newCache, name);
+    if (copyOnWrite_) metadataCache_ = Collections.unmodifiableMap(newCache);
+  }
+
   /**
    * Clears all items in the cache.
    */
   public synchronized void clear() {
-    metadataCache_.clear();
+    if (copyOnWrite_) {
+      metadataCache_ = Collections.emptyMap();
+    } else {
+      metadataCache_.clear();
+    }
+  }
+
+  /**
+   * Returns true if this is a copy-on-write cache.
+   */
+  public boolean isCopyOnWrite() { return copyOnWrite_; }
+
+  /**
+   * Returns the current, unmodifiable map of objects of a copy-on-write cache. Later
+   * updates of the cache do not change the returned map.
+   */
+  public Map<String, T> getSnapshot() {
+    Preconditions.checkState(copyOnWrite_);
+    return metadataCache_;
   }
 
   /**
    * Returns the set of all known object names. The returned set is backed by
    * the cache, so updates to the cache will be visible in the returned set
    * and vice-versa. However, updates to the cache should not be done via the
-   * returned set, use add()/remove() instead.
+   * returned set, use add()/remove() instead. The set of a copy-on-write cache is not
+   * backed by the cache and does not change.
    */
   public Set<String> keySet() {
     return metadataCache_.keySet();
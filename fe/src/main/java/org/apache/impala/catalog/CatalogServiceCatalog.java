@@ -73,6 +73,7 @@ import org.apache.impala.thrift.TGetCatalogUsageResponse;
 import org.apache.impala.thrift.TGetPartialCatalogObjectRequest;
 import org.apache.impala.thrift.TGetPartialCatalogObjectResponse;
 import org.apache.impala.thrift.TGetPartitionStatsRequest;
+import org.apache.impala.thrift.TGetPartitionStatsResponse;
 import org.apache.impala.thrift.TPartialCatalogInfo;
 import org.apache.impala.thrift.TPartitionKeyValue;
 import org.apache.impala.thrift.TPartitionStats;
@@ -239,6 +240,9 @@ public class CatalogServiceCatalog extends Catalog {
 
   private CatalogdTableInvalidator catalogdTableInvalidator_;
 
+  // Tracks the freshness of table statistics. Null if disabled.
+  private CatalogdStatsMaintainer catalogdStatsMaintainer_;
+
   // Manages the event processing from metastore for issuing invalidates on tables
   private ExternalEventsProcessor metastoreEventProcessor_;
 
@@ -263,6 +267,10 @@ public class CatalogServiceCatalog extends Catalog {
   private final Semaphore partialObjectFetchAccess_ =
       new Semaphore(MAX_PARALLEL_PARTIAL_FETCH_RPC_COUNT, /*fair =*/ true);
 
+  // Maximum number of tables whose HMS table objects are fetched in a single HMS RPC by
+  // getHmsTables().
+  private static final int HMS_TABLES_PER_RPC = 100;
+
     /**
      * Initialize the CatalogServiceCatalog using a given MetastoreClientPool impl.
      * @param loadInBackground If true, table metadata will be loaded in the background.
@@ -299,6 +307,8 @@ public class CatalogServiceCatalog extends Catalog {
         BackendConfig.INSTANCE.getBackendCfg().catalog_topic_mode.toUpperCase());
     catalogdTableInvalidator_ = CatalogdTableInvalidator.create(this,
         BackendConfig.INSTANCE);
+    catalogdStatsMaintainer_ = CatalogdStatsMaintainer.create(this,
+        BackendConfig.INSTANCE);
     metastoreEventProcessor_ = getEventsProcessor();
     Preconditions.checkState(PARTIAL_FETCH_RPC_QUEUE_TIMEOUT_S > 0);
     // start polling for metastore events
@@ -498,13 +508,46 @@ public class CatalogServiceCatalog extends Catalog {
   }
 
   /**
-   * Retrieves TPartitionStats as a map that associates partitions with their
-   * statistics. The table partitions are specified in
-   * TGetPartitionStatsRequest. If statistics are not available for a partition,
-   * a default TPartitionStats is used. Partitions are identified by their partitioning
-   * column string values.
+   * Same as prioritizeLoad() but waits for the given tables/views to be loaded and
+   * returns them as TCatalogObjects with the same catalog version that will be sent in
+   * a later topic update. Tables that do not exist anymore are skipped. Used by
+   * coordinators that want to avoid waiting for the next statestore topic update.
    */
-  public Map<String, ByteBuffer> getPartitionStats(TGetPartitionStatsRequest request)
+  public List<TCatalogObject> prioritizeLoadAndWait(List<TCatalogObject> objectDescs)
+      throws CatalogException {
+    // Queue all tables first, so they are loaded in parallel by the table loading
+    // threads while we wait for them one at a time below.
+    prioritizeLoad(objectDescs);
+    List<TCatalogObject> result = new ArrayList<>(objectDescs.size());
+    for (TCatalogObject catalogObject: objectDescs) {
+      TTable table = catalogObject.getTable();
+      Table tbl = getOrLoadTable(table.getDb_name(), table.getTbl_name());
+      // The table may have been dropped or invalidated again in the meantime. It will
+      // be requested again by the coordinator in that case.
+      if (tbl == null || !tbl.isLoaded()) continue;
+      tbl.getLock().lock();
+      try {
+        result.add(tbl.toTCatalogObject());
+      } finally {
+        tbl.getLock().unlock();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Retrieves the statistics of the partitions of the table specified in
+   * TGetPartitionStatsRequest, or of the partitions in 'partition_names' if set.
+   * Partitions are identified by their partitioning column string values. Partitions
+   * without statistics are not returned.
+   * If 'merge_stats' is set, the incremental statistics of the partitions are merged
+   * into a single TPartitionStats (see IncrementalStatsAggregate) and returned instead,
+   * together with the names of the merged partitions. The merge of all partitions with
+   * incremental stats is cached in the table and updated incrementally, the merge of a
+   * subset of them is computed for every request. The stats are merged after releasing
+   * the table lock.
+   */
+  public TGetPartitionStatsResponse getPartitionStats(TGetPartitionStatsRequest request)
       throws CatalogException {
     Preconditions.checkState(BackendConfig.INSTANCE.pullIncrementalStatistics()
         && !RuntimeEnv.INSTANCE.isTestEnv());
@@ -534,27 +577,81 @@ public class CatalogServiceCatalog extends Catalog {
     // Table must be loaded.
     Preconditions.checkState(table.isLoaded());
 
+    Set<String> requestedNames = null;
+    if (request.isSetPartition_names()) {
+      requestedNames = new HashSet<>(request.getPartition_names());
+    }
+    boolean mergeStats = request.isSetMerge_stats() && request.isMerge_stats();
+    TGetPartitionStatsResponse response = new TGetPartitionStatsResponse();
     Map<String, ByteBuffer> stats = new HashMap<>();
+    // Compressed incremental stats and names of the partitions to merge, by id.
+    Map<Long, byte[]> incrementalStats = new HashMap<>();
+    Map<Long, String> partitionNames = new HashMap<>();
+    // True if all partitions with incremental stats are merged.
+    boolean mergeAll = true;
     HdfsTable hdfsTable = (HdfsTable) table;
     hdfsTable.getLock().lock();
     try {
       Collection<? extends PrunablePartition> partitions = hdfsTable.getPartitions();
       for (PrunablePartition partition : partitions) {
-        Preconditions.checkState(partition instanceof FeFsPartition);
-        FeFsPartition fsPartition = (FeFsPartition) partition;
+        Preconditions.checkState(partition instanceof HdfsPartition);
+        HdfsPartition fsPartition = (HdfsPartition) partition;
+        if (mergeStats && !fsPartition.hasIncrementalStats()) continue;
+        String partName = FeCatalogUtils.getPartitionName(fsPartition);
+        if (requestedNames != null && !requestedNames.contains(partName)) {
+          mergeAll = false;
+          continue;
+        }
+        if (mergeStats) {
+          incrementalStats.put(fsPartition.getId(),
+              fsPartition.getPartitionStatsCompressed());
+          partitionNames.put(fsPartition.getId(), partName);
+          continue;
+        }
         TPartitionStats partStats = fsPartition.getPartitionStats();
         if (partStats != null) {
           ByteBuffer compressedStats =
               ByteBuffer.wrap(fsPartition.getPartitionStatsCompressed());
-          stats.put(FeCatalogUtils.getPartitionName(fsPartition), compressedStats);
+          stats.put(partName, compressedStats);
         }
       }
     } finally {
       hdfsTable.getLock().unlock();
     }
-    LOG.info("Fetched partition statistics for " + stats.size()
-        + " partitions on: " + hdfsTable.getFullName());
-    return stats;
+    if (!mergeStats) {
+      LOG.info("Fetched partition statistics for " + stats.size()
+          + " partitions on: " + hdfsTable.getFullName());
+      response.setPartition_stats(stats);
+      return response;
+    }
+
+    TPartitionStats merged;
+    int numMerged;
+    try {
+      if (mergeAll) {
+        IncrementalStatsAggregate aggregate = hdfsTable.getIncrementalStatsAggregate();
+        synchronized (aggregate) {
+          numMerged = aggregate.update(incrementalStats);
+          merged = aggregate.toThrift();
+        }
+      } else {
+        IncrementalStatsAggregate aggregate = new IncrementalStatsAggregate();
+        numMerged = aggregate.update(incrementalStats);
+        merged = aggregate.toThrift();
+      }
+      if (merged != null) {
+        response.setMerged_partition_stats(
+            PartitionStatsUtil.partStatsToCompressedBytes(merged));
+      }
+    } catch (ImpalaException | TException e) {
+      throw new CatalogException("Error merging partition statistics of table: "
+          + hdfsTable.getFullName(), e);
+    }
+    response.setMerged_partition_names(new ArrayList<>(partitionNames.values()));
+    LOG.info("Merged incremental statistics of " + incrementalStats.size()
+        + " partitions on: " + hdfsTable.getFullName() + " (" + numMerged
+        + " partitions newly merged)");
+    return response;
   }
 
   /**
@@ -792,6 +889,48 @@ public class CatalogServiceCatalog extends Catalog {
     }
   }
 
+  /**
+   * Adds the key of an insert event to the catalog table's list of in-flight insert
+   * events. Applicable only when external event processing is enabled.
+   *
+   * @param tbl Catalog table
+   * @param insertEventKey key of the insert event, see MetaStoreUtil.getInsertEventKey()
+   */
+  public void addInflightInsertEvent(Table tbl, String insertEventKey) {
+    if (!isExternalEventProcessingEnabled()) return;
+    versionLock_.writeLock().lock();
+    try {
+      if (tbl instanceof IncompleteTable) return;
+      tbl.addToInflightInsertEvents(insertEventKey);
+    } finally {
+      versionLock_.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the key of an insert event from the catalog table's list of in-flight insert
+   * events. Applicable only when external event processing is enabled.
+   * @param dbName database name
+   * @param tblName table name
+   * @return true if the key was removed, i.e. the insert event was fired by this
+   * catalog. False if the table or the key does not exist.
+   */
+  public boolean removeFromInflightInsertEvents(String dbName, String tblName,
+      String insertEventKey) {
+    Preconditions.checkState(isExternalEventProcessingEnabled(),
+        "Event processing should be enabled when calling this method");
+    versionLock_.writeLock().lock();
+    try {
+      Db db = getDb(dbName);
+      if (db == null) return false;
+      Table tbl = db.getTable(tblName);
+      if (tbl == null || tbl instanceof IncompleteTable) return false;
+      return tbl.removeFromInflightInsertEvents(insertEventKey);
+    } finally {
+      versionLock_.writeLock().unlock();
+    }
+  }
+
   /**
    * Get a snapshot view of all the catalog objects that were deleted between versions
    * ('fromVersion', 'toVersion'].
@@ -2304,7 +2443,8 @@ public class CatalogServiceCatalog extends Catalog {
         throw new CatalogException(String.format("%s does not exist: %s",
             Principal.toString(type), principalName));
       }
-      PrincipalPrivilege principalPrivilege = principal.removePrivilege(privilegeName);
+      PrincipalPrivilege principalPrivilege =
+          authPolicy_.removePrivilege(principal, privilegeName);
       if (principalPrivilege == null) return null;
       principalPrivilege.setCatalogVersion(incrementAndGetCatalogVersion());
       deleteLog_.addRemovedObject(principalPrivilege.toTCatalogObject());
@@ -2362,6 +2502,9 @@ public class CatalogServiceCatalog extends Catalog {
 
   public ReentrantReadWriteLock getLock() { return versionLock_; }
   public SentryProxy getSentryProxy() { return sentryProxy_; }
+  public CatalogdStatsMaintainer getCatalogdStatsMaintainer() {
+    return catalogdStatsMaintainer_;
+  }
   public AuthorizationPolicy getAuthPolicy() { return authPolicy_; }
 
   /**
@@ -2546,9 +2689,29 @@ public class CatalogServiceCatalog extends Catalog {
       tableUsageMetrics.setNum_metadata_operations(frequentTable.getMetadataOpsCount());
       usage.addToFrequently_accessed_tables(tableUsageMetrics);
     }
+    if (catalogdStatsMaintainer_ != null) catalogdStatsMaintainer_.populateUsage(usage);
     return usage;
   }
 
+  /**
+   * Records that 'numRows' rows were inserted into the given table, for tracking the
+   * freshness of its statistics. 'numRows' is CatalogdStatsMaintainer.UNKNOWN_NUM_ROWS
+   * if the number of inserted rows is not known. No-op if the tracking is disabled.
+   */
+  public void recordTableModification(String dbName, String tblName, long numRows) {
+    if (catalogdStatsMaintainer_ == null) return;
+    catalogdStatsMaintainer_.recordModification(dbName, tblName, numRows);
+  }
+
+  /**
+   * Records that the statistics of the given table were computed. No-op if the tracking
+   * of the freshness of statistics is disabled.
+   */
+  public void recordTableStatsComputed(String dbName, String tblName) {
+    if (catalogdStatsMaintainer_ == null) return;
+    catalogdStatsMaintainer_.recordStatsComputed(dbName, tblName);
+  }
+
   /**
    * Gets the events processor metrics. Used for publishing metrics on the webUI
    */
@@ -2631,6 +2794,46 @@ public class CatalogServiceCatalog extends Catalog {
     }
   }
 
+  /**
+   * Returns the HMS table objects of the given tables in database 'dbName'. The HMS
+   * tables of loaded tables are copied from the catalog. The HMS tables of tables that
+   * are not loaded, or are locked by a concurrent operation, are fetched from the HMS in
+   * batches of HMS_TABLES_PER_RPC without loading the tables. Tables that do not exist
+   * are omitted.
+   */
+  public List<org.apache.hadoop.hive.metastore.api.Table> getHmsTables(String dbName,
+      List<String> tableNames) throws CatalogException {
+    Db db = getDb(dbName);
+    if (db == null) return Collections.emptyList();
+    List<org.apache.hadoop.hive.metastore.api.Table> result =
+        Lists.newArrayListWithCapacity(tableNames.size());
+    List<String> unloadedTableNames = new ArrayList<>();
+    for (String tableName: tableNames) {
+      Table table = db.getTable(tableName);
+      if (table == null) continue;
+      if (!table.isLoaded() || table.getMetaStoreTable() == null ||
+          !table.getLock().tryLock()) {
+        unloadedTableNames.add(tableName);
+        continue;
+      }
+      try {
+        result.add(table.getMetaStoreTable().deepCopy());
+      } finally {
+        table.getLock().unlock();
+      }
+    }
+    if (unloadedTableNames.isEmpty()) return result;
+    try (MetaStoreClient msClient = getMetaStoreClient()) {
+      for (List<String> batch: Lists.partition(unloadedTableNames, HMS_TABLES_PER_RPC)) {
+        result.addAll(msClient.getHiveClient().getTableObjectsByName(dbName, batch));
+      }
+    } catch (TException e) {
+      throw new CatalogException("Failed to fetch the HMS tables of database " +
+          dbName, e);
+    }
+    return result;
+  }
+
   /**
    * Gets the id for this catalog service
    */
@@ -2664,6 +2867,7 @@ public class CatalogServiceCatalog extends Catalog {
       return getPartialCatalogInfo(req);
     case DATABASE:
       TDatabase dbDesc = Preconditions.checkNotNull(req.object_desc.db);
+      TGetPartialCatalogObjectResponse resp;
       versionLock_.readLock().lock();
       try {
         Db db = getDb(dbDesc.getDb_name());
@@ -2671,10 +2875,16 @@ public class CatalogServiceCatalog extends Catalog {
           return createGetPartialCatalogObjectError(CatalogLookupStatus.DB_NOT_FOUND);
         }
 
-        return db.getPartialInfo(req);
+        resp = db.getPartialInfo(req);
       } finally {
         versionLock_.readLock().unlock();
       }
+      // Fetch the HMS tables outside of the version lock as it may require HMS RPCs.
+      if (req.db_info_selector.isSetWant_hms_tables()) {
+        resp.db_info.setHms_tables(getHmsTables(dbDesc.getDb_name(),
+            req.db_info_selector.getWant_hms_tables()));
+      }
+      return resp;
     case TABLE:
     case VIEW: {
       Table table;
@@ -2776,6 +2986,11 @@ public class CatalogServiceCatalog extends Catalog {
     catalogdTableInvalidator_ = cleaner;
   }
 
+  @VisibleForTesting
+  void setCatalogdStatsMaintainer(CatalogdStatsMaintainer maintainer) {
+    catalogdStatsMaintainer_ = maintainer;
+  }
+
   @VisibleForTesting
   public void setMetastoreEventProcessor(
       ExternalEventsProcessor metastoreEventProcessor) {
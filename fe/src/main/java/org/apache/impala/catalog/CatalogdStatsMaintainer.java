@@ -0,0 +1,373 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.impala.analysis.ToSqlUtils;
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.thrift.TGetCatalogServerMetricsResponse;
+import org.apache.impala.thrift.TGetCatalogUsageResponse;
+import org.apache.impala.thrift.TTableStatsFreshness;
+import org.apache.log4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Tracks the freshness of the statistics of HDFS tables. The catalog reports the number
+ * of rows written by every INSERT that it finalizes and every INSERT event received from
+ * the metastore, and the counters of a table are reset whenever its statistics are
+ * computed. A daemon thread periodically evaluates the loaded tables and lists the
+ * tables whose statistics are:
+ * 1. missing, i.e. the table has no row count,
+ * 2. corrupt, i.e. the row count is zero but the table has data (see HdfsScanNode),
+ * 3. stale, i.e. the fraction of rows inserted since the last COMPUTE STATS is at least
+ *    stats_maintenance_stale_ratio, or an INSERT event of unknown size was received.
+ * The catalog cannot run queries, so instead of computing the statistics itself it
+ * recommends a statement for every listed table. The statements of one evaluation are
+ * expected to scan at most stats_maintenance_budget_bytes. Tables that do not fit in the
+ * remaining budget are recommended to be sampled if stats extrapolation is enabled for
+ * them, and get no recommendation otherwise. The list is exposed through
+ * getCatalogUsage() on the /catalog page of the catalogd web UI. If
+ * stats_maintenance_coordinator is set, the catalogd backend submits the recommended
+ * statements of every evaluation to that coordinator, see
+ * CatalogServer::StatsMaintenanceThread().
+ */
+public class CatalogdStatsMaintainer {
+  public static final Logger LOG = Logger.getLogger(CatalogdStatsMaintainer.class);
+
+  // Number of modified rows reported for modifications of unknown size.
+  public static final long UNKNOWN_NUM_ROWS = -1;
+
+  // Smallest sampling percentage that is recommended. Smaller samples would produce
+  // statistics that are too inaccurate to be useful.
+  private static final int MIN_SAMPLE_PERCENT = 1;
+
+  /**
+   * Modifications of a single table since its statistics were last computed.
+   */
+  private static class TableModifications {
+    long numModifiedRows_ = 0;
+    boolean hasUnknownModifications_ = false;
+  }
+
+  /**
+   * Result of one evaluation.
+   */
+  private static class Evaluation {
+    // Sequence number of the evaluation, starting at 1. 0 before the first evaluation.
+    final long seq_;
+    // Tables with missing, corrupt or stale statistics, most stale first.
+    final List<TTableStatsFreshness> staleTables_;
+
+    Evaluation(long seq, List<TTableStatsFreshness> staleTables) {
+      seq_ = seq;
+      staleTables_ = staleTables;
+    }
+  }
+
+  /**
+   * A table with missing, corrupt or stale statistics.
+   */
+  private static class StaleTable {
+    final TTableStatsFreshness freshness_;
+    // Statement to compute the statistics by scanning all the data of the table.
+    final String computeStatsStmt_;
+    // True if the statistics can be computed on a sample of the table.
+    final boolean canSample_;
+    // Tables with higher scores are more stale.
+    final double score_;
+
+    StaleTable(TTableStatsFreshness freshness, String computeStatsStmt,
+        boolean canSample, double score) {
+      freshness_ = freshness;
+      computeStatsStmt_ = computeStatsStmt;
+      canSample_ = canSample;
+      score_ = score;
+    }
+  }
+
+  private final CatalogServiceCatalog catalog_;
+  private final long intervalNano_;
+  private final double staleRatio_;
+  private final long budgetBytes_;
+
+  // Map from the lower-case fully qualified table name to its modifications. Entries are
+  // added by inserts and removed when the statistics are computed or the table is
+  // dropped.
+  private final ConcurrentHashMap<String, TableModifications> modifications_ =
+      new ConcurrentHashMap<>();
+
+  // Result of the last evaluation. Only replaced by evaluate().
+  private volatile Evaluation lastEvaluation_ =
+      new Evaluation(0, Collections.<TTableStatsFreshness>emptyList());
+
+  // Thread that periodically evaluates the tables. Null if not started.
+  private Thread daemonThread_;
+  private boolean stopped_ = false;
+
+  @VisibleForTesting
+  CatalogdStatsMaintainer(CatalogServiceCatalog catalog, long intervalSec,
+      double staleRatio, long budgetBytes) {
+    catalog_ = catalog;
+    intervalNano_ = TimeUnit.SECONDS.toNanos(intervalSec);
+    staleRatio_ = staleRatio;
+    budgetBytes_ = budgetBytes;
+  }
+
+  /**
+   * Creates and starts a CatalogdStatsMaintainer if stats_maintenance_interval_s is
+   * positive, otherwise returns null.
+   */
+  public static CatalogdStatsMaintainer create(CatalogServiceCatalog catalog,
+      BackendConfig config) {
+    final int intervalSec = config.getStatsMaintenanceIntervalS();
+    final double staleRatio = config.getStatsMaintenanceStaleRatio();
+    final long budgetBytes = config.getStatsMaintenanceBudgetBytes();
+    Preconditions.checkArgument(intervalSec >= 0,
+        "stats_maintenance_interval_s must be a non-negative integer.");
+    Preconditions.checkArgument(staleRatio > 0,
+        "stats_maintenance_stale_ratio must be positive.");
+    Preconditions.checkArgument(budgetBytes >= 0,
+        "stats_maintenance_budget_bytes must be a non-negative integer.");
+    if (intervalSec == 0) return null;
+    CatalogdStatsMaintainer maintainer =
+        new CatalogdStatsMaintainer(catalog, intervalSec, staleRatio, budgetBytes);
+    maintainer.start();
+    return maintainer;
+  }
+
+  private static String getKey(String dbName, String tblName) {
+    return (dbName + "." + tblName).toLowerCase();
+  }
+
+  /**
+   * Records that 'numRows' rows were inserted into the given table. 'numRows' is
+   * UNKNOWN_NUM_ROWS if the number of inserted rows is not known, e.g. for INSERT events
+   * received from the metastore.
+   */
+  public void recordModification(String dbName, String tblName, long numRows) {
+    TableModifications mods =
+        modifications_.computeIfAbsent(getKey(dbName, tblName),
+            k -> new TableModifications());
+    synchronized (mods) {
+      if (numRows < 0) {
+        mods.hasUnknownModifications_ = true;
+      } else {
+        mods.numModifiedRows_ += numRows;
+      }
+    }
+  }
+
+  /**
+   * Records that the statistics of the given table were computed, which resets its
+   * modification counters.
+   */
+  public void recordStatsComputed(String dbName, String tblName) {
+    modifications_.remove(getKey(dbName, tblName));
+  }
+
+  /**
+   * Returns the tables with missing, corrupt or stale statistics as of the last
+   * evaluation, most stale first.
+   */
+  public List<TTableStatsFreshness> getStaleTables() {
+    return lastEvaluation_.staleTables_;
+  }
+
+  /**
+   * Sets the tables with missing, corrupt or stale statistics as of the last evaluation
+   * and the sequence number of that evaluation in 'usage'.
+   */
+  public void populateUsage(TGetCatalogUsageResponse usage) {
+    Evaluation evaluation = lastEvaluation_;
+    usage.setStale_stats_tables(new ArrayList<>(evaluation.staleTables_));
+    usage.setStats_evaluation_seq(evaluation.seq_);
+  }
+
+  /**
+   * Sets the metrics of the stats maintenance in 'metrics'.
+   */
+  public void populateMetrics(TGetCatalogServerMetricsResponse metrics) {
+    Evaluation evaluation = lastEvaluation_;
+    metrics.setStats_maintenance_num_stale_tables(evaluation.staleTables_.size());
+    metrics.setStats_maintenance_num_evaluations(evaluation.seq_);
+  }
+
+  /**
+   * Evaluates the freshness of the statistics of all loaded HDFS tables and updates the
+   * list returned by getStaleTables(). Also drops the counters of tables that no longer
+   * exist.
+   */
+  @VisibleForTesting
+  synchronized void evaluate() {
+    List<StaleTable> staleTables = new ArrayList<>();
+    Set<String> existingTables = new HashSet<>();
+    for (Db db: catalog_.getAllDbs()) {
+      for (Table table: catalog_.getAllTables(db)) {
+        String key = getKey(db.getName(), table.getName());
+        existingTables.add(key);
+        if (!(table instanceof HdfsTable)) continue;
+        StaleTable staleTable = evaluateTable((HdfsTable) table, modifications_.get(key));
+        if (staleTable != null) staleTables.add(staleTable);
+      }
+    }
+    modifications_.keySet().retainAll(existingTables);
+    Collections.sort(staleTables, new Comparator<StaleTable>() {
+      @Override
+      public int compare(StaleTable t1, StaleTable t2) {
+        return Double.compare(t2.score_, t1.score_);
+      }
+    });
+    lastEvaluation_ = new Evaluation(lastEvaluation_.seq_ + 1,
+        Collections.unmodifiableList(recommendStmts(staleTables)));
+  }
+
+  /**
+   * Returns the freshness of the statistics of 'table' given its modifications 'mods'
+   * since the last COMPUTE STATS, or null if the statistics are fresh. 'mods' may be
+   * null. Tables with missing or corrupt statistics are scored highest, followed by
+   * the tables with modifications of unknown size and the tables with the highest
+   * fraction of modified rows.
+   */
+  private StaleTable evaluateTable(HdfsTable table, TableModifications mods) {
+    long numRows = table.getNumRows();
+    long totalFileBytes = table.getTotalHdfsBytes();
+    long numModifiedRows = 0;
+    boolean hasUnknownModifications = false;
+    if (mods != null) {
+      synchronized (mods) {
+        numModifiedRows = mods.numModifiedRows_;
+        hasUnknownModifications = mods.hasUnknownModifications_;
+      }
+    }
+    double modifiedRatio = (double) numModifiedRows / Math.max(numRows, 1);
+    String reason;
+    double score;
+    if (numRows == -1) {
+      reason = "missing";
+      score = Double.MAX_VALUE;
+    } else if (numRows < -1 || (numRows == 0 && totalFileBytes > 0)) {
+      reason = "corrupt";
+      score = Double.MAX_VALUE / 2;
+    } else if (hasUnknownModifications) {
+      reason = "modified, number of rows unknown";
+      score = Double.MAX_VALUE / 4;
+    } else if (numModifiedRows > 0 && modifiedRatio >= staleRatio_) {
+      reason = String.format("%.0f%% of rows modified", 100 * modifiedRatio);
+      score = modifiedRatio;
+    } else {
+      return null;
+    }
+    TTableStatsFreshness freshness = new TTableStatsFreshness(
+        table.getTableName().toThrift(), numRows, totalFileBytes,
+        hasUnknownModifications ? UNKNOWN_NUM_ROWS : numModifiedRows, reason);
+    String tableSql = ToSqlUtils.getIdentSql(table.getDb().getName()) + "." +
+        ToSqlUtils.getIdentSql(table.getName());
+    // COMPUTE INCREMENTAL STATS does not support TABLESAMPLE.
+    if (table.getNumClusteringCols() > 0 && table.hasIncrementalStats()) {
+      return new StaleTable(freshness, "COMPUTE INCREMENTAL STATS " + tableSql, false,
+          score);
+    }
+    return new StaleTable(freshness, "COMPUTE STATS " + tableSql,
+        FeFsTable.Utils.isStatsExtrapolationEnabled(table), score);
+  }
+
+  /**
+   * Assigns the recommended statements to the ordered 'staleTables' within the budget
+   * of scanned bytes and returns their freshness. Full scans are recommended while they
+   * fit in the remaining budget. Otherwise, a TABLESAMPLE clause that fits in the
+   * remaining budget is added for tables that can be sampled. Tables that cannot be
+   * sampled or sampled at MIN_SAMPLE_PERCENT do not get a recommended statement.
+   */
+  private List<TTableStatsFreshness> recommendStmts(List<StaleTable> staleTables) {
+    List<TTableStatsFreshness> result = new ArrayList<>(staleTables.size());
+    long remainingBytes = budgetBytes_;
+    for (StaleTable staleTable: staleTables) {
+      TTableStatsFreshness freshness = staleTable.freshness_;
+      result.add(freshness);
+      long totalFileBytes = Math.max(freshness.getTotal_file_bytes(), 0);
+      if (totalFileBytes <= remainingBytes) {
+        freshness.setRecommended_stmt(staleTable.computeStatsStmt_);
+        remainingBytes -= totalFileBytes;
+        continue;
+      }
+      if (!staleTable.canSample_) continue;
+      long percent = remainingBytes * 100 / totalFileBytes;
+      if (percent < MIN_SAMPLE_PERCENT) continue;
+      freshness.setRecommended_stmt(
+          staleTable.computeStatsStmt_ + " TABLESAMPLE SYSTEM(" + percent + ")");
+      remainingBytes -= totalFileBytes * percent / 100;
+    }
+    return result;
+  }
+
+  private synchronized void start() {
+    Preconditions.checkState(daemonThread_ == null);
+    daemonThread_ = new Thread(new DaemonThread());
+    daemonThread_.setDaemon(true);
+    daemonThread_.setName("CatalogdStatsMaintainer timer");
+    daemonThread_.start();
+  }
+
+  void stop() {
+    synchronized (this) {
+      stopped_ = true;
+      notify();
+    }
+    if (daemonThread_ == null) return;
+    try {
+      daemonThread_.join();
+    } catch (InterruptedException e) {
+      LOG.warn("stop() is interrupted", e);
+    }
+  }
+
+  private class DaemonThread implements Runnable {
+    @Override
+    public void run() {
+      while (true) {
+        try {
+          synchronized (CatalogdStatsMaintainer.this) {
+            if (stopped_) return;
+            TimeUnit.NANOSECONDS.timedWait(CatalogdStatsMaintainer.this, intervalNano_);
+            if (stopped_) return;
+          }
+          evaluate();
+          if (LOG.isDebugEnabled()) {
+            LOG.debug("Found " + getStaleTables().size() + " tables with missing, " +
+                "corrupt or stale statistics.");
+          }
+        } catch (Exception e) {
+          LOG.warn("Unexpected exception thrown while evaluating the freshness of " +
+              "table statistics. Will retry in 5 seconds.", e);
+          Uninterruptibles.sleepUninterruptibly(5, TimeUnit.SECONDS);
+        }
+      }
+    }
+  }
+}
@@ -79,6 +79,8 @@ public class ColumnStats {
   private long maxSize_;  // in bytes
   private long numDistinctValues_;
   private long numNulls_;
+  // Equi-height histogram of the column values. Null if not computed.
+  private Histogram histogram_;
 
   public ColumnStats(Type colType) {
     initColStats(colType);
@@ -93,6 +95,7 @@ public class ColumnStats {
     maxSize_ = other.maxSize_;
     numDistinctValues_ = other.numDistinctValues_;
     numNulls_ = other.numNulls_;
+    histogram_ = other.histogram_;
   }
 
   /**
@@ -106,6 +109,7 @@ public class ColumnStats {
     maxSize_ = -1;
     numDistinctValues_ = -1;
     numNulls_ = -1;
+    histogram_ = null;
     if (colType.isFixedLengthType()) {
       avgSerializedSize_ = colType.getSlotSize();
       avgSize_ = colType.getSlotSize();
@@ -130,6 +134,7 @@ public class ColumnStats {
     stats.avgSerializedSize_ = slotStats.getAvgSerializedSize();
     stats.avgSize_ = slotStats.getAvgSize();
     stats.maxSize_ = slotStats.getMaxSize();
+    stats.histogram_ = slotStats.getHistogram();
     return stats;
   }
 
@@ -138,9 +143,11 @@ public class ColumnStats {
    * If this or other's stats are invalid, sets the corresponding stat to invalid,
    * Returns this with the updated stats.
    * This method is used to aggregate stats for slots that originate from multiple
-   * source slots, e.g., those produced by union queries.
+   * source slots, e.g., those produced by union queries. The histogram is dropped
+   * because it does not describe the combined values.
    */
   public ColumnStats add(ColumnStats other) {
+    histogram_ = null;
     if (numDistinctValues_ == -1 || other.numDistinctValues_ == -1) {
       numDistinctValues_ = -1;
     } else {
@@ -168,6 +175,8 @@ public class ColumnStats {
   public boolean hasAvgSerializedSize() { return avgSerializedSize_ >= 0; }
   public boolean hasNumDistinctValues() { return numDistinctValues_ >= 0; }
   public boolean hasStats() { return numNulls_ != -1 || numDistinctValues_ != -1; }
+  public Histogram getHistogram() { return histogram_; }
+  public void setHistogram(Histogram histogram) { histogram_ = histogram; }
 
   /**
    * Updates the stats with the given ColumnStatisticsData. If the ColumnStatisticsData
@@ -364,6 +373,9 @@ public class ColumnStats {
     maxSize_ = stats.getMax_size();
     numDistinctValues_ = stats.getNum_distinct_values();
     numNulls_ = stats.getNum_nulls();
+    if (stats.isSetHistogram_bounds() && !stats.getHistogram_bounds().isEmpty()) {
+      histogram_ = new Histogram(stats.getHistogram_bounds());
+    }
   }
 
   public TColumnStats toThrift() {
@@ -372,6 +384,7 @@ public class ColumnStats {
     colStats.setMax_size(maxSize_);
     colStats.setNum_distinct_values(numDistinctValues_);
     colStats.setNum_nulls(numNulls_);
+    if (histogram_ != null) colStats.setHistogram_bounds(histogram_.getBounds());
     return colStats;
   }
 
@@ -382,6 +395,7 @@ public class ColumnStats {
         .add("maxSize_", maxSize_)
         .add("numDistinct_", numDistinctValues_)
         .add("numNulls_", numNulls_)
+        .add("histogram_", histogram_)
         .toString();
   }
 
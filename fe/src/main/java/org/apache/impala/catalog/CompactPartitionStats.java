@@ -0,0 +1,404 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.impala.common.ImpalaException;
+import org.apache.impala.common.ImpalaRuntimeException;
+import org.apache.impala.thrift.TIntermediateColumnStats;
+import org.apache.impala.thrift.TPartitionStats;
+import org.apache.impala.thrift.TTableStats;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Compact binary encoding of TPartitionStats that the catalog uses to keep the
+ * statistics of partitions in memory. Most of the size of incremental statistics is
+ * the intermediate NDV state, the HLL registers of every column. Instead of the
+ * deflate-compressed Thrift serialization with RLE-encoded registers, the registers
+ * are stored either sparsely, as (index delta, value) pairs when most registers are
+ * zero, or densely, packed into 6 bits each. This is usually smaller than the
+ * deflate-compressed representation and can be decoded without inflating the whole
+ * object.
+ *
+ * The encoding is self-describing: it starts with a magic byte that cannot start a
+ * deflate stream, so PartitionStatsUtil can decode both representations. The stats
+ * of single columns can be decoded lazily through a CompactPartitionStats instance
+ * without materializing the TPartitionStats, which IncrementalStatsAggregate uses to
+ * merge the stats of partitions.
+ *
+ * Layout, varints are unsigned LEB128 and signed values are zigzag-encoded:
+ *   magic byte, version byte
+ *   zigzag num_rows, flags byte (see FLAG_*), [zigzag total_file_bytes]
+ *   varint number of columns
+ *   per column: varint name length, UTF-8 name, varint column body length
+ *   column bodies, in the same order:
+ *     zigzag num_nulls, zigzag max_width, 8-byte avg_width, zigzag num_rows,
+ *     NDV encoding byte (see NDV_*), [varint number of registers, registers]
+ *
+ * Instances are immutable and thread safe.
+ */
+public class CompactPartitionStats {
+  // Deflate streams written by CompressionUtil start with a zlib header whose first
+  // byte is 0x78, so this byte distinguishes the encodings.
+  private static final byte MAGIC = (byte) 0xc5;
+  private static final byte VERSION = 1;
+
+  private static final int FLAG_HAS_TOTAL_FILE_BYTES = 1;
+  private static final int FLAG_HAS_INTERMEDIATE_COL_STATS = 2;
+
+  private static final byte NDV_NOT_SET = 0;
+  // (varint index delta, value byte) pairs of the non-zero registers.
+  private static final byte NDV_SPARSE = 1;
+  // Registers packed into 6 bits each. HLL registers hold the position of the leading
+  // one bit of a 64-bit hash and always fit.
+  private static final byte NDV_PACKED = 2;
+  // Registers as they are, for registers that don't fit into 6 bits.
+  private static final byte NDV_RAW = 3;
+
+  private static final int PACKED_BITS = 6;
+  private static final int PACKED_MAX_VALUE = (1 << PACKED_BITS) - 1;
+
+  // Upper bound of the number of HLL registers, to fail on corrupt data instead of
+  // allocating huge arrays.
+  private static final int MAX_NDV_REGISTERS = 1 << 20;
+
+  private final byte[] data_;
+  private final long numRows_;
+  private final Long totalFileBytes_;
+  private final boolean hasIntermediateColStats_;
+  // Column names in encoding order and the offsets and lengths of their bodies in
+  // 'data_'.
+  private final String[] colNames_;
+  private final int[] colOffsets_;
+  private final int[] colLengths_;
+
+  /**
+   * Returns true if 'bytes' are encoded by this class.
+   */
+  public static boolean isCompact(byte[] bytes) {
+    return bytes != null && bytes.length >= 2 && bytes[0] == MAGIC;
+  }
+
+  /**
+   * Parses the header of 'data' without decoding any column statistics.
+   */
+  public CompactPartitionStats(byte[] data) throws ImpalaException {
+    Preconditions.checkNotNull(data);
+    if (!isCompact(data)) {
+      throw new ImpalaRuntimeException("Invalid compact partition statistics");
+    }
+    if (data[1] != VERSION) {
+      throw new ImpalaRuntimeException(
+          "Unsupported compact partition statistics version: " + data[1]);
+    }
+    data_ = data;
+    Decoder dec = new Decoder(data, 2);
+    numRows_ = dec.readZigzag();
+    int flags = dec.readByte();
+    totalFileBytes_ =
+        (flags & FLAG_HAS_TOTAL_FILE_BYTES) != 0 ? dec.readZigzag() : null;
+    hasIntermediateColStats_ = (flags & FLAG_HAS_INTERMEDIATE_COL_STATS) != 0;
+    int numCols = dec.readLength();
+    colNames_ = new String[numCols];
+    colOffsets_ = new int[numCols];
+    colLengths_ = new int[numCols];
+    for (int i = 0; i < numCols; ++i) {
+      int nameLen = dec.readLength();
+      // Column names repeat across all partitions of a table, share them.
+      colNames_[i] = CatalogInterners.internString(
+          new String(dec.readBytes(nameLen), StandardCharsets.UTF_8));
+      colLengths_[i] = dec.readLength();
+    }
+    long offset = dec.pos_;
+    for (int i = 0; i < numCols && offset <= data.length; ++i) {
+      colOffsets_[i] = (int) offset;
+      offset += colLengths_[i];
+    }
+    if (offset != data.length) {
+      throw new ImpalaRuntimeException("Corrupt compact partition statistics");
+    }
+  }
+
+  public long getNumRows() { return numRows_; }
+  public boolean hasIntermediateColStats() { return hasIntermediateColStats_; }
+  public int getNumColumns() { return colNames_.length; }
+  public String getColumnName(int idx) { return colNames_[idx]; }
+
+  /**
+   * Decodes the intermediate statistics of the column at position 'idx'. The NDV
+   * registers of the result are not RLE-encoded.
+   */
+  public TIntermediateColumnStats getColumnStats(int idx) throws ImpalaException {
+    Decoder dec = new Decoder(data_, colOffsets_[idx]);
+    TIntermediateColumnStats result = new TIntermediateColumnStats();
+    result.setNum_nulls(dec.readZigzag());
+    result.setMax_width((int) dec.readZigzag());
+    result.setAvg_width(Double.longBitsToDouble(dec.readLong()));
+    result.setNum_rows(dec.readZigzag());
+    byte ndvEncoding = dec.readByte();
+    if (ndvEncoding != NDV_NOT_SET) {
+      result.setIntermediate_ndv(decodeNdv(dec, ndvEncoding));
+      result.setIs_ndv_encoded(false);
+    }
+    if (dec.pos_ != colOffsets_[idx] + colLengths_[idx]) {
+      throw new ImpalaRuntimeException(
+          "Corrupt compact statistics of column " + colNames_[idx]);
+    }
+    return result;
+  }
+
+  /**
+   * Decodes all statistics into a TPartitionStats.
+   */
+  public TPartitionStats toThrift() throws ImpalaException {
+    TPartitionStats result = new TPartitionStats();
+    TTableStats tableStats = new TTableStats(numRows_);
+    if (totalFileBytes_ != null) tableStats.setTotal_file_bytes(totalFileBytes_);
+    result.setStats(tableStats);
+    if (hasIntermediateColStats_) {
+      Map<String, TIntermediateColumnStats> colStats =
+          new HashMap<>(colNames_.length * 2);
+      for (int i = 0; i < colNames_.length; ++i) {
+        colStats.put(colNames_[i], getColumnStats(i));
+      }
+      result.setIntermediate_col_stats(colStats);
+    }
+    return result;
+  }
+
+  /**
+   * Decodes 'data' into a TPartitionStats.
+   */
+  public static TPartitionStats decode(byte[] data) throws ImpalaException {
+    return new CompactPartitionStats(data).toThrift();
+  }
+
+  /**
+   * Encodes 'stats'. Throws an exception if the intermediate NDV state of a column
+   * can not be decoded.
+   */
+  public static byte[] encode(TPartitionStats stats) throws ImpalaException {
+    Preconditions.checkNotNull(stats);
+    Encoder enc = new Encoder();
+    enc.writeByte(MAGIC);
+    enc.writeByte(VERSION);
+    TTableStats tableStats = stats.getStats();
+    enc.writeZigzag(tableStats == null ? -1 : tableStats.getNum_rows());
+    int flags = 0;
+    boolean hasTotalFileBytes =
+        tableStats != null && tableStats.isSetTotal_file_bytes();
+    if (hasTotalFileBytes) flags |= FLAG_HAS_TOTAL_FILE_BYTES;
+    if (stats.isSetIntermediate_col_stats()) flags |= FLAG_HAS_INTERMEDIATE_COL_STATS;
+    enc.writeByte((byte) flags);
+    if (hasTotalFileBytes) enc.writeZigzag(tableStats.getTotal_file_bytes());
+    if (!stats.isSetIntermediate_col_stats()) {
+      enc.writeVarint(0);
+      return enc.toByteArray();
+    }
+
+    Map<String, TIntermediateColumnStats> colStats = stats.getIntermediate_col_stats();
+    enc.writeVarint(colStats.size());
+    List<byte[]> bodies = new ArrayList<>(colStats.size());
+    for (Map.Entry<String, TIntermediateColumnStats> e: colStats.entrySet()) {
+      byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+      byte[] body = encodeColumn(e.getValue());
+      enc.writeVarint(name.length);
+      enc.writeBytes(name);
+      enc.writeVarint(body.length);
+      bodies.add(body);
+    }
+    for (byte[] body: bodies) enc.writeBytes(body);
+    return enc.toByteArray();
+  }
+
+  private static byte[] encodeColumn(TIntermediateColumnStats stats)
+      throws ImpalaException {
+    Encoder enc = new Encoder();
+    enc.writeZigzag(stats.getNum_nulls());
+    enc.writeZigzag(stats.getMax_width());
+    enc.writeLong(Double.doubleToRawLongBits(stats.getAvg_width()));
+    enc.writeZigzag(stats.getNum_rows());
+    if (!stats.isSetIntermediate_ndv()) {
+      enc.writeByte(NDV_NOT_SET);
+      return enc.toByteArray();
+    }
+    byte[] ndv = IncrementalStatsAggregate.decodeNdv(
+        stats.getIntermediate_ndv(), stats.isIs_ndv_encoded());
+    int numNonZero = 0;
+    boolean fitsPacked = true;
+    for (byte b: ndv) {
+      if (b != 0) ++numNonZero;
+      if (b < 0 || b > PACKED_MAX_VALUE) fitsPacked = false;
+    }
+    // A sparse register takes at least two bytes, a packed one 3/4 of a byte.
+    if (numNonZero * 8 < ndv.length * PACKED_BITS / 2) {
+      enc.writeByte(NDV_SPARSE);
+      enc.writeVarint(ndv.length);
+      enc.writeVarint(numNonZero);
+      int prev = -1;
+      for (int i = 0; i < ndv.length; ++i) {
+        if (ndv[i] == 0) continue;
+        enc.writeVarint(i - prev);
+        enc.writeByte(ndv[i]);
+        prev = i;
+      }
+    } else if (fitsPacked) {
+      enc.writeByte(NDV_PACKED);
+      enc.writeVarint(ndv.length);
+      byte[] packed = new byte[(ndv.length * PACKED_BITS + 7) / 8];
+      for (int i = 0; i < ndv.length; ++i) {
+        int bit = i * PACKED_BITS;
+        int value = ndv[i] << (bit % 8);
+        packed[bit / 8] |= (byte) value;
+        if (bit % 8 + PACKED_BITS > 8) packed[bit / 8 + 1] |= (byte) (value >>> 8);
+      }
+      enc.writeBytes(packed);
+    } else {
+      enc.writeByte(NDV_RAW);
+      enc.writeVarint(ndv.length);
+      enc.writeBytes(ndv);
+    }
+    return enc.toByteArray();
+  }
+
+  private static byte[] decodeNdv(Decoder dec, byte ndvEncoding)
+      throws ImpalaException {
+    int len = dec.readLength();
+    if (len > MAX_NDV_REGISTERS) {
+      throw new ImpalaRuntimeException("Invalid intermediate NDV length: " + len);
+    }
+    byte[] ndv = new byte[len];
+    switch (ndvEncoding) {
+      case NDV_SPARSE: {
+        int numNonZero = dec.readLength();
+        int idx = -1;
+        for (int i = 0; i < numNonZero; ++i) {
+          // Deltas are positive, the first one is relative to index -1.
+          int delta = dec.readLength();
+          if (delta == 0 || delta >= len - idx) {
+            throw new ImpalaRuntimeException("Corrupt sparse intermediate NDV");
+          }
+          idx += delta;
+          ndv[idx] = dec.readByte();
+        }
+        break;
+      }
+      case NDV_PACKED: {
+        byte[] packed = dec.readBytes((len * PACKED_BITS + 7) / 8);
+        for (int i = 0; i < len; ++i) {
+          int bit = i * PACKED_BITS;
+          int value = (packed[bit / 8] & 0xff) >>> (bit % 8);
+          if (bit % 8 + PACKED_BITS > 8) {
+            value |= (packed[bit / 8 + 1] & 0xff) << (8 - bit % 8);
+          }
+          ndv[i] = (byte) (value & PACKED_MAX_VALUE);
+        }
+        break;
+      }
+      case NDV_RAW:
+        System.arraycopy(dec.readBytes(len), 0, ndv, 0, len);
+        break;
+      default:
+        throw new ImpalaRuntimeException("Unknown intermediate NDV encoding: "
+            + ndvEncoding);
+    }
+    return ndv;
+  }
+
+  private static class Encoder extends ByteArrayOutputStream {
+    void writeByte(byte b) { write(b); }
+
+    void writeBytes(byte[] b) { write(b, 0, b.length); }
+
+    void writeVarint(long v) {
+      while ((v & ~0x7fL) != 0) {
+        write((int) ((v & 0x7f) | 0x80));
+        v >>>= 7;
+      }
+      write((int) v);
+    }
+
+    void writeZigzag(long v) { writeVarint((v << 1) ^ (v >> 63)); }
+
+    void writeLong(long v) {
+      for (int i = 0; i < 8; ++i) write((int) (v >>> (i * 8)));
+    }
+  }
+
+  private static class Decoder {
+    private final byte[] data_;
+    private int pos_;
+
+    Decoder(byte[] data, int pos) {
+      data_ = data;
+      pos_ = pos;
+    }
+
+    byte readByte() throws ImpalaException {
+      if (pos_ >= data_.length) throw truncated();
+      return data_[pos_++];
+    }
+
+    byte[] readBytes(int len) throws ImpalaException {
+      if (len > data_.length - pos_) throw truncated();
+      byte[] result = new byte[len];
+      System.arraycopy(data_, pos_, result, 0, len);
+      pos_ += len;
+      return result;
+    }
+
+    long readVarint() throws ImpalaException {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        byte b = readByte();
+        result |= (long) (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) return result;
+      }
+      throw new ImpalaRuntimeException("Corrupt varint in compact partition statistics");
+    }
+
+    // Reads a varint that is used as a length or count.
+    int readLength() throws ImpalaException {
+      long v = readVarint();
+      if (v < 0 || v > Integer.MAX_VALUE) throw truncated();
+      return (int) v;
+    }
+
+    long readZigzag() throws ImpalaException {
+      long v = readVarint();
+      return (v >>> 1) ^ -(v & 1);
+    }
+
+    long readLong() throws ImpalaException {
+      long result = 0;
+      for (int i = 0; i < 8; ++i) result |= (readByte() & 0xffL) << (i * 8);
+      return result;
+    }
+
+    private ImpalaException truncated() {
+      return new ImpalaRuntimeException("Truncated compact partition statistics");
+    }
+  }
+}
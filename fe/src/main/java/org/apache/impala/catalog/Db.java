@@ -19,6 +19,7 @@ package org.apache.impala.catalog;
 
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -80,7 +81,7 @@ public class Db extends CatalogObjectImpl implements FeDb {
   // while serializing functions to the metastore.
   private static final int HIVE_METASTORE_DB_PARAM_LIMIT_BYTES = 4000;
 
-  // Table metadata cache.
+  // Table metadata cache. Copy-on-write in the impalad catalog, see snapshot().
   private final CatalogObjectCache<Table> tableCache_;
 
   // All of the registered user functions. The key is the user facing name (e.g. "myUdf"),
@@ -96,11 +97,32 @@ public class Db extends CatalogObjectImpl implements FeDb {
   private boolean isSystemDb_ = false;
 
   public Db(String name, org.apache.hadoop.hive.metastore.api.Database msDb) {
+    this(name, msDb, false);
+  }
+
+  /**
+   * Creates a Db whose table cache is copy-on-write if 'copyOnWriteTables' is true.
+   * Such Dbs can be pinned cheaply with snapshot().
+   */
+  public Db(String name, org.apache.hadoop.hive.metastore.api.Database msDb,
+      boolean copyOnWriteTables) {
     setMetastoreDb(name, msDb);
-    tableCache_ = new CatalogObjectCache<>();
+    tableCache_ = new CatalogObjectCache<>(true, copyOnWriteTables);
     functions_ = new HashMap<>();
   }
 
+  /**
+   * Creates a snapshot of 'db' that shares everything but the table cache with it, see
+   * snapshot().
+   */
+  private Db(Db db, CatalogObjectCache<Table> tableCache) {
+    thriftDb_.set(db.thriftDb_.get());
+    tableCache_ = tableCache;
+    functions_ = db.functions_;
+    isSystemDb_ = db.isSystemDb_;
+    setCatalogVersion(db.getCatalogVersion());
+  }
+
   public void setIsSystemDb(boolean b) { isSystemDb_ = b; }
 
   /**
@@ -110,6 +132,17 @@ public class Db extends CatalogObjectImpl implements FeDb {
     return new Db(db.getDb_name(), db.getMetastore_db());
   }
 
+  /**
+   * Returns a Db that contains the current tables of this Db and is not changed by later
+   * updates of this Db, or this Db if its table cache is not copy-on-write. Taking a
+   * snapshot does not copy the tables. The snapshot shares the functions with this Db
+   * and must not be modified.
+   */
+  public Db snapshot() {
+    if (!tableCache_.isCopyOnWrite()) return this;
+    return new Db(this, new CatalogObjectCache<>(true, tableCache_.getSnapshot()));
+  }
+
   /**
    * Updates the hms parameters map by adding the input <k,v> pair.
    */
@@ -180,6 +213,15 @@ public class Db extends CatalogObjectImpl implements FeDb {
     return tableCache_.remove(tableName.toLowerCase());
   }
 
+  /**
+   * Adds 'addedTables' and then removes the tables named 'removedTableNames'. A
+   * copy-on-write table cache is copied once for all changes.
+   */
+  public void updateTables(Collection<Table> addedTables,
+      Collection<String> removedTableNames) {
+    tableCache_.update(addedTables, removedTableNames);
+  }
+
   @Override
   public FeKuduTable createKuduCtasTarget(
       org.apache.hadoop.hive.metastore.api.Table msTbl,
@@ -22,6 +22,7 @@ import java.util.Set;
 import org.apache.impala.analysis.TableName;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.thrift.TCatalogObject;
+import org.apache.impala.thrift.TGetPartitionStatsRequest;
 import org.apache.impala.thrift.TGetPartitionStatsResponse;
 import org.apache.impala.thrift.TPartitionKeyValue;
 import org.apache.impala.thrift.TUniqueId;
@@ -76,10 +77,19 @@ public interface FeCatalog {
   void prioritizeLoad(Set<TableName> tableNames) throws InternalException;
 
   /**
-   * Fetches partition statistics for a table. The table is loaded if needed. If the table
-   * does not exist or cannot be loaded, an exception is thrown.
+   * Fetches partition statistics for a table, see TGetPartitionStatsRequest. The table is
+   * loaded if needed. If the table does not exist or cannot be loaded, an exception is
+   * thrown.
    */
-  TGetPartitionStatsResponse getPartitionStats(TableName table) throws InternalException;
+  TGetPartitionStatsResponse getPartitionStats(TGetPartitionStatsRequest request)
+      throws InternalException;
+
+  /**
+   * Returns the HMS table objects of the given tables in database 'dbName' without
+   * loading the tables' metadata. Tables that do not exist are omitted from the result.
+   */
+  List<org.apache.hadoop.hive.metastore.api.Table> getHmsTables(String dbName,
+      List<String> tableNames) throws InternalException;
 
   /**
    * Causes the calling thread to wait until a catalog update notification has been sent
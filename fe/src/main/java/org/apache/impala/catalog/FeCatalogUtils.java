@@ -141,10 +141,13 @@ public abstract class FeCatalogUtils {
 
   /**
    * Given the list of column stats returned from the metastore, inject those
-   * stats into matching columns in 'table'.
+   * stats into matching columns in 'table'. The column histograms are read from the
+   * table properties of 'table'.
    */
   public static void injectColumnStats(List<ColumnStatisticsObj> colStats,
       FeTable table) {
+    Map<String, String> tblParams = table.getMetaStoreTable() == null ? null :
+        table.getMetaStoreTable().getParameters();
     for (ColumnStatisticsObj stats: colStats) {
       Column col = table.getColumn(stats.getColName());
       Preconditions.checkNotNull(col, "Unable to find column %s in table %s",
@@ -164,6 +167,10 @@ public abstract class FeCatalogUtils {
             table.getFullName()));
         continue;
       }
+      if (tblParams != null && Histogram.isSupportedColType(col.getType())) {
+        col.getStats().setHistogram(Histogram.fromPropertyValue(
+            tblParams.get(Histogram.getPropertyKey(col.getName()))));
+      }
     }
   }
 
@@ -117,7 +117,8 @@ public interface FeFsPartition {
 
   /**
    * @return the byte array representation of TPartitionStats for this partition. They
-   * are stored as a deflate-compressed byte array to reduce memory footprint. Use
+   * are stored in the format of CompactPartitionStats, or as a deflate-compressed byte
+   * array if they were loaded from an older catalog, to reduce memory footprint. Use
    * 'getPartitionStats()' to get the corresponding TPartitionStats object.
    */
   byte[] getPartitionStatsCompressed();
@@ -161,4 +162,10 @@ public interface FeFsPartition {
    * getPartitionStatsCompressed().
    */
   Map<String, String> getParameters();
+
+  /**
+   * @return the number of Hive buckets of this partition, or 0 if the partition is not
+   * bucketed or its HMS storage descriptor is not known.
+   */
+  int getNumBuckets();
 }
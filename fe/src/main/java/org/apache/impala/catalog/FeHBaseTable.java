@@ -612,6 +612,14 @@ public interface FeHBaseTable extends FeTable {
       return tHbaseTable;
     }
 
+    /**
+     * Returns the number of regions of 'tbl'.
+     */
+    public static int getNumRegions(FeHBaseTable tbl) throws IOException {
+      return getRegionsInRange(tbl, HConstants.EMPTY_START_ROW,
+          HConstants.EMPTY_END_ROW).size();
+    }
+
     /**
      * Get the corresponding regions for an arbitrary range of keys.
      * This is copied from org.apache.hadoop.hbase.client.HTable in HBase 0.95. The
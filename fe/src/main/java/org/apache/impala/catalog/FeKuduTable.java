@@ -126,6 +126,22 @@ public interface FeKuduTable extends FeTable {
       return ret;
     }
 
+    /**
+     * Returns the number of tablets of 'table'.
+     */
+    public static int getNumTablets(FeKuduTable table) throws ImpalaRuntimeException {
+      KuduClient client = KuduUtil.getKuduClient(table.getKuduMasterHosts());
+      try {
+        org.apache.kudu.client.KuduTable kuduTable = client.openTable(
+            table.getKuduTableName());
+        return kuduTable.getTabletsLocations(
+            BackendConfig.INSTANCE.getKuduClientTimeoutMs()).size();
+      } catch (Exception e) {
+        throw new ImpalaRuntimeException("Error accessing Kudu for the tablets of " +
+            "table " + table.getFullName(), e);
+      }
+    }
+
     public static TResultSet getTableStats(FeKuduTable table)
         throws ImpalaRuntimeException {
       TResultSet result = new TResultSet();
@@ -130,6 +130,42 @@ public class HdfsPartition implements FeFsPartition, PrunablePartition {
       return new FileDescriptor(cloned);
     }
 
+    /**
+     * Returns a descriptor of this file that contains only the block at 'blockIdx',
+     * with the replica indexes changed to reference the new host index 'dstIndex'
+     * instead of the original index 'origIndex'. The file name, length and other file
+     * level fields are kept.
+     */
+    public FileDescriptor cloneBlockWithNewHostIndex(int blockIdx,
+        List<TNetworkAddress> origIndex, ListMap<TNetworkAddress> dstIndex) {
+      FbFileBlock block = getFbFileBlock(blockIdx);
+      FlatBufferBuilder fbb = new FlatBufferBuilder(1);
+      short[] replicaIdxs = new short[block.replicaHostIdxsLength()];
+      for (int i = 0; i < replicaIdxs.length; ++i) {
+        TNetworkAddress origHost = origIndex.get(FileBlock.getReplicaHostIdx(block, i));
+        replicaIdxs[i] = FileBlock.makeReplicaIdx(FileBlock.isReplicaCached(block, i),
+            dstIndex.getIndex(origHost));
+      }
+      int fbReplicaHostIdxOffset = FbFileBlock.createReplicaHostIdxsVector(fbb,
+          replicaIdxs);
+      int fbDiskIdsOffset = -1;
+      if (block.diskIdsLength() > 0) {
+        short[] diskIds = new short[block.diskIdsLength()];
+        for (int i = 0; i < diskIds.length; ++i) {
+          diskIds[i] = (short) block.diskIds(i);
+        }
+        fbDiskIdsOffset = FbFileBlock.createDiskIdsVector(fbb, diskIds);
+      }
+      FbFileBlock.startFbFileBlock(fbb);
+      FbFileBlock.addOffset(fbb, block.offset());
+      FbFileBlock.addLength(fbb, block.length());
+      FbFileBlock.addReplicaHostIdxs(fbb, fbReplicaHostIdxOffset);
+      if (fbDiskIdsOffset >= 0) FbFileBlock.addDiskIds(fbb, fbDiskIdsOffset);
+      int[] fbFileBlockOffsets = new int[] {FbFileBlock.endFbFileBlock(fbb)};
+      return new FileDescriptor(createFbFileDesc(fbb, getFileName(), getFileLength(),
+          getModificationTime(), fbFileBlockOffsets, getIsEc()));
+    }
+
     /**
      * Creates the file descriptor of a file represented by 'fileStatus' with blocks
      * stored in 'blockLocations'. 'fileSystem' is the filesystem where the
@@ -176,7 +212,17 @@ public class HdfsPartition implements FeFsPartition, PrunablePartition {
      */
     private static FbFileDesc createFbFileDesc(FlatBufferBuilder fbb,
         FileStatus fileStatus, int[] fbFileBlockOffets, boolean isEc) {
-      int fileNameOffset = fbb.createString(fileStatus.getPath().getName());
+      return createFbFileDesc(fbb, fileStatus.getPath().getName(), fileStatus.getLen(),
+          fileStatus.getModificationTime(), fbFileBlockOffets, isEc);
+    }
+
+    /**
+     * Same as above for the file 'fileName' of 'length' bytes that was last modified at
+     * 'modificationTime'.
+     */
+    private static FbFileDesc createFbFileDesc(FlatBufferBuilder fbb, String fileName,
+        long length, long modificationTime, int[] fbFileBlockOffets, boolean isEc) {
+      int fileNameOffset = fbb.createString(fileName);
       // A negative block vector offset is used when no block offsets are specified.
       int blockVectorOffset = -1;
       if (fbFileBlockOffets != null) {
@@ -184,10 +230,10 @@ public class HdfsPartition implements FeFsPartition, PrunablePartition {
       }
       FbFileDesc.startFbFileDesc(fbb);
       FbFileDesc.addFileName(fbb, fileNameOffset);
-      FbFileDesc.addLength(fbb, fileStatus.getLen());
-      FbFileDesc.addLastModificationTime(fbb, fileStatus.getModificationTime());
+      FbFileDesc.addLength(fbb, length);
+      FbFileDesc.addLastModificationTime(fbb, modificationTime);
       FbFileDesc.addIsEc(fbb, isEc);
-      HdfsCompression comp = HdfsCompression.fromFileName(fileStatus.getPath().getName());
+      HdfsCompression comp = HdfsCompression.fromFileName(fileName);
       FbFileDesc.addCompression(fbb, comp.toFb());
       if (blockVectorOffset >= 0) FbFileDesc.addFileBlocks(fbb, blockVectorOffset);
       fbb.finish(FbFileDesc.endFbFileDesc(fbb));
@@ -594,8 +640,9 @@ public class HdfsPartition implements FeFsPartition, PrunablePartition {
   // (k,v) pairs of parameters for this partition, stored in the HMS.
   private Map<String, String> hmsParameters_;
 
-  // Binary representation of the TPartitionStats for this partition. Populated
-  // when the partition is loaded and updated using setPartitionStatsBytes().
+  // Binary representation of the TPartitionStats for this partition, encoded by
+  // CompactPartitionStats. Populated when the partition is loaded and updated using
+  // setPartitionStatsBytes().
   private byte[] partitionStats_;
 
   // True if partitionStats_ has intermediate_col_stats populated.
@@ -766,8 +813,8 @@ public class HdfsPartition implements FeFsPartition, PrunablePartition {
    */
   private void extractAndCompressPartStats() {
     try {
-      // Convert the stats stored in the hmsParams map to a deflate-compressed in-memory
-      // byte array format. After conversion, delete the entries in the hmsParams map
+      // Convert the stats stored in the hmsParams map to a compact in-memory byte array
+      // format. After conversion, delete the entries in the hmsParams map
       // as they are not needed anymore.
       Reference<Boolean> hasIncrStats = new Reference<Boolean>(false);
       byte[] partitionStats =
@@ -803,6 +850,12 @@ public class HdfsPartition implements FeFsPartition, PrunablePartition {
     return hmsParameters_;
   }
 
+  @Override // FeFsPartition
+  public int getNumBuckets() {
+    if (cachedMsPartitionDescriptor_ == null) return 0;
+    return Math.max(0, cachedMsPartitionDescriptor_.sdNumBuckets);
+  }
+
   public void putToParameters(String k, String v) {
     Preconditions.checkArgument(!IS_INCREMENTAL_STATS_KEY.apply(k));
     hmsParameters_.put(k, v);
@@ -271,6 +271,13 @@ public class HdfsTable extends Table implements FeFsTable {
   //   are set when the table is serialized to Thrift.
   private final FileMetadataStats fileMetadataStats_ = new FileMetadataStats();
 
+  // Only used in the catalog server: the merged incremental stats of all partitions that
+  // have them, maintained incrementally when serving partition stats requests for
+  // COMPUTE INCREMENTAL STATS. Synchronized on itself. See
+  // CatalogServiceCatalog.getPartitionStats().
+  private final IncrementalStatsAggregate incrementalStatsAggregate_ =
+      new IncrementalStatsAggregate();
+
   private final static Logger LOG = LoggerFactory.getLogger(HdfsTable.class);
 
   // Caching this configuration object makes calls to getFileSystem much quicker
@@ -584,6 +591,11 @@ public class HdfsTable extends Table implements FeFsTable {
   @Override // FeFsTable
   public boolean isMarkedCached() { return isMarkedCached_; }
 
+  /**
+   * Returns true if any partition of this table has incremental stats.
+   */
+  public boolean hasIncrementalStats() { return hasIncrementalStats_; }
+
   @Override // FeFsTable
   public Collection<? extends PrunablePartition> getPartitions() {
     return partitionMap_.values();
@@ -1816,6 +1828,10 @@ public class HdfsTable extends Table implements FeFsTable {
   @Override // FeFsTable
   public long getTotalHdfsBytes() { return fileMetadataStats_.totalFileBytes; }
 
+  public IncrementalStatsAggregate getIncrementalStatsAggregate() {
+    return incrementalStatsAggregate_;
+  }
+
   @Override // FeFsTable
   public String getHdfsBaseDir() { return hdfsBaseDir_; }
   public Path getHdfsBaseDirPath() { return new Path(hdfsBaseDir_); }
@@ -0,0 +1,255 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Doubles;
+
+/**
+ * Immutable equi-height histogram over the non-NULL values of an integer column. The
+ * histogram consists of the sorted upper bounds of n buckets that each hold
+ * approximately 1/n of the values, i.e. bound i is the approximate (i+1)/n quantile.
+ * The bounds are computed by COMPUTE STATS with the HISTOGRAM() aggregate function,
+ * which is based on a reservoir sample, so all estimates are approximate.
+ *
+ * A value that makes up more than 1/n of the values is the upper bound of several
+ * consecutive buckets. These repeated bounds are the frequent values of the column and
+ * are used to estimate the selectivity of equality predicates on skewed columns.
+ *
+ * Histograms are stored in the HMS table properties, see toPropertyValue().
+ */
+public class Histogram {
+  // Prefix of the table property that stores the histogram of a column. The column
+  // name is appended to the prefix.
+  public static final String TBL_PROP_PREFIX = "impala.histogram.";
+
+  // Maximum length of a histogram table property value. Histograms with longer
+  // encodings are coarsened until they fit, see toPropertyValue().
+  public static final int MAX_PROPERTY_VALUE_LENGTH = 4000;
+
+  // Column types for which histograms are computed. The HISTOGRAM() aggregate prints
+  // FLOAT and DOUBLE values with the default stream precision of 6 significant digits,
+  // so their bounds would not round-trip.
+  private final static Set<PrimitiveType> SUPPORTED_COL_TYPES = Sets.newHashSet(
+      PrimitiveType.TINYINT, PrimitiveType.SMALLINT, PrimitiveType.INT,
+      PrimitiveType.BIGINT);
+
+  // Sorted bucket upper bounds. Never empty.
+  private final double[] bounds_;
+
+  // Number of frequent values and their combined fraction of the values.
+  private final int numFrequentValues_;
+  private final double frequentValuesFraction_;
+
+  public Histogram(List<Double> bounds) {
+    Preconditions.checkArgument(!bounds.isEmpty());
+    bounds_ = Doubles.toArray(bounds);
+    for (double bound: bounds_) Preconditions.checkArgument(!Double.isNaN(bound));
+    // The bounds should already be sorted, but be defensive about their origin.
+    Arrays.sort(bounds_);
+    Map<Double, Double> frequentValues = getFrequentValues();
+    numFrequentValues_ = frequentValues.size();
+    double fraction = 0;
+    for (double f: frequentValues.values()) fraction += f;
+    frequentValuesFraction_ = fraction;
+  }
+
+  /**
+   * Returns true if histograms are computed for columns of type 'colType'.
+   */
+  public static boolean isSupportedColType(Type colType) {
+    return colType.isScalarType() &&
+        SUPPORTED_COL_TYPES.contains(colType.getPrimitiveType());
+  }
+
+  /**
+   * Returns the name of the table property that stores the histogram of 'colName'.
+   */
+  public static String getPropertyKey(String colName) {
+    return TBL_PROP_PREFIX + colName.toLowerCase();
+  }
+
+  public int getNumBuckets() { return bounds_.length; }
+  public List<Double> getBounds() { return Doubles.asList(bounds_.clone()); }
+
+  /**
+   * Returns the estimated fraction of the values that are less than 'value', or less
+   * than or equal to 'value' if 'inclusive' is true. The estimate interpolates linearly
+   * within a bucket. Values below the first bound are assumed to match no values, since
+   * the minimum value of the column is not known.
+   */
+  public double getFractionLessThan(double value, boolean inclusive) {
+    int n = bounds_.length;
+    // Number of bounds < value and <= value, respectively.
+    int numLess = lowerBound(value);
+    int numLessOrEqual = numLess;
+    while (numLessOrEqual < n && bounds_[numLessOrEqual] == value) ++numLessOrEqual;
+    if (numLessOrEqual > numLess) {
+      // 'value' is one or more bucket bounds.
+      return (double) (inclusive ? numLessOrEqual : numLess) / n;
+    }
+    if (numLess == 0) return 0;
+    if (numLess == n) return 1;
+    double lo = bounds_[numLess - 1];
+    double hi = bounds_[numLess];
+    return (numLess + (value - lo) / (hi - lo)) / n;
+  }
+
+  /**
+   * Returns the estimated fraction of the values that are equal to 'value', or -1 if
+   * this histogram does not have information about the individual value. Only the
+   * frequent values, which are the bound of at least two buckets, have an estimate.
+   */
+  public double getFrequentValueFraction(double value) {
+    int start = lowerBound(value);
+    int end = start;
+    while (end < bounds_.length && bounds_[end] == value) ++end;
+    if (end - start < 2) return -1;
+    return (double) (end - start) / bounds_.length;
+  }
+
+  /**
+   * Returns the estimated fraction of the values that are equal to 'value' for a
+   * column with 'ndv' distinct non-NULL values. Frequent values use their own estimate.
+   * The remaining values are assumed to be uniformly distributed over the values that
+   * are not frequent. Returns -1 if there is no estimate.
+   */
+  public double getEqualityFraction(double value, long ndv) {
+    double fraction = getFrequentValueFraction(value);
+    if (fraction >= 0) return fraction;
+    if (ndv <= numFrequentValues_) return -1;
+    return Math.max(0, 1 - frequentValuesFraction_) / (ndv - numFrequentValues_);
+  }
+
+  /**
+   * Returns the frequent values of the column, i.e. the bounds that are repeated, mapped
+   * to their estimated fraction of the values. The values are returned in order.
+   */
+  public Map<Double, Double> getFrequentValues() {
+    Map<Double, Double> result = new LinkedHashMap<>();
+    for (int i = 0; i < bounds_.length;) {
+      int end = i + 1;
+      while (end < bounds_.length && bounds_[end] == bounds_[i]) ++end;
+      if (end - i >= 2) result.put(bounds_[i], (double) (end - i) / bounds_.length);
+      i = end;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the index of the first bound that is not less than 'value'.
+   */
+  private int lowerBound(double value) {
+    int lo = 0;
+    int hi = bounds_.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (bounds_[mid] < value) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Returns the compact string representation of this histogram that is stored in the
+   * table properties. The bounds are comma-separated and a bound that is repeated k
+   * times is written once as "<bound>*k". Integral bounds are written without a
+   * fractional part. If the encoding exceeds MAX_PROPERTY_VALUE_LENGTH, every other
+   * bound is dropped, halving the number of buckets, until the encoding fits.
+   */
+  public String toPropertyValue() {
+    double[] bounds = bounds_;
+    String result = encode(bounds);
+    while (result.length() > MAX_PROPERTY_VALUE_LENGTH && bounds.length > 1) {
+      double[] coarser = new double[bounds.length / 2];
+      for (int i = 0; i < coarser.length; ++i) coarser[i] = bounds[2 * i + 1];
+      bounds = coarser;
+      result = encode(bounds);
+    }
+    return result;
+  }
+
+  private static String encode(double[] bounds) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < bounds.length;) {
+      int end = i + 1;
+      while (end < bounds.length && bounds[end] == bounds[i]) ++end;
+      if (sb.length() > 0) sb.append(',');
+      sb.append(formatBound(bounds[i]));
+      if (end - i > 1) sb.append('*').append(end - i);
+      i = end;
+    }
+    return sb.toString();
+  }
+
+  private static String formatBound(double bound) {
+    if (bound == Math.rint(bound) && Math.abs(bound) < 1e15) {
+      return Long.toString((long) bound);
+    }
+    return Double.toString(bound);
+  }
+
+  /**
+   * Parses a histogram from its table property representation. Returns null if 'value'
+   * is null or not a valid histogram.
+   */
+  public static Histogram fromPropertyValue(String value) {
+    if (value == null || value.isEmpty()) return null;
+    List<Double> bounds = new ArrayList<>();
+    try {
+      for (String bucket: value.split(",")) {
+        int starPos = bucket.indexOf('*');
+        int count = 1;
+        if (starPos >= 0) {
+          count = Integer.parseInt(bucket.substring(starPos + 1).trim());
+          bucket = bucket.substring(0, starPos);
+        }
+        double bound = Double.parseDouble(bucket.trim());
+        if (Double.isNaN(bound) || count < 1) return null;
+        if (bounds.size() + count > MAX_PROPERTY_VALUE_LENGTH) return null;
+        for (int i = 0; i < count; ++i) bounds.add(bound);
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    return new Histogram(bounds);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof Histogram)) return false;
+    return Arrays.equals(bounds_, ((Histogram) obj).bounds_);
+  }
+
+  @Override
+  public int hashCode() { return Arrays.hashCode(bounds_); }
+
+  @Override
+  public String toString() { return encode(bounds_); }
+}
@@ -19,19 +19,40 @@ package org.apache.impala.catalog;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.impala.analysis.TableName;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.common.Pair;
+import org.apache.impala.service.BackendConfig;
 import org.apache.impala.service.FeSupport;
+import org.apache.impala.thrift.CatalogLookupStatus;
 import org.apache.impala.thrift.TCatalogObject;
 import org.apache.impala.thrift.TCatalogObjectType;
 import org.apache.impala.thrift.TDataSource;
 import org.apache.impala.thrift.TDatabase;
+import org.apache.impala.thrift.TDbInfoSelector;
+import org.apache.impala.thrift.TErrorCode;
 import org.apache.impala.thrift.TFunction;
+import org.apache.impala.thrift.TGetPartialCatalogObjectRequest;
+import org.apache.impala.thrift.TGetPartialCatalogObjectResponse;
+import org.apache.impala.thrift.TGetPartitionStatsRequest;
 import org.apache.impala.thrift.TGetPartitionStatsResponse;
+import org.apache.impala.thrift.TPrioritizeLoadResponse;
 import org.apache.impala.thrift.TTable;
 import org.apache.impala.thrift.TUniqueId;
 import org.apache.impala.thrift.TUpdateCatalogCacheRequest;
@@ -39,10 +60,17 @@ import org.apache.impala.thrift.TUpdateCatalogCacheResponse;
 import org.apache.impala.util.PatternMatcher;
 import org.apache.impala.util.TByteBuffer;
 import org.apache.log4j.Logger;
+import org.apache.thrift.TDeserializer;
 import org.apache.thrift.TException;
+import org.apache.thrift.TSerializer;
 import org.apache.thrift.protocol.TBinaryProtocol;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Thread safe Catalog for an Impalad.  The Impalad catalog can be updated either via
@@ -68,9 +96,19 @@ import com.google.common.base.Preconditions;
  *   object's catalog version.
  * The CatalogServiceId is also tracked to detect if a different instance of the catalog
  * service has been started, in which case a full topic update is required.
+ * The map of databases and the table maps of the databases are copy-on-write, so
+ * readers don't need to synchronize with updates. Each update builds the new maps once
+ * and publishes them at its end, see CatalogDelta. Statements pin snapshots of the Dbs
+ * and the Table objects they reference in their StmtTableCache for the duration of
+ * their analysis, see Db.snapshot().
  */
 public class ImpaladCatalog extends Catalog implements FeCatalog {
   private static final Logger LOG = Logger.getLogger(ImpaladCatalog.class);
+  private static final long NANOS_PER_MILLI = 1000000L;
+
+  // Pool used to deserialize catalog updates in parallel. See getDeserializationPool().
+  private static ExecutorService deserializationPool_;
+
   // The last known Catalog Service ID. If the ID changes, it indicates the CatalogServer
   // has restarted.
   private TUniqueId catalogServiceId_ = Catalog.INITIAL_CATALOG_SERVICE_ID;
@@ -94,6 +132,7 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
 
   public ImpaladCatalog(String defaultKuduMasterHosts) {
     super();
+    dbCache_.set(Collections.<String, Db>emptyMap());
     addDb(BuiltinsDb.getInstance());
     defaultKuduMasterHosts_ = defaultKuduMasterHosts;
     // Ensure the contents of the CatalogObjectVersionSet instance are cleared when a
@@ -101,6 +140,125 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
     CatalogObjectVersionSet.INSTANCE.clear();
   }
 
+  /**
+   * Adds the given database, replacing any existing database with the same name.
+   */
+  @Override
+  public synchronized void addDb(Db db) {
+    updateDbs(Collections.singletonList(db), Collections.<String>emptyList());
+  }
+
+  @Override
+  public synchronized Db removeDb(String dbName) {
+    Db removedDb = getDb(dbName);
+    if (removedDb != null) {
+      updateDbs(Collections.<Db>emptyList(), Collections.singletonList(dbName));
+    }
+    return removedDb;
+  }
+
+  /**
+   * Adds 'addedDbs', replacing existing databases with the same names, and then removes
+   * the databases named 'removedDbNames'. The map of databases is copied on write, so
+   * that readers always see an immutable, consistent set of databases without locking.
+   * It is copied once per call.
+   */
+  private synchronized void updateDbs(Collection<Db> addedDbs,
+      Collection<String> removedDbNames) {
+    Map<String, Db> newDbs = new HashMap<>(dbCache_.get());
+    for (Db db: addedDbs) newDbs.put(db.getName().toLowerCase(), db);
+    for (String dbName: removedDbNames) newDbs.remove(dbName.toLowerCase());
+    dbCache_.set(Collections.unmodifiableMap(newDbs));
+  }
+
+  /**
+   * The changes to the databases and tables of this catalog that are made while
+   * applying one update. They are published together by publish(), which copies the
+   * map of databases and the table map of each modified database only once. getDb()
+   * and getTable() return the objects as they are with the changes so far applied.
+   * Must only be used while holding the lock of this catalog.
+   */
+  private class CatalogDelta {
+    private final Map<String, Db> addedDbs_ = new HashMap<>();
+    private final Set<String> removedDbs_ = new HashSet<>();
+    private final Map<Db, Map<String, Table>> addedTables_ = new IdentityHashMap<>();
+    private final Map<Db, Set<String>> removedTables_ = new IdentityHashMap<>();
+
+    Db getDb(String dbName) {
+      dbName = dbName.toLowerCase();
+      Db db = addedDbs_.get(dbName);
+      if (db != null || removedDbs_.contains(dbName)) return db;
+      return ImpaladCatalog.this.getDb(dbName);
+    }
+
+    Table getTable(Db db, String tblName) {
+      tblName = tblName.toLowerCase();
+      Map<String, Table> addedTables = addedTables_.get(db);
+      if (addedTables != null && addedTables.containsKey(tblName)) {
+        return addedTables.get(tblName);
+      }
+      Set<String> removedTables = removedTables_.get(db);
+      if (removedTables != null && removedTables.contains(tblName)) return null;
+      return db.getTable(tblName);
+    }
+
+    void addDb(Db db) {
+      String dbName = db.getName().toLowerCase();
+      removedDbs_.remove(dbName);
+      addedDbs_.put(dbName, db);
+    }
+
+    void removeDb(String dbName) {
+      dbName = dbName.toLowerCase();
+      addedDbs_.remove(dbName);
+      removedDbs_.add(dbName);
+    }
+
+    void addTable(Db db, Table table) {
+      String tblName = table.getName().toLowerCase();
+      Set<String> removedTables = removedTables_.get(db);
+      if (removedTables != null) removedTables.remove(tblName);
+      Map<String, Table> addedTables = addedTables_.get(db);
+      if (addedTables == null) {
+        addedTables = new HashMap<>();
+        addedTables_.put(db, addedTables);
+      }
+      addedTables.put(tblName, table);
+    }
+
+    void removeTable(Db db, String tblName) {
+      tblName = tblName.toLowerCase();
+      Map<String, Table> addedTables = addedTables_.get(db);
+      if (addedTables != null) addedTables.remove(tblName);
+      Set<String> removedTables = removedTables_.get(db);
+      if (removedTables == null) {
+        removedTables = new HashSet<>();
+        removedTables_.put(db, removedTables);
+      }
+      removedTables.add(tblName);
+    }
+
+    /**
+     * Applies the table changes and then publishes the new map of databases, so that
+     * added databases become visible together with their tables.
+     */
+    void publish() {
+      Set<Db> modifiedDbs = Collections.newSetFromMap(new IdentityHashMap<Db, Boolean>());
+      modifiedDbs.addAll(addedTables_.keySet());
+      modifiedDbs.addAll(removedTables_.keySet());
+      for (Db db: modifiedDbs) {
+        Map<String, Table> addedTables = addedTables_.get(db);
+        Set<String> removedTables = removedTables_.get(db);
+        db.updateTables(
+            addedTables != null ? addedTables.values() : Collections.<Table>emptyList(),
+            removedTables != null ? removedTables : Collections.<String>emptySet());
+      }
+      if (!addedDbs_.isEmpty() || !removedDbs_.isEmpty()) {
+        updateDbs(addedDbs_.values(), removedDbs_);
+      }
+    }
+  }
+
   /**
    * Utility class for sequencing the order in which a set of updated catalog objects
    * need to be applied to the catalog in order to satisfy referential constraints.
@@ -161,10 +319,46 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
     }
   }
 
+  /**
+   * A single object of a catalog update. For tables and views, 'table' is the Table
+   * that was deserialized from 'obj' before the update is applied, if any.
+   */
+  @VisibleForTesting
+  static class CatalogObjectUpdate {
+    final boolean isDeleted;
+    final int size;
+    TCatalogObject obj;
+    Table table;
+
+    CatalogObjectUpdate(boolean isDeleted, int size) {
+      this.isDeleted = isDeleted;
+      this.size = size;
+    }
+  }
+
+  /**
+   * Returns the pool used to deserialize catalog updates in parallel. The pool is shared
+   * by all ImpaladCatalog instances and created on first use. Returns null if
+   * --num_catalog_update_threads is not greater than 1.
+   */
+  private static synchronized ExecutorService getDeserializationPool() {
+    int numThreads = BackendConfig.INSTANCE.getNumCatalogUpdateThreads();
+    if (numThreads <= 1) return null;
+    if (deserializationPool_ == null) {
+      deserializationPool_ = Executors.newFixedThreadPool(numThreads,
+          new ThreadFactoryBuilder().setDaemon(true)
+              .setNameFormat("CatalogUpdateDeserializer-%d").build());
+    }
+    return deserializationPool_;
+  }
+
   /**
    * Updates the internal Catalog based on the given TCatalogUpdateReq.
    * This method:
-   * 1) Calls NativeGetNextCatalogObjectUpdate() to get all the updates from the backend.
+   * 1) Calls NativeGetNextCatalogObjectUpdate() to get all the updates from the backend
+   *    and deserializes them, in parallel if --num_catalog_update_threads > 1. Tables
+   *    and views whose parent database is not modified by the same update are also
+   *    converted into Table objects in this phase.
    * 2) Updates all top level objects (such as databases and roles).
    * 3) Updates all objects that depend on top level objects (such as functions, tables,
    *    privileges).
@@ -175,73 +369,293 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
    * a detail handled by the statestore).
    * Catalog objects are ordered by version, which is not necessarily the same as ordering
    * by dependency. This is handled by doing two passes and first updating the top level
-   * objects, followed by updating the dependent objects. This method is synchronized
-   * because updateCatalog() can be called by during a statestore update or during a
-   * direct-DDL operation and catalogServiceId_ and lastSyncedCatalogVersion_ must be
-   * protected.
+   * objects, followed by updating the dependent objects. Step 1 does not modify the
+   * catalog and runs without holding the catalog lock, so that queries are not blocked
+   * while a large update is deserialized. Steps 2-4 are synchronized because
+   * updateCatalog() can be called by during a statestore update or during a direct-DDL
+   * operation and catalogServiceId_ and lastSyncedCatalogVersion_ must be protected.
    */
-  public synchronized TUpdateCatalogCacheResponse updateCatalog(
+  public TUpdateCatalogCacheResponse updateCatalog(
     TUpdateCatalogCacheRequest req) throws CatalogException, TException {
+    return updateCatalog(req, new NativeUpdateIterator(req.native_iterator_ptr));
+  }
+
+  /**
+   * Same as updateCatalog() above, but reads the serialized objects of the update and
+   * whether they are deleted from 'objects' instead of the native iterator of 'req'.
+   */
+  @VisibleForTesting
+  public TUpdateCatalogCacheResponse updateCatalog(TUpdateCatalogCacheRequest req,
+      Iterator<Pair<Boolean, ByteBuffer>> objects) throws CatalogException, TException {
+    long startNs = System.nanoTime();
+    List<CatalogObjectUpdate> updates = deserializeUpdates(objects);
+    long deserializeTimeMs = (System.nanoTime() - startNs) / NANOS_PER_MILLI;
+    TUpdateCatalogCacheResponse response;
+    long applyTimeMs;
+    synchronized (this) {
+      startNs = System.nanoTime();
+      response = applyUpdates(req, updates);
+      applyTimeMs = (System.nanoTime() - startNs) / NANOS_PER_MILLI;
+    }
+    // Notify all the threads waiting on a catalog update.
+    synchronized (catalogUpdateEventNotifier_) {
+      catalogUpdateEventNotifier_.notifyAll();
+    }
+    if (updates.size() > 1) {
+      LOG.info(String.format("Deserialized %d catalog objects in %dms, applied them in " +
+          "%dms", updates.size(), deserializeTimeMs, applyTimeMs));
+    }
+    response.setDeserialize_time_ms(deserializeTimeMs);
+    response.setApply_time_ms(applyTimeMs);
+    return response;
+  }
+
+  /**
+   * Iterates over the objects of a catalog update that are returned by
+   * FeSupport.NativeGetNextCatalogObjectUpdate().
+   */
+  private static class NativeUpdateIterator
+      extends AbstractIterator<Pair<Boolean, ByteBuffer>> {
+    private final long nativeIteratorPtr_;
+
+    NativeUpdateIterator(long nativeIteratorPtr) {
+      nativeIteratorPtr_ = nativeIteratorPtr;
+    }
+
+    @Override
+    protected Pair<Boolean, ByteBuffer> computeNext() {
+      Pair<Boolean, ByteBuffer> update =
+          FeSupport.NativeGetNextCatalogObjectUpdate(nativeIteratorPtr_);
+      return update != null ? update : endOfData();
+    }
+  }
+
+  /**
+   * Reads all objects of an update from 'objects' and deserializes them. The buffers
+   * returned by the native iterator are only valid until the next call, so they are
+   * copied before being deserialized by the pool. Tables are converted into Table
+   * objects against the current version of their parent database, unless the update
+   * modifies that database or already has the same or a later version of the table.
+   * Does not modify the catalog.
+   */
+  @VisibleForTesting
+  List<CatalogObjectUpdate> deserializeUpdates(
+      Iterator<Pair<Boolean, ByteBuffer>> objects) throws CatalogException, TException {
+    ExecutorService pool = getDeserializationPool();
+    List<CatalogObjectUpdate> updates = new ArrayList<>();
+    List<Future<?>> tasks = new ArrayList<>();
+    while (objects.hasNext()) {
+      Pair<Boolean, ByteBuffer> update = objects.next();
+      final CatalogObjectUpdate objUpdate =
+          new CatalogObjectUpdate(update.first, update.second.capacity());
+      updates.add(objUpdate);
+      if (pool == null) {
+        objUpdate.obj = deserializeCatalogObject(update.second);
+        continue;
+      }
+      final byte[] bytes = new byte[update.second.remaining()];
+      update.second.get(bytes);
+      tasks.add(pool.submit(() -> {
+        objUpdate.obj = deserializeCatalogObject(ByteBuffer.wrap(bytes));
+        return null;
+      }));
+    }
+    waitForTasks(tasks);
+
+    Set<String> modifiedDbs = new HashSet<>();
+    for (CatalogObjectUpdate objUpdate: updates) {
+      String key = Catalog.toCatalogObjectKey(objUpdate.obj);
+      if (objUpdate.size > 100 * 1024 * 1024 /* 100MB */) {
+        LOG.info("Received large catalog object(>100mb): " + key + " is " +
+            objUpdate.size + "bytes");
+      }
+      LOG.info((objUpdate.isDeleted ? "Deleting: " : "Adding: ") + key + " version: "
+          + objUpdate.obj.catalog_version + " size: " + objUpdate.size);
+      if (objUpdate.obj.type == TCatalogObjectType.DATABASE) {
+        modifiedDbs.add(objUpdate.obj.getDb().getDb_name().toLowerCase());
+      }
+    }
+    if (pool == null) return updates;
+
+    tasks.clear();
+    for (final CatalogObjectUpdate objUpdate: updates) {
+      if (objUpdate.isDeleted) continue;
+      TCatalogObject obj = objUpdate.obj;
+      if (obj.type != TCatalogObjectType.TABLE && obj.type != TCatalogObjectType.VIEW) {
+        continue;
+      }
+      if (modifiedDbs.contains(obj.getTable().db_name.toLowerCase())) continue;
+      final Db db = getDb(obj.getTable().db_name);
+      if (db == null) continue;
+      Table existingTable = db.getTable(obj.getTable().tbl_name);
+      if (existingTable != null &&
+          existingTable.getCatalogVersion() >= obj.getCatalog_version()) {
+        continue;
+      }
+      tasks.add(pool.submit(() -> {
+        try {
+          objUpdate.table = Table.fromThrift(db, objUpdate.obj.getTable());
+        } catch (Exception e) {
+          // The table is converted again while applying the update, which reports the
+          // error.
+          if (LOG.isTraceEnabled()) {
+            LOG.trace("Error deserializing table: " + e.getMessage(), e);
+          }
+        }
+        return null;
+      }));
+    }
+    waitForTasks(tasks);
+    return updates;
+  }
+
+  private static TCatalogObject deserializeCatalogObject(ByteBuffer buffer)
+      throws TException {
+    TCatalogObject obj = new TCatalogObject();
+    obj.read(new TBinaryProtocol(new TByteBuffer(buffer)));
+    return obj;
+  }
+
+  private static void waitForTasks(List<Future<?>> tasks)
+      throws CatalogException, TException {
+    for (Future<?> task: tasks) {
+      try {
+        task.get();
+      } catch (InterruptedException e) {
+        throw new CatalogException("Interrupted while deserializing catalog update", e);
+      } catch (ExecutionException e) {
+        Throwables.propagateIfPossible(e.getCause(), TException.class);
+        throw new CatalogException("Error deserializing catalog update", e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Applies the deserialized 'updates' to the catalog. Must be called while holding the
+   * lock of this catalog. Tables that were converted by deserializeUpdates() are only
+   * used if their parent Db is still the current one. Another update may have replaced
+   * the Db in the meantime, e.g. a direct DDL update that raced with a statestore update.
+   * Such tables are converted again against the current Db.
+   */
+  @VisibleForTesting
+  TUpdateCatalogCacheResponse applyUpdates(TUpdateCatalogCacheRequest req,
+      List<CatalogObjectUpdate> updates) throws CatalogException {
+    Preconditions.checkState(Thread.holdsLock(this));
     // For updates from catalog op results, the service ID is set in the request.
     if (req.isSetCatalog_service_id()) setCatalogServiceId(req.catalog_service_id);
     ObjectUpdateSequencer sequencer = new ObjectUpdateSequencer();
+    Map<TCatalogObject, Table> deserializedTables = new IdentityHashMap<>();
     long newCatalogVersion = lastSyncedCatalogVersion_.get();
-    Pair<Boolean, ByteBuffer> update;
-    while ((update = FeSupport.NativeGetNextCatalogObjectUpdate(req.native_iterator_ptr))
-        != null) {
-      TCatalogObject obj = new TCatalogObject();
-      obj.read(new TBinaryProtocol(new TByteBuffer(update.second)));
-      String key = Catalog.toCatalogObjectKey(obj);
-      int len = update.second.capacity();
-      if (len > 100 * 1024 * 1024 /* 100MB */) {
-        LOG.info("Received large catalog object(>100mb): " + key + " is " + len +
-            "bytes");
-      }
-      LOG.info((update.first ? "Deleting: " : "Adding: ") + key + " version: "
-          + obj.catalog_version + " size: " + len);
+    for (CatalogObjectUpdate update: updates) {
+      TCatalogObject obj = update.obj;
       // For statestore updates, the service ID and updated version is wrapped in a
       // CATALOG catalog object.
       if (obj.type == TCatalogObjectType.CATALOG) {
         setCatalogServiceId(obj.catalog.catalog_service_id);
         newCatalogVersion = obj.catalog_version;
       } else {
-        sequencer.add(obj, update.first);
+        sequencer.add(obj, update.isDeleted);
+        if (update.table != null &&
+            update.table.getDb() == getDb(obj.getTable().getDb_name())) {
+          deserializedTables.put(obj, update.table);
+        }
       }
     }
 
+    CatalogDelta delta = new CatalogDelta();
     for (TCatalogObject catalogObject: sequencer.getUpdatedObjects()) {
       try {
-        addCatalogObject(catalogObject);
+        addCatalogObject(catalogObject, deserializedTables.get(catalogObject), delta);
       } catch (Exception e) {
         LOG.error("Error adding catalog object: " + e.getMessage(), e);
       }
     }
 
     for (TCatalogObject catalogObject: sequencer.getDeletedObjects()) {
-      removeCatalogObject(catalogObject);
+      removeCatalogObject(catalogObject, delta);
     }
+    delta.publish();
 
     lastSyncedCatalogVersion_.set(newCatalogVersion);
     // Cleanup old entries in the log.
     catalogDeltaLog_.garbageCollect(newCatalogVersion);
-    // Notify all the threads waiting on a catalog update.
-    synchronized (catalogUpdateEventNotifier_) {
-      catalogUpdateEventNotifier_.notifyAll();
-    }
     return new TUpdateCatalogCacheResponse(catalogServiceId_,
         CatalogObjectVersionSet.INSTANCE.getMinimumVersion(), newCatalogVersion);
   }
 
-
+  /**
+   * Requests a prioritized load of the given tables from the catalogd. With
+   * --fetch_loaded_tables_directly, the catalogd returns the loaded tables in the
+   * response, and they are added to this catalog right away instead of waiting for the
+   * next statestore topic update.
+   */
   @Override // FeCatalog
   public void prioritizeLoad(Set<TableName> tableNames) throws InternalException {
-    FeSupport.PrioritizeLoad(tableNames);
+    boolean fetchLoadedTables = BackendConfig.INSTANCE.fetchLoadedTablesDirectly();
+    TPrioritizeLoadResponse response =
+        FeSupport.PrioritizeLoad(tableNames, fetchLoadedTables);
+    if (fetchLoadedTables && response.isSetLoaded_objects()) {
+      addLoadedObjects(response.getCatalog_service_id(), response.getLoaded_objects());
+    }
+  }
+
+  /**
+   * Adds tables that were returned directly by the catalogd service with the given
+   * 'serviceId'. The objects are ignored if the catalogd has restarted since the last
+   * topic update, which triggers a full topic update anyway. The topic update that later
+   * delivers the same versions of these objects is a no-op for them.
+   */
+  @VisibleForTesting
+  synchronized void addLoadedObjects(TUniqueId serviceId,
+      List<TCatalogObject> loadedObjects) {
+    if (!catalogServiceId_.equals(serviceId)) return;
+    CatalogDelta delta = new CatalogDelta();
+    for (TCatalogObject catalogObject: loadedObjects) {
+      try {
+        addCatalogObject(catalogObject, null, delta);
+      } catch (Exception e) {
+        LOG.error("Error adding catalog object: " + e.getMessage(), e);
+      }
+    }
+    delta.publish();
+  }
+
+  /**
+   * Fetches the HMS tables from the catalogd, which serves them without loading the
+   * tables that are not loaded yet.
+   */
+  @Override // FeCatalog
+  public List<org.apache.hadoop.hive.metastore.api.Table> getHmsTables(String dbName,
+      List<String> tableNames) throws InternalException {
+    TGetPartialCatalogObjectRequest req = new TGetPartialCatalogObjectRequest();
+    req.object_desc = new TCatalogObject();
+    req.object_desc.setType(TCatalogObjectType.DATABASE);
+    req.object_desc.setDb(new TDatabase(dbName));
+    req.db_info_selector = new TDbInfoSelector();
+    req.db_info_selector.setWant_hms_tables(tableNames);
+    TGetPartialCatalogObjectResponse resp = new TGetPartialCatalogObjectResponse();
+    try {
+      byte[] result = FeSupport.GetPartialCatalogObject(
+          new TSerializer(new TBinaryProtocol.Factory()).serialize(req));
+      new TDeserializer(new TBinaryProtocol.Factory()).deserialize(resp, result);
+    } catch (TException e) {
+      throw new InternalException("Error processing request: " + e.getMessage(), e);
+    }
+    if (resp.getStatus().getStatus_code() != TErrorCode.OK) {
+      throw new InternalException("Error fetching HMS tables: " +
+          Joiner.on("\n").join(resp.getStatus().getError_msgs()));
+    }
+    if (resp.lookup_status == CatalogLookupStatus.DB_NOT_FOUND ||
+        !resp.isSetDb_info() || !resp.db_info.isSetHms_tables()) {
+      return Collections.emptyList();
+    }
+    return resp.db_info.getHms_tables();
   }
 
   @Override // FeCatalog
   public TGetPartitionStatsResponse getPartitionStats(
-      TableName table) throws InternalException {
-    return FeSupport.GetPartitionStats(table);
+      TGetPartitionStatsRequest request) throws InternalException {
+    return FeSupport.GetPartitionStats(request);
   }
 
   @Override // FeCatalog
@@ -262,9 +676,12 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
    *     TCatalogObject's version.
    *  2) The catalogDeltaLog_ contains an entry for this object with a version
    *     > than the given TCatalogObject's version.
+   *  For tables and views, 'deserializedTable' is the Table that was already
+   *  deserialized from the given TCatalogObject, or null. Changes to databases and
+   *  tables are added to 'delta'.
    */
-  private void addCatalogObject(TCatalogObject catalogObject)
-      throws TableLoadingException {
+  private void addCatalogObject(TCatalogObject catalogObject, Table deserializedTable,
+      CatalogDelta delta) throws TableLoadingException {
     // This item is out of date and should not be applied to the catalog.
     if (catalogDeltaLog_.wasObjectRemovedAfter(catalogObject)) {
       if (LOG.isTraceEnabled()) {
@@ -276,17 +693,18 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
 
     switch(catalogObject.getType()) {
       case DATABASE:
-        addDb(catalogObject.getDb(), catalogObject.getCatalog_version());
+        addDb(catalogObject.getDb(), catalogObject.getCatalog_version(), delta);
         break;
       case TABLE:
       case VIEW:
-        addTable(catalogObject.getTable(), catalogObject.getCatalog_version());
+        addTable(catalogObject.getTable(), catalogObject.getCatalog_version(),
+            deserializedTable, delta);
         break;
       case FUNCTION:
         // Remove the function first, in case there is an existing function with the same
         // name and signature.
-        removeFunction(catalogObject.getFn(), catalogObject.getCatalog_version());
-        addFunction(catalogObject.getFn(), catalogObject.getCatalog_version());
+        removeFunction(catalogObject.getFn(), catalogObject.getCatalog_version(), delta);
+        addFunction(catalogObject.getFn(), catalogObject.getCatalog_version(), delta);
         break;
       case DATA_SOURCE:
         addDataSource(catalogObject.getData_source(), catalogObject.getCatalog_version());
@@ -319,21 +737,22 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
 
   /**
    *  Removes the matching TCatalogObject from the catalog, if one exists and its
-   *  catalog version is < the catalog version of this drop operation.
+   *  catalog version is < the catalog version of this drop operation. Changes to
+   *  databases and tables are added to 'delta'.
    */
-  private void removeCatalogObject(TCatalogObject catalogObject) {
+  private void removeCatalogObject(TCatalogObject catalogObject, CatalogDelta delta) {
     Preconditions.checkState(catalogObject.getCatalog_version() != 0);
     long dropCatalogVersion = catalogObject.getCatalog_version();
     switch(catalogObject.getType()) {
       case DATABASE:
-        removeDb(catalogObject.getDb(), dropCatalogVersion);
+        removeDb(catalogObject.getDb(), dropCatalogVersion, delta);
         break;
       case TABLE:
       case VIEW:
-        removeTable(catalogObject.getTable(), dropCatalogVersion);
+        removeTable(catalogObject.getTable(), dropCatalogVersion, delta);
         break;
       case FUNCTION:
-        removeFunction(catalogObject.getFn(), dropCatalogVersion);
+        removeFunction(catalogObject.getFn(), dropCatalogVersion, delta);
         break;
       case DATA_SOURCE:
         removeDataSource(catalogObject.getData_source(), dropCatalogVersion);
@@ -363,13 +782,13 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
     }
   }
 
-  private void addDb(TDatabase thriftDb, long catalogVersion) {
-    Db existingDb = getDb(thriftDb.getDb_name());
+  private void addDb(TDatabase thriftDb, long catalogVersion, CatalogDelta delta) {
+    Db existingDb = delta.getDb(thriftDb.getDb_name());
     if (existingDb == null ||
         existingDb.getCatalogVersion() < catalogVersion) {
-      Db newDb = Db.fromTDatabase(thriftDb);
+      Db newDb = new Db(thriftDb.getDb_name(), thriftDb.getMetastore_db(), true);
       newDb.setCatalogVersion(catalogVersion);
-      addDb(newDb);
+      delta.addDb(newDb);
       if (existingDb != null) {
         CatalogObjectVersionSet.INSTANCE.updateVersions(
             existingDb.getCatalogVersion(), catalogVersion);
@@ -382,9 +801,15 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
     }
   }
 
-  private void addTable(TTable thriftTable, long catalogVersion)
-      throws TableLoadingException {
-    Db db = getDb(thriftTable.db_name);
+  /**
+   * Adds the table described by 'thriftTable' to its parent database. Uses
+   * 'deserializedTable' instead of converting 'thriftTable' again if it is not null.
+   * 'deserializedTable' must have been created for the current version of the parent
+   * database.
+   */
+  private void addTable(TTable thriftTable, long catalogVersion, Table deserializedTable,
+      CatalogDelta delta) throws TableLoadingException {
+    Db db = delta.getDb(thriftTable.db_name);
     if (db == null) {
       if (LOG.isTraceEnabled()) {
         LOG.trace("Parent database of table does not exist: " +
@@ -393,16 +818,27 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
       return;
     }
 
-    Table newTable = Table.fromThrift(db, thriftTable);
+    // Avoid deserializing tables that are already present at the same or a later
+    // version, e.g. tables that were added directly from a prioritized load response.
+    Table existingTable = delta.getTable(db, thriftTable.tbl_name);
+    if (existingTable != null && existingTable.getCatalogVersion() >= catalogVersion) {
+      return;
+    }
+    Table newTable = deserializedTable;
+    if (newTable == null) {
+      newTable = Table.fromThrift(db, thriftTable);
+    } else {
+      Preconditions.checkState(newTable.getDb() == db);
+    }
     newTable.setCatalogVersion(catalogVersion);
-    db.addTable(newTable);
+    delta.addTable(db, newTable);
   }
 
-  private void addFunction(TFunction fn, long catalogVersion) {
+  private void addFunction(TFunction fn, long catalogVersion, CatalogDelta delta) {
     LibCacheSetNeedsRefresh(fn.hdfs_location);
     Function function = Function.fromThrift(fn);
     function.setCatalogVersion(catalogVersion);
-    Db db = getDb(function.getFunctionName().getDb());
+    Db db = delta.getDb(function.getFunctionName().getDb());
     if (db == null) {
       if (LOG.isTraceEnabled()) {
         LOG.trace("Parent database of function does not exist: " + function.getName());
@@ -437,10 +873,11 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
     removeDataSource(thrift.getName());
   }
 
-  private void removeDb(TDatabase thriftDb, long dropCatalogVersion) {
-    Db db = getDb(thriftDb.getDb_name());
+  private void removeDb(TDatabase thriftDb, long dropCatalogVersion,
+      CatalogDelta delta) {
+    Db db = delta.getDb(thriftDb.getDb_name());
     if (db != null && db.getCatalogVersion() < dropCatalogVersion) {
-      removeDb(db.getName());
+      delta.removeDb(db.getName());
       CatalogObjectVersionSet.INSTANCE.removeVersion(
           db.getCatalogVersion());
       CatalogObjectVersionSet.INSTANCE.removeAll(db.getTables());
@@ -449,19 +886,21 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
     }
   }
 
-  private void removeTable(TTable thriftTable, long dropCatalogVersion) {
-    Db db = getDb(thriftTable.db_name);
+  private void removeTable(TTable thriftTable, long dropCatalogVersion,
+      CatalogDelta delta) {
+    Db db = delta.getDb(thriftTable.db_name);
     // The parent database doesn't exist, nothing to do.
     if (db == null) return;
 
-    Table table = db.getTable(thriftTable.getTbl_name());
+    Table table = delta.getTable(db, thriftTable.getTbl_name());
     if (table != null && table.getCatalogVersion() < dropCatalogVersion) {
-      db.removeTable(thriftTable.tbl_name);
+      delta.removeTable(db, thriftTable.tbl_name);
     }
   }
 
-  private void removeFunction(TFunction thriftFn, long dropCatalogVersion) {
-    Db db = getDb(thriftFn.name.getDb_name());
+  private void removeFunction(TFunction thriftFn, long dropCatalogVersion,
+      CatalogDelta delta) {
+    Db db = delta.getDb(thriftFn.name.getDb_name());
     // The parent database doesn't exist, nothing to do.
     if (db == null) return;
 
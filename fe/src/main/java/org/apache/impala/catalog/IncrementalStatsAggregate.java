@@ -0,0 +1,272 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.impala.common.ImpalaException;
+import org.apache.impala.common.ImpalaRuntimeException;
+import org.apache.impala.thrift.TIntermediateColumnStats;
+import org.apache.impala.thrift.TPartitionStats;
+import org.apache.impala.thrift.TTableStats;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The incremental statistics of a set of partitions merged into a single
+ * TPartitionStats. COMPUTE INCREMENTAL STATS only needs the aggregate of the existing
+ * per-partition statistics (see FinalizePartitionedColumnStats() and SetTableStats() in
+ * the backend), so merging them in the catalog avoids sending the statistics of every
+ * partition to the coordinator. The merge matches PerColumnStats::Update() in
+ * incr-stats-util.cc, so aggregating the merged stats in the backend gives the same
+ * result as aggregating the stats of the individual partitions:
+ * - the HLL registers of the NDV intermediate state are merged by taking the maximum
+ * - the number of rows and the number of nulls are summed, nulls only if they were
+ *   counted
+ * - the maximum width is the maximum and the average width is weighted by the number
+ *   of rows
+ *
+ * An aggregate also tracks which partitions it contains, so that the aggregate of all
+ * partitions of a table can be kept up to date incrementally with update().
+ * Not thread safe.
+ */
+public class IncrementalStatsAggregate {
+  // The aggregate of the stats of a single column.
+  private static class ColumnAggregate {
+    // Decoded HLL registers.
+    byte[] ndv_;
+    // -1 if no partition counted the nulls, like in the backend.
+    long numNulls_ = -1;
+    int maxWidth_ = 0;
+    // The sum of avg_width * num_rows.
+    double totalWidth_ = 0;
+    long numRows_ = 0;
+
+    void update(TIntermediateColumnStats stats) throws ImpalaException {
+      if (stats.isSetIntermediate_ndv()) {
+        byte[] ndv = decodeNdv(stats.getIntermediate_ndv(), stats.isIs_ndv_encoded());
+        if (ndv_ == null) {
+          ndv_ = ndv.clone();
+        } else {
+          if (ndv.length != ndv_.length) {
+            throw new ImpalaRuntimeException(String.format(
+                "Incompatible intermediate NDVs of length %d and %d", ndv_.length,
+                ndv.length));
+          }
+          for (int i = 0; i < ndv.length; ++i) {
+            if (ndv[i] > ndv_[i]) ndv_[i] = ndv[i];
+          }
+        }
+      }
+      if (stats.getNum_nulls() >= 0) {
+        numNulls_ = (numNulls_ == -1 ? 0 : numNulls_) + stats.getNum_nulls();
+      }
+      maxWidth_ = Math.max(maxWidth_, stats.getMax_width());
+      totalWidth_ += stats.getAvg_width() * stats.getNum_rows();
+      numRows_ += stats.getNum_rows();
+    }
+
+    TIntermediateColumnStats toThrift() {
+      TIntermediateColumnStats result = new TIntermediateColumnStats();
+      if (ndv_ != null) result.setIntermediate_ndv(ndv_.clone());
+      result.setIs_ndv_encoded(false);
+      result.setNum_nulls(numNulls_);
+      result.setMax_width(maxWidth_);
+      result.setAvg_width(numRows_ == 0 ? 0 : totalWidth_ / numRows_);
+      result.setNum_rows(numRows_);
+      return result;
+    }
+  }
+
+  // Aggregates by column name.
+  private final Map<String, ColumnAggregate> columns_ = new HashMap<>();
+  // The number of merged partition stats.
+  private int numStats_ = 0;
+  // The sum of the number of rows of the merged partitions.
+  private long numRows_ = 0;
+  // The compressed stats of the partitions in the aggregate, by partition id. Partition
+  // stats are never modified in place, so a different array means the stats changed.
+  private final Map<Long, byte[]> mergedPartitions_ = new HashMap<>();
+
+  /**
+   * Decodes the RLE-encoded NDV intermediate state, see EncodeNdv() in
+   * incr-stats-util.cc. Returns 'ndv' if it is not encoded.
+   */
+  public static byte[] decodeNdv(byte[] ndv, boolean isEncoded)
+      throws ImpalaException {
+    if (!isEncoded) return ndv;
+    if (ndv.length % 2 != 0) {
+      throw new ImpalaRuntimeException("Invalid encoded intermediate NDV");
+    }
+    int decodedLen = 0;
+    for (int i = 0; i < ndv.length; i += 2) decodedLen += (ndv[i] & 0xff) + 1;
+    byte[] result = new byte[decodedLen];
+    int idx = 0;
+    for (int i = 0; i < ndv.length; i += 2) {
+      int count = (ndv[i] & 0xff) + 1;
+      for (int j = 0; j < count; ++j) result[idx++] = ndv[i + 1];
+    }
+    return result;
+  }
+
+  /**
+   * RLE-encodes the NDV intermediate state 'ndv' like EncodeNdv() in
+   * incr-stats-util.cc. Returns null if the encoding is longer than 'ndv'.
+   */
+  public static byte[] encodeNdv(byte[] ndv) {
+    if (ndv.length == 0) return null;
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream(ndv.length);
+    byte last = ndv[0];
+    // The number of times 'last' appears in succession, minus one, which always fits
+    // into a byte.
+    int count = 0;
+    for (int i = 1; i < ndv.length; ++i) {
+      if (ndv[i] != last || count == 255) {
+        encoded.write(count);
+        encoded.write(last);
+        if (encoded.size() + 2 > ndv.length) return null;
+        count = 0;
+        last = ndv[i];
+      } else {
+        ++count;
+      }
+    }
+    encoded.write(count);
+    encoded.write(last);
+    return encoded.toByteArray();
+  }
+
+  /**
+   * Merges 'stats' into this aggregate. 'stats' must have incremental statistics.
+   */
+  public void add(TPartitionStats stats) throws ImpalaException {
+    Preconditions.checkArgument(stats.isSetIntermediate_col_stats());
+    ++numStats_;
+    if (stats.isSetStats()) numRows_ += stats.getStats().getNum_rows();
+    for (Map.Entry<String, TIntermediateColumnStats> e:
+        stats.getIntermediate_col_stats().entrySet()) {
+      getColumnAggregate(e.getKey()).update(e.getValue());
+    }
+  }
+
+  /**
+   * Merges the deflate-compressed stats 'compressedStats' of the partition with id
+   * 'partitionId' into this aggregate.
+   */
+  public void add(long partitionId, byte[] compressedStats) throws ImpalaException {
+    Preconditions.checkState(!mergedPartitions_.containsKey(partitionId));
+    if (CompactPartitionStats.isCompact(compressedStats)) {
+      // Merge column by column without materializing the TPartitionStats.
+      CompactPartitionStats stats = new CompactPartitionStats(compressedStats);
+      if (!stats.hasIntermediateColStats()) throw missingStats(partitionId);
+      add(stats);
+    } else {
+      TPartitionStats stats =
+          PartitionStatsUtil.partStatsFromCompressedBytes(compressedStats, null);
+      if (stats == null || !stats.isSetIntermediate_col_stats()) {
+        throw missingStats(partitionId);
+      }
+      add(stats);
+    }
+    mergedPartitions_.put(partitionId, compressedStats);
+  }
+
+  private void add(CompactPartitionStats stats) throws ImpalaException {
+    Preconditions.checkArgument(stats.hasIntermediateColStats());
+    ++numStats_;
+    numRows_ += stats.getNumRows();
+    for (int i = 0; i < stats.getNumColumns(); ++i) {
+      getColumnAggregate(stats.getColumnName(i)).update(stats.getColumnStats(i));
+    }
+  }
+
+  private ColumnAggregate getColumnAggregate(String colName) {
+    ColumnAggregate col = columns_.get(colName);
+    if (col == null) {
+      col = new ColumnAggregate();
+      columns_.put(colName, col);
+    }
+    return col;
+  }
+
+  private static ImpalaException missingStats(long partitionId) {
+    return new ImpalaRuntimeException(
+        "Missing incremental statistics for partition " + partitionId);
+  }
+
+  /**
+   * Brings this aggregate up to date with 'partStats', the compressed incremental
+   * statistics of a set of partitions by partition id, and returns the number of
+   * partitions that had to be merged. Partitions that are new or that gained stats since
+   * the last update are merged into the aggregate. The HLL registers can not be
+   * un-merged, so the aggregate is rebuilt if a merged partition was removed from
+   * 'partStats' or its stats changed.
+   */
+  public int update(Map<Long, byte[]> partStats) throws ImpalaException {
+    boolean rebuild = false;
+    for (Map.Entry<Long, byte[]> e: mergedPartitions_.entrySet()) {
+      if (partStats.get(e.getKey()) != e.getValue()) {
+        rebuild = true;
+        break;
+      }
+    }
+    if (rebuild) clear();
+    int numMerged = 0;
+    try {
+      for (Map.Entry<Long, byte[]> e: partStats.entrySet()) {
+        if (mergedPartitions_.containsKey(e.getKey())) continue;
+        add(e.getKey(), e.getValue());
+        ++numMerged;
+      }
+    } catch (ImpalaException e) {
+      // Don't leave a partially merged partition behind.
+      clear();
+      throw e;
+    }
+    return numMerged;
+  }
+
+  private void clear() {
+    columns_.clear();
+    numStats_ = 0;
+    numRows_ = 0;
+    mergedPartitions_.clear();
+  }
+
+  public int getNumPartitions() { return numStats_; }
+
+  /**
+   * Returns the aggregate as a TPartitionStats with incremental statistics, or null if
+   * the aggregate does not contain any partition.
+   */
+  public TPartitionStats toThrift() {
+    if (numStats_ == 0) return null;
+    TPartitionStats result = new TPartitionStats();
+    TTableStats tableStats = new TTableStats();
+    tableStats.setNum_rows(numRows_);
+    result.setStats(tableStats);
+    Map<String, TIntermediateColumnStats> colStats = new HashMap<>();
+    for (Map.Entry<String, ColumnAggregate> e: columns_.entrySet()) {
+      colStats.put(e.getKey(), e.getValue().toThrift());
+    }
+    result.setIntermediate_col_stats(colStats);
+    return result;
+  }
+}
@@ -26,6 +26,7 @@ import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.ImpalaRuntimeException;
 import org.apache.impala.common.JniUtil;
 import org.apache.impala.common.Reference;
+import org.apache.impala.thrift.TIntermediateColumnStats;
 import org.apache.impala.thrift.TPartitionStats;
 import org.apache.impala.util.CompressionUtil;
 import org.apache.impala.util.MetaStoreUtil;
@@ -51,7 +52,8 @@ public class PartitionStatsUtil {
   private final static Logger LOG = LoggerFactory.getLogger(PartitionStatsUtil.class);
 
   /**
-   * Deflate-decompresses 'compressedStats' and deserializes it into TPartitionStats.
+   * Decodes 'compressedStats' into TPartitionStats. 'compressedStats' is either
+   * encoded by CompactPartitionStats or a deflate-compressed Thrift serialization.
    * Returns null if either 'compressedStats' is null or deserialization/decompression
    * returns a null value. The partition, 'part', provides debugging context.
    * Throws an exception if there is an error with deserialization/decompression.
@@ -59,6 +61,9 @@ public class PartitionStatsUtil {
   public static TPartitionStats partStatsFromCompressedBytes(
       byte[] compressedStats, FeFsPartition part) throws ImpalaException {
     if (compressedStats == null) return null;
+    if (CompactPartitionStats.isCompact(compressedStats)) {
+      return CompactPartitionStats.decode(compressedStats);
+    }
     TCompactProtocol.Factory protocolFactory = new TCompactProtocol.Factory();
     TPartitionStats ret = new TPartitionStats();
     byte[] decompressed = CompressionUtil.deflateDecompress(compressedStats);
@@ -88,8 +93,8 @@ public class PartitionStatsUtil {
 
   /**
    * Reconstructs the intermediate stats from chunks and returns the corresponding
-   * byte array. The output byte array is deflate-compressed. Sets hasIncrStats to
-   * 'true' if the partition stats contain intermediate col stats.
+   * byte array. The output byte array is encoded by CompactPartitionStats. Sets
+   * hasIncrStats to 'true' if the partition stats contain intermediate col stats.
    */
   public static byte[] partStatsBytesFromParameters(
       Map<String, String> hmsParameters, Reference<Boolean> hasIncrStats) throws
@@ -113,7 +118,7 @@ public class PartitionStatsUtil {
     TPartitionStats stats = new TPartitionStats();
     JniUtil.deserializeThrift(new TCompactProtocol.Factory(), stats, decodedBytes);
     hasIncrStats.setRef(stats.isSetIntermediate_col_stats());
-    return CompressionUtil.deflateCompress(decodedBytes);
+    return CompactPartitionStats.encode(stats);
   }
 
   /**
@@ -141,9 +146,9 @@ public class PartitionStatsUtil {
     }
 
     try {
-      partition.setPartitionStatsBytes(
-          partStatsToCompressedBytes(partStats), partStats.isSetIntermediate_col_stats());
-    } catch (TException e) {
+      partition.setPartitionStatsBytes(CompactPartitionStats.encode(partStats),
+          partStats.isSetIntermediate_col_stats());
+    } catch (ImpalaException e) {
       String debugString =
           String.format("Error saving partition stats: table %s, partition %s",
           partition.getTable().getFullName(), partition.getPartitionName());
@@ -171,13 +176,30 @@ public class PartitionStatsUtil {
     // valid string. This inflates its length somewhat; we may want to consider a
     // different scheme or at least understand why this scheme doesn't seem much more
     // effective than an ASCII representation.
-    byte[] decompressed = CompressionUtil.deflateDecompress(compressedStats);
-    if (decompressed  == null)  {
+    //
+    // The HMS representation is shared with other versions of Impala, so stats encoded
+    // by CompactPartitionStats are converted back to the Thrift serialization, with the
+    // NDV registers RLE-encoded like the backend does.
+    byte[] serialized;
+    if (CompactPartitionStats.isCompact(compressedStats)) {
+      try {
+        TPartitionStats stats = CompactPartitionStats.decode(compressedStats);
+        encodeNdvs(stats);
+        serialized = new TSerializer(new TCompactProtocol.Factory()).serialize(stats);
+      } catch (ImpalaException | TException e) {
+        LOG.error("Error decoding partition stats for " + partition.getPartitionName(),
+            e);
+        return;
+      }
+    } else {
+      serialized = CompressionUtil.deflateDecompress(compressedStats);
+    }
+    if (serialized == null)  {
       LOG.error(
           "Error decompressing partition stats for " + partition.getPartitionName());
       return;
     }
-    String base64 = new String(Base64.getEncoder().encode(decompressed));
+    String base64 = new String(Base64.getEncoder().encode(serialized));
     List<String> chunks =
       chunkStringForHms(base64, MetaStoreUtil.MAX_PROPERTY_VALUE_LENGTH);
     params.put(INCREMENTAL_STATS_NUM_CHUNKS, Integer.toString(chunks.size()));
@@ -186,6 +208,22 @@ public class PartitionStatsUtil {
     }
   }
 
+  /**
+   * RLE-encodes the NDV intermediate state of the columns of 'stats', where that makes
+   * it smaller.
+   */
+  private static void encodeNdvs(TPartitionStats stats) {
+    if (!stats.isSetIntermediate_col_stats()) return;
+    for (TIntermediateColumnStats colStats: stats.getIntermediate_col_stats().values()) {
+      if (!colStats.isSetIntermediate_ndv() || colStats.isIs_ndv_encoded()) continue;
+      byte[] encoded =
+          IncrementalStatsAggregate.encodeNdv(colStats.getIntermediate_ndv());
+      if (encoded == null) continue;
+      colStats.setIntermediate_ndv(encoded);
+      colStats.setIs_ndv_encoded(true);
+    }
+  }
+
   static private List<String> chunkStringForHms(String data, int chunkLen) {
     int idx = 0;
     List<String> ret = new ArrayList<>();
@@ -38,8 +38,8 @@ public class PrincipalPrivilege extends CatalogObjectImpl {
   // These Joiners are used to build principal names. For simplicity, the principal name
   // we use can also be sent to the Sentry library to perform authorization checks
   // so we build them in the same format.
-  private static final String AUTHORIZABLE_SEPARATOR = "->";
-  private static final String KV_SEPARATOR = "=";
+  public static final String AUTHORIZABLE_SEPARATOR = "->";
+  public static final String KV_SEPARATOR = "=";
   private final TPrivilege privilege_;
 
   private PrincipalPrivilege(TPrivilege privilege) {
@@ -120,6 +120,12 @@ public abstract class Table extends CatalogObjectImpl implements FeTable {
   // is attempted to be added to this list when its at maximum capacity is ignored
   private final LinkedList<Long> versionsForInflightEvents_ = new LinkedList<>();
 
+  // FIFO list of the keys of the in-flight insert events fired by this catalog for this
+  // table, see MetaStoreUtil.getInsertEventKey(). Insert events cannot carry a catalog
+  // version, so they are identified by their partition and files instead. This queue
+  // has the same maximum size as versionsForInflightEvents_.
+  private final LinkedList<String> inflightInsertEvents_ = new LinkedList<>();
+
   // Table metrics. These metrics are applicable to all table types. Each subclass of
   // Table can define additional metrics specific to that table type.
   public static final String REFRESH_DURATION_METRIC = "refresh-duration";
@@ -639,4 +645,31 @@ public abstract class Table extends CatalogObjectImpl implements FeTable {
     versionsForInflightEvents_.add(versionNumber);
     return true;
   }
+
+  /**
+   * Removes a given key from the collection of keys for in-flight insert events.
+   * @param insertEventKey key of the insert event to remove from the collection
+   * @return true if the key was successfully removed, false if didn't exist
+   */
+  public boolean removeFromInflightInsertEvents(String insertEventKey) {
+    return inflightInsertEvents_.remove(insertEventKey);
+  }
+
+  /**
+   * Adds a key to the collection of keys for in-flight insert events. If the collection
+   * is already at the max size defined by <code>MAX_NUMBER_OF_INFLIGHT_EVENTS</code>,
+   * then it ignores the given key and does not add it
+   * @param insertEventKey key of the insert event to add
+   * @return True if the key was added, false if the collection is at its max capacity
+   */
+  public boolean addToInflightInsertEvents(String insertEventKey) {
+    if (inflightInsertEvents_.size() == MAX_NUMBER_OF_INFLIGHT_EVENTS) {
+      LOG.warn(String.format("Number of in-flight insert events for table %s is at "
+          + "its max capacity %d. The insert event will be processed as an external "
+          + "event.", getFullName(), MAX_NUMBER_OF_INFLIGHT_EVENTS));
+      return false;
+    }
+    inflightInsertEvents_.add(insertEventKey);
+    return true;
+  }
 }
@@ -44,8 +44,12 @@ import org.apache.hadoop.hive.metastore.messaging.json.JSONDropTableMessage;
 import org.apache.impala.analysis.TableName;
 import org.apache.impala.catalog.CatalogException;
 import org.apache.impala.catalog.CatalogServiceCatalog;
+import org.apache.impala.catalog.CatalogdStatsMaintainer;
 import org.apache.impala.catalog.DatabaseNotFoundException;
 import org.apache.impala.catalog.Db;
+import org.apache.impala.catalog.FeCatalogUtils;
+import org.apache.impala.catalog.HdfsPartition;
+import org.apache.impala.catalog.HdfsTable;
 import org.apache.impala.catalog.Table;
 import org.apache.impala.catalog.TableNotFoundException;
 import org.apache.impala.catalog.TableLoadingException;
@@ -54,6 +58,7 @@ import org.apache.impala.common.Pair;
 import org.apache.impala.common.Reference;
 import org.apache.impala.thrift.TPartitionKeyValue;
 import org.apache.impala.thrift.TTableName;
+import org.apache.impala.util.MetaStoreUtil;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 import org.apache.hadoop.hive.common.FileUtils;
@@ -641,6 +646,13 @@ public class MetastoreEvents {
     // Represents the partition for this insert. Null if the table is unpartitioned.
     private final org.apache.hadoop.hive.metastore.api.Partition insertPartition_;
 
+    // Key of this insert event, used to detect self-events. See
+    // MetaStoreUtil.getInsertEventKey().
+    private final String insertEventKey_;
+
+    // True if this insert is an insert overwrite.
+    private final boolean isReplace_;
+
     /**
      * Prevent instantiation from outside should use MetastoreEventFactory instead
      */
@@ -655,6 +667,10 @@ public class MetastoreEvents {
       try {
         msTbl_ = Preconditions.checkNotNull(insertMessage.getTableObj());
         insertPartition_ = insertMessage.getPtnObj();
+        isReplace_ = insertMessage.isReplace();
+        insertEventKey_ = MetaStoreUtil.getInsertEventKey(
+            insertPartition_ == null ? null : insertPartition_.getValues(),
+            Lists.newArrayList(insertMessage.getFiles()), isReplace_);
       } catch (Exception e) {
         throw new MetastoreNotificationException(debugString("Unable to "
             + "parse insert message"), e);
@@ -662,19 +678,82 @@ public class MetastoreEvents {
     }
 
     /**
-     * Currently we do not check for self-events in Inserts. Existing self-events logic
-     * cannot be used for insert events since firing insert event does not allow us to
-     * modify table parameters in HMS. Hence, we cannot get CatalogServiceIdentifiers in
-     * Insert Events.
-     * TODO: Handle self-events for insert case.
+     * Insert events do not contain the CatalogServiceIdentifiers since firing an insert
+     * event does not allow us to modify the table parameters in HMS. Instead, the
+     * catalog registers the key of every insert event that it fires on the table, and
+     * an event with a registered key is a self-event. The table was already refreshed
+     * and the inserted rows were already recorded by the catalog when it fired a
+     * self-event, so these are skipped.
      */
     @Override
     public void process() throws MetastoreNotificationException {
+      if (isSelfEvent()) {
+        infoLog("Not processing the event as it is a self-event");
+        return;
+      }
+      long oldNumRows = getCatalogNumRows();
       if (insertPartition_ != null)
         processPartitionInserts();
       else {
         processTableInserts();
       }
+      catalog_.recordTableModification(dbName_, tblName_,
+          getNumInsertedRows(oldNumRows));
+    }
+
+    /**
+     * Returns true if this insert event was fired by this catalog, in which case its
+     * key is removed from the in-flight insert events of the table.
+     */
+    private boolean isSelfEvent() {
+      if (!catalog_.removeFromInflightInsertEvents(dbName_, tblName_, insertEventKey_)) {
+        return false;
+      }
+      metrics_.getCounter(MetastoreEventsProcessor.NUMBER_OF_SELF_EVENTS).inc();
+      return true;
+    }
+
+    /**
+     * Returns the row count of the inserted table or partition in the catalog, or -1 if
+     * it is not known, e.g. because the table is not loaded.
+     */
+    private long getCatalogNumRows() {
+      Table tbl;
+      try {
+        tbl = catalog_.getTable(dbName_, tblName_);
+      } catch (DatabaseNotFoundException e) {
+        return -1;
+      }
+      if (!(tbl instanceof HdfsTable)) return -1;
+      if (insertPartition_ == null) return tbl.getNumRows();
+      List<TPartitionKeyValue> tPartSpec = getTPartitionSpecFromHmsPartition(msTbl_,
+          insertPartition_);
+      tbl.getLock().lock();
+      try {
+        HdfsPartition partition =
+            ((HdfsTable) tbl).getPartitionFromThriftPartitionSpec(tPartSpec);
+        return partition == null ? -1 : partition.getNumRows();
+      } finally {
+        tbl.getLock().unlock();
+      }
+    }
+
+    /**
+     * Returns the number of rows inserted by this event given the row count
+     * 'oldNumRows' of the table or partition before the insert, or
+     * CatalogdStatsMaintainer.UNKNOWN_NUM_ROWS if it cannot be derived. The insert
+     * message does not contain the number of inserted rows, but writers that gather
+     * statistics, e.g. Hive with hive.stats.autogather, update the row count of the
+     * table or partition in the message. A row count that did not grow is ambiguous
+     * since the writer may not have updated it.
+     */
+    private long getNumInsertedRows(long oldNumRows) {
+      long newNumRows = FeCatalogUtils.getRowCount(insertPartition_ != null ?
+          insertPartition_.getParameters() : msTbl_.getParameters());
+      if (oldNumRows < 0 || newNumRows <= oldNumRows) {
+        return CatalogdStatsMaintainer.UNKNOWN_NUM_ROWS;
+      }
+      return isReplace_ ? newNumRows : newNumRows - oldNumRows;
     }
 
     /**
@@ -17,6 +17,7 @@
 
 package org.apache.impala.catalog.local;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +44,7 @@ import org.apache.impala.catalog.PartitionNotFoundException;
 import org.apache.impala.catalog.PrunablePartition;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.thrift.TCatalogObject;
+import org.apache.impala.thrift.TGetPartitionStatsRequest;
 import org.apache.impala.thrift.TGetPartitionStatsResponse;
 import org.apache.impala.thrift.TPartitionKeyValue;
 import org.apache.impala.thrift.TUniqueId;
@@ -205,9 +207,26 @@ public class LocalCatalog implements FeCatalog {
     // No-op for local catalog.
   }
 
+  /**
+   * Tables are loaded lazily in this catalog, so looking them up only fetches their HMS
+   * table objects.
+   */
+  @Override
+  public List<org.apache.hadoop.hive.metastore.api.Table> getHmsTables(String dbName,
+      List<String> tableNames) {
+    List<org.apache.hadoop.hive.metastore.api.Table> result = new ArrayList<>();
+    for (String tableName: tableNames) {
+      FeTable table = getTableNoThrow(dbName, tableName);
+      if (table != null && table.getMetaStoreTable() != null) {
+        result.add(table.getMetaStoreTable());
+      }
+    }
+    return result;
+  }
+
   @Override
   public TGetPartitionStatsResponse getPartitionStats(
-      TableName table) throws InternalException {
+      TGetPartitionStatsRequest request) throws InternalException {
     // TODO(vercegovac): add validation to ensure that both pulling incremental
     // statistics and a local catalog are not specified.
     throw new UnsupportedOperationException("--pull_incremental_statistics and "
@@ -208,4 +208,10 @@ public class LocalFsPartition implements FeFsPartition {
   public Map<String, String> getParameters() {
     return msPartition_.getParameters();
   }
+
+  @Override
+  public int getNumBuckets() {
+    if (msPartition_.getSd() == null) return 0;
+    return Math.max(0, msPartition_.getSd().getNumBuckets());
+  }
 }
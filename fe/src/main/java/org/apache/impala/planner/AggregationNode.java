@@ -30,6 +30,7 @@ import org.apache.impala.analysis.FunctionCallExpr;
 import org.apache.impala.analysis.MultiAggregateInfo;
 import org.apache.impala.analysis.MultiAggregateInfo.AggPhase;
 import org.apache.impala.analysis.NumericLiteral;
+import org.apache.impala.analysis.SlotDescriptor;
 import org.apache.impala.analysis.TupleId;
 import org.apache.impala.analysis.ValidTupleIdExpr;
 import org.apache.impala.common.InternalException;
@@ -156,6 +157,17 @@ public class AggregationNode extends PlanNode {
   public boolean hasGrouping() { return multiAggInfo_.hasGrouping(); }
   public boolean isSingleClassAgg() { return aggInfos_.size() == 1; }
 
+  /**
+   * Returns true if 'slotDesc' holds the value of a grouping expr in the output of this
+   * node.
+   */
+  public boolean isGroupingSlot(SlotDescriptor slotDesc) {
+    int i = tupleIds_.indexOf(slotDesc.getParent().getId());
+    if (i == -1) return false;
+    int numGroupingExprs = aggInfos_.get(i).getGroupingExprs().size();
+    return slotDesc.getParent().getSlots().indexOf(slotDesc) < numGroupingExprs;
+  }
+
   public boolean isDistinctAgg() {
     for (AggregateInfo aggInfo : aggInfos_) {
       if (aggInfo.isDistinctAgg()) return true;
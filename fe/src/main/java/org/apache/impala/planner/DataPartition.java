@@ -43,6 +43,10 @@ public class DataPartition {
   // for hash partition: exprs used to compute hash value
   private List<Expr> partitionExprs_;
 
+  // for bucket partition: number of buckets and version of the Hive bucketing function
+  private final int numBuckets_;
+  private final int bucketingVersion_;
+
   private DataPartition(TPartitionType type, List<Expr> exprs) {
     Preconditions.checkNotNull(exprs);
     Preconditions.checkState(!exprs.isEmpty());
@@ -51,6 +55,18 @@ public class DataPartition {
         || type == TPartitionType.KUDU);
     type_ = type;
     partitionExprs_ = exprs;
+    numBuckets_ = 0;
+    bucketingVersion_ = 0;
+  }
+
+  private DataPartition(List<Expr> exprs, int numBuckets, int bucketingVersion) {
+    Preconditions.checkNotNull(exprs);
+    Preconditions.checkState(!exprs.isEmpty());
+    Preconditions.checkState(numBuckets > 0);
+    type_ = TPartitionType.BUCKET_PARTITIONED;
+    partitionExprs_ = exprs;
+    numBuckets_ = numBuckets;
+    bucketingVersion_ = bucketingVersion;
   }
 
   private DataPartition(TPartitionType type) {
@@ -58,6 +74,8 @@ public class DataPartition {
         || type == TPartitionType.RANDOM);
     type_ = type;
     partitionExprs_ = new ArrayList<>();
+    numBuckets_ = 0;
+    bucketingVersion_ = 0;
   }
 
   public final static DataPartition UNPARTITIONED =
@@ -74,11 +92,44 @@ public class DataPartition {
     return new DataPartition(TPartitionType.KUDU, Lists.newArrayList(expr));
   }
 
+  /**
+   * Returns the partition of the scan of a Hive table with 'numBuckets' buckets on
+   * the columns referenced by 'exprs'.
+   */
+  public static DataPartition bucketPartitioned(List<Expr> exprs, int numBuckets,
+      int bucketingVersion) {
+    return new DataPartition(exprs, numBuckets, bucketingVersion);
+  }
+
   public boolean isPartitioned() { return type_ != TPartitionType.UNPARTITIONED; }
   public boolean isHashPartitioned() { return type_ == TPartitionType.HASH_PARTITIONED; }
+  public boolean isBucketPartitioned() {
+    return type_ == TPartitionType.BUCKET_PARTITIONED;
+  }
+  public int getNumBuckets() { return numBuckets_; }
   public TPartitionType getType() { return type_; }
   public List<Expr> getPartitionExprs() { return partitionExprs_; }
 
+  /**
+   * Returns true if this and 'other' are bucket partitions that assign rows with equal
+   * partition-expr values to the same bucket. Hive's bucketing function depends on
+   * the number of buckets, the bucketing version and the types of the bucketing
+   * columns, so these must be identical.
+   */
+  public boolean hasCompatBuckets(DataPartition other) {
+    if (!isBucketPartitioned() || !other.isBucketPartitioned()) return false;
+    if (numBuckets_ != other.numBuckets_) return false;
+    if (bucketingVersion_ != other.bucketingVersion_) return false;
+    if (partitionExprs_.size() != other.partitionExprs_.size()) return false;
+    for (int i = 0; i < partitionExprs_.size(); ++i) {
+      if (!partitionExprs_.get(i).getType().equals(
+          other.partitionExprs_.get(i).getType())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public void substitute(ExprSubstitutionMap smap, Analyzer analyzer) {
     partitionExprs_ = Expr.substituteList(partitionExprs_, smap, analyzer, false);
   }
@@ -97,6 +148,8 @@ public class DataPartition {
     if (obj.getClass() != this.getClass()) return false;
     DataPartition other = (DataPartition) obj;
     if (type_ != other.type_) return false;
+    if (numBuckets_ != other.numBuckets_) return false;
+    if (bucketingVersion_ != other.bucketingVersion_) return false;
     return Expr.equalLists(partitionExprs_, other.partitionExprs_);
   }
 
@@ -117,6 +170,7 @@ public class DataPartition {
       }
       str.append("(" + Joiner.on(",").join(strings) +")");
     }
+    if (isBucketPartitioned()) str.append(" buckets=" + numBuckets_);
     return str.toString();
   }
 
@@ -127,6 +181,7 @@ public class DataPartition {
       case RANGE_PARTITIONED: return "RANGE";
       case UNPARTITIONED: return "UNPARTITIONED";
       case KUDU: return "KUDU";
+      case BUCKET_PARTITIONED: return "BUCKET";
       default: return "";
     }
   }
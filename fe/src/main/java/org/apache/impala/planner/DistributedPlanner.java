@@ -277,12 +277,18 @@ public class DistributedPlanner {
   }
 
   /**
-   * Create new randomly-partitioned fragment containing a single scan node.
-   * TODO: take bucketing into account to produce a naturally hash-partitioned
-   * fragment
+   * Create new fragment containing a single scan node. The fragment is partitioned by
+   * the Hive buckets of the scanned table if the scan allows it (see
+   * HdfsScanNode.getBucketPartition()) and randomly partitioned otherwise.
    * TODO: hbase scans are range-partitioned on the row key
    */
   private PlanFragment createScanFragment(PlanNode node) {
+    if (node instanceof HdfsScanNode) {
+      DataPartition bucketPartition = ((HdfsScanNode) node).getBucketPartition();
+      if (bucketPartition != null) {
+        return new PlanFragment(ctx_.getNextFragmentId(), node, bucketPartition);
+      }
+    }
     return new PlanFragment(ctx_.getNextFragmentId(), node, DataPartition.RANDOM);
   }
 
@@ -481,6 +487,22 @@ public class DistributedPlanner {
           leftChildFragment.getDataPartition().getPartitionExprs(), lhsJoinExprs,false);
       rhsHasCompatPartition = analyzer.setsHaveValueTransfer(
           rightChildFragment.getDataPartition().getPartitionExprs(), rhsJoinExprs, false);
+      // An exchange cannot reproduce the bucketing function of a Hive table, so a
+      // fragment that is partitioned by buckets is only compatible if both sides are
+      // partitioned by compatible buckets and can be joined without any exchange.
+      DataPartition lhsPartition = leftChildFragment.getDataPartition();
+      DataPartition rhsPartition = rightChildFragment.getDataPartition();
+      if (lhsPartition.isBucketPartitioned() || rhsPartition.isBucketPartitioned()) {
+        boolean isBucketJoin = lhsHasCompatPartition && rhsHasCompatPartition
+            && isCompatPartition(lhsPartition, rhsPartition, lhsJoinExprs,
+                rhsJoinExprs, analyzer);
+        if (lhsPartition.isBucketPartitioned()) {
+          lhsHasCompatPartition = isBucketJoin;
+        }
+        if (rhsPartition.isBucketPartitioned()) {
+          rhsHasCompatPartition = isBucketJoin;
+        }
+      }
 
       Preconditions.checkState(rhsDataSize != -1);
       double lhsNetworkCost = (lhsHasCompatPartition) ? 0.0 :
@@ -576,11 +598,16 @@ public class DistributedPlanner {
    * (4. The expr types must be identical, but that is enforced later in PlanFragment)
    * Conditions 2 and 3 are similar but not the same due to outer joins, e.g., for full
    * outer joins condition 3 can never be met, but condition 2 can.
+   * Partitions by Hive buckets are only compatible with each other, and only if they
+   * use the same bucketing function (see DataPartition.hasCompatBuckets()).
    * TODO: Move parts of this function into DataPartition as appropriate.
    */
   private boolean isCompatPartition(DataPartition lhsPartition,
       DataPartition rhsPartition, List<Expr> lhsJoinExprs, List<Expr> rhsJoinExprs,
       Analyzer analyzer) {
+    if (lhsPartition.isBucketPartitioned() || rhsPartition.isBucketPartitioned()) {
+      if (!lhsPartition.hasCompatBuckets(rhsPartition)) return false;
+    }
     List<Expr> lhsPartExprs = lhsPartition.getPartitionExprs();
     List<Expr> rhsPartExprs = rhsPartition.getPartitionExprs();
     // 1. Sizes must be equal.
@@ -0,0 +1,269 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.planner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.impala.analysis.Expr;
+import org.apache.impala.analysis.ToSqlOptions;
+import org.apache.impala.thrift.TExecFeedback;
+import org.apache.impala.thrift.TUniqueId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Ints;
+
+/**
+ * Process-wide store of the actual cardinalities of plan nodes that were observed in
+ * completed queries ("execution feedback"). Recurring queries tend to produce the same
+ * plan nodes, so the planner uses an observed cardinality instead of its estimate when
+ * it plans a matching node again.
+ *
+ * Plan nodes are matched by their feedback signature, see
+ * PlanNode.computeFeedbackSignature(). The signature is a hash of the scanned table or
+ * of the signatures of the join inputs, and of the fingerprints of the conjuncts.
+ * Only scans and joins have a signature.
+ *
+ * The store works in two steps:
+ * 1. After planning, registerPlan() remembers the signatures of the plan nodes of the
+ *    query whose actual cardinality is expected to be exact.
+ * 2. When the query has returned all its rows, the backend calls recordFeedback() with
+ *    the actual cardinalities of the plan nodes, which are stored by signature.
+ *
+ * Observations are stale and ignored if they are older than the configured TTL or if
+ * the estimate of the node changed by more than MAX_ESTIMATE_DRIFT since the
+ * observation, e.g. because the table grew or its stats were recomputed.
+ *
+ * The store is disabled unless init() is called with a positive number of entries.
+ * All methods are thread-safe.
+ */
+public class ExecFeedbackStore {
+  private final static Logger LOG = LoggerFactory.getLogger(ExecFeedbackStore.class);
+
+  public static final ExecFeedbackStore INSTANCE = new ExecFeedbackStore();
+
+  // Maximum number of queries whose plan node signatures are kept until the feedback of
+  // the query arrives. Plans of queries that never report feedback are evicted.
+  private static final int MAX_PENDING_QUERIES = 1000;
+
+  // An observation is stale if the estimate of the node without feedback changed by
+  // more than this factor since the observation.
+  @VisibleForTesting
+  static final double MAX_ESTIMATE_DRIFT = 2.0;
+
+  /**
+   * Actual cardinality of a plan node and the estimate of the node at the time.
+   */
+  private static class Observation {
+    final long cardinality_;
+    final long estimate_;
+
+    Observation(long cardinality, long estimate) {
+      cardinality_ = cardinality;
+      estimate_ = estimate;
+    }
+  }
+
+  /**
+   * Plan node of a running query whose cardinality will be recorded.
+   */
+  private static class PendingNode {
+    final String signature_;
+    final long estimate_;
+    // Ids of the nodes that, if they return no rows, may cause the node to not return
+    // all its rows. These are the build sides of the joins that the node is probed by.
+    final int[] guardIds_;
+
+    PendingNode(String signature, long estimate, List<Integer> guardIds) {
+      signature_ = signature;
+      estimate_ = estimate;
+      guardIds_ = Ints.toArray(guardIds);
+    }
+  }
+
+  // Observations by plan node signature. Null if the store is disabled.
+  private volatile Cache<String, Observation> observations_;
+
+  // Signatures of the plan nodes of running queries, by query id and plan node id.
+  private volatile Cache<TUniqueId, Map<Integer, PendingNode>> pendingPlans_;
+
+  /**
+   * Enables the store with at most 'maxEntries' observations that are used for
+   * 'ttlS' seconds. Disables the store and drops all observations if 'maxEntries' is
+   * not positive.
+   */
+  public synchronized void init(int maxEntries, int ttlS) {
+    if (maxEntries <= 0 || ttlS <= 0) {
+      observations_ = null;
+      pendingPlans_ = null;
+      return;
+    }
+    observations_ = CacheBuilder.newBuilder()
+        .maximumSize(maxEntries)
+        .expireAfterWrite(ttlS, TimeUnit.SECONDS)
+        .build();
+    pendingPlans_ = CacheBuilder.newBuilder()
+        .maximumSize(MAX_PENDING_QUERIES)
+        .expireAfterWrite(ttlS, TimeUnit.SECONDS)
+        .build();
+  }
+
+  public boolean isEnabled() { return observations_ != null; }
+
+  /**
+   * Returns the observed cardinality of the plan node with the given signature, or -1 if
+   * there is no observation or it is stale. 'estimate' is the cardinality that the
+   * planner estimated for the node without feedback.
+   */
+  public long getCardinality(String signature, long estimate) {
+    Cache<String, Observation> observations = observations_;
+    if (observations == null || signature == null) return -1;
+    Observation observation = observations.getIfPresent(signature);
+    if (observation == null) return -1;
+    if (isDrifted(observation.estimate_, estimate)) return -1;
+    return observation.cardinality_;
+  }
+
+  private static boolean isDrifted(long oldEstimate, long newEstimate) {
+    if (oldEstimate == newEstimate) return false;
+    if (oldEstimate <= 0 || newEstimate <= 0) return true;
+    double ratio = (double) Math.max(oldEstimate, newEstimate) /
+        Math.min(oldEstimate, newEstimate);
+    return ratio > MAX_ESTIMATE_DRIFT;
+  }
+
+  /**
+   * Remembers the signatures of the plan nodes in 'planRoots' so that the feedback of
+   * the query 'queryId' can be recorded once it completes. Nodes whose actual
+   * cardinality is not expected to be exact are skipped:
+   * - scans that are the target of runtime filters;
+   * - nodes in a subplan, which are executed once per input row of the subplan;
+   * - nodes whose output may be truncated by a limit.
+   */
+  public void registerPlan(TUniqueId queryId, List<PlanFragment> planRoots) {
+    Cache<TUniqueId, Map<Integer, PendingNode>> pendingPlans = pendingPlans_;
+    if (pendingPlans == null) return;
+    Map<Integer, PendingNode> nodes = new HashMap<>();
+    for (PlanFragment planRoot: planRoots) {
+      registerNodes(planRoot.getPlanRoot(), false, new ArrayList<Integer>(), nodes);
+    }
+    if (!nodes.isEmpty()) pendingPlans.put(queryId, nodes);
+  }
+
+  private static void registerNodes(PlanNode node, boolean truncated,
+      List<Integer> guardIds, Map<Integer, PendingNode> nodes) {
+    if (node instanceof SubplanNode) return;
+    truncated = truncated || node.hasLimit();
+    boolean isFilteredScan =
+        node instanceof ScanNode && !node.getRuntimeFilters().isEmpty();
+    if (!truncated && !isFilteredScan && node.feedbackSignature_ != null) {
+      nodes.put(node.getId().asInt(), new PendingNode(
+          node.feedbackSignature_, node.statsCardinality_, guardIds));
+    }
+    for (int i = 0; i < node.getChildren().size(); ++i) {
+      PlanNode child = node.getChild(i);
+      // Children whose input is consumed entirely before any output is produced
+      // are not truncated by a limit above.
+      boolean consumesChild = node instanceof SortNode ||
+          node instanceof AggregationNode || (node instanceof JoinNode && i == 1);
+      List<Integer> childGuardIds = guardIds;
+      if (node instanceof JoinNode && i == 0) {
+        // A join may not read its probe side at all if its build side is empty.
+        childGuardIds = new ArrayList<>(guardIds);
+        childGuardIds.add(node.getChild(1).getId().asInt());
+      }
+      registerNodes(child, truncated && !consumesChild, childGuardIds, nodes);
+    }
+  }
+
+  /**
+   * Records the actual cardinalities of the plan nodes of a completed query that was
+   * registered with registerPlan().
+   */
+  public void recordFeedback(TExecFeedback feedback) {
+    Cache<TUniqueId, Map<Integer, PendingNode>> pendingPlans = pendingPlans_;
+    Cache<String, Observation> observations = observations_;
+    if (pendingPlans == null || observations == null) return;
+    Map<Integer, PendingNode> nodes = pendingPlans.getIfPresent(feedback.getQuery_id());
+    if (nodes == null) return;
+    pendingPlans.invalidate(feedback.getQuery_id());
+    Map<Integer, Long> cardinalities = feedback.getNode_cardinalities();
+    int numRecorded = 0;
+    for (Map.Entry<Integer, PendingNode> entry: nodes.entrySet()) {
+      Long cardinality = cardinalities.get(entry.getKey());
+      if (cardinality == null || cardinality < 0) continue;
+      PendingNode node = entry.getValue();
+      if (hasEmptyGuard(node, cardinalities)) continue;
+      observations.put(node.signature_, new Observation(cardinality, node.estimate_));
+      ++numRecorded;
+    }
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Recorded the cardinalities of " + numRecorded + " plan nodes");
+    }
+  }
+
+  private static boolean hasEmptyGuard(PendingNode node,
+      Map<Integer, Long> cardinalities) {
+    for (int guardId: node.guardIds_) {
+      Long guardCardinality = cardinalities.get(guardId);
+      if (guardCardinality == null || guardCardinality == 0) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Drops all observations and pending plans.
+   */
+  @VisibleForTesting
+  public void clear() {
+    Cache<String, Observation> observations = observations_;
+    if (observations != null) observations.invalidateAll();
+    Cache<TUniqueId, Map<Integer, PendingNode>> pendingPlans = pendingPlans_;
+    if (pendingPlans != null) pendingPlans.invalidateAll();
+  }
+
+  /**
+   * Returns an order-independent fingerprint of 'exprs'.
+   */
+  static String getFingerprint(List<? extends Expr> exprs) {
+    List<String> exprSqls = new ArrayList<>();
+    for (Expr expr: exprs) exprSqls.add(expr.toSql(ToSqlOptions.DEFAULT));
+    Collections.sort(exprSqls);
+    return Joiner.on(" AND ").join(exprSqls);
+  }
+
+  /**
+   * Returns the signature of a plan node with the given description.
+   */
+  static String getSignature(String description) {
+    Hasher hasher = Hashing.md5().newHasher();
+    hasher.putString(description);
+    return hasher.hash().toString();
+  }
+}
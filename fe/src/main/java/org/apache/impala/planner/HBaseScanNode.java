@@ -36,6 +36,7 @@ import org.apache.impala.analysis.Expr;
 import org.apache.impala.analysis.LiteralExpr;
 import org.apache.impala.analysis.SlotDescriptor;
 import org.apache.impala.analysis.StringLiteral;
+import org.apache.impala.analysis.TableSampleClause;
 import org.apache.impala.analysis.TupleDescriptor;
 import org.apache.impala.catalog.FeHBaseTable;
 import org.apache.impala.catalog.FeTable;
@@ -68,6 +69,8 @@ import com.google.common.collect.Lists;
 /**
  * Full scan of an HBase table.
  * Only families/qualifiers specified in TupleDescriptor will be retrieved in the backend.
+ * Supports scanning a random sample of the regions based on the parameters from a
+ * TABLESAMPLE clause, see TableSampleClause.getUnitsSample().
  */
 public class HBaseScanNode extends ScanNode {
   // The suggested value for "hbase.client.scan.setCaching", which batches maxCaching
@@ -120,9 +123,19 @@ public class HBaseScanNode extends ScanNode {
 
   private int suggestedCaching_ = DEFAULT_SUGGESTED_CACHING;
 
-  public HBaseScanNode(PlanNodeId id, TupleDescriptor desc) {
+  // Parameters of the TABLESAMPLE clause or null if the regions are not sampled.
+  private final TableSampleClause sampleParams_;
+
+  // Number of regions in the key range before and after sampling. Set in
+  // computeScanRangeLocations().
+  private int numRegions_ = 0;
+  private int numSampledRegions_ = 0;
+
+  public HBaseScanNode(PlanNodeId id, TupleDescriptor desc,
+      TableSampleClause sampleParams) {
     super(id, desc, "SCAN HBASE");
     desc_ = desc;
+    sampleParams_ = sampleParams;
   }
 
   @Override
@@ -321,6 +334,11 @@ public class HBaseScanNode extends ScanNode {
               Math.max(MAX_HBASE_FETCH_BATCH_SIZE / estimate.second.longValue(), 1);
         }
       }
+      // The estimates are for the whole key range, adjust them based on table sampling.
+      if (sampleParams_ != null && cardinality_ != -1 && numRegions_ > 0) {
+        cardinality_ = Math.max(1,
+            Math.round(cardinality_ * (double) numSampledRegions_ / numRegions_));
+      }
     }
     inputCardinality_ = cardinality_;
 
@@ -408,7 +426,8 @@ public class HBaseScanNode extends ScanNode {
   /**
    * We create a TScanRange for each region server that contains at least one
    * relevant region, and the created TScanRange will contain all the relevant regions
-   * of that region server.
+   * of that region server. If 'sampleParams_' is not null, only a random sample of the
+   * relevant regions is scanned.
    */
   private void computeScanRangeLocations(Analyzer analyzer) {
     scanRangeSpecs_ = new TScanRangeSpec();
@@ -426,6 +445,9 @@ public class HBaseScanNode extends ScanNode {
           "couldn't retrieve HBase table (" + tbl.getHBaseTableName() + ") info:\n"
           + e.getMessage(), e);
     }
+    numRegions_ = regionsLoc.size();
+    if (sampleParams_ != null) regionsLoc = getUnitsSample(sampleParams_, regionsLoc);
+    numSampledRegions_ = regionsLoc.size();
 
     // Convert list of HRegionLocation to Map<hostport, List<HRegionLocation>>.
     // The List<HRegionLocations>'s end up being sorted by start key/end key, because
@@ -542,6 +564,10 @@ public class HBaseScanNode extends ScanNode {
       if (!Bytes.equals(stopKey_, HConstants.EMPTY_END_ROW)) {
         output.append(detailPrefix + "stop key: " + printKey(stopKey_) + "\n");
       }
+      if (sampleParams_ != null) {
+        output.append(String.format("%ssampled regions=%d/%d\n", detailPrefix,
+            numSampledRegions_, numRegions_));
+      }
       if (!filters_.isEmpty()) {
         output.append(detailPrefix + "hbase filters:");
         if (filters_.size() == 1) {
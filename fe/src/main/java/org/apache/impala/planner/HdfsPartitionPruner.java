@@ -47,6 +47,9 @@ import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.Pair;
 import org.apache.impala.rewrite.BetweenToCompoundRule;
 import org.apache.impala.rewrite.ExprRewriter;
+import org.apache.impala.service.FrontendProfile;
+import org.apache.impala.service.FrontendProfile.PhaseTimer;
+import org.apache.impala.thrift.TUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,6 +81,9 @@ public class HdfsPartitionPruner {
 
   private final static Logger LOG = LoggerFactory.getLogger(HdfsPartitionPruner.class);
 
+  // Name of the planner phase in the frontend profile.
+  private final static String PROFILE_PHASE = "PartitionPruning";
+
   // Partition batch size used during partition pruning.
   private final static int PARTITION_PRUNING_BATCH_SIZE = 1024;
 
@@ -103,10 +109,27 @@ public class HdfsPartitionPruner {
    * shown in the EXPLAIN output.
    *
    * If 'allowEmpty' is False, empty partitions are not returned.
+   *
+   * The time spent and the number of partitions before and after pruning are added to
+   * the "PartitionPruning" planner phase of the frontend profile.
    */
   public Pair<List<? extends FeFsPartition>, List<Expr>> prunePartitions(
       Analyzer analyzer, List<Expr> conjuncts, boolean allowEmpty)
       throws ImpalaException {
+    try (PhaseTimer timer = FrontendProfile.startPhase(PROFILE_PHASE)) {
+      Pair<List<? extends FeFsPartition>, List<Expr>> result =
+          doPrunePartitions(analyzer, conjuncts, allowEmpty);
+      FrontendProfile.addToPhaseCounter(PROFILE_PHASE, "Partitions", TUnit.UNIT,
+          tbl_.getPartitionIds().size());
+      FrontendProfile.addToPhaseCounter(PROFILE_PHASE, "SelectedPartitions",
+          TUnit.UNIT, result.first.size());
+      return result;
+    }
+  }
+
+  private Pair<List<? extends FeFsPartition>, List<Expr>> doPrunePartitions(
+      Analyzer analyzer, List<Expr> conjuncts, boolean allowEmpty)
+      throws ImpalaException {
     // Start with creating a collection of partition filters for the applicable conjuncts.
     List<HdfsPartitionFilter> partitionFilters = new ArrayList<>();
     // Conjuncts that can be evaluated from the partition key values.
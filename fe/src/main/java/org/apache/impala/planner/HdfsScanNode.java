@@ -20,11 +20,14 @@ package org.apache.impala.planner;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import com.google.common.collect.Sets;
 import org.apache.hadoop.conf.Configuration;
@@ -46,6 +49,7 @@ import org.apache.impala.analysis.SlotId;
 import org.apache.impala.analysis.SlotRef;
 import org.apache.impala.analysis.TableRef;
 import org.apache.impala.analysis.TableSampleClause;
+import org.apache.impala.analysis.ToSqlOptions;
 import org.apache.impala.analysis.TupleDescriptor;
 import org.apache.impala.analysis.TupleId;
 import org.apache.impala.catalog.Column;
@@ -67,6 +71,8 @@ import org.apache.impala.common.PrintUtils;
 import org.apache.impala.common.RuntimeEnv;
 import org.apache.impala.fb.FbFileBlock;
 import org.apache.impala.service.BackendConfig;
+import org.apache.impala.service.FrontendProfile;
+import org.apache.impala.service.FrontendProfile.PhaseTimer;
 import org.apache.impala.thrift.TExplainLevel;
 import org.apache.impala.thrift.TExpr;
 import org.apache.impala.thrift.TFileSplitGeneratorSpec;
@@ -82,6 +88,7 @@ import org.apache.impala.thrift.TScanRangeLocation;
 import org.apache.impala.thrift.TScanRangeLocationList;
 import org.apache.impala.thrift.TScanRangeSpec;
 import org.apache.impala.thrift.TTableStats;
+import org.apache.impala.thrift.TUnit;
 import org.apache.impala.util.BitUtil;
 import org.apache.impala.util.ExecutorMembershipSnapshot;
 import org.slf4j.Logger;
@@ -131,6 +138,14 @@ public class HdfsScanNode extends ScanNode {
 
   private static final Configuration CONF = new Configuration();
 
+  // Name of a file written by Hive into a bucketed table, e.g. "000001_0",
+  // "000001_0_copy_1" or "000001_0.gz". The first group is the bucket id.
+  private static final Pattern HIVE_BUCKET_FILE_NAME =
+      Pattern.compile("^(\\d+)_\\d+(_copy_\\d+)?(\\.\\w+)?$");
+
+  // Table property with the version of the Hive bucketing function.
+  private static final String BUCKETING_VERSION_PROPERTY = "bucketing_version";
+
   // Maximum number of I/O buffers per thread executing this scan.
   // TODO: it's unclear how this was chosen - this seems like a very high number
   private static final long MAX_IO_BUFFERS_PER_THREAD = 10;
@@ -192,6 +207,14 @@ public class HdfsScanNode extends ScanNode {
   // Number of scan ranges that will be generated for all TFileSplitGeneratorSpec's.
   private long generatedScanRangeCount_ = 0;
 
+  // True if the scan ranges of all files are generated by the executors once the
+  // runtime filters have arrived. Set in deferScanRanges().
+  private boolean deferScanRanges_ = false;
+
+  // Scan range length limit of the files of each partition by partition id. Only
+  // populated if DEFER_FILTERED_SCAN_RANGES is set. Set in computeScanRangeLocations().
+  private final Map<Long, Long> scanRangeBytesLimits_ = new HashMap<>();
+
   // Estimated row count of the largest scan range. -1 if no stats are available.
   // Set in computeScanRangeLocations()
   private long maxScanRangeNumRows_ = -1;
@@ -245,6 +268,11 @@ public class HdfsScanNode extends ScanNode {
   private int numFilesNoDiskIds_ = 0;
   private int numPartitionsNoDiskIds_ = 0;
 
+  // Number of Hive buckets of the table if every scanned file is a bucket file of the
+  // table and the scan is partitioned by the buckets, 0 otherwise. Set in
+  // computeScanRangeLocations().
+  private int numBuckets_ = 0;
+
   // List of conjuncts for min/max values of parquet::Statistics, that are used to skip
   // data when scanning Parquet files.
   private final List<Expr> minMaxConjuncts_ = new ArrayList<>();
@@ -357,20 +385,15 @@ public class HdfsScanNode extends ScanNode {
     assignCollectionConjuncts(analyzer);
 
     // compute scan range locations with optional sampling
-    computeScanRangeLocations(analyzer);
-
-    // Determine backend scan node implementation to use. The optimized MT implementation
-    // is currently supported for Parquet, ORC and Text.
-    if (analyzer.getQueryOptions().isSetMt_dop() &&
-        analyzer.getQueryOptions().mt_dop > 0 &&
-        fileFormats_.size() == 1 &&
-        (fileFormats_.contains(HdfsFileFormat.PARQUET)
-          || fileFormats_.contains(HdfsFileFormat.ORC)
-          || fileFormats_.contains(HdfsFileFormat.TEXT))) {
-      useMtScanNode_ = true;
-    } else {
-      useMtScanNode_ = false;
+    try (PhaseTimer timer = FrontendProfile.startPhase(SCAN_RANGE_PROFILE_PHASE)) {
+      computeScanRangeLocations(analyzer);
     }
+    FrontendProfile.addToPhaseCounter(SCAN_RANGE_PROFILE_PHASE, "Files", TUnit.UNIT,
+        totalFiles_);
+    FrontendProfile.addToPhaseCounter(SCAN_RANGE_PROFILE_PHASE, "ScanRanges",
+        TUnit.UNIT, scanRangeSpecs_.getConcrete_rangesSize() + generatedScanRangeCount_);
+
+    computeUseMtScanNode(analyzer.getQueryOptions());
 
     if (fileFormats_.contains(HdfsFileFormat.PARQUET)) {
       // Compute min-max conjuncts only if the PARQUET_READ_STATISTICS query option is
@@ -759,12 +782,7 @@ public class HdfsScanNode extends ScanNode {
     Map<Long, List<FileDescriptor>> sampledFiles = null;
     if (sampleParams_ != null) {
       long percentBytes = sampleParams_.getPercentBytes();
-      long randomSeed;
-      if (sampleParams_.hasRandomSeed()) {
-        randomSeed = sampleParams_.getRandomSeed();
-      } else {
-        randomSeed = System.currentTimeMillis();
-      }
+      long randomSeed = getSampleRandomSeed(sampleParams_);
       // Pass a minimum sample size of 0 because users cannot set a minimum sample size
       // for scans directly. For compute stats, a minimum sample size can be set, and
       // the sampling percent is adjusted to reflect it.
@@ -775,12 +793,14 @@ public class HdfsScanNode extends ScanNode {
     long scanRangeBytesLimit = analyzer.getQueryCtx().client_request.getQuery_options()
         .getMax_scan_range_length();
     scanRangeSpecs_ = new TScanRangeSpec();
+    scanRangeBytesLimits_.clear();
     numPartitions_ = (sampledFiles != null) ? sampledFiles.size() : partitions_.size();
     totalFiles_ = 0;
     totalBytes_ = 0;
     largestScanRangeBytes_ = 0;
     maxScanRangeNumRows_ = -1;
     fileFormats_ = new HashSet<>();
+    numBuckets_ = computeNumBuckets(analyzer, sampledFiles);
     for (FeFsPartition partition: partitions_) {
       List<FileDescriptor> fileDescs = partition.getFileDescriptors();
       if (sampledFiles != null) {
@@ -813,6 +833,9 @@ public class HdfsScanNode extends ScanNode {
           scanRangeBytesLimit = maxBlockSize;
         }
       }
+      if (analyzer.getQueryOptions().isDefer_filtered_scan_ranges()) {
+        scanRangeBytesLimits_.put(partition.getId(), scanRangeBytesLimit);
+      }
       final long partitionBytes = FileDescriptor.computeTotalFileLength(fileDescs);
       long partitionMaxScanRangeBytes = 0;
       boolean partitionMissingDiskIds = false;
@@ -825,14 +848,15 @@ public class HdfsScanNode extends ScanNode {
               "Scanning of HDFS erasure-coded file (%s/%s) is not supported",
               partition.getLocation(), fileDesc.getFileName()));
         }
+        int bucketId = numBuckets_ > 0 ? getBucketId(fileDesc.getFileName()) : -1;
         if (!fsHasBlocks) {
           Preconditions.checkState(fileDesc.getNumFileBlocks() == 0);
-          generateScanRangeSpecs(partition, fileDesc, scanRangeBytesLimit);
+          generateScanRangeSpecs(partition, fileDesc, scanRangeBytesLimit, bucketId);
         } else {
           // Skips files that have no associated blocks.
           if (fileDesc.getNumFileBlocks() == 0) continue;
-          Pair<Boolean, Long> result = transformBlocksToScanRanges(
-              partition, fileDesc, fsHasBlocks, scanRangeBytesLimit, analyzer);
+          Pair<Boolean, Long> result = transformBlocksToScanRanges(partition, fileDesc,
+              fsHasBlocks, scanRangeBytesLimit, bucketId, analyzer);
           partitionMaxScanRangeBytes =
               Math.max(partitionMaxScanRangeBytes, result.second);
           if (result.first) partitionMissingDiskIds = true;
@@ -856,6 +880,94 @@ public class HdfsScanNode extends ScanNode {
     }
   }
 
+  /**
+   * Returns the number of Hive buckets of the table if the rows of this scan can be
+   * treated as partitioned by the buckets of the table, 0 otherwise. This requires that
+   * the USE_HIVE_BUCKETING query option is set, that the table and all scanned
+   * partitions are bucketed with the same number of buckets, and that every scanned
+   * file is named like a Hive bucket file. Transactional tables are not supported,
+   * because their bucket files are spread over delta directories.
+   */
+  private int computeNumBuckets(Analyzer analyzer,
+      Map<Long, List<FileDescriptor>> sampledFiles) {
+    if (!analyzer.getQueryOptions().isUse_hive_bucketing()) return 0;
+    // Partitioned fragments of MT plans are split into separate build fragments,
+    // which are scheduled independently of the buckets.
+    if (analyzer.getQueryOptions().getMt_dop() > 0) return 0;
+    org.apache.hadoop.hive.metastore.api.Table msTbl = tbl_.getMetaStoreTable();
+    if (msTbl == null || msTbl.getSd() == null) return 0;
+    int numBuckets = msTbl.getSd().getNumBuckets();
+    if (numBuckets <= 0 || msTbl.getSd().getBucketColsSize() == 0) return 0;
+    if (msTbl.getParameters() != null &&
+        Boolean.parseBoolean(msTbl.getParameters().get("transactional"))) {
+      return 0;
+    }
+    boolean isPartitioned = tbl_.getNumClusteringCols() > 0;
+    for (FeFsPartition partition: partitions_) {
+      if (isPartitioned && partition.getNumBuckets() != numBuckets) return 0;
+      List<FileDescriptor> fileDescs = partition.getFileDescriptors();
+      if (sampledFiles != null) {
+        fileDescs = sampledFiles.get(Long.valueOf(partition.getId()));
+        if (fileDescs == null) continue;
+      }
+      for (FileDescriptor fileDesc: fileDescs) {
+        int bucketId = getBucketId(fileDesc.getFileName());
+        if (bucketId < 0 || bucketId >= numBuckets) return 0;
+      }
+    }
+    return numBuckets;
+  }
+
+  /**
+   * Returns the Hive bucket id of the file with the given name, or -1 if the name is
+   * not the name of a Hive bucket file.
+   */
+  static int getBucketId(String fileName) {
+    Matcher matcher = HIVE_BUCKET_FILE_NAME.matcher(fileName);
+    if (!matcher.matches()) return -1;
+    try {
+      return Integer.parseInt(matcher.group(1));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Returns the partition of the rows of this scan by the Hive buckets of the table, or
+   * null if the scan is not partitioned by the buckets. The partition exprs reference
+   * the slots of the bucketing columns, which must all be materialized.
+   */
+  public DataPartition getBucketPartition() {
+    if (numBuckets_ <= 0) return null;
+    org.apache.hadoop.hive.metastore.api.Table msTbl = tbl_.getMetaStoreTable();
+    List<Expr> partitionExprs = new ArrayList<>();
+    for (String bucketCol: msTbl.getSd().getBucketCols()) {
+      SlotDescriptor bucketSlot = null;
+      for (SlotDescriptor slot: desc_.getSlots()) {
+        Column col = slot.getColumn();
+        if (slot.isMaterialized() && col != null &&
+            col.getName().equalsIgnoreCase(bucketCol)) {
+          bucketSlot = slot;
+          break;
+        }
+      }
+      if (bucketSlot == null) return null;
+      partitionExprs.add(new SlotRef(bucketSlot));
+    }
+    int bucketingVersion = 1;
+    if (msTbl.getParameters() != null &&
+        msTbl.getParameters().containsKey(BUCKETING_VERSION_PROPERTY)) {
+      try {
+        bucketingVersion =
+            Integer.parseInt(msTbl.getParameters().get(BUCKETING_VERSION_PROPERTY));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    return DataPartition.bucketPartitioned(partitionExprs, numBuckets_,
+        bucketingVersion);
+  }
+
   /**
    * Update the estimate of maximum number of rows per scan range based on the fraction
    * of bytes of the scan range relative to the total bytes per partition or table.
@@ -882,9 +994,10 @@ public class HdfsScanNode extends ScanNode {
    * Used for file systems that do not have any physical attributes associated with
    * blocks (e.g., replica locations, caching, etc.). 'maxBlock' size determines how large
    * the scan ranges can be (may be ignored if the file is not splittable).
+   * 'bucketId' is the Hive bucket of the file, or -1 if not known.
    */
-  private void generateScanRangeSpecs(
-      FeFsPartition partition, FileDescriptor fileDesc, long maxBlockSize) {
+  private void generateScanRangeSpecs(FeFsPartition partition,
+      FileDescriptor fileDesc, long maxBlockSize, int bucketId) {
     Preconditions.checkArgument(fileDesc.getNumFileBlocks() == 0);
     Preconditions.checkArgument(maxBlockSize > 0);
     if (fileDesc.getFileLength() <= 0) return;
@@ -892,6 +1005,7 @@ public class HdfsScanNode extends ScanNode {
         HdfsCompression.fromFileName(fileDesc.getFileName()));
     TFileSplitGeneratorSpec splitSpec = new TFileSplitGeneratorSpec(
         fileDesc.toThrift(), maxBlockSize, splittable, partition.getId());
+    if (bucketId >= 0) splitSpec.setBucket_id(bucketId);
     scanRangeSpecs_.addToSplit_specs(splitSpec);
     long scanRangeBytes = Math.min(maxBlockSize, fileDesc.getFileLength());
     if (splittable) {
@@ -904,16 +1018,110 @@ public class HdfsScanNode extends ScanNode {
     largestScanRangeBytes_ = Math.max(largestScanRangeBytes_, scanRangeBytes);
   }
 
+  /**
+   * Replaces the scan ranges of this scan with TFileSplitGeneratorSpecs that the
+   * scheduler assigns as single scan ranges. The executors only generate the scan
+   * ranges of files in partitions that pass the runtime filters, see
+   * DEFER_FILTERED_SCAN_RANGES. Must be called after the runtime filters on partition
+   * columns have been assigned to this scan. Splittable files get one spec per block so
+   * that the blocks of a file are still spread over the hosts that store them. The
+   * file descriptor of such a spec only contains its block, with the replicas referring
+   * to the host index of the query. Files without blocks are split into specs of the
+   * scan range length and non-splittable files keep one spec per file. Scans that are
+   * partitioned by Hive buckets keep their scan ranges because they are scheduled by
+   * bucket.
+   */
+  public void deferScanRanges(Analyzer analyzer) {
+    Preconditions.checkNotNull(scanRangeSpecs_);
+    if (deferScanRanges_ || numBuckets_ > 0) return;
+    // Collect the files that have concrete scan ranges by partition id.
+    Map<Long, Set<String>> fileNamesByPartition = new HashMap<>();
+    if (scanRangeSpecs_.isSetConcrete_ranges()) {
+      for (TScanRangeLocationList range: scanRangeSpecs_.getConcrete_ranges()) {
+        THdfsFileSplit split = range.getScan_range().getHdfs_file_split();
+        Set<String> fileNames = fileNamesByPartition.get(split.getPartition_id());
+        if (fileNames == null) {
+          fileNames = new HashSet<>();
+          fileNamesByPartition.put(split.getPartition_id(), fileNames);
+        }
+        fileNames.add(split.getFile_name());
+      }
+    }
+    TScanRangeSpec deferredSpecs = new TScanRangeSpec();
+    deferredSpecs.setDefer_split_specs(true);
+    for (FeFsPartition partition: partitions_) {
+      Set<String> fileNames = fileNamesByPartition.get(partition.getId());
+      if (fileNames == null) continue;
+      Preconditions.checkState(scanRangeBytesLimits_.containsKey(partition.getId()));
+      long scanRangeBytesLimit = scanRangeBytesLimits_.get(partition.getId());
+      List<TNetworkAddress> tableHostIndex =
+          partition.getTable().getHostIndex().getList();
+      for (FileDescriptor fileDesc: partition.getFileDescriptors()) {
+        if (!fileNames.contains(fileDesc.getFileName())) continue;
+        boolean splittable = partition.getFileFormat().isSplittable(
+            HdfsCompression.fromFileName(fileDesc.getFileName()));
+        if (!splittable) {
+          // Translate the replica hosts to the global (to this request) host index.
+          FileDescriptor queryFileDesc =
+              fileDesc.cloneWithNewHostIndex(tableHostIndex, analyzer.getHostIndex());
+          deferredSpecs.addToSplit_specs(new TFileSplitGeneratorSpec(
+              queryFileDesc.toThrift(), scanRangeBytesLimit, false, partition.getId()));
+          continue;
+        }
+        for (int i = 0; i < fileDesc.getNumFileBlocks(); ++i) {
+          FbFileBlock block = fileDesc.getFbFileBlock(i);
+          FileDescriptor blockFileDesc = fileDesc.cloneBlockWithNewHostIndex(
+              i, tableHostIndex, analyzer.getHostIndex());
+          TFileSplitGeneratorSpec spec = new TFileSplitGeneratorSpec(
+              blockFileDesc.toThrift(), scanRangeBytesLimit, true, partition.getId());
+          spec.setOffset(FileBlock.getOffset(block));
+          spec.setLength(FileBlock.getLength(block));
+          deferredSpecs.addToSplit_specs(spec);
+        }
+      }
+    }
+    if (scanRangeSpecs_.isSetSplit_specs()) {
+      for (TFileSplitGeneratorSpec spec: scanRangeSpecs_.getSplit_specs()) {
+        addDeferredSplitSpecs(spec, deferredSpecs);
+      }
+    }
+    // The executors now generate the concrete scan ranges.
+    generatedScanRangeCount_ += scanRangeSpecs_.getConcrete_rangesSize();
+    scanRangeSpecs_ = deferredSpecs;
+    deferScanRanges_ = true;
+  }
+
+  /**
+   * Adds the split spec 'spec' of a file without blocks to 'deferredSpecs'. Splittable
+   * files are split into specs of at most the maximum block size of 'spec' so that they
+   * can be scheduled on several hosts.
+   */
+  private static void addDeferredSplitSpecs(TFileSplitGeneratorSpec spec,
+      TScanRangeSpec deferredSpecs) {
+    long fileLength = FileDescriptor.fromThrift(spec.getFile_desc()).getFileLength();
+    if (!spec.isIs_splittable() || fileLength <= spec.getMax_block_size()) {
+      deferredSpecs.addToSplit_specs(spec);
+      return;
+    }
+    for (long offset = 0; offset < fileLength; offset += spec.getMax_block_size()) {
+      TFileSplitGeneratorSpec rangeSpec = spec.deepCopy();
+      rangeSpec.setOffset(offset);
+      rangeSpec.setLength(Math.min(spec.getMax_block_size(), fileLength - offset));
+      deferredSpecs.addToSplit_specs(rangeSpec);
+    }
+  }
+
   /**
    * Given a fileDesc of partition, transforms the blocks into TScanRanges. Each range
    * is paired with information about where the block is located so that the backend
    * coordinator can assign ranges to workers to avoid remote reads. These
    * TScanRangeLocationLists are added to scanRanges_. A pair is returned that indicates
    * whether the file has a missing disk id and the maximum scan range (in bytes) found.
+   * 'bucketId' is the Hive bucket of the file, or -1 if not known.
    */
   private Pair<Boolean, Long> transformBlocksToScanRanges(FeFsPartition partition,
       FileDescriptor fileDesc, boolean fsHasBlocks,
-      long scanRangeBytesLimit, Analyzer analyzer) {
+      long scanRangeBytesLimit, int bucketId, Analyzer analyzer) {
     Preconditions.checkArgument(fileDesc.getNumFileBlocks() > 0);
     boolean fileDescMissingDiskIds = false;
     long fileMaxScanRangeBytes = 0;
@@ -954,10 +1162,12 @@ public class HdfsScanNode extends ScanNode {
           currentLength = scanRangeBytesLimit;
         }
         TScanRange scanRange = new TScanRange();
-        scanRange.setHdfs_file_split(new THdfsFileSplit(fileDesc.getFileName(),
+        THdfsFileSplit fileSplit = new THdfsFileSplit(fileDesc.getFileName(),
             currentOffset, currentLength, partition.getId(), fileDesc.getFileLength(),
             fileDesc.getFileCompression().toThrift(), fileDesc.getModificationTime(),
-            fileDesc.getIsEc()));
+            fileDesc.getIsEc());
+        if (bucketId >= 0) fileSplit.setBucket_id(bucketId);
+        scanRange.setHdfs_file_split(fileSplit);
         TScanRangeLocationList scanRangeLocations = new TScanRangeLocationList();
         scanRangeLocations.scan_range = scanRange;
         scanRangeLocations.locations = locations;
@@ -979,6 +1189,22 @@ public class HdfsScanNode extends ScanNode {
     return new Pair<Boolean, Long>(fileDescMissingDiskIds, fileMaxScanRangeBytes);
   }
 
+  /**
+   * Determines the backend scan node implementation to use. The optimized MT
+   * implementation is currently supported for Parquet, ORC and Text.
+   */
+  @Override
+  public void computeUseMtScanNode(TQueryOptions queryOptions) {
+    useMtScanNode_ = queryOptions.isSetMt_dop() && queryOptions.mt_dop > 0 &&
+        fileFormats_.size() == 1 &&
+        (fileFormats_.contains(HdfsFileFormat.PARQUET)
+          || fileFormats_.contains(HdfsFileFormat.ORC)
+          || fileFormats_.contains(HdfsFileFormat.TEXT));
+  }
+
+  @Override
+  public long getScanBytes() { return totalBytes_; }
+
   /**
    * Computes the average row size, input and output cardinalities, and estimates the
    * number of nodes.
@@ -989,9 +1215,31 @@ public class HdfsScanNode extends ScanNode {
     Preconditions.checkNotNull(scanRangeSpecs_);
     super.computeStats(analyzer);
     computeCardinalities();
+    applyExecFeedback();
     computeNumNodes(analyzer, cardinality_);
   }
 
+  @Override
+  protected String computeFeedbackSignature() {
+    // Nothing to scan, the estimate is exact.
+    if (totalBytes_ == 0) return null;
+    // Scans of relative collection paths are executed once per row of a subplan.
+    if (!desc_.getPath().isRootedAtTable()) return null;
+    // With the Parquet count(*) optimization the scan returns one row per row group
+    // instead of the rows of the table.
+    if (countStarSlot_ != null) return null;
+    List<String> partitionNames = new ArrayList<>();
+    for (FeFsPartition partition: partitions_) {
+      partitionNames.add(partition.getPartitionName());
+    }
+    Collections.sort(partitionNames);
+    return ExecFeedbackStore.getSignature(Joiner.on('|').join("HDFS SCAN",
+        Joiner.on('.').join(desc_.getPath().getFullyQualifiedRawPath()),
+        Joiner.on(',').join(partitionNames),
+        sampleParams_ == null ? "" : sampleParams_.toSql(ToSqlOptions.DEFAULT),
+        ExecFeedbackStore.getFingerprint(conjuncts_)));
+  }
+
   /**
    * Computes and sets the input and output cardinalities.
    *
@@ -1282,6 +1530,10 @@ public class HdfsScanNode extends ScanNode {
         output.append(detailPrefix + "runtime filters: ");
         output.append(getRuntimeFilterExplainString(false, detailLevel));
       }
+      if (deferScanRanges_) {
+        output.append(detailPrefix)
+          .append("scan ranges: deferred until the runtime filters arrive\n");
+      }
     }
     if (detailLevel.ordinal() >= TExplainLevel.EXTENDED.ordinal()) {
       output.append(getStatsExplainString(detailPrefix));
@@ -0,0 +1,360 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.planner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.impala.analysis.Analyzer;
+import org.apache.impala.analysis.CollectionTableRef;
+import org.apache.impala.analysis.Expr;
+import org.apache.impala.analysis.ExprId;
+import org.apache.impala.analysis.JoinOperator;
+import org.apache.impala.analysis.SingularRowSrcTableRef;
+import org.apache.impala.analysis.SlotDescriptor;
+import org.apache.impala.analysis.SlotId;
+import org.apache.impala.analysis.TableRef;
+import org.apache.impala.analysis.TupleId;
+import org.apache.impala.common.ImpalaException;
+import org.apache.impala.common.Pair;
+import org.apache.impala.planner.JoinNode.DistributionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Cost-based enumeration of the join orders of inner-joined table refs, including bushy
+ * join trees, with the DPccp dynamic programming algorithm (Moerkotte and Neumann,
+ * "Analysis of Two Existing and One New Dynamic Programming Algorithm for the
+ * Generation of Optimal Bushy Join Trees without Cross Products", VLDB 2006).
+ *
+ * The table refs are the vertices of a join graph whose edges are the equi-join
+ * predicates between them, including those implied by slot equivalence classes. DPccp
+ * enumerates every pair of disjoint connected subgraphs that are connected to each
+ * other exactly once, and keeps the cheapest plan for each connected subgraph. Only
+ * hash joins are considered, so plans never contain cross products.
+ *
+ * The cost of a join is the amount of data that it sends over the network and inserts
+ * into its hash table, estimated the same way as DistributedPlanner does to choose
+ * between a broadcast and a partitioned join, plus the size of its probe input. The
+ * cost of a plan is the sum of the costs of its joins.
+ *
+ * The number of join candidates grows exponentially with the number of table refs for
+ * densely connected join graphs, so the enumeration gives up after creating
+ * MAX_NUM_CANDIDATES candidates. The caller then falls back to the greedy heuristic.
+ */
+class JoinEnumerator {
+  private final static Logger LOG = LoggerFactory.getLogger(JoinEnumerator.class);
+
+  // Maximum number of candidate join nodes that are created before giving up.
+  private final static int MAX_NUM_CANDIDATES = 100000;
+
+  // The cheapest plan for a set of relations and its cost.
+  private static class JoinPlan {
+    final PlanNode root;
+    final double cost;
+
+    JoinPlan(PlanNode root, double cost) {
+      this.root = root;
+      this.cost = cost;
+    }
+  }
+
+  private final SingleNodePlanner planner_;
+  private final PlannerContext ctx_;
+  private final Analyzer analyzer_;
+
+  // The plans of the relations to join, numbered in breadth-first order of the join
+  // graph as DPccp requires.
+  private final List<PlanNode> relations_ = new ArrayList<>();
+
+  // Bitmask of the neighbors of each relation in the join graph.
+  private long[] neighbors_;
+
+  // Maps sets of relations, as bitmasks, to their cheapest plan.
+  private final Map<Long, JoinPlan> bestPlans_ = new HashMap<>();
+
+  private int numCandidates_ = 0;
+
+  private JoinEnumerator(SingleNodePlanner planner, PlannerContext ctx,
+      Analyzer analyzer) {
+    planner_ = planner;
+    ctx_ = ctx;
+    analyzer_ = analyzer;
+  }
+
+  /**
+   * Returns the cheapest bushy join plan for the given table refs and their plans.
+   * Returns null if the table refs cannot be reordered freely, if the plans do not
+   * have cardinality estimates, if the join graph is not connected, or if there are
+   * too many candidates. The state of conjunct assignment in 'analyzer' is unchanged
+   * in that case.
+   */
+  public static PlanNode createJoinPlan(SingleNodePlanner planner, PlannerContext ctx,
+      Analyzer analyzer, List<Pair<TableRef, PlanNode>> refPlans)
+      throws ImpalaException {
+    if (refPlans.size() < 2 || refPlans.size() >= Long.SIZE) return null;
+    for (int i = 0; i < refPlans.size(); ++i) {
+      TableRef ref = refPlans.get(i).first;
+      PlanNode plan = refPlans.get(i).second;
+      // The join op of the first table ref is not used for its join.
+      if (i > 0 && ref.getJoinOp() != JoinOperator.INNER_JOIN) return null;
+      if (!ref.getJoinHints().isEmpty()
+          || ref.getDistributionMode() != DistributionMode.NONE) {
+        return null;
+      }
+      if (ref instanceof SingularRowSrcTableRef || ref instanceof CollectionTableRef) {
+        return null;
+      }
+      if (plan.getCardinality() == -1) return null;
+    }
+
+    Set<ExprId> assignedConjuncts = analyzer.getAssignedConjuncts();
+    JoinEnumerator enumerator = new JoinEnumerator(planner, ctx, analyzer);
+    PlanNode result = null;
+    if (enumerator.buildJoinGraph(refPlans)) result = enumerator.enumerate();
+    if (result == null) {
+      analyzer.setAssignedConjuncts(assignedConjuncts);
+      return null;
+    }
+    Set<PlanNode> leaves = new HashSet<>(enumerator.relations_);
+    enumerator.assignNodeIds(result, leaves);
+    analyzer.setAssignedConjuncts(result.getAssignedConjuncts());
+    return result;
+  }
+
+  /**
+   * Populates relations_ in breadth-first order starting with the first table ref and
+   * computes the neighbors of each relation. Returns false if the join graph is not
+   * connected.
+   */
+  private boolean buildJoinGraph(List<Pair<TableRef, PlanNode>> refPlans) {
+    int n = refPlans.size();
+    boolean[][] connected = new boolean[n][n];
+    for (int i = 0; i < n; ++i) {
+      for (int j = i + 1; j < n; ++j) {
+        connected[i][j] = isConnected(refPlans.get(i).second, refPlans.get(j).second);
+        connected[j][i] = connected[i][j];
+      }
+    }
+
+    // Position of each table ref in relations_, or -1 if not visited yet.
+    int[] positions = new int[n];
+    for (int i = 0; i < n; ++i) positions[i] = -1;
+    List<Integer> order = new ArrayList<>();
+    Deque<Integer> queue = new ArrayDeque<>();
+    queue.add(0);
+    positions[0] = 0;
+    while (!queue.isEmpty()) {
+      int i = queue.poll();
+      order.add(i);
+      for (int j = 0; j < n; ++j) {
+        if (!connected[i][j] || positions[j] != -1) continue;
+        positions[j] = order.size() + queue.size();
+        queue.add(j);
+      }
+    }
+    if (order.size() < n) return false;
+
+    neighbors_ = new long[n];
+    for (int i: order) {
+      relations_.add(refPlans.get(i).second);
+      for (int j = 0; j < n; ++j) {
+        if (connected[i][j]) neighbors_[positions[i]] |= 1L << positions[j];
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if there is an equi-join predicate between 'a' and 'b' that can be
+   * evaluated by a hash join, either registered or implied by an equivalence class.
+   */
+  private boolean isConnected(PlanNode a, PlanNode b) {
+    List<TupleId> aIds = a.getTblRefIds();
+    List<TupleId> bIds = b.getTblRefIds();
+    for (Expr e: analyzer_.getEqJoinConjuncts(aIds, bIds)) {
+      if (SingleNodePlanner.getNormalizedEqPred(e, aIds, bIds, analyzer_) != null) {
+        return true;
+      }
+    }
+    Set<TupleId> aIdSet = new HashSet<>(aIds);
+    for (TupleId bId: bIds) {
+      for (SlotDescriptor slotDesc: analyzer_.getTupleDesc(bId).getSlots()) {
+        for (SlotId sid: analyzer_.getEquivClass(slotDesc.getId())) {
+          if (aIdSet.contains(analyzer_.getTupleId(sid))) return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Runs DPccp and returns the cheapest plan joining all relations, or null if there
+   * is none or there were too many candidates.
+   */
+  private PlanNode enumerate() throws ImpalaException {
+    int n = relations_.size();
+    for (int i = 0; i < n; ++i) {
+      bestPlans_.put(1L << i, new JoinPlan(relations_.get(i), 0));
+    }
+    for (int i = n - 1; i >= 0; --i) {
+      long s = 1L << i;
+      emitCsg(s);
+      enumerateCsgRec(s, prefix(i));
+      if (numCandidates_ > MAX_NUM_CANDIDATES) {
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("Too many join candidates, falling back to greedy join ordering");
+        }
+        return null;
+      }
+    }
+    JoinPlan result = bestPlans_.get((1L << n) - 1);
+    if (result == null) return null;
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Enumerated " + numCandidates_ + " join candidates, cost=" +
+          result.cost);
+    }
+    return result.root;
+  }
+
+  // Returns the set of relations with a position less than or equal to 'i'.
+  private static long prefix(int i) { return (1L << (i + 1)) - 1; }
+
+  // Returns the union of the neighbors of the relations in 's'.
+  private long neighborhood(long s) {
+    long result = 0;
+    for (long rest = s; rest != 0; rest &= rest - 1) {
+      result |= neighbors_[Long.numberOfTrailingZeros(rest)];
+    }
+    return result;
+  }
+
+  /**
+   * Emits all connected subgraphs that extend 's' with relations that are reachable
+   * from it and not in 'excluded'.
+   */
+  private void enumerateCsgRec(long s, long excluded) throws ImpalaException {
+    if (numCandidates_ > MAX_NUM_CANDIDATES) return;
+    long n = neighborhood(s) & ~excluded;
+    if (n == 0) return;
+    // Enumerate the non-empty subsets of 'n' in ascending order.
+    for (long sub = n & -n; sub != 0; sub = (sub - n) & n) emitCsg(s | sub);
+    for (long sub = n & -n; sub != 0; sub = (sub - n) & n) {
+      enumerateCsgRec(s | sub, excluded | n);
+    }
+  }
+
+  /**
+   * Emits the pairs of 's1' and all connected subgraphs that are connected to it and
+   * whose relations have greater positions than the first relation of 's1'.
+   */
+  private void emitCsg(long s1) throws ImpalaException {
+    if (numCandidates_ > MAX_NUM_CANDIDATES) return;
+    long excluded = s1 | prefix(Long.numberOfTrailingZeros(s1));
+    long n = neighborhood(s1) & ~excluded;
+    for (int i = Long.SIZE - 1 - Long.numberOfLeadingZeros(n); i >= 0; --i) {
+      if ((n & (1L << i)) == 0) continue;
+      long s2 = 1L << i;
+      emitCsgCmp(s1, s2);
+      enumerateCmpRec(s1, s2, excluded | (prefix(i) & n));
+    }
+  }
+
+  /**
+   * Emits the pairs of 's1' and all connected extensions of 's2' with relations that
+   * are not in 'excluded'.
+   */
+  private void enumerateCmpRec(long s1, long s2, long excluded) throws ImpalaException {
+    if (numCandidates_ > MAX_NUM_CANDIDATES) return;
+    long n = neighborhood(s2) & ~excluded;
+    if (n == 0) return;
+    for (long sub = n & -n; sub != 0; sub = (sub - n) & n) emitCsgCmp(s1, s2 | sub);
+    for (long sub = n & -n; sub != 0; sub = (sub - n) & n) {
+      enumerateCmpRec(s1, s2 | sub, excluded | n);
+    }
+  }
+
+  /**
+   * Considers joining the cheapest plans of 's1' and 's2' with either as the build
+   * side.
+   */
+  private void emitCsgCmp(long s1, long s2) throws ImpalaException {
+    JoinPlan plan1 = bestPlans_.get(s1);
+    JoinPlan plan2 = bestPlans_.get(s2);
+    if (plan1 == null || plan2 == null) return;
+    considerJoin(s1 | s2, plan1, plan2);
+    considerJoin(s1 | s2, plan2, plan1);
+  }
+
+  private void considerJoin(long s, JoinPlan outer, JoinPlan inner)
+      throws ImpalaException {
+    if (++numCandidates_ > MAX_NUM_CANDIDATES) return;
+    Set<ExprId> assignedConjuncts = new HashSet<>(outer.root.getAssignedConjuncts());
+    assignedConjuncts.addAll(inner.root.getAssignedConjuncts());
+    analyzer_.setAssignedConjuncts(assignedConjuncts);
+    PlanNode candidate =
+        planner_.createInnerHashJoinNode(outer.root, inner.root, analyzer_);
+    if (candidate == null || candidate.getCardinality() == -1) return;
+    double cost = outer.cost + inner.cost + getJoinCost(candidate);
+    JoinPlan best = bestPlans_.get(s);
+    if (best == null || cost < best.cost) {
+      bestPlans_.put(s, new JoinPlan(candidate, cost));
+    }
+  }
+
+  /**
+   * Returns the cost of 'join' without the cost of its inputs. See the class comment.
+   */
+  private double getJoinCost(PlanNode join) {
+    PlanNode lhs = join.getChild(0);
+    PlanNode rhs = join.getChild(1);
+    double lhsDataSize =
+        lhs.getCardinality() * ExchangeNode.getAvgSerializedRowSize(lhs);
+    double rhsDataSize =
+        rhs.getCardinality() * ExchangeNode.getAvgSerializedRowSize(rhs);
+    if (ctx_.isSingleNodeExec()) return lhsDataSize + rhsDataSize;
+    // Ignores that inputs may already be partitioned compatibly.
+    double broadcastCost = 2 * rhsDataSize * Math.max(1, lhs.getNumNodes());
+    double partitionCost = lhsDataSize + 2 * rhsDataSize;
+    long memLimit = ctx_.getQueryOptions().mem_limit;
+    double htSize = rhsDataSize * PlannerContext.HASH_TBL_SPACE_OVERHEAD;
+    double distributionCost = (memLimit == 0 || htSize <= memLimit) ?
+        Math.min(broadcastCost, partitionCost) : partitionCost;
+    return distributionCost + lhsDataSize;
+  }
+
+  /**
+   * Assigns node ids bottom-up to the join nodes of the plan rooted at 'node', which
+   * were created without ids. 'leaves' are the plans of the relations.
+   */
+  private void assignNodeIds(PlanNode node, Set<PlanNode> leaves) {
+    if (leaves.contains(node)) return;
+    Preconditions.checkState(node instanceof HashJoinNode);
+    assignNodeIds(node.getChild(0), leaves);
+    assignNodeIds(node.getChild(1), leaves);
+    node.setId(ctx_.getNextNodeId());
+  }
+}
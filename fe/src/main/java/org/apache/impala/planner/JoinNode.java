@@ -40,6 +40,7 @@ import org.apache.impala.thrift.TQueryOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 
 /**
@@ -361,10 +362,20 @@ public abstract class JoinNode extends PlanNode {
     for (EqJoinConjunctScanSlots slots: eqJoinConjunctSlots) {
       // Adjust the NDVs on both sides to account for predicates. Intuitively, the NDVs
       // should only decrease. We ignore adjustments that would lead to an increase.
+      // An aggregation returns every distinct value of its grouping exprs, so their
+      // NDVs are only bounded by its cardinality.
       double lhsAdjNdv = slots.lhsNdv();
-      if (slots.lhsNumRows() > lhsCard) lhsAdjNdv *= lhsCard / slots.lhsNumRows();
+      if (isGroupingSlot(getChild(0), slots.eqJoinConjunct_.getChild(0))) {
+        lhsAdjNdv = Math.min(lhsAdjNdv, lhsCard);
+      } else if (slots.lhsNumRows() > lhsCard) {
+        lhsAdjNdv *= lhsCard / slots.lhsNumRows();
+      }
       double rhsAdjNdv = slots.rhsNdv();
-      if (slots.rhsNumRows() > rhsCard) rhsAdjNdv *= rhsCard / slots.rhsNumRows();
+      if (isGroupingSlot(getChild(1), slots.eqJoinConjunct_.getChild(1))) {
+        rhsAdjNdv = Math.min(rhsAdjNdv, rhsCard);
+      } else if (slots.rhsNumRows() > rhsCard) {
+        rhsAdjNdv *= rhsCard / slots.rhsNumRows();
+      }
       // A lower limit of 1 on the max Adjusted Ndv ensures we don't estimate
       // cardinality more than the max possible. This also handles the case of
       // null columns on both sides having an Ndv of zero (which would change
@@ -381,6 +392,17 @@ public abstract class JoinNode extends PlanNode {
     return result;
   }
 
+  /**
+   * Returns true if 'expr' is a grouping slot of the aggregation 'node', possibly below
+   * exchanges.
+   */
+  private static boolean isGroupingSlot(PlanNode node, Expr expr) {
+    while (node instanceof ExchangeNode) node = node.getChild(0);
+    if (!(node instanceof AggregationNode)) return false;
+    SlotRef slotRef = expr.unwrapSlotRef(false);
+    return slotRef != null && ((AggregationNode) node).isGroupingSlot(slotRef.getDesc());
+  }
+
   /**
    * Holds the source scan slots of a <SlotRef> = <SlotRef> join predicate.
    * The underlying table and column on both sides have stats.
@@ -623,12 +645,24 @@ public abstract class JoinNode extends PlanNode {
       }
     }
     cardinality_ = capCardinalityAtLimit(cardinality_);
+    applyExecFeedback();
     Preconditions.checkState(hasValidStats());
     if (LOG.isTraceEnabled()) {
       LOG.trace("stats Join: cardinality=" + Long.toString(cardinality_));
     }
   }
 
+  @Override
+  protected String computeFeedbackSignature() {
+    String lhsSignature = getChildFeedbackSignature(0);
+    String rhsSignature = getChildFeedbackSignature(1);
+    if (lhsSignature == null || rhsSignature == null) return null;
+    return ExecFeedbackStore.getSignature(Joiner.on('|').join("JOIN", joinOp_,
+        ExecFeedbackStore.getFingerprint(eqJoinConjuncts_),
+        ExecFeedbackStore.getFingerprint(otherJoinConjuncts_),
+        ExecFeedbackStore.getFingerprint(conjuncts_), lhsSignature, rhsSignature));
+  }
+
   /**
    * Inverts the join op, swaps our children, and swaps the children
    * of all eqJoinConjuncts_. All modifications are in place.
@@ -35,12 +35,16 @@ import org.apache.impala.analysis.NumericLiteral;
 import org.apache.impala.analysis.SlotDescriptor;
 import org.apache.impala.analysis.SlotRef;
 import org.apache.impala.analysis.StringLiteral;
+import org.apache.impala.analysis.TableSampleClause;
+import org.apache.impala.analysis.ToSqlOptions;
 import org.apache.impala.analysis.TupleDescriptor;
 import org.apache.impala.catalog.FeKuduTable;
 import org.apache.impala.catalog.KuduColumn;
 import org.apache.impala.catalog.Type;
 import org.apache.impala.common.ImpalaRuntimeException;
 import org.apache.impala.service.BackendConfig;
+import org.apache.impala.service.FrontendProfile;
+import org.apache.impala.service.FrontendProfile.PhaseTimer;
 import org.apache.impala.thrift.TExplainLevel;
 import org.apache.impala.thrift.TKuduScanNode;
 import org.apache.impala.thrift.TNetworkAddress;
@@ -51,6 +55,7 @@ import org.apache.impala.thrift.TScanRange;
 import org.apache.impala.thrift.TScanRangeLocation;
 import org.apache.impala.thrift.TScanRangeLocationList;
 import org.apache.impala.thrift.TScanRangeSpec;
+import org.apache.impala.thrift.TUnit;
 import org.apache.impala.util.KuduUtil;
 import org.apache.kudu.ColumnSchema;
 import org.apache.kudu.Schema;
@@ -64,6 +69,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
@@ -83,6 +89,9 @@ import com.google.common.collect.Lists;
  *
  * After KUDU-1065 is resolved, Kudu will also prune the tablets that don't need to be
  * scanned, and only the tokens for those tablets will be returned.
+ *
+ * Supports scanning a random sample of the tablets based on the parameters from a
+ * TABLESAMPLE clause, see TableSampleClause.getUnitsSample().
  */
 public class KuduScanNode extends ScanNode {
   private final static Logger LOG = LoggerFactory.getLogger(KuduScanNode.class);
@@ -103,10 +112,19 @@ public class KuduScanNode extends ScanNode {
   // Exprs in kuduConjuncts_ converted to KuduPredicates.
   private final List<KuduPredicate> kuduPredicates_ = new ArrayList<>();
 
-  public KuduScanNode(PlanNodeId id, TupleDescriptor desc, List<Expr> conjuncts) {
+  // Parameters of the TABLESAMPLE clause or null if the tablets are not sampled.
+  private final TableSampleClause sampleParams_;
+
+  // Number of scan tokens before and after sampling. Set in computeScanRangeLocations().
+  private int numTokens_ = 0;
+  private int numSampledTokens_ = 0;
+
+  public KuduScanNode(PlanNodeId id, TupleDescriptor desc, List<Expr> conjuncts,
+      TableSampleClause sampleParams) {
     super(id, desc, "SCAN KUDU");
     kuduTable_ = (FeKuduTable) desc_.getTable();
     conjuncts_ = conjuncts;
+    sampleParams_ = sampleParams;
   }
 
   @Override
@@ -130,22 +148,28 @@ public class KuduScanNode extends ScanNode {
       computeMemLayout(analyzer);
 
       // Creates Kudu scan tokens and sets the scan range locations.
-      computeScanRangeLocations(analyzer, client, rpcTable);
+      try (PhaseTimer timer = FrontendProfile.startPhase(SCAN_RANGE_PROFILE_PHASE)) {
+        computeScanRangeLocations(analyzer, client, rpcTable);
+      }
+      FrontendProfile.addToPhaseCounter(SCAN_RANGE_PROFILE_PHASE, "ScanRanges",
+          TUnit.UNIT, scanRangeSpecs_.getConcrete_rangesSize());
     } catch (Exception e) {
       throw new ImpalaRuntimeException("Unable to initialize the Kudu scan node", e);
     }
 
-    // Determine backend scan node implementation to use.
-    if (analyzer.getQueryOptions().isSetMt_dop() &&
-        analyzer.getQueryOptions().mt_dop > 0) {
-      useMtScanNode_ = true;
-    } else {
-      useMtScanNode_ = false;
-    }
+    computeUseMtScanNode(analyzer.getQueryOptions());
 
     computeStats(analyzer);
   }
 
+  /**
+   * Determines the backend scan node implementation to use.
+   */
+  @Override
+  public void computeUseMtScanNode(TQueryOptions queryOptions) {
+    useMtScanNode_ = queryOptions.isSetMt_dop() && queryOptions.mt_dop > 0;
+  }
+
   /**
    * Validate the columns Impala expects are actually in the Kudu table.
    */
@@ -191,6 +215,8 @@ public class KuduScanNode extends ScanNode {
 
   /**
    * Compute the scan range locations for the given table using the scan tokens.
+   * If 'sampleParams_' is not null, only the tokens of a random sample of the tablets
+   * are used.
    */
   private void computeScanRangeLocations(Analyzer analyzer,
       KuduClient client, org.apache.kudu.client.KuduTable rpcTable)
@@ -198,6 +224,9 @@ public class KuduScanNode extends ScanNode {
     scanRangeSpecs_ = new TScanRangeSpec();
 
     List<KuduScanToken> scanTokens = createScanTokens(client, rpcTable);
+    numTokens_ = scanTokens.size();
+    if (sampleParams_ != null) scanTokens = getUnitsSample(sampleParams_, scanTokens);
+    numSampledTokens_ = scanTokens.size();
     for (KuduScanToken token: scanTokens) {
       LocatedTablet tablet = token.getTablet();
       List<TScanRangeLocation> locations = new ArrayList<>();
@@ -265,12 +294,27 @@ public class KuduScanNode extends ScanNode {
     inputCardinality_ = cardinality_ = kuduTable_.getNumRows();
     cardinality_ *= computeSelectivity();
     cardinality_ = Math.min(Math.max(1, cardinality_), kuduTable_.getNumRows());
+    // Adjust the cardinality based on table sampling.
+    if (sampleParams_ != null && cardinality_ != -1 && numTokens_ > 0) {
+      cardinality_ = Math.max(1,
+          Math.round(cardinality_ * (double) numSampledTokens_ / numTokens_));
+    }
     cardinality_ = capCardinalityAtLimit(cardinality_);
+    applyExecFeedback();
     if (LOG.isTraceEnabled()) {
       LOG.trace("computeStats KuduScan: cardinality=" + Long.toString(cardinality_));
     }
   }
 
+  @Override
+  protected String computeFeedbackSignature() {
+    return ExecFeedbackStore.getSignature(Joiner.on('|').join("KUDU SCAN",
+        kuduTable_.getFullName(),
+        sampleParams_ == null ? "" : sampleParams_.toSql(ToSqlOptions.DEFAULT),
+        ExecFeedbackStore.getFingerprint(kuduConjuncts_),
+        ExecFeedbackStore.getFingerprint(conjuncts_)));
+  }
+
   @Override
   public void computeNodeResourceProfile(TQueryOptions queryOptions) {
     // The bulk of memory used by Kudu scan node is generally utilized by the
@@ -319,6 +363,10 @@ public class KuduScanNode extends ScanNode {
           result.append(detailPrefix + "kudu predicates: "
               + getExplainString(kuduConjuncts_, detailLevel) + "\n");
         }
+        if (sampleParams_ != null) {
+          result.append(String.format("%ssampled tablets=%d/%d\n", detailPrefix,
+              numSampledTokens_, numTokens_));
+        }
         if (!runtimeFilters_.isEmpty()) {
           result.append(detailPrefix + "runtime filters: ");
           result.append(getRuntimeFilterExplainString(false, detailLevel));
@@ -0,0 +1,355 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.planner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.impala.common.PrintUtils;
+import org.apache.impala.common.RuntimeEnv;
+import org.apache.impala.thrift.TQueryOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+
+/**
+ * Selects the degree of intra-node parallelism of a query, i.e. its MT_DOP, if the
+ * MAX_AUTO_MT_DOP query option is set and MT_DOP is not. The parallelism is chosen per
+ * plan fragment:
+ * - A fragment with a leftmost scan gets one instance per host for every
+ *   BYTES_PER_INSTANCE bytes scanned per host, or for every ROWS_PER_INSTANCE rows
+ *   processed per host by the plan nodes of the fragment, whichever is larger.
+ * - Fragments that are collocated with their leftmost input fragment get the
+ *   parallelism of that input, since the scheduler creates one instance per input
+ *   instance for them. Unpartitioned fragments and fragments with a union are executed
+ *   with a single instance per host.
+ * The parallelism of a fragment is bounded by MAX_AUTO_MT_DOP and by the number of
+ * cores. If the query has a memory limit, or its resource pool has a maximum query
+ * memory limit, the parallelism is lowered until the estimated per-host memory of all
+ * fragment instances fits into the limit. The MT_DOP of the query is the largest
+ * parallelism of its fragments, and the other fragments are bounded through
+ * PlanFragment.setMaxInstancesPerHost().
+ *
+ * Only queries that can be executed with MT_DOP are parallelized, i.e. plans without
+ * joins and table sinks. The reasoning behind the selection is recorded for the
+ * explain plan, see getExplainString().
+ */
+public class MtDopSelector {
+  private final static Logger LOG = LoggerFactory.getLogger(MtDopSelector.class);
+
+  // Number of bytes scanned per host for which one fragment instance is added.
+  @VisibleForTesting
+  static final long BYTES_PER_INSTANCE = 256L * 1024 * 1024;
+
+  // Number of rows processed per host for which one fragment instance is added.
+  @VisibleForTesting
+  static final long ROWS_PER_INSTANCE = 10L * 1000 * 1000;
+
+  private final PlannerContext ctx_;
+
+  // Selected parallelism of the fragments, i.e. their instances per host.
+  private final Map<PlanFragment, Integer> dops_ = new HashMap<>();
+
+  // Reasoning of the selection for the fragments with a leftmost scan, in plan order.
+  private final List<String> fragmentReasons_ = new ArrayList<>();
+
+  // Selected MT_DOP, or 0 if the query is not parallelized.
+  private int mtDop_ = 0;
+
+  // Reason why the query is not parallelized. Null if it is.
+  private String notSelectedReason_;
+
+  public MtDopSelector(PlannerContext ctx) { ctx_ = ctx; }
+
+  /**
+   * Returns true if the planner selects the MT_DOP of a query with the given options.
+   */
+  public static boolean isEnabled(TQueryOptions queryOptions) {
+    return queryOptions.getMax_auto_mt_dop() > 0 && queryOptions.getMt_dop() == 0;
+  }
+
+  public int getMtDop() { return mtDop_; }
+
+  /**
+   * Selects the parallelism of the fragments of the distributed plan rooted at
+   * 'rootFragment' and sets the MT_DOP query option accordingly. Returns the selected
+   * MT_DOP, which is 0 if the query is not parallelized.
+   */
+  public int selectMtDop(PlanFragment rootFragment) {
+    Preconditions.checkState(isEnabled(ctx_.getQueryOptions()));
+    notSelectedReason_ = checkEligible(rootFragment);
+    if (notSelectedReason_ != null) return 0;
+
+    TQueryOptions queryOptions = ctx_.getQueryOptions();
+    int maxDop = Math.min(queryOptions.getMax_auto_mt_dop(),
+        Math.max(1, RuntimeEnv.INSTANCE.getNumCores()));
+    String maxDopLimit = maxDop < queryOptions.getMax_auto_mt_dop() ?
+        "number of cores=" + maxDop :
+        "MAX_AUTO_MT_DOP=" + queryOptions.getMax_auto_mt_dop();
+
+    // Fragments in post-order so that inputs come before the fragments collocated with
+    // them.
+    List<PlanFragment> fragments = rootFragment.getNodesPostOrder();
+    Map<PlanFragment, String> costs = new HashMap<>();
+    Map<PlanFragment, String> limits = new HashMap<>();
+    int queryDop = 1;
+    for (PlanFragment fragment: fragments) {
+      int dop = 1;
+      if (hasSingleInstancePerHost(fragment)) {
+        dop = 1;
+      } else if (getLeftmostNode(fragment) instanceof ScanNode) {
+        long bytesPerHost = getPerHost(getScanBytes(fragment), fragment);
+        long rowsPerHost = getPerHost(getProcessedRows(fragment), fragment);
+        dop = Math.max(divideRoundUp(bytesPerHost, BYTES_PER_INSTANCE),
+            divideRoundUp(rowsPerHost, ROWS_PER_INSTANCE));
+        dop = Math.max(1, dop);
+        if (dop > maxDop) {
+          dop = maxDop;
+          limits.put(fragment, maxDopLimit);
+        }
+        costs.put(fragment, String.format(
+            "scan bytes per host=%s, processed rows per host=%s",
+            bytesPerHost < 0 ? "unavailable" : PrintUtils.printBytes(bytesPerHost),
+            PrintUtils.printCardinality(rowsPerHost)));
+      } else {
+        PlanFragment input = getLeftmostInput(fragment);
+        if (input != null && dops_.containsKey(input)) dop = dops_.get(input);
+      }
+      dops_.put(fragment, dop);
+      queryDop = Math.max(queryDop, dop);
+    }
+
+    // Lower the parallelism until the estimated per-host memory fits into the limit.
+    long memLimit = getMemLimit();
+    String memLimitStr = "memory limit=" + PrintUtils.printBytes(memLimit);
+    if (memLimit > 0 && queryDop > 1) {
+      // Per-instance memory estimates, which are based on the highest parallelism.
+      applyMtDop(fragments, queryDop);
+      for (PlanFragment fragment: fragments) {
+        fragment.computeResourceProfile(ctx_.getRootAnalyzer());
+      }
+      int cap = queryDop;
+      while (cap > 1 && getPerHostMemEstimate(fragments, cap) > memLimit) --cap;
+      if (cap < queryDop) {
+        for (PlanFragment fragment: fragments) {
+          if (dops_.get(fragment) <= cap) continue;
+          dops_.put(fragment, cap);
+          if (costs.containsKey(fragment)) limits.put(fragment, memLimitStr);
+        }
+        queryDop = cap;
+      }
+    }
+
+    if (queryDop <= 1) {
+      if (limits.containsValue(memLimitStr)) {
+        notSelectedReason_ = "the estimated per-host memory exceeds the " + memLimitStr +
+            " with more than one fragment instance per host";
+      } else {
+        notSelectedReason_ = "the estimated work per host does not benefit from " +
+            "more than one fragment instance per host";
+      }
+      applyMtDop(fragments, 0);
+      return 0;
+    }
+    applyMtDop(fragments, queryDop);
+    mtDop_ = queryDop;
+
+    for (PlanFragment fragment: rootFragment.getNodesPreOrder()) {
+      if (!costs.containsKey(fragment)) continue;
+      StringBuilder reason = new StringBuilder();
+      reason.append(String.format("%s: instances per host=%d (%s)",
+          fragment.getId(), dops_.get(fragment), costs.get(fragment)));
+      if (limits.containsKey(fragment)) {
+        reason.append(", limited by ").append(limits.get(fragment));
+      }
+      fragmentReasons_.add(reason.toString());
+    }
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Selected MT_DOP=" + mtDop_ + ": " +
+          Joiner.on("; ").join(fragmentReasons_));
+    }
+    return mtDop_;
+  }
+
+  /**
+   * Returns the reason why the plan rooted at 'rootFragment' cannot be executed with
+   * MT_DOP, or null if it can.
+   */
+  private String checkEligible(PlanFragment rootFragment) {
+    if (ctx_.hasTableSink()) return "the query has a table sink";
+    if (ctx_.isSingleNodeExec()) return "the query is executed on a single node";
+    PlanNode planRoot = rootFragment.getPlanRoot();
+    if (planRoot.contains(JoinNode.class)) return "the plan contains joins";
+    if (!planRoot.contains(ScanNode.class)) return "the plan does not scan any tables";
+    return null;
+  }
+
+  /**
+   * Sets 'mtDop' as the MT_DOP of the query and bounds the parallelism of the
+   * fragments by their selected parallelism. The scan nodes of the plan choose their
+   * backend implementation for the new MT_DOP.
+   */
+  private void applyMtDop(List<PlanFragment> fragments, int mtDop) {
+    TQueryOptions queryOptions = ctx_.getQueryOptions();
+    queryOptions.setMt_dop(mtDop);
+    for (PlanFragment fragment: fragments) {
+      fragment.setMaxInstancesPerHost(mtDop > 0 ? dops_.get(fragment) : 0);
+      for (PlanNode node: fragment.collectPlanNodes()) {
+        if (node instanceof ScanNode) {
+          ((ScanNode) node).computeUseMtScanNode(queryOptions);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the memory limit that the per-host memory of the query should fit into:
+   * the MEM_LIMIT query option if set, otherwise the maximum query memory limit of the
+   * resource pool of the query. Returns 0 if there is no limit.
+   */
+  private long getMemLimit() {
+    long memLimit = ctx_.getQueryOptions().getMem_limit();
+    if (memLimit > 0) return memLimit;
+    if (ctx_.getQueryCtx().isSetPool_max_query_mem_limit()) {
+      return ctx_.getQueryCtx().getPool_max_query_mem_limit();
+    }
+    return 0;
+  }
+
+  /**
+   * Returns the estimated per-host memory of the fragments if no fragment has more
+   * than 'cap' instances per host.
+   */
+  private long getPerHostMemEstimate(List<PlanFragment> fragments, int cap) {
+    long result = 0;
+    for (PlanFragment fragment: fragments) {
+      ResourceProfile profile = fragment.getResourceProfile();
+      if (!profile.isValid()) continue;
+      result += profile.getMemEstimateBytes() * Math.min(cap, dops_.get(fragment));
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if the scheduler creates at most one instance of 'fragment' per host
+   * regardless of the MT_DOP: unpartitioned fragments, fragments with a union and scans
+   * of Hive-bucketed tables that are partitioned by their buckets.
+   */
+  private static boolean hasSingleInstancePerHost(PlanFragment fragment) {
+    return !fragment.isPartitioned()
+        || fragment.getDataPartition().isBucketPartitioned()
+        || fragment.getPlanRoot().contains(UnionNode.class);
+  }
+
+  /**
+   * Returns the leftmost plan node of 'fragment'.
+   */
+  private static PlanNode getLeftmostNode(PlanFragment fragment) {
+    PlanNode node = fragment.getPlanRoot();
+    while (!(node instanceof ExchangeNode) && node.hasChild(0)) node = node.getChild(0);
+    return node;
+  }
+
+  /**
+   * Returns the input fragment of 'fragment' that the scheduler collocates it with,
+   * i.e. the fragment that sends to the leftmost exchange of 'fragment'. Returns null
+   * if the leftmost node of 'fragment' is not an exchange.
+   */
+  private static PlanFragment getLeftmostInput(PlanFragment fragment) {
+    PlanNode node = getLeftmostNode(fragment);
+    if (!(node instanceof ExchangeNode)) return null;
+    return node.getChild(0).getFragment();
+  }
+
+  /**
+   * Returns the share of 'value' per host that executes 'fragment', or -1 if 'value'
+   * is -1, i.e. unknown.
+   */
+  private static long getPerHost(long value, PlanFragment fragment) {
+    if (value < 0) return -1;
+    return value / Math.max(1, fragment.getNumNodes());
+  }
+
+  /**
+   * Returns the estimated number of bytes read by the scans of 'fragment', or -1 if
+   * unknown.
+   */
+  private static long getScanBytes(PlanFragment fragment) {
+    long result = 0;
+    for (PlanNode node: fragment.collectPlanNodes()) {
+      if (!(node instanceof ScanNode)) continue;
+      long scanBytes = ((ScanNode) node).getScanBytes();
+      if (scanBytes < 0) return -1;
+      result += scanBytes;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the estimated number of rows processed by the plan nodes of 'fragment',
+   * i.e. the rows read by its scans and the input rows of all other nodes except for
+   * the exchanges. Returns -1 if unknown.
+   */
+  @VisibleForTesting
+  static long getProcessedRows(PlanFragment fragment) {
+    long result = 0;
+    for (PlanNode node: fragment.collectPlanNodes()) {
+      if (node instanceof ExchangeNode) continue;
+      if (node instanceof ScanNode) {
+        long inputCardinality = node.getInputCardinality();
+        if (inputCardinality < 0) return -1;
+        result += inputCardinality;
+        continue;
+      }
+      for (PlanNode child: node.getChildren()) {
+        if (child.getCardinality() < 0) return -1;
+        result += child.getCardinality();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns ceil(value / divisor) for a non-negative 'value', or 0 if 'value' is
+   * negative, i.e. unknown.
+   */
+  private static int divideRoundUp(long value, long divisor) {
+    if (value <= 0) return 0;
+    return (int) Math.min(Integer.MAX_VALUE, (value + divisor - 1) / divisor);
+  }
+
+  /**
+   * Returns the reasoning of the selection for the explain plan.
+   */
+  public String getExplainString() {
+    StringBuilder str = new StringBuilder();
+    if (mtDop_ == 0) {
+      Preconditions.checkNotNull(notSelectedReason_);
+      str.append("MT_DOP not selected by planner: " + notSelectedReason_ + "\n");
+      return str.toString();
+    }
+    str.append("MT_DOP selected by planner: " + mtDop_ + "\n");
+    for (String reason: fragmentReasons_) str.append("  " + reason + "\n");
+    return str.toString();
+  }
+}
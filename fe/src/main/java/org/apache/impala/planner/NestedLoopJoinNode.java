@@ -111,6 +111,10 @@ public class NestedLoopJoinNode extends JoinNode {
         output.append(detailPrefix + "predicates: ")
             .append(getExplainString(conjuncts_, detailLevel) + "\n");
       }
+      if (!runtimeFilters_.isEmpty()) {
+        output.append(detailPrefix + "runtime filters: ");
+        output.append(getRuntimeFilterExplainString(true, detailLevel));
+      }
     }
     return output.toString();
   }
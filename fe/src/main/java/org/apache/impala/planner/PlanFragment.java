@@ -113,6 +113,11 @@ public class PlanFragment extends TreeNode<PlanFragment> {
   // managed by this fragment.
   private long runtimeFiltersMemReservationBytes_ = 0;
 
+  // Maximum number of instances of this fragment per host if the planner selected the
+  // degree of parallelism of this fragment, see MtDopSelector. 0 if the MT_DOP query
+  // option applies unchanged.
+  private int maxInstancesPerHost_ = 0;
+
   /**
    * C'tor for fragment with specific partition; the output is by default broadcast.
    */
@@ -229,6 +234,7 @@ public class PlanFragment extends TreeNode<PlanFragment> {
   public void computeResourceProfile(Analyzer analyzer) {
     // Compute resource profiles for all plan nodes and sinks in the fragment.
     sink_.computeResourceProfile(analyzer.getQueryOptions());
+    runtimeFiltersMemReservationBytes_ = 0;
     Set<RuntimeFilterId> filterSet = new HashSet<>();
     for (PlanNode node: collectPlanNodes()) {
       node.computeNodeResourceProfile(analyzer.getQueryOptions());
@@ -286,7 +292,8 @@ public class PlanFragment extends TreeNode<PlanFragment> {
   public int getNumInstancesPerHost(int mt_dop) {
     Preconditions.checkState(mt_dop >= 0);
     if (dataPartition_ == DataPartition.UNPARTITIONED) return 1;
-    return mt_dop == 0 ? 1 : mt_dop;
+    if (mt_dop == 0) return 1;
+    return maxInstancesPerHost_ > 0 ? Math.min(mt_dop, maxInstancesPerHost_) : mt_dop;
   }
 
   /**
@@ -336,6 +343,7 @@ public class PlanFragment extends TreeNode<PlanFragment> {
     }
     if (sink_ != null) result.setOutput_sink(sink_.toThrift());
     result.setPartition(dataPartition_.toThrift());
+    if (maxInstancesPerHost_ > 0) result.setMax_instances_per_host(maxInstancesPerHost_);
     if (resourceProfile_.isValid()) {
       Preconditions.checkArgument(initialMemReservationTotalClaims_ > -1);
       result.setMin_mem_reservation_bytes(resourceProfile_.getMinMemReservationBytes());
@@ -462,6 +470,11 @@ public class PlanFragment extends TreeNode<PlanFragment> {
     this.outputPartition_ = outputPartition;
   }
   public PlanNode getPlanRoot() { return planRoot_; }
+  public int getMaxInstancesPerHost() { return maxInstancesPerHost_; }
+  public void setMaxInstancesPerHost(int maxInstancesPerHost) {
+    Preconditions.checkState(maxInstancesPerHost >= 0);
+    maxInstancesPerHost_ = maxInstancesPerHost;
+  }
   public void setPlanRoot(PlanNode root) {
     planRoot_ = root;
     setFragmentInPlanTree(planRoot_);
@@ -121,6 +121,15 @@ abstract public class PlanNode extends TreeNode<PlanNode> {
   // invalid: -1
   protected long cardinality_;
 
+  // Signature of this node in the ExecFeedbackStore and the estimate of cardinality_
+  // without execution feedback; set in applyExecFeedback(). The signature is null if
+  // the execution feedback is disabled or does not apply to this node.
+  protected String feedbackSignature_;
+  protected long statsCardinality_ = -1;
+
+  // True if cardinality_ is an observed cardinality from the execution feedback.
+  protected boolean isCardinalityFromFeedback_ = false;
+
   // number of nodes on which the plan tree rooted at this node would execute;
   // set in computeStats(); invalid: -1
   protected int numNodes_;
@@ -345,8 +354,9 @@ abstract public class PlanNode extends TreeNode<PlanNode> {
       expBuilder.append("row-size=")
         .append(PrintUtils.printBytes(Math.round(avgRowSize_)))
         .append(" cardinality=")
-        .append(PrintUtils.printCardinality(cardinality_))
-        .append("\n");
+        .append(PrintUtils.printCardinality(cardinality_));
+      if (isCardinalityFromFeedback_) expBuilder.append(" (from exec feedback)");
+      expBuilder.append("\n");
     }
 
     if (detailLevel.ordinal() >= TExplainLevel.EXTENDED.ordinal()) {
@@ -549,6 +559,40 @@ abstract public class PlanNode extends TreeNode<PlanNode> {
     if (!children_.isEmpty()) numNodes_ = getChild(0).numNodes_;
   }
 
+  /**
+   * Replaces cardinality_ with the cardinality observed in previous executions of a
+   * matching plan node, if there is one. Must be called by computeStats() of the nodes
+   * that implement computeFeedbackSignature(), after cardinality_ was estimated.
+   */
+  protected void applyExecFeedback() {
+    feedbackSignature_ = null;
+    statsCardinality_ = cardinality_;
+    isCardinalityFromFeedback_ = false;
+    ExecFeedbackStore store = ExecFeedbackStore.INSTANCE;
+    if (!store.isEnabled()) return;
+    feedbackSignature_ = computeFeedbackSignature();
+    long observedCardinality = store.getCardinality(feedbackSignature_, cardinality_);
+    if (observedCardinality < 0) return;
+    cardinality_ = capCardinalityAtLimit(observedCardinality);
+    isCardinalityFromFeedback_ = true;
+  }
+
+  /**
+   * Returns the signature that identifies this node in the ExecFeedbackStore, or null
+   * if the execution feedback does not apply to this node. Nodes with the same
+   * signature are expected to return the same rows.
+   */
+  protected String computeFeedbackSignature() { return null; }
+
+  /**
+   * Returns the feedback signature of the i-th child, looking through exchanges.
+   */
+  protected String getChildFeedbackSignature(int i) {
+    PlanNode child = getChild(i);
+    while (child instanceof ExchangeNode) child = child.getChild(0);
+    return child.feedbackSignature_;
+  }
+
   protected long capCardinalityAtLimit(long cardinality) {
     if (hasLimit()) {
       return capCardinalityAtLimit(cardinality, limit_);
@@ -581,7 +625,7 @@ abstract public class PlanNode extends TreeNode<PlanNode> {
    * The second issue is addressed by an exponential backoff when multiplying each
    * additional selectivity into the final result.
    */
-  static protected double computeCombinedSelectivity(List<Expr> conjuncts) {
+  public static double computeCombinedSelectivity(List<Expr> conjuncts) {
     // Collect all estimated selectivities.
     List<Double> selectivities = new ArrayList<>();
     for (Expr e: conjuncts) {
@@ -838,6 +882,9 @@ abstract public class PlanNode extends TreeNode<PlanNode> {
       } else {
         filterStr.append(" -> ");
         filterStr.append(filter.getTargetExpr(getId()).toSql());
+        if (filter.isRangeFilter()) {
+          filterStr.append(" ").append(filter.getRangeBoundExplainString());
+        }
       }
       filtersStr.add(filterStr.toString());
     }
@@ -39,6 +39,8 @@ import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.PrintUtils;
 import org.apache.impala.common.RuntimeEnv;
 import org.apache.impala.service.BackendConfig;
+import org.apache.impala.service.FrontendProfile;
+import org.apache.impala.service.FrontendProfile.PhaseTimer;
 import org.apache.impala.thrift.TExplainLevel;
 import org.apache.impala.thrift.TQueryCtx;
 import org.apache.impala.thrift.TQueryExecRequest;
@@ -73,6 +75,10 @@ public class Planner {
 
   private final PlannerContext ctx_;
 
+  // Selects the MT_DOP of the query if MAX_AUTO_MT_DOP is set. Null if the MT_DOP was
+  // not selected by the planner.
+  private MtDopSelector mtDopSelector_;
+
   public Planner(AnalysisResult analysisResult, TQueryCtx queryCtx,
       EventSequence timeline) {
     ctx_ = new PlannerContext(analysisResult, queryCtx, timeline);
@@ -100,7 +106,10 @@ public class Planner {
   public List<PlanFragment> createPlan() throws ImpalaException {
     SingleNodePlanner singleNodePlanner = new SingleNodePlanner(ctx_);
     DistributedPlanner distributedPlanner = new DistributedPlanner(ctx_);
-    PlanNode singleNodePlan = singleNodePlanner.createSingleNodePlan();
+    PlanNode singleNodePlan;
+    try (PhaseTimer timer = FrontendProfile.startPhase("SingleNodePlan")) {
+      singleNodePlan = singleNodePlanner.createSingleNodePlan();
+    }
     ctx_.getTimeline().markEvent("Single node plan created");
     List<PlanFragment> fragments = null;
 
@@ -118,13 +127,17 @@ public class Planner {
           ctx_.getNextFragmentId(), singleNodePlan, DataPartition.UNPARTITIONED));
     } else {
       // create distributed plan
-      fragments = distributedPlanner.createPlanFragments(singleNodePlan);
+      try (PhaseTimer timer = FrontendProfile.startPhase("DistributedPlan")) {
+        fragments = distributedPlanner.createPlanFragments(singleNodePlan);
+      }
     }
 
     // Create runtime filters.
     PlanFragment rootFragment = fragments.get(fragments.size() - 1);
     if (ctx_.getQueryOptions().getRuntime_filter_mode() != TRuntimeFilterMode.OFF) {
-      RuntimeFilterGenerator.generateRuntimeFilters(ctx_, rootFragment.getPlanRoot());
+      try (PhaseTimer timer = FrontendProfile.startPhase("RuntimeFilterGeneration")) {
+        RuntimeFilterGenerator.generateRuntimeFilters(ctx_, rootFragment.getPlanRoot());
+      }
       ctx_.getTimeline().markEvent("Runtime filters computed");
     }
 
@@ -223,13 +236,38 @@ public class Planner {
     return fragments;
   }
 
+  /**
+   * Returns a list of plans, each represented by the root of their fragment trees.
+   * Queries are executed with parallel plans if MT_DOP is set, or if the planner
+   * selects the MT_DOP because MAX_AUTO_MT_DOP is set, see MtDopSelector.
+   */
+  public List<PlanFragment> createPlans() throws ImpalaException {
+    if (!ctx_.isQuery()) return Lists.newArrayList(createPlan().get(0));
+    if (ctx_.getQueryOptions().getMt_dop() > 0) return createParallelPlans();
+    List<PlanFragment> distrPlan = createPlan();
+    if (!MtDopSelector.isEnabled(ctx_.getQueryOptions())) {
+      return Lists.newArrayList(distrPlan.get(0));
+    }
+    mtDopSelector_ = new MtDopSelector(ctx_);
+    int mtDop = mtDopSelector_.selectMtDop(distrPlan.get(0));
+    ctx_.getTimeline().markEvent("MT_DOP selected");
+    if (mtDop == 0) return Lists.newArrayList(distrPlan.get(0));
+    return createParallelPlans(distrPlan);
+  }
+
   /**
    * Return a list of plans, each represented by the root of their fragment trees.
    * TODO: roll into createPlan()
    */
   public List<PlanFragment> createParallelPlans() throws ImpalaException {
     Preconditions.checkState(ctx_.getQueryOptions().mt_dop > 0);
-    List<PlanFragment> distrPlan = createPlan();
+    return createParallelPlans(createPlan());
+  }
+
+  /**
+   * Creates the parallel plans from the distributed plan 'distrPlan'.
+   */
+  private List<PlanFragment> createParallelPlans(List<PlanFragment> distrPlan) {
     Preconditions.checkNotNull(distrPlan);
     ParallelPlanner planner = new ParallelPlanner(ctx_);
     List<PlanFragment> parallelPlans = planner.createPlans(distrPlan.get(0));
@@ -279,6 +317,10 @@ public class Planner {
           PrintUtils.printBytesRoundedToMb(request.getPer_host_mem_estimate())));
       hasHeader = true;
     }
+    if (mtDopSelector_ != null) {
+      str.append(mtDopSelector_.getExplainString());
+      hasHeader = true;
+    }
     // Warn if the planner is running in DEBUG mode.
     if (request.query_ctx.client_request.query_options.planner_testcase_mode) {
       str.append("WARNING: The planner is running in TESTCASE mode. This should only be "
@@ -382,21 +424,23 @@ public class Planner {
 
     // Do a pass over all the fragments to compute resource profiles. Compute the
     // profiles bottom-up since a fragment's profile may depend on its descendants.
-    List<PlanFragment> allFragments = planRoots.get(0).getNodesPostOrder();
-    for (PlanFragment fragment: allFragments) {
-      // Compute the per-node, per-sink and aggregate profiles for the fragment.
-      fragment.computeResourceProfile(ctx_.getRootAnalyzer());
-
-      // Different fragments do not synchronize their Open() and Close(), so the backend
-      // does not provide strong guarantees about whether one fragment instance releases
-      // resources before another acquires them. Conservatively assume that all fragment
-      // instances run on all backends with max DOP, and can consume their peak resources
-      // at the same time, i.e. that the query-wide peak resources is the sum of the
-      // per-fragment-instance peak resources.
-      maxPerHostPeakResources = maxPerHostPeakResources.sum(
-          fragment.getResourceProfile().multiply(fragment.getNumInstancesPerHost(mtDop)));
+    try (PhaseTimer timer = FrontendProfile.startPhase("ResourceEstimation")) {
+      List<PlanFragment> allFragments = planRoots.get(0).getNodesPostOrder();
+      for (PlanFragment fragment: allFragments) {
+        // Compute the per-node, per-sink and aggregate profiles for the fragment.
+        fragment.computeResourceProfile(ctx_.getRootAnalyzer());
+
+        // Different fragments do not synchronize their Open() and Close(), so the
+        // backend does not provide strong guarantees about whether one fragment instance
+        // releases resources before another acquires them. Conservatively assume that
+        // all fragment instances run on all backends with max DOP, and can consume their
+        // peak resources at the same time, i.e. that the query-wide peak resources is
+        // the sum of the per-fragment-instance peak resources.
+        maxPerHostPeakResources = maxPerHostPeakResources.sum(fragment
+            .getResourceProfile().multiply(fragment.getNumInstancesPerHost(mtDop)));
+      }
+      planRoots.get(0).computePipelineMembership();
     }
-    planRoots.get(0).computePipelineMembership();
 
     Preconditions.checkState(maxPerHostPeakResources.getMemEstimateBytes() >= 0,
         maxPerHostPeakResources.getMemEstimateBytes());
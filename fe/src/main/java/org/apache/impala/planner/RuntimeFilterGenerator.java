@@ -41,7 +41,9 @@ import org.apache.impala.analysis.SlotRef;
 import org.apache.impala.analysis.TupleDescriptor;
 import org.apache.impala.analysis.TupleId;
 import org.apache.impala.analysis.TupleIsNullPredicate;
+import org.apache.impala.catalog.ColumnStats;
 import org.apache.impala.catalog.FeTable;
+import org.apache.impala.catalog.Histogram;
 import org.apache.impala.catalog.KuduColumn;
 import org.apache.impala.catalog.Type;
 import org.apache.impala.common.IdGenerator;
@@ -49,11 +51,13 @@ import org.apache.impala.common.InternalException;
 import org.apache.impala.planner.JoinNode.DistributionMode;
 import org.apache.impala.service.BackendConfig;
 import org.apache.impala.service.FeSupport;
+import org.apache.impala.service.FrontendProfile;
 import org.apache.impala.thrift.TQueryOptions;
 import org.apache.impala.thrift.TRuntimeFilterDesc;
 import org.apache.impala.thrift.TRuntimeFilterMode;
 import org.apache.impala.thrift.TRuntimeFilterTargetDesc;
 import org.apache.impala.thrift.TRuntimeFilterType;
+import org.apache.impala.thrift.TUnit;
 import org.apache.impala.util.BitUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,6 +75,15 @@ import com.google.common.collect.Lists;
  * Runtime filters are generated from equi-join predicates but they do not replace the
  * original predicates.
  *
+ * If the ENABLE_RANGE_RUNTIME_FILTERS query option is set, MinMax filters are also
+ * generated from inequality join predicates of the form <lhs_expr> <op> <rhs_expr>,
+ * where <op> is one of <, <=, > and >=. Such a range filter only applies one bound to
+ * the target: the maximum of the build side values for < and <=, the minimum for > and
+ * >=. Range filters are also built by nested loop joins, which is how interval joins,
+ * e.g. T1.ts BETWEEN T2.start AND T2.end, are executed. Range filters that are estimated
+ * to reject few rows based on the column histograms of the target and source are not
+ * assigned.
+ *
  * MinMax filters are of a fixed size (except for those used for string type) and
  * therefore only sizes for bloom filters need to be calculated. These calculations are
  * based on the NDV estimates of the associated table columns, the min buffer size that
@@ -97,6 +110,10 @@ public final class RuntimeFilterGenerator {
   private static final long MIN_BLOOM_FILTER_SIZE = 4 * 1024;
   private static final long MAX_BLOOM_FILTER_SIZE = 512 * 1024 * 1024;
 
+  // Range filters that are estimated to let more than this fraction of the target values
+  // pass are not assigned.
+  private static final double MAX_RANGE_FILTER_PASS_FRACTION = 0.9;
+
   // Map of base table tuple ids to a list of runtime filters that
   // can be applied at the corresponding scan nodes.
   private final Map<TupleId, List<RuntimeFilter>> runtimeFiltersByTid_ =
@@ -141,8 +158,12 @@ public final class RuntimeFilterGenerator {
   // Contains size limits for bloom filters.
   private FilterSizeLimits bloomFilterSizeLimits_;
 
+  // If true, range filters are generated, see ENABLE_RANGE_RUNTIME_FILTERS.
+  private final boolean enableRangeFilters_;
+
   private RuntimeFilterGenerator(TQueryOptions tQueryOptions) {
     bloomFilterSizeLimits_ = new FilterSizeLimits(tQueryOptions);
+    enableRangeFilters_ = tQueryOptions.isEnable_range_runtime_filters();
   };
 
   /**
@@ -152,7 +173,8 @@ public final class RuntimeFilterGenerator {
    * the left plan subtree of the associated join node, while rhs_expr is the expr on
    * which the filter is built and can be bound by any number of tuple ids from the
    * right plan subtree. Every runtime filter must record the join node that constructs
-   * the filter and the scan nodes that apply the filter (destination nodes).
+   * the filter and the scan nodes that apply the filter (destination nodes). MinMax
+   * filters may also be generated from an inequality predicate, see isRangeFilter().
    */
   public static class RuntimeFilter {
     // Identifier of the filter (unique within a query)
@@ -193,6 +215,9 @@ public final class RuntimeFilterGenerator {
     private boolean finalized_ = false;
     // The type of filter to build.
     private final TRuntimeFilterType type_;
+    // For range filters, the estimated fraction of the target values that pass the
+    // filter, or -1 if unknown. See estimateRangePassFraction().
+    private double rangePassFraction_ = -1;
 
     /**
      * Internal representation of a runtime filter target.
@@ -261,6 +286,7 @@ public final class RuntimeFilterGenerator {
       type_ = type;
       computeNdvEstimate();
       calculateFilterSize(filterSizeLimits);
+      if (isRangeFilter()) rangePassFraction_ = estimateRangePassFraction();
     }
 
     @Override
@@ -297,6 +323,7 @@ public final class RuntimeFilterGenerator {
       tFilter.setApplied_on_partition_columns(appliedOnPartitionColumns);
       tFilter.setType(type_);
       tFilter.setFilter_size_bytes(filterSizeBytes_);
+      if (isRangeFilter()) tFilter.setCompare_op(exprCmpOp_.getThriftOp());
       return tFilter;
     }
 
@@ -304,20 +331,29 @@ public final class RuntimeFilterGenerator {
      * Static function to create a RuntimeFilter from 'joinPredicate' that is assigned
      * to the join node 'filterSrcNode'. Returns an instance of RuntimeFilter
      * or null if a runtime filter cannot be generated from the specified predicate.
+     * MinMax filters are also created from inequality predicates if
+     * 'allowRangePredicates' is true.
      */
     public static RuntimeFilter create(IdGenerator<RuntimeFilterId> idGen,
         Analyzer analyzer, Expr joinPredicate, JoinNode filterSrcNode,
-        TRuntimeFilterType type, FilterSizeLimits filterSizeLimits) {
+        TRuntimeFilterType type, FilterSizeLimits filterSizeLimits,
+        boolean allowRangePredicates) {
       Preconditions.checkNotNull(idGen);
       Preconditions.checkNotNull(joinPredicate);
       Preconditions.checkNotNull(filterSrcNode);
-      // Only consider binary equality predicates
-      if (!Predicate.isEquivalencePredicate(joinPredicate)) return null;
-
-      BinaryPredicate normalizedJoinConjunct =
-          SingleNodePlanner.getNormalizedEqPred(joinPredicate,
-              filterSrcNode.getChild(0).getTupleIds(),
-              filterSrcNode.getChild(1).getTupleIds(), analyzer);
+      List<TupleId> lhsTids = filterSrcNode.getChild(0).getTupleIds();
+      List<TupleId> rhsTids = filterSrcNode.getChild(1).getTupleIds();
+      BinaryPredicate normalizedJoinConjunct;
+      if (Predicate.isEquivalencePredicate(joinPredicate)) {
+        normalizedJoinConjunct = SingleNodePlanner.getNormalizedEqPred(joinPredicate,
+            lhsTids, rhsTids, analyzer);
+      } else if (allowRangePredicates && type == TRuntimeFilterType.MIN_MAX) {
+        normalizedJoinConjunct = getNormalizedRangePred(joinPredicate, lhsTids, rhsTids,
+            analyzer);
+      } else {
+        // Only consider binary equality predicates otherwise.
+        return null;
+      }
       if (normalizedJoinConjunct == null) return null;
 
       // Ensure that the target expr does not contain TupleIsNull predicates as these
@@ -337,6 +373,40 @@ public final class RuntimeFilterGenerator {
           normalizedJoinConjunct.getOp(), targetSlots, type, filterSizeLimits);
     }
 
+    /**
+     * Returns a new inequality predicate with the same semantics as 'expr' where the lhs
+     * child is bound by some tuple in 'lhsTids' and the rhs child is bound by some tuple
+     * in 'rhsTids'. The operator is reversed if the children are swapped. Returns null
+     * if 'expr' is not a <, <=, > or >= predicate between the two sides.
+     */
+    private static BinaryPredicate getNormalizedRangePred(Expr expr,
+        List<TupleId> lhsTids, List<TupleId> rhsTids, Analyzer analyzer) {
+      if (!(expr instanceof BinaryPredicate)) return null;
+      BinaryPredicate pred = (BinaryPredicate) expr;
+      if (!isRangeOp(pred.getOp())) return null;
+      if (pred.getChild(0).isConstant() || pred.getChild(1).isConstant()) return null;
+      Operator op;
+      if (pred.getChild(0).isBoundByTupleIds(lhsTids)
+          && pred.getChild(1).isBoundByTupleIds(rhsTids)) {
+        op = pred.getOp();
+      } else if (pred.getChild(1).isBoundByTupleIds(lhsTids)
+          && pred.getChild(0).isBoundByTupleIds(rhsTids)) {
+        op = pred.getOp().converse();
+      } else {
+        return null;
+      }
+      boolean swap = op != pred.getOp();
+      BinaryPredicate result = new BinaryPredicate(op, pred.getChild(swap ? 1 : 0),
+          pred.getChild(swap ? 0 : 1));
+      result.analyzeNoThrow(analyzer);
+      return result;
+    }
+
+    private static boolean isRangeOp(Operator op) {
+      return op == Operator.LT || op == Operator.LE || op == Operator.GT
+          || op == Operator.GE;
+    }
+
     /**
      * Returns the ids of base table tuple slots on which a runtime filter expr can be
      * applied. Due to the existence of equivalence classes, a filter expr may be
@@ -441,6 +511,58 @@ public final class RuntimeFilterGenerator {
     public TRuntimeFilterType getType() { return type_; }
     public Operator getExprCompOp() { return exprCmpOp_; }
     public long getFilterSize() { return filterSizeBytes_; }
+    public double getRangePassFraction() { return rangePassFraction_; }
+
+    /**
+     * Returns true if this filter was generated from an inequality predicate. Range
+     * filters are MinMax filters that only apply the bound implied by the operator.
+     */
+    public boolean isRangeFilter() { return isRangeOp(exprCmpOp_); }
+
+    /**
+     * Returns the bound of a range filter for the explain string, e.g. "< max".
+     */
+    public String getRangeBoundExplainString() {
+      Preconditions.checkState(isRangeFilter());
+      boolean isUpperBound = exprCmpOp_ == Operator.LT || exprCmpOp_ == Operator.LE;
+      return exprCmpOp_.toString() + (isUpperBound ? " max" : " min");
+    }
+
+    /**
+     * Estimates the fraction of the target values that pass this range filter from the
+     * histograms of the target and source columns. For 'target < src' the target values
+     * below the maximum source value pass, for 'target > src' the ones above the minimum
+     * source value. The source column histogram covers the whole column, even though the
+     * build side may be filtered, so the estimate tends to be too high. The minimum and
+     * maximum are approximated by the first and last histogram bounds. Returns -1 if
+     * either column has no histogram.
+     */
+    private double estimateRangePassFraction() {
+      Histogram targetHistogram = getHistogram(origTargetExpr_);
+      Histogram srcHistogram = getHistogram(srcExpr_);
+      if (targetHistogram == null || srcHistogram == null) return -1;
+      List<Double> srcBounds = srcHistogram.getBounds();
+      double srcMin = srcBounds.get(0);
+      double srcMax = srcBounds.get(srcBounds.size() - 1);
+      switch (exprCmpOp_) {
+        case LT: return targetHistogram.getFractionLessThan(srcMax, false);
+        case LE: return targetHistogram.getFractionLessThan(srcMax, true);
+        case GT: return 1 - targetHistogram.getFractionLessThan(srcMin, true);
+        case GE: return 1 - targetHistogram.getFractionLessThan(srcMin, false);
+        default: return -1;
+      }
+    }
+
+    /**
+     * Returns the histogram of the column referenced by 'expr', which may be a slot ref
+     * with implicit casts, or null if there is none.
+     */
+    private static Histogram getHistogram(Expr expr) {
+      SlotRef slotRef = expr.unwrapSlotRef(true);
+      if (slotRef == null) return null;
+      ColumnStats stats = slotRef.getDesc().getStats();
+      return stats == null ? null : stats.getHistogram();
+    }
 
     /**
      * Estimates the selectivity of a runtime filter as the cardinality of the
@@ -500,6 +622,19 @@ public final class RuntimeFilterGenerator {
       for (RuntimeFilterTarget target: targets_) target.node.addRuntimeFilter(this);
     }
 
+    /**
+     * Returns the HDFS scan nodes that apply this filter to their partitions.
+     */
+    public List<HdfsScanNode> getPartitionTargetNodes() {
+      List<HdfsScanNode> nodes = new ArrayList<>();
+      for (RuntimeFilterTarget target: targets_) {
+        if (target.isBoundByPartitionColumns && target.node instanceof HdfsScanNode) {
+          nodes.add((HdfsScanNode) target.node);
+        }
+      }
+      return nodes;
+    }
+
     public String debugString() {
       StringBuilder output = new StringBuilder();
       return output.append("FilterID: " + id_ + " ")
@@ -507,7 +642,8 @@ public final class RuntimeFilterGenerator {
           .append("SrcExpr: " + getSrcExpr().debugString() +  " ")
           .append("Target(s): ")
           .append(Joiner.on(", ").join(targets_) + " ")
-          .append("Selectivity: " + getSelectivity()).toString();
+          .append("Selectivity: " + getSelectivity() + " ")
+          .append("Range pass fraction: " + rangePassFraction_).toString();
     }
   }
 
@@ -541,17 +677,34 @@ public final class RuntimeFilterGenerator {
     // We only enforce a limit on the number of bloom filters as they are much more
     // heavy-weight than the other filter types.
     int numBloomFilters = 0;
+    int numAssignedFilters = 0;
     for (RuntimeFilter filter : filters) {
       if (filter.getType() == TRuntimeFilterType.BLOOM) {
         if (numBloomFilters >= maxNumBloomFilters) continue;
         ++numBloomFilters;
       }
+      // Range filters that reject few rows are not worth building and applying.
+      if (filter.isRangeFilter()
+          && filter.getRangePassFraction() > MAX_RANGE_FILTER_PASS_FRACTION) {
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("Skipping unselective range filter: " + filter.debugString());
+        }
+        continue;
+      }
       filter.setIsBroadcast(
           filter.src_.getDistributionMode() == DistributionMode.BROADCAST);
       filter.computeHasLocalTargets();
       if (LOG.isTraceEnabled()) LOG.trace("Runtime filter: " + filter.debugString());
       filter.assignToPlanNodes();
+      if (ctx.getQueryOptions().isDefer_filtered_scan_ranges()) {
+        for (HdfsScanNode scanNode: filter.getPartitionTargetNodes()) {
+          scanNode.deferScanRanges(ctx.getRootAnalyzer());
+        }
+      }
+      ++numAssignedFilters;
     }
+    FrontendProfile.addToPhaseCounter(
+        "RuntimeFilterGeneration", "Filters", TUnit.UNIT, numAssignedFilters);
   }
 
   /**
@@ -577,12 +730,15 @@ public final class RuntimeFilterGenerator {
    * Generates the runtime filters for a query by recursively traversing the distributed
    * plan tree rooted at 'root'. In the top-down traversal of the plan tree, candidate
    * runtime filters are generated from equi-join predicates assigned to hash-join nodes.
-   * In the bottom-up traversal of the plan tree, the filters are assigned to destination
-   * (scan) nodes. Filters that cannot be assigned to a scan node are discarded.
+   * If range filters are enabled, candidate MinMax filters are also generated from the
+   * inequality predicates of hash-join and nested-loop-join nodes. In the bottom-up
+   * traversal of the plan tree, the filters are assigned to destination (scan) nodes.
+   * Filters that cannot be assigned to a scan node are discarded.
    */
   private void generateFilters(PlannerContext ctx, PlanNode root) {
-    if (root instanceof HashJoinNode) {
-      HashJoinNode joinNode = (HashJoinNode) root;
+    if (root instanceof HashJoinNode
+        || (enableRangeFilters_ && root instanceof NestedLoopJoinNode)) {
+      JoinNode joinNode = (JoinNode) root;
       List<Expr> joinConjuncts = new ArrayList<>();
       if (!joinNode.getJoinOp().isLeftOuterJoin()
           && !joinNode.getJoinOp().isFullOuterJoin()
@@ -591,13 +747,21 @@ public final class RuntimeFilterGenerator {
         // full outer or anti join if the filter corresponds to an equi-join predicate
         // from the ON clause.
         joinConjuncts.addAll(joinNode.getEqJoinConjuncts());
+        // The same holds for the other join predicates, which range filters may be
+        // generated from.
+        if (enableRangeFilters_) joinConjuncts.addAll(joinNode.getOtherJoinConjuncts());
       }
       joinConjuncts.addAll(joinNode.getConjuncts());
       List<RuntimeFilter> filters = new ArrayList<>();
       for (TRuntimeFilterType type : TRuntimeFilterType.values()) {
+        // Nested loop joins only build MinMax filters.
+        if (type == TRuntimeFilterType.BLOOM && joinNode instanceof NestedLoopJoinNode) {
+          continue;
+        }
         for (Expr conjunct : joinConjuncts) {
           RuntimeFilter filter = RuntimeFilter.create(filterIdGenerator,
-              ctx.getRootAnalyzer(), conjunct, joinNode, type, bloomFilterSizeLimits_);
+              ctx.getRootAnalyzer(), conjunct, joinNode, type, bloomFilterSizeLimits_,
+              enableRangeFilters_);
           if (filter == null) continue;
           registerRuntimeFilter(filter);
           filters.add(filter);
@@ -673,9 +837,12 @@ public final class RuntimeFilterGenerator {
    *    to 'scanNode' if the filter is produced within the same fragment that contains the
    *    scan node.
    * 3. Only Hdfs and Kudu scan nodes are supported:
-   *     a. If the target is an HdfsScanNode, the filter must be type BLOOM.
+   *     a. If the target is an HdfsScanNode, the filter must be type BLOOM, or a range
+   *         filter whose target expression is bound by partition columns. HDFS scans
+   *         only apply MIN_MAX filters to skip partitions.
    *     b. If the target is a KuduScanNode, the filter must be type MIN_MAX, the target
    *         must be a slot ref on a column, and the comp op cannot be 'not distinct'.
+   *         The target of a range filter cannot have an implicit cast.
    * A scan node may be used as a destination node for multiple runtime filters.
    */
   private void assignRuntimeFilters(PlannerContext ctx, ScanNode scanNode) {
@@ -698,7 +865,8 @@ public final class RuntimeFilterGenerator {
 
       // Check that the scan node supports applying filters of this type and targetExpr.
       if (scanNode instanceof HdfsScanNode
-          && filter.getType() != TRuntimeFilterType.BLOOM) {
+          && filter.getType() != TRuntimeFilterType.BLOOM
+          && !(filter.isRangeFilter() && isBoundByPartitionColumns)) {
         continue;
       } else if (scanNode instanceof KuduScanNode) {
         if (filter.getType() != TRuntimeFilterType.MIN_MAX) continue;
@@ -710,7 +878,8 @@ public final class RuntimeFilterGenerator {
         // work with "is not distinct".
         if (slotRef == null || slotRef.getDesc().getColumn() == null
             || (targetExpr instanceof CastExpr && !targetExpr.getType().isIntegerType())
-            || filter.getExprCompOp() == Operator.NOT_DISTINCT) {
+            || filter.getExprCompOp() == Operator.NOT_DISTINCT
+            || (targetExpr instanceof CastExpr && filter.isRangeFilter())) {
           continue;
         }
       }
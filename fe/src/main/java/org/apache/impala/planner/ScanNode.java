@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.impala.analysis.SlotDescriptor;
+import org.apache.impala.analysis.TableSampleClause;
 import org.apache.impala.analysis.TupleDescriptor;
 import org.apache.impala.catalog.FeTable;
 import org.apache.impala.catalog.HdfsFileFormat;
@@ -47,6 +48,9 @@ abstract public class ScanNode extends PlanNode {
   // Used for HDFS and Kudu Scan node estimations.
   protected static final double SCAN_RANGE_SKEW_FACTOR = 1.2;
 
+  // Name of the planner phase in the frontend profile that generates the scan ranges.
+  protected static final String SCAN_RANGE_PROFILE_PHASE = "ScanRangeGeneration";
+
   protected final TupleDescriptor desc_;
 
   // Total number of rows this node is expected to process
@@ -203,6 +207,30 @@ abstract public class ScanNode extends PlanNode {
     return result;
   }
 
+  /**
+   * Returns the random seed of the TABLESAMPLE clause 'sampleParams', or a seed based
+   * on the current time if the clause has no REPEATABLE part.
+   */
+  protected static long getSampleRandomSeed(TableSampleClause sampleParams) {
+    if (sampleParams.hasRandomSeed()) return sampleParams.getRandomSeed();
+    return System.currentTimeMillis();
+  }
+
+  /**
+   * Returns a random sample of 'units', e.g. the tablets of a Kudu table or the regions
+   * of an HBase table, for the TABLESAMPLE clause 'sampleParams'. See
+   * TableSampleClause.getUnitsSample().
+   */
+  protected static <T> List<T> getUnitsSample(TableSampleClause sampleParams,
+      List<T> units) {
+    List<T> result = new ArrayList<>();
+    for (int idx: TableSampleClause.getUnitsSample(units.size(),
+        sampleParams.getPercentBytes(), getSampleRandomSeed(sampleParams))) {
+      result.add(units.get(idx));
+    }
+    return result;
+  }
+
   @Override
   public long getInputCardinality() {
     if (!hasScanConjuncts() && !hasStorageLayerConjuncts() && hasLimit()) {
@@ -254,6 +282,25 @@ abstract public class ScanNode extends PlanNode {
     }
     return maxScannerThreads;
   }
+
+  /**
+   * Returns the estimated number of bytes read by this scan, or -1 if unknown. The
+   * default estimate is based on the input cardinality and the average row size.
+   */
+  public long getScanBytes() {
+    long inputCardinality = getInputCardinality();
+    if (inputCardinality < 0 || avgRowSize_ <= 0) return -1;
+    return (long) (inputCardinality * avgRowSize_);
+  }
+
+  /**
+   * Determines whether the backend uses the MT implementation of this scan node based
+   * on the MT_DOP in 'queryOptions'. Called in init() and again if the planner selects
+   * the MT_DOP of the query after the plan was created. No-op for scan nodes without an
+   * MT implementation.
+   */
+  public void computeUseMtScanNode(TQueryOptions queryOptions) {}
+
   /**
    * Returns true if this node has conjuncts to be evaluated by Impala against the scan
    * tuple.
@@ -67,6 +67,9 @@ import org.apache.impala.common.InternalException;
 import org.apache.impala.common.NotImplementedException;
 import org.apache.impala.common.Pair;
 import org.apache.impala.common.RuntimeEnv;
+import org.apache.impala.service.FrontendProfile;
+import org.apache.impala.service.FrontendProfile.PhaseTimer;
+import org.apache.impala.thrift.TUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -126,7 +129,11 @@ public class SingleNodePlanner {
     // Use the stmt's analyzer which is not necessarily the root analyzer
     // to detect empty result sets.
     Analyzer analyzer = queryStmt.getAnalyzer();
-    analyzer.computeValueTransferGraph();
+    try (PhaseTimer timer = FrontendProfile.startPhase("ValueTransferGraph")) {
+      analyzer.computeValueTransferGraph();
+    }
+    FrontendProfile.addToPhaseCounter("ValueTransferGraph", "Slots", TUnit.UNIT,
+        analyzer.getDescTbl().getMaxSlotId().asInt() + 1);
     ctx_.getTimeline().markEvent("Value transfer graph computed");
 
     // Mark slots referenced by output exprs as materialized, prior to generating the
@@ -382,6 +389,9 @@ public class SingleNodePlanner {
    *   enforced via join inversion, if necessary
    * - SubplanNodes are placed as low as possible in the plan tree - as soon as the
    *   required tuple ids of one or more TableRefs in subplanRefs are materialized
+   * If the MAX_DP_JOIN_RELATIONS query option allows it, inner joins without subplans
+   * are instead planned by the JoinEnumerator, which also considers bushy plans and
+   * falls back to the plan described above if it cannot produce a plan.
    * Returns null if we can't create an executable plan.
    */
   private PlanNode createCheapestJoinPlan(Analyzer analyzer,
@@ -390,6 +400,13 @@ public class SingleNodePlanner {
     LOG.trace("createCheapestJoinPlan");
     if (parentRefPlans.size() == 1) return parentRefPlans.get(0).second;
 
+    if (subplanRefs.isEmpty() && parentRefPlans.size()
+        <= ctx_.getQueryOptions().getMax_dp_join_relations()) {
+      PlanNode result =
+          JoinEnumerator.createJoinPlan(this, ctx_, analyzer, parentRefPlans);
+      if (result != null) return result;
+    }
+
     // collect eligible candidates for the leftmost input; list contains
     // (plan, materialized size)
     List<Pair<TableRef, Long>> candidates = new ArrayList<>();
@@ -1353,12 +1370,14 @@ public class SingleNodePlanner {
       return scanNode;
     } else if (table instanceof FeHBaseTable) {
       // HBase table
-      scanNode = new HBaseScanNode(ctx_.getNextNodeId(), tblRef.getDesc());
+      scanNode = new HBaseScanNode(ctx_.getNextNodeId(), tblRef.getDesc(),
+          tblRef.getSampleParams());
       scanNode.addConjuncts(conjuncts);
       scanNode.init(analyzer);
       return scanNode;
     } else if (tblRef.getTable() instanceof FeKuduTable) {
-      scanNode = new KuduScanNode(ctx_.getNextNodeId(), tblRef.getDesc(), conjuncts);
+      scanNode = new KuduScanNode(ctx_.getNextNodeId(), tblRef.getDesc(), conjuncts,
+          tblRef.getSampleParams());
       scanNode.init(analyzer);
       return scanNode;
     } else {
@@ -1518,6 +1537,25 @@ public class SingleNodePlanner {
     return result;
   }
 
+  /**
+   * Creates a hash join node that inner joins 'outer' with 'inner', which may both be
+   * join trees. Used by the JoinEnumerator for bushy join plans. Returns null if there
+   * are no equi-join conjuncts between 'outer' and 'inner'.
+   */
+  PlanNode createInnerHashJoinNode(PlanNode outer, PlanNode inner, Analyzer analyzer)
+      throws ImpalaException {
+    List<BinaryPredicate> eqJoinConjuncts = getHashLookupJoinConjuncts(
+        outer.getTblRefIds(), inner.getTblRefIds(), analyzer);
+    analyzer.createEquivConjuncts(outer.getTblRefIds(), inner.getTblRefIds(),
+        eqJoinConjuncts);
+    if (eqJoinConjuncts.isEmpty()) return null;
+    HashJoinNode result = new HashJoinNode(outer, inner, false,
+        JoinNode.DistributionMode.NONE, JoinOperator.INNER_JOIN, eqJoinConjuncts,
+        new ArrayList<Expr>());
+    result.init(analyzer);
+    return result;
+  }
+
   /**
    * Create a tree of PlanNodes for the given tblRef, which can be a BaseTableRef,
    * CollectionTableRef or an InlineViewRef.
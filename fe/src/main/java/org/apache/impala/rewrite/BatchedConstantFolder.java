@@ -0,0 +1,114 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.rewrite;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.impala.analysis.Analyzer;
+import org.apache.impala.analysis.Expr;
+import org.apache.impala.analysis.LiteralExpr;
+import org.apache.impala.analysis.StatementBase;
+import org.apache.impala.common.AnalysisException;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Folds all constant exprs of a statement with a single call into the BE, instead of
+ * the one call per constant subtree that FoldConstantsRule makes. This matters for
+ * statements with many constants, e.g. generated CASE or IN-list exprs, because
+ * every BE call serializes the query context and crosses JNI.
+ *
+ * Folding happens in two passes over the statement:
+ * - the first pass collects the maximal constant subtrees that FoldConstantsRule
+ *   would fold and evaluates them as one batch
+ * - the second pass replaces those subtrees with their results
+ * Subtrees that can be folded in the FE (see LiteralExpr.createInFe()) are not sent
+ * to the BE and are left to FoldConstantsRule. If the batch cannot be evaluated as a
+ * whole, nothing is replaced and FoldConstantsRule falls back to folding one expr at
+ * a time during the regular rewrite.
+ */
+public class BatchedConstantFolder {
+  // Results of evaluating the collected constant subtrees, keyed by identity.
+  private final Map<Expr, LiteralExpr> results_ = new IdentityHashMap<>();
+
+  private BatchedConstantFolder() {}
+
+  /**
+   * Folds the constant exprs of the analyzed 'stmt' in place. Returns the number of
+   * exprs that were replaced by a literal.
+   */
+  public static int foldConstants(StatementBase stmt, Analyzer analyzer)
+      throws AnalysisException {
+    CollectRule collector = new CollectRule();
+    stmt.rewriteExprs(new ExprRewriter(collector));
+    List<Expr> batch = new ArrayList<>();
+    for (Expr expr: collector.roots_) {
+      if (LiteralExpr.createInFe(expr) != null) continue;
+      batch.add(expr);
+    }
+    if (batch.isEmpty()) return 0;
+    List<LiteralExpr> results = LiteralExpr.createBatch(batch, analyzer.getQueryCtx());
+    if (results == null) return 0;
+
+    BatchedConstantFolder folder = new BatchedConstantFolder();
+    for (int i = 0; i < batch.size(); ++i) {
+      LiteralExpr result = results.get(i);
+      if (result == null) continue;
+      // Preserve original type so parent Exprs do not need to be re-analyzed.
+      folder.results_.put(batch.get(i), (LiteralExpr) result.castTo(
+          batch.get(i).getType()));
+    }
+    if (folder.results_.isEmpty()) return 0;
+    ExprRewriter substituter = new ExprRewriter(folder.new SubstituteRule());
+    stmt.rewriteExprs(substituter);
+    return substituter.getNumChanges();
+  }
+
+  /**
+   * Collects the maximal subtrees that FoldConstantsRule would fold. Relies on the
+   * bottom-up application of rules: a foldable parent replaces its children in the
+   * collected set. Never changes the Expr it is applied to.
+   */
+  private static class CollectRule implements ExprRewriteRule {
+    private final Set<Expr> roots_ = Sets.newIdentityHashSet();
+
+    @Override
+    public Expr apply(Expr expr, Analyzer analyzer) {
+      // Unanalyzed exprs are left to FoldConstantsRule which analyzes them first.
+      if (!expr.isAnalyzed() || !FoldConstantsRule.canFold(expr)) return expr;
+      for (Expr child: expr.getChildren()) roots_.remove(child);
+      roots_.add(expr);
+      return expr;
+    }
+  }
+
+  /**
+   * Replaces the collected subtrees with their precomputed results.
+   */
+  private class SubstituteRule implements ExprRewriteRule {
+    @Override
+    public Expr apply(Expr expr, Analyzer analyzer) {
+      LiteralExpr result = results_.get(expr);
+      return result != null ? result : expr;
+    }
+  }
+}
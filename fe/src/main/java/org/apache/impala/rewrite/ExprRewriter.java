@@ -17,81 +17,132 @@
 
 package org.apache.impala.rewrite;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.impala.analysis.Analyzer;
 import org.apache.impala.analysis.Expr;
 import org.apache.impala.common.AnalysisException;
+import org.apache.impala.service.FrontendProfile;
+import org.apache.impala.thrift.TUnit;
+
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 /**
  * Helper class that drives the transformation of Exprs according to a given list of
  * ExprRewriteRules. The rules are applied as follows:
- * - a single rule is applied repeatedly to the Expr and all its children in a bottom-up
- *   fashion until there are no more changes
- * - the rule list is applied repeatedly until no rule has made any changes
- * - the rules are applied in the order they appear in the rule list
- * Keeps track of how many transformations were applied.
+ * - the Expr tree is rewritten bottom-up, i.e., the children of an Expr are fully
+ *   rewritten before any rule is applied to the Expr itself
+ * - the rules are applied to an Expr in the order they appear in the rule list until
+ *   one of them makes a change; the rewritten Expr is then processed again, starting
+ *   with its children, until no rule makes any changes
+ * - Exprs that no rule changes are remembered, so that subtrees which are shared
+ *   between an Expr and its rewritten version are not revisited
+ * Only the parts of the tree that actually changed are visited more than once, as
+ * opposed to reapplying every rule to the whole tree until nothing changes.
+ * Note that the rules are ordered per Expr rather than per tree: a later rule may
+ * rewrite a child before an earlier rule has been applied to its parent. Since every
+ * rewritten Expr is processed again until no rule changes it, the result is still a
+ * fixpoint of all rules.
+ * Keeps track of how many transformations were applied, and of the number of changes
+ * and time spent per rule.
  */
 public class ExprRewriter {
+  private static final String PROFILE_PREFIX = "ExprRewriter";
+
   private int numChanges_ = 0;
   private final List<ExprRewriteRule> rules_;
 
+  // Number of changes made by and time spent in each rule, indexed like 'rules_'.
+  private final long[] ruleNumChanges_;
+  private final long[] ruleTimeNs_;
+
   public ExprRewriter(List<ExprRewriteRule> rules) {
     rules_ = rules;
+    ruleNumChanges_ = new long[rules.size()];
+    ruleTimeNs_ = new long[rules.size()];
   }
 
   public ExprRewriter(ExprRewriteRule rule) {
-    rules_ = Lists.newArrayList(rule);
+    this(Lists.newArrayList(rule));
   }
 
   public Expr rewrite(Expr expr, Analyzer analyzer) throws AnalysisException {
-    // Keep applying the rule list until no rule has made any changes.
-    int oldNumChanges;
-    Expr rewrittenExpr = expr;
-    do {
-      oldNumChanges = numChanges_;
-      for (ExprRewriteRule rule: rules_) {
-        rewrittenExpr = applyRuleRepeatedly(rewrittenExpr, rule, analyzer);
-      }
-    } while (oldNumChanges != numChanges_);
-    return rewrittenExpr;
+    // Exprs that are known to be unaffected by all rules, including their subtrees.
+    Set<Expr> unchanged = Sets.newIdentityHashSet();
+    return rewriteBottomUp(expr, analyzer, unchanged);
   }
 
   /**
-   * Applies 'rule' on the Expr tree rooted at 'expr' until there are no more changes.
-   * Returns the transformed Expr or 'expr' if there were no changes.
+   * Rewrites 'expr' and all its children in a bottom-up fashion until no rule makes
+   * any changes. Returns the transformed Expr or 'expr' if there were no changes.
+   * Adds the returned Expr to 'unchanged'.
    */
-  private Expr applyRuleRepeatedly(Expr expr, ExprRewriteRule rule, Analyzer analyzer)
+  private Expr rewriteBottomUp(Expr expr, Analyzer analyzer, Set<Expr> unchanged)
       throws AnalysisException {
-    int oldNumChanges;
+    if (unchanged.contains(expr)) return expr;
     Expr rewrittenExpr = expr;
-    do {
-      oldNumChanges = numChanges_;
-      rewrittenExpr = applyRuleBottomUp(rewrittenExpr, rule, analyzer);
-    } while (oldNumChanges != numChanges_);
+    while (true) {
+      for (int i = 0; i < rewrittenExpr.getChildren().size(); ++i) {
+        rewrittenExpr.setChild(i,
+            rewriteBottomUp(rewrittenExpr.getChild(i), analyzer, unchanged));
+      }
+      Expr result = applyRules(rewrittenExpr, analyzer);
+      if (result == rewrittenExpr) break;
+      rewrittenExpr = result;
+    }
+    unchanged.add(rewrittenExpr);
     return rewrittenExpr;
   }
 
   /**
-   * Applies 'rule' on 'expr' and all its children in a bottom-up fashion.
-   * Returns the transformed Expr or 'expr' if there were no changes.
+   * Applies the rules to 'expr' in order and returns the result of the first rule
+   * that made a change. Returns 'expr' if no rule made any changes.
    */
-  private Expr applyRuleBottomUp(Expr expr, ExprRewriteRule rule, Analyzer analyzer)
-      throws AnalysisException {
-    for (int i = 0; i < expr.getChildren().size(); ++i) {
-      expr.setChild(i, applyRuleBottomUp(expr.getChild(i), rule, analyzer));
+  private Expr applyRules(Expr expr, Analyzer analyzer) throws AnalysisException {
+    for (int i = 0; i < rules_.size(); ++i) {
+      long startNs = System.nanoTime();
+      Expr rewrittenExpr = rules_.get(i).apply(expr, analyzer);
+      ruleTimeNs_[i] += System.nanoTime() - startNs;
+      if (rewrittenExpr != expr) {
+        ++numChanges_;
+        ++ruleNumChanges_[i];
+        return rewrittenExpr;
+      }
     }
-    Expr rewrittenExpr = rule.apply(expr, analyzer);
-    if (rewrittenExpr != expr) ++numChanges_;
-    return rewrittenExpr;
+    return expr;
   }
 
   public void rewriteList(List<Expr> exprs, Analyzer analyzer) throws AnalysisException {
     for (int i = 0; i < exprs.size(); ++i) exprs.set(i, rewrite(exprs.get(i), analyzer));
   }
 
-  public void reset() { numChanges_ = 0; }
+  /**
+   * Adds the number of changes made by and the time spent in each rule since the last
+   * reset() to the current frontend profile, if any.
+   */
+  public void addStatsToProfile() {
+    FrontendProfile profile = FrontendProfile.getCurrentOrNull();
+    if (profile == null) return;
+    for (int i = 0; i < rules_.size(); ++i) {
+      String prefix = PROFILE_PREFIX + "." + rules_.get(i).getClass().getSimpleName();
+      if (ruleNumChanges_[i] > 0) {
+        profile.addToCounter(prefix + ".Changes", TUnit.UNIT, ruleNumChanges_[i]);
+      }
+      if (ruleTimeNs_[i] > 0) {
+        profile.addToCounter(prefix + ".Time", TUnit.TIME_NS, ruleTimeNs_[i]);
+      }
+    }
+  }
+
+  public void reset() {
+    numChanges_ = 0;
+    Arrays.fill(ruleNumChanges_, 0);
+    Arrays.fill(ruleTimeNs_, 0);
+  }
+
   public boolean changed() { return numChanges_ > 0; }
   public int getNumChanges() { return numChanges_; }
 }
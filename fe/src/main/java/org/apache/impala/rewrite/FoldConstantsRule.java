@@ -26,7 +26,10 @@ import org.apache.impala.common.AnalysisException;
 
 /**
  * This rule replaces a constant Expr with its equivalent LiteralExpr by evaluating the
- * Expr in the BE. Exprs that are already LiteralExprs are not changed.
+ * Expr in the BE, or directly in the FE for simple integer arithmetic and casts.
+ * Exprs that are already LiteralExprs are not changed. Statement-level rewrites first
+ * fold the constants of the whole statement in a single batch with
+ * BatchedConstantFolder, so this rule mostly handles the remaining cases.
  *
  * TODO: Expressions fed into this rule are currently not required to be analyzed
  * in order to support constant folding in expressions that contain unresolved
@@ -48,16 +51,7 @@ public class FoldConstantsRule implements ExprRewriteRule {
     // of the Expr tree. Assumes the bottom-up application of this rule. Constant
     // children should have been folded at this point.
     for (Expr child: expr.getChildren()) if (!Expr.IS_LITERAL.apply(child)) return expr;
-    if (Expr.IS_LITERAL.apply(expr) || !expr.isConstant()) return expr;
-
-    // Do not constant fold cast(null as dataType) because we cannot preserve the
-    // cast-to-types and that can lead to query failures, e.g., CTAS
-    if (expr instanceof CastExpr) {
-      CastExpr castExpr = (CastExpr) expr;
-      if (Expr.IS_NULL_LITERAL.apply(castExpr.getChild(0))) {
-        return expr;
-      }
-    }
+    if (!canFold(expr)) return expr;
     // Analyze constant exprs, if necessary. Note that the 'expr' may become non-constant
     // after analysis (e.g., aggregate functions).
     if (!expr.isAnalyzed()) {
@@ -70,5 +64,20 @@ public class FoldConstantsRule implements ExprRewriteRule {
     return expr;
   }
 
+  /**
+   * Returns true if 'expr' is a non-literal constant that this rule folds once its
+   * children have been folded.
+   */
+  static boolean canFold(Expr expr) {
+    if (Expr.IS_LITERAL.apply(expr) || !expr.isConstant()) return false;
+    // Do not constant fold cast(null as dataType) because we cannot preserve the
+    // cast-to-types and that can lead to query failures, e.g., CTAS
+    if (expr instanceof CastExpr) {
+      CastExpr castExpr = (CastExpr) expr;
+      if (Expr.IS_NULL_LITERAL.apply(castExpr.getChild(0))) return false;
+    }
+    return true;
+  }
+
   private FoldConstantsRule() {}
 }
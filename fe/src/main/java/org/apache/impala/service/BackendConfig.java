@@ -98,6 +98,50 @@ public class BackendConfig {
     return backendCfg_.pull_incremental_statistics;
   }
 
+  public boolean fetchLoadedTablesDirectly() {
+    return backendCfg_.fetch_loaded_tables_directly;
+  }
+
+  public int getNumCatalogUpdateThreads() {
+    return backendCfg_.num_catalog_update_threads;
+  }
+
+  public int getAuthorizationDecisionCacheSize() {
+    return backendCfg_.authorization_decision_cache_size;
+  }
+
+  public int getAuthorizationGroupCacheRefreshS() {
+    return backendCfg_.authorization_group_cache_refresh_s;
+  }
+
+  public int getAuthorizationGroupCacheExpiryS() {
+    return backendCfg_.authorization_group_cache_expiry_s;
+  }
+
+  public int getStatsMaintenanceIntervalS() {
+    return backendCfg_.stats_maintenance_interval_s;
+  }
+
+  public double getStatsMaintenanceStaleRatio() {
+    return backendCfg_.stats_maintenance_stale_ratio;
+  }
+
+  public long getStatsMaintenanceBudgetBytes() {
+    return backendCfg_.stats_maintenance_budget_bytes;
+  }
+
+  public int getExecFeedbackMaxEntries() {
+    return backendCfg_.exec_feedback_max_entries;
+  }
+
+  public int getExecFeedbackTtlS() {
+    return backendCfg_.exec_feedback_ttl_s;
+  }
+
+  public int getSlowPlanningLogThresholdMs() {
+    return backendCfg_.slow_planning_log_threshold_ms;
+  }
+
   public int getInvalidateTablesTimeoutS() {
     return backendCfg_.invalidate_tables_timeout_s;
   }
@@ -70,6 +70,7 @@ import org.apache.impala.catalog.Function;
 import org.apache.impala.catalog.HdfsFileFormat;
 import org.apache.impala.catalog.HdfsPartition;
 import org.apache.impala.catalog.HdfsTable;
+import org.apache.impala.catalog.Histogram;
 import org.apache.impala.catalog.HiveStorageDescriptorFactory;
 import org.apache.impala.catalog.IncompleteTable;
 import org.apache.impala.catalog.KuduTable;
@@ -935,12 +936,16 @@ public class CatalogOpExecutor {
     if (params.isSetTable_stats()) {
       // Update table row count and total file bytes.
       updateTableStats(params, msTbl);
+      if (params.isSetColumn_stats()) updateColumnHistograms(params, table, msTbl);
       // Set impala.lastComputeStatsTime just before alter_table to ensure that it is as
       // accurate as possible.
       Table.updateTimestampProperty(msTbl, HdfsTable.TBL_PROP_LAST_COMPUTE_STATS_TIME);
     }
 
     applyAlterTable(msTbl, false);
+    if (params.isSetTable_stats()) {
+      catalog_.recordTableStatsComputed(tableName.getDb(), tableName.getTbl());
+    }
     numUpdatedPartitions.setRef(0L);
     if (modifiedParts != null) {
       numUpdatedPartitions.setRef((long) modifiedParts.size());
@@ -1024,6 +1029,28 @@ public class CatalogOpExecutor {
     msTbl.putToParameters(statsTaskParam.first, statsTaskParam.second);
   }
 
+  /**
+   * Stores the histograms of the columns in the update stats parameters in the table
+   * properties of the given HMS table. Removes the previous histogram of the columns
+   * that have new stats but no histogram, since it no longer matches the column stats.
+   */
+  private static void updateColumnHistograms(TAlterTableUpdateStatsParams params,
+      Table table, org.apache.hadoop.hive.metastore.api.Table msTbl) {
+    Preconditions.checkState(params.isSetColumn_stats());
+    for (Map.Entry<String, TColumnStats> entry: params.getColumn_stats().entrySet()) {
+      Column col = table.getColumn(entry.getKey());
+      if (col == null || !Histogram.isSupportedColType(col.getType())) continue;
+      String key = Histogram.getPropertyKey(col.getName());
+      TColumnStats colStats = entry.getValue();
+      if (colStats.isSetHistogram_bounds() && !colStats.getHistogram_bounds().isEmpty()) {
+        Histogram histogram = new Histogram(colStats.getHistogram_bounds());
+        msTbl.putToParameters(key, histogram.toPropertyValue());
+      } else if (msTbl.getParameters() != null) {
+        msTbl.getParameters().remove(key);
+      }
+    }
+  }
+
   /**
    * Create HMS column statistics for the given table based on the give map from column
    * name to column stats. Missing or new columns as a result of concurrent table
@@ -1396,7 +1423,14 @@ public class CatalogOpExecutor {
         msTbl.getParameters().remove(StatsSetupConst.ROW_COUNT) != null;
     boolean droppedTotalSize =
         msTbl.getParameters().remove(StatsSetupConst.TOTAL_SIZE) != null;
-    if (droppedRowCount || droppedTotalSize) {
+    boolean droppedHistograms = false;
+    Iterator<String> paramKeys = msTbl.getParameters().keySet().iterator();
+    while (paramKeys.hasNext()) {
+      if (!paramKeys.next().startsWith(Histogram.TBL_PROP_PREFIX)) continue;
+      paramKeys.remove();
+      droppedHistograms = true;
+    }
+    if (droppedRowCount || droppedTotalSize || droppedHistograms) {
       applyAlterTable(msTbl, false);
       ++numTargetedPartitions;
     }
@@ -3961,6 +3995,10 @@ public class CatalogOpExecutor {
       }
 
       loadTableMetadata(table, newCatalogVersion, true, false, partsToLoadMetadata);
+      if (update.isSetNum_modified_rows()) {
+        catalog_.recordTableModification(tblName.getDb(), tblName.getTbl(),
+            update.getNum_modified_rows());
+      }
       // After loading metadata, fire insert events if external event processing is
       // enabled.
       createInsertEvents(table, affectedExistingPartitions, update.is_overwrite);
@@ -4028,6 +4066,11 @@ public class CatalogOpExecutor {
             filesPostInsert.size(), table.getTableName(), part.getPartitionName());
       }
       if (deltaFiles != null || isInsertOverwrite) {
+        // Register the event before firing it, so that the events processor recognizes
+        // it as a self-event and does not refresh the table again.
+        String insertEventKey =
+            MetaStoreUtil.getInsertEventKey(partVals, deltaFiles, isInsertOverwrite);
+        catalog_.addInflightInsertEvent(table, insertEventKey);
         try (MetaStoreClient metaStoreClient = catalog_.getMetaStoreClient()) {
           MetaStoreUtil
               .fireInsertEvent(metaStoreClient.getHiveClient(), table.getDb().getName(),
@@ -4035,6 +4078,8 @@ public class CatalogOpExecutor {
         } catch (Exception e) {
           LOG.error("Failed to fire insert event. Some tables might not be"
               + " refreshed on other impala clusters.", e);
+          catalog_.removeFromInflightInsertEvents(table.getDb().getName(),
+              table.getName(), insertEventKey);
         }
       }
       else {
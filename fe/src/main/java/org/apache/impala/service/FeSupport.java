@@ -237,20 +237,26 @@ public class FeSupport {
   /**
    * Evaluate a batch of predicates in the BE. The results are stored in a
    * TResultRow object, where each TColumnValue in it stores the result of
-   * a predicate evaluation.
-   *
-   * TODO: This function is currently used for improving the performance of
-   * partition pruning (see IMPALA-887), hence it only supports boolean
-   * exprs. In the future, we can extend it to support arbitrary exprs without
-   * SlotRefs.
+   * a predicate evaluation. Used for partition pruning (see IMPALA-887). Use
+   * EvalExprBatch() for exprs of other types.
    */
   public static TResultRow EvalPredicateBatch(List<Expr> exprs,
       TQueryCtx queryCtx) throws InternalException {
+    // Make sure we only process boolean exprs.
+    for (Expr expr: exprs) Preconditions.checkState(expr.getType().isBoolean());
+    return EvalExprBatch(exprs, queryCtx);
+  }
+
+  /**
+   * Evaluate a batch of constant exprs of arbitrary scalar types in the BE with a
+   * single JNI call. The query context is serialized only once for the whole batch.
+   * The i-th TColumnValue of the returned TResultRow holds the result of the i-th expr.
+   */
+  public static TResultRow EvalExprBatch(List<Expr> exprs,
+      TQueryCtx queryCtx) throws InternalException {
     TSerializer serializer = new TSerializer(new TBinaryProtocol.Factory());
     TExprBatch exprBatch = new TExprBatch();
     for (Expr expr: exprs) {
-      // Make sure we only process boolean exprs.
-      Preconditions.checkState(expr.getType().isBoolean());
       Preconditions.checkState(!expr.contains(SlotRef.class));
       exprBatch.addToExprs(expr.treeToThrift());
     }
@@ -278,8 +284,13 @@ public class FeSupport {
     return NativePrioritizeLoad(thriftReq);
   }
 
-  public static void PrioritizeLoad(Set<TableName> tableNames)
-      throws InternalException {
+  /**
+   * Requests a prioritized load of the given tables from the catalogd. If
+   * 'wantLoadedObjects' is true, waits for the tables to be loaded and returns them in
+   * the response.
+   */
+  public static TPrioritizeLoadResponse PrioritizeLoad(Set<TableName> tableNames,
+      boolean wantLoadedObjects) throws InternalException {
     Preconditions.checkNotNull(tableNames);
 
     LOG.info(String.format("Requesting prioritized load of table(s): %s",
@@ -296,6 +307,7 @@ public class FeSupport {
     TPrioritizeLoadRequest request = new TPrioritizeLoadRequest ();
     request.setHeader(new TCatalogServiceRequestHeader());
     request.setObject_descs(objectDescs);
+    request.setWant_loaded_objects(wantLoadedObjects);
 
     TSerializer serializer = new TSerializer(new TBinaryProtocol.Factory());
     try {
@@ -308,6 +320,7 @@ public class FeSupport {
         throw new InternalException("Error requesting prioritized load: " +
             Joiner.on("\n").join(response.getStatus().getError_msgs()));
       }
+      return response;
     } catch (TException e) {
       // this should never happen
       throw new InternalException("Error processing request: " + e.getMessage(), e);
@@ -324,13 +337,12 @@ public class FeSupport {
   }
 
   public static TGetPartitionStatsResponse GetPartitionStats(
-      TableName table) throws InternalException {
-    Preconditions.checkNotNull(table);
+      TGetPartitionStatsRequest request) throws InternalException {
+    Preconditions.checkNotNull(request);
+    TableName table = TableName.fromThrift(request.getTable_name());
 
     LOG.info("Fetching partition statistics for table {} from catalog.", table);
 
-    TGetPartitionStatsRequest request = new TGetPartitionStatsRequest();
-    request.setTable_name(table.toThrift());
     TGetPartitionStatsResponse response = new TGetPartitionStatsResponse();
     TSerializer serializer = new TSerializer(new TBinaryProtocol.Factory());
     try {
@@ -350,6 +362,8 @@ public class FeSupport {
     int numPartitionsFetched = 0;
     if (response.isSetPartition_stats()) {
       numPartitionsFetched = response.partition_stats.size();
+    } else if (response.isSetMerged_partition_names()) {
+      numPartitionsFetched = response.merged_partition_names.size();
     }
     LOG.info("Fetched statistics for {} partitions of table {}.", numPartitionsFetched,
         table);
@@ -20,6 +20,7 @@ package org.apache.impala.service;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -38,6 +39,7 @@ import org.apache.impala.analysis.AlterDbStmt;
 import org.apache.impala.analysis.AnalysisContext;
 import org.apache.impala.analysis.AnalysisContext.AnalysisResult;
 import org.apache.impala.analysis.CommentOnStmt;
+import org.apache.impala.analysis.ComputeStatsStmt;
 import org.apache.impala.analysis.CopyTestCaseStmt;
 import org.apache.impala.analysis.CreateDataSrcStmt;
 import org.apache.impala.analysis.CreateDropRoleStmt;
@@ -71,6 +73,8 @@ import org.apache.impala.authorization.Privilege;
 import org.apache.impala.authorization.PrivilegeRequest;
 import org.apache.impala.authorization.PrivilegeRequestBuilder;
 import org.apache.impala.authorization.User;
+import org.apache.impala.authorization.UserGroupCache;
+import org.apache.impala.authorization.VisibleObjects;
 import org.apache.impala.catalog.Catalog;
 import org.apache.impala.catalog.CatalogException;
 import org.apache.impala.catalog.Column;
@@ -93,7 +97,9 @@ import org.apache.impala.common.FileSystemUtil;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.common.NotImplementedException;
+import org.apache.impala.common.PrintUtils;
 import org.apache.impala.compat.MetastoreShim;
+import org.apache.impala.planner.ExecFeedbackStore;
 import org.apache.impala.planner.HdfsScanNode;
 import org.apache.impala.planner.PlanFragment;
 import org.apache.impala.planner.Planner;
@@ -102,9 +108,11 @@ import org.apache.impala.thrift.TAlterDbParams;
 import org.apache.impala.thrift.TCatalogOpRequest;
 import org.apache.impala.thrift.TCatalogOpType;
 import org.apache.impala.thrift.TCatalogServiceRequestHeader;
+import org.apache.impala.thrift.TClientRequest;
 import org.apache.impala.thrift.TColumn;
 import org.apache.impala.thrift.TColumnValue;
 import org.apache.impala.thrift.TCommentOnParams;
+import org.apache.impala.thrift.TCounter;
 import org.apache.impala.thrift.TCreateDropRoleParams;
 import org.apache.impala.thrift.TDdlExecRequest;
 import org.apache.impala.thrift.TDdlType;
@@ -136,6 +144,7 @@ import org.apache.impala.thrift.TShowFilesParams;
 import org.apache.impala.thrift.TShowStatsOp;
 import org.apache.impala.thrift.TStmtType;
 import org.apache.impala.thrift.TTableName;
+import org.apache.impala.thrift.TUnit;
 import org.apache.impala.thrift.TUpdateCatalogCacheRequest;
 import org.apache.impala.thrift.TUpdateCatalogCacheResponse;
 import org.apache.impala.thrift.TUpdateExecutorMembershipRequest;
@@ -151,6 +160,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicates;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Uninterruptibles;
@@ -191,6 +201,9 @@ public class Frontend {
     // The physical plan, divided by fragment, before conversion to
     // Thrift. For unit testing.
     protected List<PlanFragment> plan_;
+    // The tables referenced by the statement. Set once they are loaded. Used for
+    // logging slow planning.
+    protected Collection<FeTable> tables_;
 
     public PlanCtx(TQueryCtx qCtx) {
       queryCtx_ = qCtx;
@@ -271,6 +284,8 @@ public class Frontend {
     }
     impaladTableUsageTracker_ = ImpaladTableUsageTracker.createFromConfig(
         BackendConfig.INSTANCE);
+    ExecFeedbackStore.INSTANCE.init(BackendConfig.INSTANCE.getExecFeedbackMaxEntries(),
+        BackendConfig.INSTANCE.getExecFeedbackTtlS());
   }
 
   /**
@@ -288,7 +303,7 @@ public class Frontend {
       try {
         LOG.info("Reloading authorization policy file from: " + config_.getPolicyFile());
         authzChecker_.set(new AuthorizationChecker(config_,
-            getCatalog().getAuthPolicy()));
+            getCatalog().getAuthPolicy(), authzChecker_.get()));
       } catch (Exception e) {
         LOG.error("Error reloading policy file: ", e);
       }
@@ -310,7 +325,7 @@ public class Frontend {
       // In the case that it was a non-delta update, the catalog might have reloaded
       // itself, and we need to reset the AuthorizationChecker accordingly.
       authzChecker_.set(new AuthorizationChecker(
-          authzConfig_, getCatalog().getAuthPolicy()));
+          authzConfig_, getCatalog().getAuthPolicy(), authzChecker_.get()));
     }
     return resp;
   }
@@ -327,7 +342,7 @@ public class Frontend {
    * result argument.
    */
   private void createCatalogOpRequest(AnalysisResult analysis,
-      TExecRequest result) throws InternalException {
+      TExecRequest result) throws ImpalaException {
     TCatalogOpRequest ddl = new TCatalogOpRequest();
     TResultSetMetadata metadata = new TResultSetMetadata();
     if (analysis.isUseStmt()) {
@@ -474,7 +489,10 @@ public class Frontend {
       ddl.op_type = TCatalogOpType.DDL;
       TDdlExecRequest req = new TDdlExecRequest();
       req.setDdl_type(TDdlType.COMPUTE_STATS);
-      req.setCompute_stats_params(analysis.getComputeStatsStmt().toThrift());
+      ComputeStatsStmt stmt = analysis.getComputeStatsStmt();
+      String sampleWarning = stmt.computeUnitsSample();
+      if (sampleWarning != null) result.addToAnalysis_warnings(sampleWarning);
+      req.setCompute_stats_params(stmt.toThrift());
       ddl.setDdl_params(req);
     } else if (analysis.isDropDbStmt()) {
       ddl.op_type = TCatalogOpType.DDL;
@@ -719,6 +737,8 @@ public class Frontend {
       resp.num_tables += db.getAllTableNames().size();
     }
     FeCatalogUtils.populateCacheMetrics(getCatalog(), resp);
+    AuthorizationChecker.populateDecisionCacheMetrics(resp);
+    UserGroupCache.populateMetrics(resp);
     return resp;
   }
 
@@ -758,17 +778,36 @@ public class Frontend {
     }
   }
 
+  /**
+   * Returns the objects that 'user' has any privilege on, to be passed to the listing
+   * methods of this class when listing several objects for the same request. Returns
+   * null if authorization is disabled or the objects cannot be computed in bulk, in
+   * which case the listing methods check the privileges of each object.
+   */
+  public VisibleObjects getVisibleObjects(User user) throws InternalException {
+    if (!authzConfig_.isEnabled()) return null;
+    return authzChecker_.get().getVisibleObjects(user);
+  }
+
   /**
    * Returns all tables in database 'dbName' that match the pattern of 'matcher' and are
    * accessible to 'user'.
    */
   public List<String> getTableNames(String dbName, PatternMatcher matcher,
       User user) throws ImpalaException {
+    return getTableNames(dbName, matcher, user, getVisibleObjects(user));
+  }
+
+  /**
+   * Same as above but uses 'visibleObjects' returned by getVisibleObjects() for 'user'.
+   */
+  public List<String> getTableNames(String dbName, PatternMatcher matcher,
+      User user, VisibleObjects visibleObjects) throws ImpalaException {
     RetryTracker retries = new RetryTracker(
         String.format("fetching %s table names", dbName));
     while (true) {
       try {
-        return doGetTableNames(dbName, matcher, user);
+        return doGetTableNames(dbName, matcher, user, visibleObjects);
       } catch(InconsistentMetadataFetchException e) {
         retries.handleRetryOrThrow(e);
       }
@@ -776,12 +815,16 @@ public class Frontend {
   }
 
   private List<String> doGetTableNames(String dbName, PatternMatcher matcher,
-      User user) throws ImpalaException {
+      User user, VisibleObjects visibleObjects) throws ImpalaException {
     List<String> tblNames = getCatalog().getTableNames(dbName, matcher);
     if (authzConfig_.isEnabled()) {
       Iterator<String> iter = tblNames.iterator();
       while (iter.hasNext()) {
         String tblName = iter.next();
+        if (visibleObjects != null) {
+          if (!visibleObjects.isTableVisible(dbName, tblName)) iter.remove();
+          continue;
+        }
         PrivilegeRequest privilegeRequest = new PrivilegeRequestBuilder()
             .any().onAnyColumn(dbName, tblName).toRequest();
         if (!authzChecker_.get().hasAccess(user, privilegeRequest)) {
@@ -798,16 +841,42 @@ public class Frontend {
    */
   public List<Column> getColumns(FeTable table, PatternMatcher matcher,
       User user) throws InternalException {
+    return getColumns(table, matcher, user, getVisibleObjects(user));
+  }
+
+  /**
+   * Same as above but uses 'visibleObjects' returned by getVisibleObjects() for 'user'.
+   */
+  public List<Column> getColumns(FeTable table, PatternMatcher matcher,
+      User user, VisibleObjects visibleObjects) throws InternalException {
     Preconditions.checkNotNull(table);
+    return getColumns(table.getTableName(), table.getColumnsInHiveOrder(), matcher,
+        user, visibleObjects);
+  }
+
+  /**
+   * Returns the columns in 'tableColumns' of the table 'tableName' that match 'matcher'
+   * and are accessible to the given user. Used when the table's metadata is not loaded
+   * and its columns were derived from the HMS table. 'visibleObjects' is the result of
+   * getVisibleObjects() for 'user'.
+   */
+  public List<Column> getColumns(TableName tableName, List<Column> tableColumns,
+      PatternMatcher matcher, User user, VisibleObjects visibleObjects)
+      throws InternalException {
     Preconditions.checkNotNull(matcher);
     List<Column> columns = Lists.newArrayList();
-    for (Column column: table.getColumnsInHiveOrder()) {
+    for (Column column: tableColumns) {
       String colName = column.getName();
       if (!matcher.matches(colName)) continue;
-      if (authzConfig_.isEnabled()) {
+      if (visibleObjects != null) {
+        if (!visibleObjects.isColumnVisible(tableName.getDb(), tableName.getTbl(),
+            colName)) {
+          continue;
+        }
+      } else if (authzConfig_.isEnabled()) {
         PrivilegeRequest privilegeRequest = new PrivilegeRequestBuilder()
-            .any().onColumn(table.getTableName().getDb(), table.getTableName().getTbl(),
-            colName).toRequest();
+            .any().onColumn(tableName.getDb(), tableName.getTbl(), colName)
+            .toRequest();
         if (!authzChecker_.get().hasAccess(user, privilegeRequest)) continue;
       }
       columns.add(column);
@@ -821,6 +890,14 @@ public class Frontend {
    */
   public List<? extends FeDb> getDbs(PatternMatcher matcher, User user)
       throws InternalException {
+    return getDbs(matcher, user, getVisibleObjects(user));
+  }
+
+  /**
+   * Same as above but uses 'visibleObjects' returned by getVisibleObjects() for 'user'.
+   */
+  public List<? extends FeDb> getDbs(PatternMatcher matcher, User user,
+      VisibleObjects visibleObjects) throws InternalException {
     List<? extends FeDb> dbs = getCatalog().getDbs(matcher);
     // If authorization is enabled, filter out the databases the user does not
     // have permissions on.
@@ -828,21 +905,23 @@ public class Frontend {
       Iterator<? extends FeDb> iter = dbs.iterator();
       while (iter.hasNext()) {
         FeDb db = iter.next();
-        if (!isAccessibleToUser(db, user)) iter.remove();
+        if (!isAccessibleToUser(db, user, visibleObjects)) iter.remove();
       }
     }
     return dbs;
   }
 
   /**
-   * Check whether database is accessible to given user.
+   * Check whether database is accessible to given user. Uses 'visibleObjects' if it is
+   * not null, otherwise checks the privileges of the user on the database.
    */
-  private boolean isAccessibleToUser(FeDb db, User user)
+  private boolean isAccessibleToUser(FeDb db, User user, VisibleObjects visibleObjects)
       throws InternalException {
     if (db.getName().toLowerCase().equals(Catalog.DEFAULT_DB.toLowerCase())) {
       // Default DB should always be shown.
       return true;
     }
+    if (visibleObjects != null) return visibleObjects.isDbVisible(db.getName());
     PrivilegeRequest request = new PrivilegeRequestBuilder()
         .any().onAnyColumn(db.getName(), AuthorizeableTable.ANY_TABLE_NAME).toRequest();
     return authzChecker_.get().hasAccess(user, request);
@@ -1157,19 +1236,12 @@ public class Frontend {
       Planner planner, PlanCtx planCtx) throws ImpalaException {
     TQueryCtx queryCtx = planner.getQueryCtx();
     AnalysisResult analysisResult = planner.getAnalysisResult();
-    boolean isMtExec = analysisResult.isQueryStmt()
-        && queryCtx.client_request.query_options.isSetMt_dop()
-        && queryCtx.client_request.query_options.mt_dop > 0;
 
     List<PlanFragment> planRoots = Lists.newArrayList();
     TQueryExecRequest result = new TQueryExecRequest();
-    if (isMtExec) {
-      LOG.trace("create mt plan");
-      planRoots.addAll(planner.createParallelPlans());
-    } else {
-      LOG.trace("create plan");
-      planRoots.add(planner.createPlan().get(0));
-    }
+    LOG.trace("create plan");
+    // Creates parallel plans if MT_DOP is set or selected by the planner.
+    planRoots.addAll(planner.createPlans());
     if (planCtx.planCaptureRequested()) {
       planCtx.plan_ = planRoots;
     }
@@ -1177,6 +1249,12 @@ public class Frontend {
     // Compute resource requirements of the final plans.
     planner.computeResourceReqs(planRoots, queryCtx, result);
 
+    // Remember the plan nodes whose actual cardinalities are recorded as execution
+    // feedback once the query completes.
+    if (analysisResult.isQueryStmt() && !analysisResult.isExplainStmt()) {
+      ExecFeedbackStore.INSTANCE.registerPlan(queryCtx.getQuery_id(), planRoots);
+    }
+
     // create per-plan exec info;
     // also assemble list of names of tables with missing or corrupt stats for
     // assembling a warning message
@@ -1219,14 +1297,58 @@ public class Frontend {
     // and profiling.
     try (FrontendProfile.Scope scope = FrontendProfile.createNewWithScope()) {
       EventSequence timeline = new EventSequence("Query Compilation");
+      Stopwatch sw = new Stopwatch().start();
       TExecRequest result = getTExecRequest(planCtx, timeline);
       timeline.markEvent("Planning finished");
+      logSlowPlanning(planCtx, sw.elapsed(TimeUnit.MILLISECONDS));
       result.setTimeline(timeline.toThrift());
       result.setProfile(FrontendProfile.getCurrent().emitAsThrift());
       return result;
     }
   }
 
+  /**
+   * Logs the statement of 'planCtx', the time spent in each planner phase and the sizes
+   * of the referenced tables if planning took longer than the configured threshold,
+   * see the slow_planning_log_threshold_ms flag. 'elapsedMs' is the planning time.
+   */
+  private void logSlowPlanning(PlanCtx planCtx, long elapsedMs) {
+    int thresholdMs = BackendConfig.INSTANCE.getSlowPlanningLogThresholdMs();
+    if (thresholdMs <= 0 || elapsedMs < thresholdMs) return;
+    TClientRequest clientRequest = planCtx.getQueryContext().client_request;
+    String stmt = clientRequest.isSetRedacted_stmt() ?
+        clientRequest.redacted_stmt : clientRequest.stmt;
+    StringBuilder msg = new StringBuilder();
+    msg.append(String.format("Planning took %dms (threshold %dms) for statement: %s\n",
+        elapsedMs, thresholdMs, stmt));
+    msg.append("Planner phases:\n");
+    String prefix = FrontendProfile.PLANNER_PHASE_PREFIX + ".";
+    for (TCounter counter: FrontendProfile.getCurrent().getCounters()) {
+      if (!counter.getName().startsWith(prefix)) continue;
+      String value;
+      if (counter.getUnit() == TUnit.TIME_NS) {
+        value = TimeUnit.NANOSECONDS.toMillis(counter.getValue()) + "ms";
+      } else {
+        value = Long.toString(counter.getValue());
+      }
+      msg.append(String.format("  %s: %s\n",
+          counter.getName().substring(prefix.length()), value));
+    }
+    if (planCtx.tables_ != null && !planCtx.tables_.isEmpty()) {
+      msg.append("Tables:\n");
+      for (FeTable table: planCtx.tables_) {
+        msg.append("  " + table.getFullName() + ": rows=" + table.getNumRows());
+        if (table instanceof FeFsTable) {
+          FeFsTable fsTable = (FeFsTable) table;
+          msg.append(" partitions=" + fsTable.getPartitionIds().size());
+          msg.append(" size=" + PrintUtils.printBytes(fsTable.getTotalHdfsBytes()));
+        }
+        msg.append("\n");
+      }
+    }
+    LOG.warn(msg.toString());
+  }
+
   /**
    * Marks 'timeline' with the number of query planning retries that were needed.
    * Includes a 'msg' that explains the cause of retries. If there were no retries, then
@@ -1245,6 +1367,13 @@ public class Frontend {
     LOG.info("Analyzing query: " + queryCtx.client_request.stmt + " db: "
         + queryCtx.session.database);
 
+    // Statements pin snapshots of the metadata of the ImpaladCatalog, so planning sees
+    // consistent metadata without retries. Only the LocalCatalog, which fetches
+    // metadata from the catalogd lazily during planning, needs to retry.
+    if (getCatalog() instanceof ImpaladCatalog) {
+      return doCreateExecRequest(planCtx, timeline);
+    }
+
     int attempt = 0;
     String retryMsg = "";
     while (true) {
@@ -1273,16 +1402,28 @@ public class Frontend {
       EventSequence timeline) throws ImpalaException {
     TQueryCtx queryCtx = planCtx.getQueryContext();
     // Parse stmt and collect/load metadata to populate a stmt-local table cache
-    StatementBase stmt = Parser.parse(
-        queryCtx.client_request.stmt, queryCtx.client_request.query_options);
+    StatementBase stmt;
+    try (FrontendProfile.PhaseTimer timer = FrontendProfile.startPhase("Parse")) {
+      stmt = Parser.parse(
+          queryCtx.client_request.stmt, queryCtx.client_request.query_options);
+    }
     StmtMetadataLoader metadataLoader =
         new StmtMetadataLoader(this, queryCtx.session.database, timeline);
-    StmtTableCache stmtTableCache = metadataLoader.loadTables(stmt);
+    StmtTableCache stmtTableCache;
+    try (FrontendProfile.PhaseTimer timer = FrontendProfile.startPhase("MetadataLoad")) {
+      stmtTableCache = metadataLoader.loadTables(stmt);
+    }
+    FrontendProfile.addToPhaseCounter("MetadataLoad", "Tables", TUnit.UNIT,
+        stmtTableCache.tables.size());
+    planCtx.tables_ = stmtTableCache.tables.values();
 
     // Analyze and authorize stmt
     AnalysisContext analysisCtx = new AnalysisContext(queryCtx, authzConfig_, timeline);
-    AnalysisResult analysisResult =
-        analysisCtx.analyzeAndAuthorize(stmt, stmtTableCache, authzChecker_.get());
+    AnalysisResult analysisResult;
+    try (FrontendProfile.PhaseTimer timer = FrontendProfile.startPhase("Analysis")) {
+      analysisResult =
+          analysisCtx.analyzeAndAuthorize(stmt, stmtTableCache, authzChecker_.get());
+    }
     LOG.info("Analysis finished.");
     timeline.markEvent("Analysis finished");
     Preconditions.checkNotNull(analysisResult.getStmt());
@@ -1341,8 +1482,10 @@ public class Frontend {
     if (!queryOptions.isSetMt_dop()) queryOptions.setMt_dop(0);
 
     // create TQueryExecRequest
-    TQueryExecRequest queryExecRequest =
-        getPlannedExecRequest(planCtx, analysisResult, timeline);
+    TQueryExecRequest queryExecRequest;
+    try (FrontendProfile.PhaseTimer timer = FrontendProfile.startPhase("Planning")) {
+      queryExecRequest = getPlannedExecRequest(planCtx, analysisResult, timeline);
+    }
 
     TLineageGraph thriftLineageGraph = analysisResult.getThriftLineageGraph();
     if (thriftLineageGraph != null && thriftLineageGraph.isSetQuery_text()) {
@@ -19,6 +19,7 @@ package org.apache.impala.service;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Nonnull;
@@ -46,6 +47,9 @@ import com.google.errorprone.annotations.concurrent.GuardedBy;
 public class FrontendProfile {
   private static final String ROOT_COUNTER_NAME = "";
 
+  // Prefix of the counters of the planner phases, see startPhase().
+  public static final String PLANNER_PHASE_PREFIX = "PlannerPhase";
+
   private static ThreadLocal<FrontendProfile> THREAD_LOCAL =
       new ThreadLocal<>();
 
@@ -144,6 +148,56 @@ public class FrontendProfile {
     counter.value += delta;
   }
 
+  /**
+   * Returns a copy of the counters of the profile in the order of their creation.
+   */
+  public synchronized List<TCounter> getCounters() {
+    Preconditions.checkState(profile_ != null, "already emitted profile");
+    List<TCounter> result = new ArrayList<>();
+    for (TCounter counter: profile_.counters) result.add(counter.deepCopy());
+    return result;
+  }
+
+  /**
+   * Adds 'delta' to the counter 'name' of the planner phase 'phase' in the current
+   * profile, if any.
+   */
+  public static void addToPhaseCounter(String phase, String name, TUnit unit,
+      long delta) {
+    FrontendProfile profile = getCurrentOrNull();
+    if (profile == null) return;
+    profile.addToCounter(getPhaseCounterName(phase, name), unit, delta);
+  }
+
+  private static String getPhaseCounterName(String phase, String name) {
+    return PLANNER_PHASE_PREFIX + "." + phase + "." + name;
+  }
+
+  /**
+   * Starts timing the planner phase 'phase'. The returned timer adds the elapsed time
+   * to the "Time" counter of the phase in the current profile when it is closed. Meant
+   * to be used in a try-with-resources statement. Nested phases are counted in both
+   * phases.
+   */
+  public static PhaseTimer startPhase(String phase) {
+    return new PhaseTimer(phase);
+  }
+
+  public static class PhaseTimer implements AutoCloseable {
+    private final String phase_;
+    private final long startNs_;
+
+    private PhaseTimer(String phase) {
+      phase_ = Preconditions.checkNotNull(phase);
+      startNs_ = System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+      addToPhaseCounter(phase_, "Time", TUnit.TIME_NS, System.nanoTime() - startNs_);
+    }
+  }
+
 
   public static class Scope implements AutoCloseable {
     private final FrontendProfile oldThreadLocalValue_;
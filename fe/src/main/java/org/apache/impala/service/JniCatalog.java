@@ -17,6 +17,7 @@
 
 package org.apache.impala.service;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
@@ -56,6 +57,7 @@ import org.apache.impala.thrift.TGetTableMetricsParams;
 import org.apache.impala.thrift.TGetTablesResult;
 import org.apache.impala.thrift.TLogLevel;
 import org.apache.impala.thrift.TPrioritizeLoadRequest;
+import org.apache.impala.thrift.TPrioritizeLoadResponse;
 import org.apache.impala.thrift.TResetMetadataRequest;
 import org.apache.impala.thrift.TSentryAdminCheckRequest;
 import org.apache.impala.thrift.TStatus;
@@ -257,11 +259,31 @@ public class JniCatalog {
     return serializer.serialize(response);
   }
 
-  public void prioritizeLoad(byte[] thriftLoadReq) throws ImpalaException,
+  public byte[] prioritizeLoad(byte[] thriftLoadReq) throws ImpalaException,
       TException  {
     TPrioritizeLoadRequest request = new TPrioritizeLoadRequest();
     JniUtil.deserializeThrift(protocolFactory_, request, thriftLoadReq);
-    catalog_.prioritizeLoad(request.getObject_descs());
+    TSerializer serializer = new TSerializer(protocolFactory_);
+    return serializer.serialize(prioritizeLoad(catalog_, catalogServiceId_, request));
+  }
+
+  /**
+   * Queues the tables of 'request' for loading by 'catalog'. If the request wants the
+   * loaded objects, waits for the tables to be loaded and returns them in the response
+   * together with 'serviceId'.
+   */
+  @VisibleForTesting
+  static TPrioritizeLoadResponse prioritizeLoad(CatalogServiceCatalog catalog,
+      TUniqueId serviceId, TPrioritizeLoadRequest request) throws CatalogException {
+    TPrioritizeLoadResponse response = new TPrioritizeLoadResponse();
+    response.setStatus(new TStatus(TErrorCode.OK, new ArrayList<String>()));
+    if (request.isWant_loaded_objects()) {
+      response.setCatalog_service_id(serviceId);
+      response.setLoaded_objects(catalog.prioritizeLoadAndWait(request.getObject_descs()));
+    } else {
+      catalog.prioritizeLoad(request.getObject_descs());
+    }
+    return response;
   }
 
   public byte[] getPartitionStats(byte[] thriftParams)
@@ -269,10 +291,11 @@ public class JniCatalog {
     TGetPartitionStatsRequest request = new TGetPartitionStatsRequest();
     JniUtil.deserializeThrift(protocolFactory_, request, thriftParams);
     TSerializer serializer = new TSerializer(protocolFactory_);
-    TGetPartitionStatsResponse response = new TGetPartitionStatsResponse();
+    TGetPartitionStatsResponse response;
     try {
-      response.setPartition_stats(catalog_.getPartitionStats(request));
+      response = catalog_.getPartitionStats(request);
     } catch (CatalogException e) {
+      response = new TGetPartitionStatsResponse();
       response.setStatus(
           new TStatus(TErrorCode.INTERNAL_ERROR, ImmutableList.of(e.getMessage())));
     }
@@ -328,6 +351,12 @@ public class JniCatalog {
     response.setCatalog_partial_fetch_rpc_queue_len(
         catalog_.getPartialFetchRpcQueueLength());
     response.setEvent_metrics(catalog_.getEventProcessorMetrics());
+    if (catalog_.getSentryProxy() != null) {
+      catalog_.getSentryProxy().populateMetrics(response);
+    }
+    if (catalog_.getCatalogdStatsMaintainer() != null) {
+      catalog_.getCatalogdStatsMaintainer().populateMetrics(response);
+    }
     TSerializer serializer = new TSerializer(protocolFactory_);
     return serializer.serialize(response);
   }
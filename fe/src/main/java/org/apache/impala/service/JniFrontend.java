@@ -47,6 +47,7 @@ import org.apache.impala.analysis.ToSqlUtils;
 import org.apache.impala.authorization.AuthorizationConfig;
 import org.apache.impala.authorization.ImpalaInternalAdminUser;
 import org.apache.impala.authorization.User;
+import org.apache.impala.authorization.UserGroupCache;
 import org.apache.impala.catalog.FeDataSource;
 import org.apache.impala.catalog.FeDb;
 import org.apache.impala.catalog.Function;
@@ -58,6 +59,7 @@ import org.apache.impala.common.FileSystemUtil;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.common.JniUtil;
+import org.apache.impala.planner.ExecFeedbackStore;
 import org.apache.impala.service.Frontend.PlanCtx;
 import org.apache.impala.thrift.TBackendGflags;
 import org.apache.impala.thrift.TBuildTestDescriptorTableParams;
@@ -68,6 +70,7 @@ import org.apache.impala.thrift.TDescribeOutputStyle;
 import org.apache.impala.thrift.TDescribeResult;
 import org.apache.impala.thrift.TDescribeTableParams;
 import org.apache.impala.thrift.TDescriptorTable;
+import org.apache.impala.thrift.TExecFeedback;
 import org.apache.impala.thrift.TExecRequest;
 import org.apache.impala.thrift.TFunctionCategory;
 import org.apache.impala.thrift.TGetAllHadoopConfigsResponse;
@@ -124,6 +127,8 @@ public class JniFrontend {
   private final static TBinaryProtocol.Factory protocolFactory_ =
       new TBinaryProtocol.Factory();
   private final Frontend frontend_;
+  // Groups of users as resolved by the Hadoop group mapping service.
+  private final UserGroupCache hadoopGroupCache_;
 
   /**
    * Create a new instance of the Jni Frontend.
@@ -133,6 +138,7 @@ public class JniFrontend {
     JniUtil.deserializeThrift(protocolFactory_, cfg, thriftBackendConfig);
 
     BackendConfig.create(cfg);
+    hadoopGroupCache_ = UserGroupCache.create(JniFrontend::resolveHadoopGroups);
 
     GlogAppender.Install(TLogLevel.values()[cfg.impala_log_lvl],
         TLogLevel.values()[cfg.non_impala_java_vlog]);
@@ -198,6 +204,16 @@ public class JniFrontend {
     frontend_.updateExecutorMembership(req);
   }
 
+  /**
+   * Records the plan node cardinalities of a completed query in the execution feedback
+   * store. Accepts a serialized TExecFeedback.
+   */
+  public void recordExecFeedback(byte[] thriftExecFeedback) throws ImpalaException {
+    TExecFeedback feedback = new TExecFeedback();
+    JniUtil.deserializeThrift(protocolFactory_, feedback, thriftExecFeedback);
+    ExecFeedbackStore.INSTANCE.recordFeedback(feedback);
+  }
+
   /**
    * Loads a table or partition with one or more data files. If the "overwrite" flag
    * in the request is true, all existing data in the table/partition will be replaced.
@@ -648,26 +664,30 @@ public class JniFrontend {
     }
   }
 
-  /**
-   * Returns the list of Hadoop groups for the given user name.
-   */
-  public byte[] getHadoopGroups(byte[] serializedRequest) throws ImpalaException {
-    TGetHadoopGroupsRequest request = new TGetHadoopGroupsRequest();
-    JniUtil.deserializeThrift(protocolFactory_, request, serializedRequest);
-    TGetHadoopGroupsResponse result = new TGetHadoopGroupsResponse();
+  private static Set<String> resolveHadoopGroups(String user) throws InternalException {
     try {
-      result.setGroups(GROUPS.getGroups(request.getUser()));
+      return Sets.newLinkedHashSet(GROUPS.getGroups(user));
     } catch (IOException e) {
       // HACK: https://issues.apache.org/jira/browse/HADOOP-15505
       // There is no easy way to know if no groups found for a user
       // other than reading the exception message.
       if (e.getMessage().startsWith("No groups found for user")) {
-        result.setGroups(Collections.<String>emptyList());
-      } else {
-        LOG.error("Error getting Hadoop groups for user: " + request.getUser(), e);
-        throw new InternalException(e.getMessage());
+        return Collections.emptySet();
       }
+      LOG.error("Error getting Hadoop groups for user: " + user, e);
+      throw new InternalException(e.getMessage());
     }
+  }
+
+  /**
+   * Returns the list of Hadoop groups for the given user name. The groups are cached,
+   * see UserGroupCache.
+   */
+  public byte[] getHadoopGroups(byte[] serializedRequest) throws ImpalaException {
+    TGetHadoopGroupsRequest request = new TGetHadoopGroupsRequest();
+    JniUtil.deserializeThrift(protocolFactory_, request, serializedRequest);
+    TGetHadoopGroupsResponse result = new TGetHadoopGroupsResponse();
+    result.setGroups(Lists.newArrayList(hadoopGroupCache_.getGroups(request.getUser())));
     TSerializer serializer = new TSerializer(protocolFactory_);
     try {
       return serializer.serialize(result);
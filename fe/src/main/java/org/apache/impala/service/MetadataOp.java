@@ -18,22 +18,33 @@
 package org.apache.impala.service;
 
 import java.sql.DatabaseMetaData;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.hadoop.hive.metastore.TableType;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.impala.analysis.StmtMetadataLoader;
 import org.apache.impala.analysis.TableName;
 import org.apache.impala.authorization.User;
+import org.apache.impala.authorization.VisibleObjects;
 import org.apache.impala.catalog.Catalog;
 import org.apache.impala.catalog.Column;
+import org.apache.impala.catalog.DataSourceTable;
 import org.apache.impala.catalog.FeCatalog;
+import org.apache.impala.catalog.FeCatalogUtils;
 import org.apache.impala.catalog.FeDb;
 import org.apache.impala.catalog.FeTable;
 import org.apache.impala.catalog.Function;
+import org.apache.impala.catalog.HBaseTable;
+import org.apache.impala.catalog.HdfsFileFormat;
+import org.apache.impala.catalog.KuduTable;
 import org.apache.impala.catalog.PrimitiveType;
 import org.apache.impala.catalog.ScalarType;
+import org.apache.impala.catalog.TableLoadingException;
 import org.apache.impala.catalog.Type;
 import org.apache.impala.catalog.local.InconsistentMetadataFetchException;
 import org.apache.impala.common.ImpalaException;
@@ -47,6 +58,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 /**
@@ -226,13 +238,14 @@ public class MetadataOp {
     public List<List<String>> comments = Lists.newArrayList();
 
     // columns[i][j] are the columns of tableNames[j] in dbs[i].
-    // If the table is missing (not yet loaded) its column list will be empty.
+    // If the table is missing its column list will be empty.
     public List<List<List<Column>>> columns = Lists.newArrayList();
 
     // functions[i] are the functions within dbs[i]
     public List<List<Function>> functions = Lists.newArrayList();
 
-    // Set of tables that are missing (not yet loaded).
+    // Set of tables that are missing, i.e. not yet loaded and their metadata cannot be
+    // derived from their HMS tables.
     public Set<TableName> missingTbls = new HashSet<TableName>();
   }
 
@@ -285,7 +298,10 @@ public class MetadataOp {
     }
 
     FeCatalog catalog = fe.getCatalog();
-    for (FeDb db: fe.getDbs(schemaPatternMatcher, user)) {
+    // Compute the objects visible to the user once for the whole operation instead of
+    // once per listed db and table.
+    VisibleObjects visibleObjects = fe.getVisibleObjects(user);
+    for (FeDb db: fe.getDbs(schemaPatternMatcher, user, visibleObjects)) {
       if (fnPatternMatcher != PatternMatcher.MATCHER_MATCH_NONE) {
         // Get function metadata
         List<Function> fns = db.getFunctions(null, fnPatternMatcher);
@@ -296,7 +312,15 @@ public class MetadataOp {
         List<List<Column>> tablesColumnsList = Lists.newArrayList();
         List<String> tableComments = Lists.newArrayList();
         List<String> tableTypes = Lists.newArrayList();
-        for (String tabName: fe.getTableNames(db.getName(), tablePatternMatcher, user)) {
+        List<String> tableNames =
+            fe.getTableNames(db.getName(), tablePatternMatcher, user, visibleObjects);
+        // The HMS tables are only needed for the columns of the unloaded tables.
+        Map<String, org.apache.hadoop.hive.metastore.api.Table> unloadedHmsTbls =
+            new HashMap<>();
+        if (columnPatternMatcher != PatternMatcher.MATCHER_MATCH_NONE) {
+          unloadedHmsTbls = getUnloadedHmsTables(catalog, db.getName(), tableNames);
+        }
+        for (String tabName: tableNames) {
           FeTable table = catalog.getTableNoThrow(db.getName(), tabName);
           if (table == null) {
             result.missingTbls.add(new TableName(db.getName(), tabName));
@@ -305,17 +329,35 @@ public class MetadataOp {
 
           String comment = null;
           List<Column> columns = Lists.newArrayList();
-          // If the table is not yet loaded, the columns will be unknown. Add it
-          // to the set of missing tables.
           String tableType = TABLE_TYPE_TABLE;
-          if (!table.isLoaded()) {
-            result.missingTbls.add(new TableName(db.getName(), tabName));
-          } else {
+          // Unloaded tables are listed without their metadata if no columns are
+          // requested, e.g. for GetTables.
+          if (!table.isLoaded() &&
+              columnPatternMatcher != PatternMatcher.MATCHER_MATCH_NONE) {
+            // Derive the metadata from the HMS table to avoid loading the table. If the
+            // columns cannot be derived, add the table to the set of missing tables.
+            TableName tblName = new TableName(db.getName(), tabName);
+            org.apache.hadoop.hive.metastore.api.Table msTbl =
+                unloadedHmsTbls.get(tabName);
+            List<Column> hmsColumns = null;
+            if (msTbl != null) {
+              comment = msTbl.getParameters().get("comment");
+              tableType = mapToInternalTableType(msTbl.getTableType());
+              hmsColumns = getColumnsFromHmsTable(msTbl);
+            }
+            if (hmsColumns == null) {
+              result.missingTbls.add(tblName);
+            } else {
+              columns.addAll(fe.getColumns(tblName, hmsColumns, columnPatternMatcher,
+                  user, visibleObjects));
+            }
+          } else if (table.isLoaded()) {
             if (table.getMetaStoreTable() != null) {
               comment = table.getMetaStoreTable().getParameters().get("comment");
               tableType = mapToInternalTableType(table.getMetaStoreTable().getTableType());
             }
-            columns.addAll(fe.getColumns(table, columnPatternMatcher, user));
+            columns.addAll(
+                fe.getColumns(table, columnPatternMatcher, user, visibleObjects));
           }
           tableList.add(tabName);
           tablesColumnsList.add(columns);
@@ -332,6 +374,64 @@ public class MetadataOp {
     return result;
   }
 
+  /**
+   * Returns a map from table name to the HMS table of the tables in 'tableNames' that
+   * are not loaded in 'catalog'. The HMS tables are fetched in a single request without
+   * loading the tables.
+   */
+  private static Map<String, org.apache.hadoop.hive.metastore.api.Table>
+      getUnloadedHmsTables(FeCatalog catalog, String dbName, List<String> tableNames)
+      throws ImpalaException {
+    List<String> unloadedTableNames = Lists.newArrayList();
+    for (String tableName: tableNames) {
+      FeTable table = catalog.getTableNoThrow(dbName, tableName);
+      if (table != null && !table.isLoaded()) unloadedTableNames.add(tableName);
+    }
+    Map<String, org.apache.hadoop.hive.metastore.api.Table> result = new HashMap<>();
+    if (unloadedTableNames.isEmpty()) return result;
+    for (org.apache.hadoop.hive.metastore.api.Table msTbl:
+        catalog.getHmsTables(dbName, unloadedTableNames)) {
+      result.put(msTbl.getTableName().toLowerCase(), msTbl);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the columns of the given HMS table in Hive order, i.e. the clustering columns
+   * last, or null if the columns cannot be derived from the HMS table alone. This is the
+   * case for Avro tables, whose schema may be defined by the Avro schema, for HBase,
+   * Kudu and data source tables, whose schema is defined by the external system, and
+   * for columns of unsupported types.
+   */
+  private static List<Column> getColumnsFromHmsTable(
+      org.apache.hadoop.hive.metastore.api.Table msTbl) {
+    if (HBaseTable.isHBaseTable(msTbl) || KuduTable.isKuduTable(msTbl) ||
+        DataSourceTable.isDataSourceTable(msTbl) || msTbl.getSd() == null) {
+      return null;
+    }
+    // Views do not have an input format.
+    String inputFormat = msTbl.getSd().getInputFormat();
+    if (inputFormat != null && HdfsFileFormat.isHdfsInputFormatClass(inputFormat) &&
+        HdfsFileFormat.fromJavaClassName(inputFormat) == HdfsFileFormat.AVRO) {
+      return null;
+    }
+    try {
+      // The positions of the clustering columns come first, like in loaded tables.
+      List<FieldSchema> partitionKeys = msTbl.isSetPartitionKeys() ?
+          msTbl.getPartitionKeys() : Collections.<FieldSchema>emptyList();
+      List<Column> columns = FeCatalogUtils.fieldSchemasToColumns(
+          Iterables.concat(partitionKeys, msTbl.getSd().getCols()),
+          msTbl.getDbName() + "." + msTbl.getTableName());
+      int numClusteringCols = msTbl.getPartitionKeysSize();
+      List<Column> result = Lists.newArrayList(
+          columns.subList(numClusteringCols, columns.size()));
+      result.addAll(columns.subList(0, numClusteringCols));
+      return result;
+    } catch (TableLoadingException e) {
+      return null;
+    }
+  }
+
   private static String mapToInternalTableType(String typeStr) {
     String defaultTableType = TABLE_TYPE_TABLE;
     TableType tType;
@@ -365,8 +465,9 @@ public class MetadataOp {
   /**
    * Executes the GetColumns HiveServer2 operation and returns TResultSet.
    * Queries the Impala catalog to return the list of table columns that fit the
-   * search patterns. Matching columns requires loading the table metadata, so if
-   * any missing tables are found an RPC to the CatalogServer will be executed
+   * search patterns. The columns of tables that are not loaded are derived from their
+   * HMS tables, which are fetched without loading the tables. Only if that is not
+   * possible, e.g. for Avro or Kudu tables, an RPC to the CatalogServer will be executed
    * to request loading these tables. The matching process will be restarted
    * once the required tables have been loaded in the local Impalad Catalog or
    * the wait timeout has been reached.
@@ -154,79 +154,116 @@ public abstract class Graph {
 
   /**
    * A graph condensed by its strongly-connected components (SCC). Vertices are mapped to
-   * their SCCs and an inner graph on the SCCs is stored.
+   * their SCCs and the reflexive transitive closure of the inner graph on the SCCs is
+   * stored as a bitset matrix, so that reachability checks are a single bit test. The
+   * sorted dst vertices of an SCC are materialized lazily and cached, because callers
+   * repeatedly iterate the dsts of the same vertices.
    */
   public static class SccCondensedGraph extends Graph {
     // Map an original vid to its SCC ID.
     private final int[] sccIds_;
     // Map an SCC ID to its member vids.
     private final int[][] sccMembers_;
-    // The SCC-condensed inner graph.
-    private final RandomAccessibleGraph condensed_;
-
-    private SccCondensedGraph(int[] sccIds, int[][] sccMembers,
-        RandomAccessibleGraph condensed) {
+    // Map an SCC ID to the set of SCC IDs reachable from it, including itself. Null if
+    // only the SCC itself is reachable, which is the common case for slots that do not
+    // participate in any value transfer.
+    private final BitSet[] closure_;
+    // Map an SCC ID to the sorted vids reachable from its members. Lazily populated.
+    private final int[][] sortedDsts_;
+
+    private SccCondensedGraph(int[] sccIds, int[][] sccMembers, BitSet[] closure) {
       sccIds_ = sccIds;
       sccMembers_ = sccMembers;
-      condensed_ = condensed;
+      closure_ = closure;
+      sortedDsts_ = new int[sccMembers.length][];
     }
 
     @Override
     public int numVertices() { return sccIds_.length; }
 
     @Override
-    public IntIterator dstIter(final int srcVid) {
-      return new IntIterator() {
-        private final int[] condensedAdjList = condensed_.adjList_[sccIds_[srcVid]];
-        private int adjListPos = 0;
-        private int memberPos = 0;
-
-        @Override
-        public boolean hasNext() {
-          // After this loop the iterator either points to a valid dst or reaches the end.
-          while (adjListPos < condensedAdjList.length &&
-              memberPos == sccMembers_[condensedAdjList[adjListPos]].length) {
-            ++adjListPos;
-            memberPos = 0;
-          }
-          return adjListPos < condensedAdjList.length;
-        }
-
-        @Override
-        public int next() {
-          int result = peek();
-          ++memberPos;
-          return result;
-        }
+    public IntIterator dstIter(int srcVid) {
+      return IntIterator.fromArray(sortedDstVids(srcVid));
+    }
 
-        @Override
-        public int peek() {
-          if (!hasNext()) throw new IndexOutOfBoundsException();
-          return sccMembers_[condensedAdjList[adjListPos]][memberPos];
+    /**
+     * Get the sorted array of vertex IDs with an edge from 'srcVid'. The caller
+     * shouldn't modify the returned array.
+     * Time complexity: O(1) amortized over the vertices of an SCC, O(V) for the first
+     * call on an SCC.
+     */
+    public int[] sortedDstVids(int srcVid) {
+      int srcSccId = sccIds_[srcVid];
+      int[] result = sortedDsts_[srcSccId];
+      if (result != null) return result;
+      BitSet reachable = closure_[srcSccId];
+      if (reachable == null) {
+        result = sccMembers_[srcSccId].clone();
+      } else {
+        IntArrayList dsts = new IntArrayList();
+        for (int dstSccId = reachable.nextSetBit(0); dstSccId != -1;
+             dstSccId = reachable.nextSetBit(dstSccId + 1)) {
+          for (int dstVid : sccMembers_[dstSccId]) dsts.add(dstVid);
         }
-      };
+        result = Arrays.copyOfRange(dsts.data(), 0, dsts.size());
+      }
+      Arrays.sort(result);
+      sortedDsts_[srcSccId] = result;
+      return result;
     }
 
     /**
      * Check whether there is an edge from 'srcVid' to 'dstVid'.
-     * Time complexity: O(log(V))
+     * Time complexity: O(1)
      */
     public boolean hasEdge(int srcVid, int dstVid) {
-      return condensed_.hasEdge(sccIds_[srcVid], sccIds_[dstVid]);
+      int srcSccId = sccIds_[srcVid];
+      int dstSccId = sccIds_[dstVid];
+      if (srcSccId == dstSccId) return true;
+      BitSet reachable = closure_[srcSccId];
+      return reachable != null && reachable.get(dstSccId);
     }
 
     /**
      * Create a condensed reflexive transitive closure of a graph.
-     * Time complexity: O(V(V+E)).
+     * Time complexity: O(V+E+E'*V/64), where E' is the number of edges between SCCs.
      */
     public static SccCondensedGraph condensedReflexiveTransitiveClosure(WritableGraph g) {
       // Step 0: Compute the strongly connected components. O(V+E)
       Pair<int[], int[][]> scc = tarjanScc(g);
-      // Step 1: Compute the condensed inner graph. O(V^2+E)
+      // Step 1: Compute the condensed inner graph. O(V^2/64+E)
       RandomAccessibleGraph condensed = condenseGraphOnScc(g, scc.first, scc.second);
-      // Step 2: Compute the reflexive transitive closure. O(V(V+E))
-      RandomAccessibleGraph condensedTc = condensed.reflexiveTransitiveClosure();
-      return new SccCondensedGraph(scc.first, scc.second, condensedTc);
+      // Step 2: Compute the reflexive transitive closure. O(E'*V/64)
+      BitSet[] closure = bitSetTransitiveClosure(condensed);
+      return new SccCondensedGraph(scc.first, scc.second, closure);
+    }
+
+    /**
+     * Compute the reflexive transitive closure of the condensed graph as one bitset per
+     * SCC. Tarjan's algorithm assigns SCC IDs in reverse topological order, i.e. every
+     * edge between different SCCs points to a smaller SCC ID, so the closure of an SCC
+     * is the union of the closures of its direct successors, which have all been
+     * computed before. Each union is a word-parallel OR of two bitsets. The entry of an
+     * SCC without successors is left null.
+     */
+    static private BitSet[] bitSetTransitiveClosure(RandomAccessibleGraph condensed) {
+      int numSccs = condensed.numVertices();
+      BitSet[] closure = new BitSet[numSccs];
+      for (int sccId = 0; sccId < numSccs; ++sccId) {
+        BitSet reachable = null;
+        for (int dstSccId : condensed.adjList_[sccId]) {
+          if (dstSccId == sccId) continue;
+          Preconditions.checkState(dstSccId < sccId);
+          if (reachable == null) {
+            reachable = new BitSet(sccId + 1);
+            reachable.set(sccId);
+          }
+          reachable.set(dstSccId);
+          if (closure[dstSccId] != null) reachable.or(closure[dstSccId]);
+        }
+        closure[sccId] = reachable;
+      }
+      return closure;
     }
 
     /**
@@ -344,7 +381,7 @@ public abstract class Graph {
 
     /**
      * Condense the original graph 'g' to a new graph in SCC space.
-     * Time complexity: O(V^2+E)
+     * Time complexity: O(V^2/64+E)
      */
     static private RandomAccessibleGraph condenseGraphOnScc(WritableGraph g, int[] sccIds,
         int[][] sccMembers) {
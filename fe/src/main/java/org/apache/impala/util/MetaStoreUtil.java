@@ -18,6 +18,7 @@
 package org.apache.impala.util;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -346,4 +347,19 @@ public class MetaStoreUtil {
 
     msClient.fireListenerEvent(rqst);
   }
+
+  /**
+   * Returns a key that identifies an insert event by its partition values, its new
+   * files and its 'replace' flag. The arguments are the same as for fireInsertEvent(),
+   * so that the key of a fired event can be compared to the key of the insert event
+   * received from the metastore to detect self-events. 'partVals' is null for
+   * non-partitioned tables.
+   */
+  public static String getInsertEventKey(List<String> partVals,
+      Collection<String> newFiles, boolean isOverwrite) {
+    List<String> sortedFiles = new ArrayList<>(newFiles);
+    Collections.sort(sortedFiles);
+    return (partVals == null ? "" : Joiner.on('/').join(partVals)) + ":" +
+        Joiner.on(',').join(sortedFiles) + ":" + isOverwrite;
+  }
 }
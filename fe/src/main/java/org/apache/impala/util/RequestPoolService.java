@@ -21,10 +21,14 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.yarn.api.records.QueueACL;
 import org.apache.hadoop.yarn.conf.YarnConfiguration;
@@ -39,6 +43,7 @@ import org.apache.impala.common.ByteUnits;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.common.JniUtil;
+import org.apache.impala.common.Pair;
 import org.apache.impala.common.RuntimeEnv;
 import org.apache.impala.thrift.TErrorCode;
 import org.apache.impala.thrift.TPoolConfigParams;
@@ -54,6 +59,8 @@ import org.apache.impala.yarn.server.resourcemanager.scheduler.fair.FairSchedule
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 
 /**
@@ -75,6 +82,13 @@ import com.google.common.collect.Lists;
  * {@link Configuration} class). start() and stop() will start/stop watching and reloading
  * both of these files.
  *
+ * Resolving a pool evaluates the placement policy, which may look up the groups of the
+ * user, and reading the pool configuration parses values from the Llama configuration.
+ * Both are done for every query, so their results are cached. The caches are replaced
+ * with empty ones whenever either configuration file is reloaded. Resolved pools also
+ * expire after hadoop.security.groups.cache.secs, so that changes to the group
+ * membership of users take effect as quickly as with the Hadoop group mapping cache.
+ *
  * A single instance is created by the backend and lasts the duration of the process.
  */
 public class RequestPoolService {
@@ -152,6 +166,38 @@ public class RequestPoolService {
   // URL of the Llama configuration file.
   private final URL llamaConfUrl_;
 
+  // Time after which cached pool resolutions expire.
+  private final long resolvedPoolExpirySecs_;
+
+  /**
+   * Caches of the results of resolveRequestPool() and getPoolConfig() for the current
+   * allocation and Llama configurations. Results are not modified once cached.
+   */
+  private final class PoolCaches {
+    // Maps (requested pool, user) to the resolution result. Results with an error
+    // status are not cached.
+    final Cache<Pair<String, String>, TResolveRequestPoolResult> resolvedPools_ =
+        CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_RESOLVED_POOLS)
+            .expireAfterWrite(resolvedPoolExpirySecs_, TimeUnit.SECONDS)
+            .build();
+    // Maps pool name to its configuration.
+    final ConcurrentHashMap<String, TPoolConfig> poolConfigs_ =
+        new ConcurrentHashMap<>();
+  }
+
+  // Maximum number of (requested pool, user) pairs whose resolution is cached.
+  private final static long MAX_CACHED_RESOLVED_POOLS = 10000;
+
+  // The current caches. Replaced after the configurations are reloaded. Readers must
+  // read this before reading the configurations, so that results computed from an old
+  // configuration can only end up in a cache that has already been replaced.
+  private volatile PoolCaches caches_;
+
+  // Number of cache hits and misses of resolveRequestPool() and getPoolConfig().
+  private final AtomicLong numCacheHits_ = new AtomicLong();
+  private final AtomicLong numCacheMisses_ = new AtomicLong();
+
   /**
    * Updates the Llama configuration when the file changes. The file is llamaConfUrl_
    * and it will exist when this is created (or RequestPoolService will not start). If
@@ -166,6 +212,7 @@ public class RequestPoolService {
       Configuration conf = new Configuration();
       conf.addResource(llamaConfUrl_);
       llamaConf_ = conf;
+      caches_ = new PoolCaches();
     }
   }
 
@@ -191,6 +238,10 @@ public class RequestPoolService {
     allocConf.set(FairSchedulerConfiguration.ALLOCATION_FILE, fsAllocationURL.getPath());
     allocLoader_ = new AllocationFileLoaderService();
     allocLoader_.init(allocConf);
+    resolvedPoolExpirySecs_ = allocConf.getLong(
+        CommonConfigurationKeysPublic.HADOOP_SECURITY_GROUPS_CACHE_SECS,
+        CommonConfigurationKeysPublic.HADOOP_SECURITY_GROUPS_CACHE_SECS_DEFAULT);
+    caches_ = new PoolCaches();
 
     if (!Strings.isNullOrEmpty(llamaSitePath)) {
       llamaConfUrl_ = getURL(llamaSitePath);
@@ -238,6 +289,7 @@ public class RequestPoolService {
       @Override
       public void onReload(AllocationConfiguration info) {
         allocationConf_.set(info);
+        caches_ = new PoolCaches();
       }
     });
     allocLoader_.start();
@@ -301,9 +353,31 @@ public class RequestPoolService {
     }
   }
 
+  /**
+   * Returns the cached result of resolving the request pool if present, otherwise
+   * resolves the request pool and caches the result if it was successful.
+   */
   @VisibleForTesting
   TResolveRequestPoolResult resolveRequestPool(
       TResolveRequestPoolParams resolvePoolParams) throws InternalException {
+    PoolCaches caches = caches_;
+    Pair<String, String> key = Pair.create(resolvePoolParams.getRequested_pool(),
+        resolvePoolParams.getUser());
+    TResolveRequestPoolResult result = caches.resolvedPools_.getIfPresent(key);
+    if (result != null) {
+      numCacheHits_.incrementAndGet();
+      return result;
+    }
+    numCacheMisses_.incrementAndGet();
+    result = doResolveRequestPool(resolvePoolParams);
+    if (result.getStatus().getStatus_code() == TErrorCode.OK) {
+      caches.resolvedPools_.put(key, result);
+    }
+    return result;
+  }
+
+  private TResolveRequestPoolResult doResolveRequestPool(
+      TResolveRequestPoolParams resolvePoolParams) throws InternalException {
     String requestedPool = resolvePoolParams.getRequested_pool();
     String user = resolvePoolParams.getUser();
     TResolveRequestPoolResult result = new TResolveRequestPoolResult();
@@ -362,8 +436,25 @@ public class RequestPoolService {
     }
   }
 
+  /**
+   * Returns the cached configuration of 'pool' if present, otherwise reads and caches
+   * it.
+   */
   @VisibleForTesting
   TPoolConfig getPoolConfig(String pool) {
+    PoolCaches caches = caches_;
+    TPoolConfig result = caches.poolConfigs_.get(pool);
+    if (result != null) {
+      numCacheHits_.incrementAndGet();
+      return result;
+    }
+    numCacheMisses_.incrementAndGet();
+    result = doGetPoolConfig(pool);
+    caches.poolConfigs_.put(pool, result);
+    return result;
+  }
+
+  private TPoolConfig doGetPoolConfig(String pool) {
     TPoolConfig result = new TPoolConfig();
     long maxMemoryMb = allocationConf_.get().getMaxResources(pool).getMemory();
     result.setMax_mem_resources(
@@ -483,6 +574,15 @@ public class RequestPoolService {
     return allocationConf_.get().hasAccess(pool, QueueACL.SUBMIT_APPLICATIONS, ugi);
   }
 
+  /**
+   * Returns the number of hits and misses of the caches of resolved pools and pool
+   * configurations.
+   */
+  @VisibleForTesting
+  Pair<Long, Long> getCacheHitsAndMisses() {
+    return Pair.create(numCacheHits_.get(), numCacheMisses_.get());
+  }
+
   /**
    * Returns the AllocationConfiguration corresponding to this instance of
    * RequestPoolService.
@@ -20,6 +20,7 @@ package org.apache.impala.util;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -28,6 +29,7 @@ import java.util.stream.Collectors;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.impala.catalog.AuthorizationException;
+import org.apache.impala.catalog.AuthorizationPolicy;
 import org.apache.impala.catalog.CatalogException;
 import org.apache.impala.catalog.CatalogServiceCatalog;
 import org.apache.impala.catalog.Principal;
@@ -37,6 +39,7 @@ import org.apache.impala.common.Reference;
 import org.apache.impala.common.SentryPolicyReaderException;
 import org.apache.impala.common.SentryUnavailableException;
 import org.apache.impala.thrift.TCatalogObject;
+import org.apache.impala.thrift.TGetCatalogServerMetricsResponse;
 import org.apache.impala.thrift.TPrincipalType;
 import org.apache.log4j.Logger;
 import org.apache.sentry.api.service.thrift.TSentryGroup;
@@ -52,6 +55,7 @@ import org.apache.impala.thrift.TPrivilege;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.apache.sentry.core.common.exception.SentryUserException;
 import org.apache.sentry.service.common.SentryOwnerPrivilegeType;
@@ -93,6 +97,91 @@ public class SentryProxy {
     public List<TCatalogObject> getRemovedCatalogObjects() { return removed_; }
   }
 
+  /**
+   * The roles and privileges read from the Sentry Service by a single sync.
+   */
+  @VisibleForTesting
+  static class PolicySnapshot {
+    private final List<TSentryRole> roles_;
+    // The keys (role and user names) are always in lower case.
+    private final Map<String, Set<TSentryPrivilege>> rolePrivileges_;
+    private final Map<String, Set<TSentryPrivilege>> userPrivileges_;
+
+    private PolicySnapshot(List<TSentryRole> roles,
+        Map<String, Set<TSentryPrivilege>> rolePrivileges,
+        Map<String, Set<TSentryPrivilege>> userPrivileges) {
+      roles_ = roles;
+      rolePrivileges_ = rolePrivileges;
+      userPrivileges_ = userPrivileges;
+    }
+
+    static PolicySnapshot fetch(SentryPolicyService sentryPolicyService,
+        User processUser) throws ImpalaException {
+      Map<String, Set<TSentryPrivilege>> rolePrivileges =
+          sentryPolicyService.listAllRolesPrivileges(processUser);
+      List<TSentryRole> roles = sentryPolicyService.listAllRoles(processUser);
+      Map<String, Set<TSentryPrivilege>> userPrivileges =
+          sentryPolicyService.listAllUsersPrivileges(processUser);
+      return new PolicySnapshot(roles, copyPrivileges(rolePrivileges),
+          copyPrivileges(userPrivileges));
+    }
+
+    // The snapshot is compared with the next one, so it must not share mutable maps or
+    // sets with the SentryPolicyService.
+    private static Map<String, Set<TSentryPrivilege>> copyPrivileges(
+        Map<String, Set<TSentryPrivilege>> privileges) {
+      Map<String, Set<TSentryPrivilege>> result =
+          Maps.newHashMapWithExpectedSize(privileges.size());
+      for (Map.Entry<String, Set<TSentryPrivilege>> entry: privileges.entrySet()) {
+        result.put(entry.getKey(), Sets.newHashSet(entry.getValue()));
+      }
+      return result;
+    }
+
+    long getNumPrivileges() {
+      long result = 0;
+      for (Set<TSentryPrivilege> privileges: rolePrivileges_.values()) {
+        result += privileges.size();
+      }
+      for (Set<TSentryPrivilege> privileges: userPrivileges_.values()) {
+        result += privileges.size();
+      }
+      return result;
+    }
+  }
+
+  /**
+   * The state of the periodic policy syncs. The catalog matches 'lastSnapshot_' as long
+   * as the version of the authorization policy is 'lastPolicyVersion_', so that the
+   * next sync only needs to update the principals whose privileges changed since.
+   * Also keeps the statistics of the syncs.
+   */
+  @VisibleForTesting
+  static class SyncState {
+    private PolicySnapshot lastSnapshot_;
+    private long lastPolicyVersion_ = -1;
+
+    private long numSyncs_ = 0;
+    private long lastSyncDurationMs_ = 0;
+    private long lastNumPrivileges_ = 0;
+    private long lastNumChanges_ = 0;
+
+    synchronized void populateMetrics(TGetCatalogServerMetricsResponse metrics) {
+      metrics.setSentry_num_syncs(numSyncs_);
+      metrics.setSentry_last_sync_duration_ms(lastSyncDurationMs_);
+      metrics.setSentry_last_sync_num_privileges(lastNumPrivileges_);
+      metrics.setSentry_last_sync_num_changes(lastNumChanges_);
+    }
+
+    private synchronized void recordSync(long durationMs, long numPrivileges,
+        long numChanges) {
+      ++numSyncs_;
+      lastSyncDurationMs_ = durationMs;
+      lastNumPrivileges_ = numPrivileges;
+      lastNumChanges_ = numChanges;
+    }
+  }
+
   private static final Logger LOG = Logger.getLogger(SentryProxy.class);
 
   // Used to periodically poll the Sentry Service and updates the catalog with any
@@ -114,6 +203,9 @@ public class SentryProxy {
   // The value for the object ownership config.
   private final String objectOwnershipConfigValue_;
 
+  // State of the policy syncs run by the PolicyReader.
+  private final SyncState syncState_ = new SyncState();
+
   public SentryProxy(SentryConfig sentryConfig, CatalogServiceCatalog catalog,
       String kerberosPrincipal) throws ImpalaException {
     Preconditions.checkNotNull(catalog);
@@ -170,10 +262,8 @@ public class SentryProxy {
     }
 
     public void run() {
-      synchronized (SentryProxy.this) {
-        refreshSentryAuthorization(catalog_, sentryPolicyService_, processUser_,
-            resetVersions_, swallowException_, authzDelta_);
-      }
+      refreshSentryAuthorization(catalog_, sentryPolicyService_, processUser_,
+          resetVersions_, swallowException_, authzDelta_, SentryProxy.this, syncState_);
     }
   }
 
@@ -184,12 +274,58 @@ public class SentryProxy {
   static void refreshSentryAuthorization(CatalogServiceCatalog catalog,
       SentryPolicyService sentryPolicyService, User processUser, boolean resetVersions,
       boolean swallowException, AuthorizationDelta authzDelta) {
+    refreshSentryAuthorization(catalog, sentryPolicyService, processUser, resetVersions,
+        swallowException, authzDelta, new Object(), null);
+  }
+
+  /**
+   * Refreshes Sentry authorization and updates the catalog while holding 'lock', which
+   * serializes the update with the other modifications of the policy by SentryProxy.
+   * The policy is read from the Sentry Service without holding 'lock', so that GRANT
+   * and REVOKE statements are not blocked for the duration of the RPCs. If the policy
+   * in the catalog changed while reading, the policy is read again while holding 'lock',
+   * since the snapshot may not include the change.
+   * If 'syncState' is not null and the catalog was not modified since the last sync
+   * that used it, only the principals whose grant groups or privileges differ from the
+   * last sync are updated. Otherwise, or if 'resetVersions' is true, all principals are
+   * compared with the snapshot.
+   */
+  @VisibleForTesting
+  static void refreshSentryAuthorization(CatalogServiceCatalog catalog,
+      SentryPolicyService sentryPolicyService, User processUser, boolean resetVersions,
+      boolean swallowException, AuthorizationDelta authzDelta, Object lock,
+      SyncState syncState) {
     long startTime = System.currentTimeMillis();
     try {
-      refreshRolePrivileges(catalog, sentryPolicyService, processUser, resetVersions,
-          authzDelta);
-      refreshUserPrivileges(catalog, sentryPolicyService, processUser, resetVersions,
-          authzDelta);
+      AuthorizationPolicy authPolicy = catalog.getAuthPolicy();
+      long policyVersion = authPolicy.getVersion();
+      PolicySnapshot snapshot = PolicySnapshot.fetch(sentryPolicyService, processUser);
+      synchronized (lock) {
+        if (authPolicy.getVersion() != policyVersion) {
+          LOG.debug("Authorization policy changed while reading it from Sentry, " +
+              "reading it again");
+          snapshot = PolicySnapshot.fetch(sentryPolicyService, processUser);
+        }
+        PolicySnapshot lastSnapshot = null;
+        if (syncState != null && !resetVersions &&
+            syncState.lastPolicyVersion_ == authPolicy.getVersion()) {
+          lastSnapshot = syncState.lastSnapshot_;
+        }
+        int numChangesBefore = authzDelta.getAddedCatalogObjects().size() +
+            authzDelta.getRemovedCatalogObjects().size();
+        refreshRolePrivileges(catalog, snapshot, lastSnapshot, resetVersions,
+            authzDelta);
+        refreshUserPrivileges(catalog, snapshot, lastSnapshot, resetVersions,
+            authzDelta);
+        if (syncState != null) {
+          syncState.lastSnapshot_ = snapshot;
+          syncState.lastPolicyVersion_ = authPolicy.getVersion();
+          syncState.recordSync(System.currentTimeMillis() - startTime,
+              snapshot.getNumPrivileges(),
+              authzDelta.getAddedCatalogObjects().size() +
+              authzDelta.getRemovedCatalogObjects().size() - numChangesBefore);
+        }
+      }
     } catch (Exception e) {
       LOG.error("Error refreshing Sentry policy: ", e);
       if (swallowException) return;
@@ -209,23 +345,38 @@ public class SentryProxy {
     }
   }
 
+  /**
+   * Returns true if the privileges of 'sentryPrincipalName' in 'lastPrivileges' are
+   * known and equal to those in 'privileges'.
+   */
+  private static boolean privilegesUnchanged(String sentryPrincipalName,
+      Map<String, Set<TSentryPrivilege>> privileges,
+      Map<String, Set<TSentryPrivilege>> lastPrivileges) {
+    if (lastPrivileges == null || !lastPrivileges.containsKey(sentryPrincipalName)) {
+      return false;
+    }
+    return Objects.equals(privileges.get(sentryPrincipalName),
+        lastPrivileges.get(sentryPrincipalName));
+  }
+
   /**
    * Updates all roles and their associated privileges in the catalog by adding,
-   * removing, and replacing the catalog objects to match those in Sentry since
-   * the last sentry sync update.
+   * removing, and replacing the catalog objects to match those in 'snapshot'. If
+   * 'lastSnapshot' is not null, the catalog is known to match it and the privileges of
+   * roles that are unchanged since 'lastSnapshot' are not compared.
    */
   private static void refreshRolePrivileges(CatalogServiceCatalog catalog,
-      SentryPolicyService sentryPolicyService, User processUser, boolean resetVersions,
+      PolicySnapshot snapshot, PolicySnapshot lastSnapshot, boolean resetVersions,
       AuthorizationDelta authzDelta) throws ImpalaException {
     // Assume all roles should be removed. Then query the Policy Service and remove
     // roles from this set that actually exist.
     Set<String> rolesToRemove = catalog.getAuthPolicy().getAllRoleNames();
-    // The keys (role names) in listAllRolesPrivileges here are always in lower case.
-    Map<String, Set<TSentryPrivilege>> allRolesPrivileges =
-        sentryPolicyService.listAllRolesPrivileges(processUser);
+    // The keys (role names) in rolePrivileges_ here are always in lower case.
+    Map<String, Set<TSentryPrivilege>> allRolesPrivileges = snapshot.rolePrivileges_;
+    Map<String, Set<TSentryPrivilege>> lastRolesPrivileges =
+        lastSnapshot == null ? null : lastSnapshot.rolePrivileges_;
     // Read the full policy, adding new/modified roles to "updatedRoles".
-    for (TSentryRole sentryRole:
-        sentryPolicyService.listAllRoles(processUser)) {
+    for (TSentryRole sentryRole: snapshot.roles_) {
       // This role exists and should not be removed, delete it from the
       // rolesToRemove set.
       rolesToRemove.remove(sentryRole.getRoleName().toLowerCase());
@@ -249,6 +400,10 @@ public class SentryProxy {
         role = catalog.addRole(sentryRole.getRoleName(), grantGroups);
         authzDelta.getAddedCatalogObjects().add(role.toTCatalogObject());
       }
+      if (role == existingRole && privilegesUnchanged(sentryRole.getRoleName(),
+          allRolesPrivileges, lastRolesPrivileges)) {
+        continue;
+      }
       // allRolesPrivileges keys and sentryRole.getName() are used here since they both
       // come from Sentry so they agree in case.
       refreshPrivilegesInCatalog(catalog, resetVersions, sentryRole.getRoleName(), role,
@@ -271,14 +426,15 @@ public class SentryProxy {
    * support grant groups.
    */
   private static void refreshUserPrivileges(CatalogServiceCatalog catalog,
-      SentryPolicyService sentryPolicyService, User processUser, boolean resetVersions,
+      PolicySnapshot snapshot, PolicySnapshot lastSnapshot, boolean resetVersions,
       AuthorizationDelta authzDelta) throws ImpalaException {
     // Assume all users should be removed. Then query the Policy Service and remove
     // users from this set that actually exist.
     Set<String> usersToRemove = catalog.getAuthPolicy().getAllUserNames();
-    // The keys (user names) in listAllUsersPrivileges here are always in lower case.
-    Map<String, Set<TSentryPrivilege>> allUsersPrivileges =
-        sentryPolicyService.listAllUsersPrivileges(processUser);
+    // The keys (user names) in userPrivileges_ here are always in lower case.
+    Map<String, Set<TSentryPrivilege>> allUsersPrivileges = snapshot.userPrivileges_;
+    Map<String, Set<TSentryPrivilege>> lastUsersPrivileges =
+        lastSnapshot == null ? null : lastSnapshot.userPrivileges_;
     for (Map.Entry<String, Set<TSentryPrivilege>> userPrivilegesEntry:
         allUsersPrivileges.entrySet()) {
       String userName = userPrivilegesEntry.getKey();
@@ -295,6 +451,10 @@ public class SentryProxy {
         LOG.debug("Adding user: " + user.getName());
         authzDelta.getAddedCatalogObjects().add(user.toTCatalogObject());
       }
+      if (existingUser.getRef() &&
+          privilegesUnchanged(userName, allUsersPrivileges, lastUsersPrivileges)) {
+        continue;
+      }
       // allUsersPrivileges keys and userPrivilegesEntry.getKey() are used here since
       // they both come from Sentry so they agree in case.
       refreshPrivilegesInCatalog(catalog, resetVersions, userPrivilegesEntry.getKey(),
@@ -630,6 +790,13 @@ public class SentryProxy {
     }
   }
 
+  /**
+   * Adds the statistics of the periodic policy syncs to 'metrics'.
+   */
+  public void populateMetrics(TGetCatalogServerMetricsResponse metrics) {
+    syncState_.populateMetrics(metrics);
+  }
+
   /**
    * Checks if object ownership is enabled in Sentry.
    */
@@ -1565,13 +1565,13 @@ public class AnalyzeDDLTest extends FrontendTestBase {
       AnalysisError("compute stats functional.alltypes tablesample system (101)",
           "Invalid percent of bytes value '101'. " +
           "The percent of bytes to sample must be between 0 and 100.");
-      AnalysisError("compute stats functional_kudu.alltypes tablesample system (1)",
-          "TABLESAMPLE is only supported on HDFS tables.");
-      AnalysisError("compute stats functional_hbase.alltypes tablesample system (2)",
-          "TABLESAMPLE is only supported on HDFS tables.");
+      checkComputeStatsStmt(
+          "compute stats functional_kudu.alltypes tablesample system (1)");
+      checkComputeStatsStmt(
+          "compute stats functional_hbase.alltypes tablesample system (2)");
       AnalysisError(
           "compute stats functional.alltypes_datasource tablesample system (3)",
-          "TABLESAMPLE is only supported on HDFS tables.");
+          "TABLESAMPLE is only supported on HDFS, Kudu and HBase tables.");
 
       // Test file formats with columns whitelist.
       gflags.setEnable_stats_extrapolation(true);
@@ -1582,13 +1582,15 @@ public class AnalyzeDDLTest extends FrontendTestBase {
       AnalysisError("compute stats functional.alltypes tablesample system (101)",
           "Invalid percent of bytes value '101'. " +
           "The percent of bytes to sample must be between 0 and 100.");
-      AnalysisError("compute stats functional_kudu.alltypes tablesample system (1)",
-          "TABLESAMPLE is only supported on HDFS tables.");
-      AnalysisError("compute stats functional_hbase.alltypes tablesample system (2)",
-          "TABLESAMPLE is only supported on HDFS tables.");
+      checkComputeStatsStmt(
+          "compute stats functional_kudu.alltypes (int_col, double_col) tablesample " +
+          "system (1)", Lists.newArrayList("int_col", "double_col"));
+      checkComputeStatsStmt(
+          "compute stats functional_hbase.alltypes (int_col, double_col) tablesample " +
+          "system (2)", Lists.newArrayList("int_col", "double_col"));
       AnalysisError(
           "compute stats functional.alltypes_datasource tablesample system (3)",
-          "TABLESAMPLE is only supported on HDFS tables.");
+          "TABLESAMPLE is only supported on HDFS, Kudu and HBase tables.");
 
       // Test different COMPUTE_STATS_MIN_SAMPLE_BYTES.
       TQueryOptions queryOpts = new TQueryOptions();
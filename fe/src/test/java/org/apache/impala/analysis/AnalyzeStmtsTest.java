@@ -348,28 +348,50 @@ public class AnalyzeStmtsTest extends AnalyzerTest {
         "Invalid percent of bytes value '1000'. " +
         "The percent of bytes to sample must be between 0 and 100.");
 
-    // Only applicable to HDFS base table refs.
-    AnalysisError("select * from functional_kudu.alltypes tablesample system (10)",
-        "TABLESAMPLE is only supported on HDFS tables: functional_kudu.alltypes");
-    AnalysisError("select * from functional_hbase.alltypes tablesample system (10)",
-        "TABLESAMPLE is only supported on HDFS tables: functional_hbase.alltypes");
+    // Kudu and HBase tables are sampled by tablets and regions.
+    AnalyzesOk("select * from functional_kudu.alltypes tablesample system (10)");
+    AnalyzesOk("select * from functional_hbase.alltypes tablesample system (10) " +
+        "repeatable (1)");
+
+    // Only applicable to HDFS, Kudu and HBase base table refs.
     AnalysisError("select * from functional.alltypes_datasource tablesample system (10)",
-        "TABLESAMPLE is only supported on HDFS tables: " +
+        "TABLESAMPLE is only supported on HDFS, Kudu and HBase tables: " +
         "functional.alltypes_datasource");
     AnalysisError("select * from (select * from functional.alltypes) v " +
         "tablesample system (10)",
-        "TABLESAMPLE is only supported on HDFS tables: v");
+        "TABLESAMPLE is only supported on HDFS, Kudu and HBase tables: v");
     AnalysisError("with v as (select * from functional.alltypes) " +
         "select * from v tablesample system (10)",
-        "TABLESAMPLE is only supported on HDFS tables: v");
+        "TABLESAMPLE is only supported on HDFS, Kudu and HBase tables: v");
     AnalysisError("select * from functional.alltypes_view tablesample system (10)",
-        "TABLESAMPLE is only supported on HDFS tables: functional.alltypes_view");
+        "TABLESAMPLE is only supported on HDFS, Kudu and HBase tables: " +
+        "functional.alltypes_view");
     AnalysisError("select * from functional.allcomplextypes.int_array_col " +
         "tablesample system (10)",
-        "TABLESAMPLE is only supported on HDFS tables: int_array_col");
+        "TABLESAMPLE is only supported on HDFS, Kudu and HBase tables: int_array_col");
     AnalysisError("select * from functional.allcomplextypes a, a.int_array_col " +
         "tablesample system (10)",
-        "TABLESAMPLE is only supported on HDFS tables: int_array_col");
+        "TABLESAMPLE is only supported on HDFS, Kudu and HBase tables: int_array_col");
+  }
+
+  @Test
+  public void TestTableSampleUnits() {
+    assertEquals(0, TableSampleClause.getUnitsSampleSize(0, 50));
+    // At least one unit is sampled.
+    assertEquals(1, TableSampleClause.getUnitsSampleSize(10, 0));
+    assertEquals(3, TableSampleClause.getUnitsSampleSize(10, 30));
+    assertEquals(10, TableSampleClause.getUnitsSampleSize(10, 100));
+
+    List<Integer> sample = TableSampleClause.getUnitsSample(100, 25, 1234);
+    assertEquals(25, sample.size());
+    assertEquals(25, Sets.newHashSet(sample).size());
+    for (int i = 0; i < sample.size(); ++i) {
+      assertTrue(sample.get(i) >= 0 && sample.get(i) < 100);
+      if (i > 0) assertTrue(sample.get(i - 1) < sample.get(i));
+    }
+    // The same seed selects the same units.
+    assertEquals(sample, TableSampleClause.getUnitsSample(100, 25, 1234));
+    assertEquals(ImmutableList.of(0, 1, 2), TableSampleClause.getUnitsSample(3, 100, 5));
   }
 
   /**
@@ -18,6 +18,7 @@
 package org.apache.impala.analysis;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -29,8 +30,11 @@ import java.util.Set;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.impala.analysis.AnalysisContext.AnalysisResult;
+import org.apache.impala.authorization.AuthorizationChecker;
 import org.apache.impala.authorization.AuthorizationConfig;
+import org.apache.impala.authorization.Privilege;
 import org.apache.impala.authorization.PrivilegeRequest;
+import org.apache.impala.authorization.PrivilegeRequestBuilder;
 import org.apache.impala.authorization.User;
 import org.apache.impala.catalog.AuthorizationException;
 import org.apache.impala.catalog.Role;
@@ -2408,6 +2412,37 @@ public class AuthorizationStmtTest extends FrontendTestBase {
 
   }
 
+  /**
+   * Tests that cached access decisions are dropped when the authorization policy
+   * changes.
+   */
+  @Test
+  public void testDecisionCacheInvalidation() throws ImpalaException {
+    AuthorizationChecker checker = authzFrontend_.getAuthzChecker();
+    PrivilegeRequest request = new PrivilegeRequestBuilder()
+        .allOf(Privilege.SELECT).onTable("functional", "alltypes").toRequest();
+    String roleName = "decision_cache_role";
+    try {
+      Role role = authzCatalog_.addRole(roleName);
+      authzCatalog_.addRoleGrantGroup(roleName, USER.getName());
+      // Repeated checks return the same, cached decision.
+      assertFalse(checker.hasAccess(USER, request));
+      assertFalse(checker.hasAccess(USER, request));
+      for (TPrivilege privilege: onTable("functional", "alltypes",
+          TPrivilegeLevel.SELECT)) {
+        privilege.setPrincipal_id(role.getId());
+        privilege.setPrincipal_type(TPrincipalType.ROLE);
+        authzCatalog_.addRolePrivilege(roleName, privilege);
+      }
+      assertTrue(checker.hasAccess(USER, request));
+      assertTrue(checker.hasAccess(USER, request));
+      authzCatalog_.removeRole(roleName);
+      assertFalse(checker.hasAccess(USER, request));
+    } finally {
+      authzCatalog_.removeRole(roleName);
+    }
+  }
+
   @Test
   public void testUpdate() throws ImpalaException {
     // Update is only supported on Kudu tables.
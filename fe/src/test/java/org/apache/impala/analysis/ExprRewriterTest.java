@@ -21,6 +21,7 @@ import org.apache.impala.analysis.AnalysisContext.AnalysisResult;
 import org.apache.impala.common.AnalysisException;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.RuntimeEnv;
+import org.apache.impala.rewrite.BatchedConstantFolder;
 import org.apache.impala.rewrite.EqualityDisjunctsToInRule;
 import org.apache.impala.rewrite.ExprRewriteRule;
 import org.apache.impala.rewrite.ExprRewriter;
@@ -70,6 +71,24 @@ public class ExprRewriterTest extends AnalyzerTest {
     private TrueToFalseRule() {}
   }
 
+  /**
+   * Replaces an AND CompoundPredicate with an OR CompoundPredicate that has the same
+   * children. Counts how many times it has been applied.
+   */
+  static class AndToOrRule implements ExprRewriteRule {
+    int numApplications_ = 0;
+
+    @Override
+    public Expr apply(Expr expr, Analyzer analyzer) throws AnalysisException {
+      ++numApplications_;
+      if (!(expr instanceof CompoundPredicate)) return expr;
+      CompoundPredicate pred = (CompoundPredicate) expr;
+      if (pred.getOp() != CompoundPredicate.Operator.AND) return expr;
+      return new CompoundPredicate(
+          CompoundPredicate.Operator.OR, pred.getChild(0), pred.getChild(1));
+    }
+  }
+
   private final ExprRewriter exprToTrue_ = new ExprRewriter(ExprToBoolRule.INSTANCE);
   private final ExprRewriter trueToFalse_ = new ExprRewriter(TrueToFalseRule.INSTANCE);
 
@@ -229,6 +248,61 @@ public class ExprRewriterTest extends AnalyzerTest {
     }
   }
 
+  private static int countNodes(Expr expr) {
+    int numNodes = 1;
+    for (Expr child: expr.getChildren()) numNodes += countNodes(child);
+    return numNodes;
+  }
+
+  @Test
+  public void TestUnchangedSubtreesAreNotRevisited() throws ImpalaException {
+    SelectStmt stmt = (SelectStmt) ParsesOk("select * from functional.alltypes " +
+        "where int_col = 1 and string_col = 'a'");
+    AnalyzesOkNoRewrite(stmt);
+    Expr whereClause = stmt.getWhereClause();
+    int numNodes = countNodes(whereClause);
+    AndToOrRule rule = new AndToOrRule();
+    ExprRewriter rewriter = new ExprRewriter(rule);
+    Expr rewrittenExpr = rewriter.rewrite(whereClause, stmt.getAnalyzer());
+    Assert.assertEquals(1, rewriter.getNumChanges());
+    Assert.assertEquals("int_col = 1 OR string_col = 'a'", rewrittenExpr.toSql());
+    // Every node is visited once. Only the new root is visited again because its
+    // children are shared with the original, unchanged AND predicate.
+    Assert.assertEquals(numNodes + 1, rule.numApplications_);
+  }
+
+  /**
+   * Folds the constants of 'stmt' with BatchedConstantFolder and checks the number of
+   * replaced exprs and the resulting SQL.
+   */
+  private void CheckBatchedConstantFolding(String stmt, int expectedNumChanges,
+      String expectedSql) throws ImpalaException {
+    StatementBase parsedStmt = (StatementBase) ParsesOk(stmt);
+    AnalyzesOkNoRewrite(parsedStmt);
+    int numChanges =
+        BatchedConstantFolder.foldConstants(parsedStmt, parsedStmt.getAnalyzer());
+    Assert.assertEquals(expectedNumChanges, numChanges);
+    Assert.assertEquals(expectedSql, parsedStmt.toSql(DEFAULT));
+    // Make sure the stmt can be successfully re-analyzed.
+    parsedStmt.reset();
+    AnalyzesOkNoRewrite(parsedStmt);
+  }
+
+  @Test
+  public void TestBatchedConstantFolding() throws ImpalaException {
+    // Maximal constant subtrees across all clauses are folded in one batch.
+    CheckBatchedConstantFolding("select concat('a', 'b'), upper('x') = 'X', " +
+        "int_col from functional.alltypes where string_col = lower('ABC')", 3,
+        "SELECT 'ab', TRUE, int_col FROM functional.alltypes WHERE string_col = 'abc'");
+    // Integer arithmetic is left to FoldConstantsRule which evaluates it in the FE.
+    CheckBatchedConstantFolding("select 1 + 1, int_col + 2 * 3, concat('a', 'b') " +
+        "from functional.alltypes", 1,
+        "SELECT 1 + 1, int_col + 2 * 3, 'ab' FROM functional.alltypes");
+    // Non-deterministic functions are not folded.
+    CheckBatchedConstantFolding("select rand(), int_col from functional.alltypes", 0,
+        "SELECT rand(), int_col FROM functional.alltypes");
+  }
+
   @Test
   public void TestToSql() {
     TQueryOptions options = new TQueryOptions();
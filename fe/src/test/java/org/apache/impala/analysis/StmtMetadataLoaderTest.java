@@ -18,15 +18,26 @@
 package org.apache.impala.analysis;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 import org.apache.impala.analysis.StmtMetadataLoader.StmtTableCache;
 import org.apache.impala.authorization.AuthorizationConfig;
+import org.apache.impala.authorization.Privilege;
 import org.apache.impala.catalog.Catalog;
+import org.apache.impala.catalog.CatalogServiceCatalog;
+import org.apache.impala.catalog.FeDb;
 import org.apache.impala.catalog.FeTable;
+import org.apache.impala.catalog.ImpaladCatalog;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.InternalException;
+import org.apache.impala.service.BackendConfig;
 import org.apache.impala.service.Frontend;
+import org.apache.impala.testutil.CatalogServiceTestCatalog;
 import org.apache.impala.testutil.ImpaladTestCatalog;
+import org.apache.impala.testutil.TestUtils;
+import org.apache.impala.thrift.TBackendGflags;
+import org.apache.impala.thrift.TCatalogObject;
+import org.apache.impala.thrift.TUpdateCatalogCacheRequest;
 import org.apache.impala.util.EventSequence;
 import org.junit.Assert;
 import org.junit.Test;
@@ -187,6 +198,28 @@ public class StmtMetadataLoaderTest {
             "functional.alltypes"});
   }
 
+  @Test
+  public void testFetchLoadedTablesDirectly() throws ImpalaException {
+    // The test catalog loads tables synchronously when requested, like an impalad that
+    // adds the tables from the response of the load request. No catalog updates should
+    // be waited for in that case.
+    TBackendGflags gflags = BackendConfig.INSTANCE.getBackendCfg();
+    boolean origFetchLoadedTablesDirectly = gflags.isFetch_loaded_tables_directly();
+    try {
+      gflags.setFetch_loaded_tables_directly(true);
+      testLoadTables("select * from functional.alltypes, functional.alltypessmall", 1,
+          0, new String[] {"default", "functional"},
+          new String[] {"functional.alltypes", "functional.alltypessmall"});
+      // Tables referenced by views are requested without waiting for an update.
+      testLoadTables("select * from functional.view_view", 3, 0,
+          new String[] {"default", "functional"},
+          new String[] {"functional.view_view", "functional.alltypes_view",
+              "functional.alltypes"});
+    } finally {
+      gflags.setFetch_loaded_tables_directly(origFetchLoadedTablesDirectly);
+    }
+  }
+
   @Test
   public void testResetMetadataStmts() throws ImpalaException {
     // These stmts should not request any table loads.
@@ -200,4 +233,81 @@ public class StmtMetadataLoaderTest {
     testLoadTables("refresh functional.alltypes partition (year=2009, month=1)", 1, 1,
         new String[] {"default", "functional"}, new String[] {"functional.alltypes"});
   }
+
+  /**
+   * Applies an update that adds 'objects' to 'catalog'.
+   */
+  private static void applyUpdate(ImpaladCatalog catalog, TCatalogObject... objects)
+      throws Exception {
+    TUpdateCatalogCacheRequest req = new TUpdateCatalogCacheRequest();
+    req.setIs_delta(true);
+    catalog.updateCatalog(req, TestUtils.serializeCatalogUpdate(Arrays.asList(objects),
+        Collections.<TCatalogObject>emptyList()).iterator());
+  }
+
+  /**
+   * Returns a copy of 'obj' with a higher catalog version, like a later update of the
+   * same object.
+   */
+  private static TCatalogObject newVersion(TCatalogObject obj) {
+    TCatalogObject newObj = obj.deepCopy();
+    newObj.setCatalog_version(obj.getCatalog_version() + 1);
+    return newObj;
+  }
+
+  /**
+   * Tests that the analysis of a statement sees the databases and tables that were
+   * pinned by its StmtTableCache while catalog updates replace them concurrently.
+   */
+  @Test
+  public void testConcurrentCatalogUpdate() throws Exception {
+    CatalogServiceCatalog srcCatalog = CatalogServiceTestCatalog.create();
+    try {
+      ImpaladCatalog catalog = new ImpaladCatalog("127.0.0.1");
+      TCatalogObject dbObj = srcCatalog.getDb("functional").toTCatalogObject();
+      TCatalogObject alltypesObj =
+          srcCatalog.getOrLoadTable("functional", "alltypes").toTCatalogObject();
+      TCatalogObject alltypestinyObj =
+          srcCatalog.getOrLoadTable("functional", "alltypestiny").toTCatalogObject();
+      applyUpdate(catalog, dbObj, alltypesObj, alltypestinyObj);
+
+      // All tables are loaded, so no load requests are needed.
+      Frontend fe = new Frontend(AuthorizationConfig.createAuthDisabledConfig(), catalog);
+      StatementBase stmt = Parser.parse("select count(*) from functional.alltypes");
+      StmtTableCache stmtTableCache = new StmtMetadataLoader(fe, Catalog.DEFAULT_DB,
+          new EventSequence("Test Timeline")).loadTables(stmt);
+      FeDb pinnedDb = stmtTableCache.getDb("functional");
+      FeTable pinnedAlltypes =
+          stmtTableCache.tables.get(new TableName("functional", "alltypes"));
+      FeTable pinnedAlltypestiny = pinnedDb.getTable("alltypestiny");
+      Assert.assertSame(catalog.getDb("functional").getTable("alltypes"),
+          pinnedAlltypes);
+
+      // An update replaces a table of the database that the statement does not
+      // reference. The pinned database keeps the old version of it.
+      applyUpdate(catalog, newVersion(alltypestinyObj));
+      FeTable newAlltypestiny = catalog.getDb("functional").getTable("alltypestiny");
+      Assert.assertNotSame(pinnedAlltypestiny, newAlltypestiny);
+      Assert.assertSame(pinnedAlltypestiny, pinnedDb.getTable("alltypestiny"));
+
+      // An update replaces the database. The new version has no tables until they are
+      // sent by a later update.
+      applyUpdate(catalog, newVersion(dbObj));
+      Assert.assertNotSame(pinnedDb, catalog.getDb("functional"));
+      Assert.assertNull(catalog.getDb("functional").getTable("alltypes"));
+
+      // The analysis only sees the pinned objects and succeeds.
+      Analyzer analyzer = new Analyzer(stmtTableCache, TestUtils.createQueryContext(),
+          AuthorizationConfig.createAuthDisabledConfig());
+      stmt.analyze(analyzer);
+      Assert.assertSame(pinnedDb, analyzer.getDb("functional", true));
+      Assert.assertSame(pinnedAlltypes, analyzer.getTable("functional", "alltypes"));
+      Assert.assertTrue(
+          analyzer.dbContainsTable("functional", "alltypestiny", Privilege.ANY));
+      Assert.assertSame(pinnedAlltypestiny,
+          analyzer.getDb("functional", true).getTable("alltypestiny"));
+    } finally {
+      srcCatalog.close();
+    }
+  }
 }
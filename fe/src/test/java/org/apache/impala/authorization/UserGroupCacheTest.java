@@ -0,0 +1,157 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.authorization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.impala.common.InternalException;
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class UserGroupCacheTest {
+  /**
+   * Resolves every user to a single group named after the number of lookups so far.
+   * Fails for 'failingUser_' and has no groups for 'groupLessUser_'.
+   */
+  private static class CountingResolver implements UserGroupCache.GroupResolver {
+    final AtomicInteger numLookups_ = new AtomicInteger();
+    volatile String failingUser_ = null;
+    final String groupLessUser_ = "nobody";
+
+    @Override
+    public Set<String> getGroups(String userName) throws InternalException {
+      int lookup = numLookups_.incrementAndGet();
+      if (userName.equals(failingUser_)) throw new InternalException("lookup failed");
+      if (userName.equals(groupLessUser_)) return Collections.emptySet();
+      return ImmutableSet.of("group" + lookup);
+    }
+  }
+
+  @Test
+  public void testCaching() throws InternalException {
+    CountingResolver resolver = new CountingResolver();
+    UserGroupCache cache = new UserGroupCache(resolver, 60, 600);
+    assertEquals(ImmutableSet.of("group1"), cache.getGroups("alice"));
+    assertEquals(ImmutableSet.of("group1"), cache.getGroups("alice"));
+    assertEquals(ImmutableSet.of("group2"), cache.getGroups("bob"));
+    assertEquals(2, resolver.numLookups_.get());
+    // Users without groups are cached as well.
+    assertTrue(cache.getGroups("nobody").isEmpty());
+    assertTrue(cache.getGroups("nobody").isEmpty());
+    assertEquals(3, resolver.numLookups_.get());
+    // Failed lookups are not cached.
+    resolver.failingUser_ = "carol";
+    for (int i = 0; i < 2; ++i) {
+      try {
+        cache.getGroups("carol");
+        fail("Expected an exception");
+      } catch (InternalException e) {
+        assertEquals("lookup failed", e.getMessage());
+      }
+    }
+    assertEquals(5, resolver.numLookups_.get());
+    cache.invalidateAll();
+    assertEquals(ImmutableSet.of("group6"), cache.getGroups("alice"));
+  }
+
+  @Test
+  public void testDisabled() throws InternalException {
+    CountingResolver resolver = new CountingResolver();
+    UserGroupCache cache = new UserGroupCache(resolver, 60, 0);
+    assertEquals(ImmutableSet.of("group1"), cache.getGroups("alice"));
+    assertEquals(ImmutableSet.of("group2"), cache.getGroups("alice"));
+  }
+
+  /**
+   * A ticker that only advances when told to.
+   */
+  private static class MockTicker extends Ticker {
+    private long nanos_ = 1;
+
+    @Override
+    public long read() { return nanos_; }
+
+    void advance(long sec) { nanos_ += TimeUnit.SECONDS.toNanos(sec); }
+  }
+
+  /**
+   * Creates a cache that reads the time from 'ticker' and reloads the entries in the
+   * calling thread, so that a reload has finished when getGroups() returns.
+   */
+  private static UserGroupCache createCache(CountingResolver resolver,
+      long refreshIntervalSec, long expiryIntervalSec, Ticker ticker) {
+    return new UserGroupCache(resolver, refreshIntervalSec, expiryIntervalSec, ticker,
+        MoreExecutors.sameThreadExecutor());
+  }
+
+  @Test
+  public void testRefresh() throws InternalException {
+    CountingResolver resolver = new CountingResolver();
+    MockTicker ticker = new MockTicker();
+    UserGroupCache cache = createCache(resolver, 10, 600, ticker);
+    assertEquals(ImmutableSet.of("group1"), cache.getGroups("alice"));
+    ticker.advance(9);
+    assertEquals(ImmutableSet.of("group1"), cache.getGroups("alice"));
+    assertEquals(1, resolver.numLookups_.get());
+    // A failed reload keeps the old groups and is retried on the next access.
+    ticker.advance(2);
+    resolver.failingUser_ = "alice";
+    assertEquals(ImmutableSet.of("group1"), cache.getGroups("alice"));
+    assertEquals(2, resolver.numLookups_.get());
+    assertEquals(ImmutableSet.of("group1"), cache.getGroups("alice"));
+    assertEquals(3, resolver.numLookups_.get());
+    // A successful reload replaces the groups.
+    resolver.failingUser_ = null;
+    assertEquals(ImmutableSet.of("group4"), cache.getGroups("alice"));
+    assertEquals(ImmutableSet.of("group4"), cache.getGroups("alice"));
+    assertEquals(4, resolver.numLookups_.get());
+  }
+
+  @Test
+  public void testExpiry() throws InternalException {
+    CountingResolver resolver = new CountingResolver();
+    MockTicker ticker = new MockTicker();
+    // Without a refresh interval, the groups are only resolved again after they expire.
+    UserGroupCache cache = createCache(resolver, 0, 600, ticker);
+    assertEquals(ImmutableSet.of("group1"), cache.getGroups("alice"));
+    ticker.advance(599);
+    assertEquals(ImmutableSet.of("group1"), cache.getGroups("alice"));
+    ticker.advance(2);
+    assertEquals(ImmutableSet.of("group2"), cache.getGroups("alice"));
+    // An expired entry is not served even if the lookup fails.
+    ticker.advance(601);
+    resolver.failingUser_ = "alice";
+    try {
+      cache.getGroups("alice");
+      fail("Expected an exception");
+    } catch (InternalException e) {
+      assertEquals("lookup failed", e.getMessage());
+    }
+    assertEquals(3, resolver.numLookups_.get());
+  }
+}
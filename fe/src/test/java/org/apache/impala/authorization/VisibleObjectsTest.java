@@ -0,0 +1,69 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package org.apache.impala.authorization;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VisibleObjectsTest {
+  @Test
+  public void testVisibility() {
+    VisibleObjects visible = VisibleObjects.create("server1", Lists.newArrayList(
+        "server=server1->db=functional->action=select",
+        "server=server1->db=functional_parquet->table=alltypes->action=insert",
+        "server=server1->db=functional_avro->table=alltypessmall->column=id" +
+            "->action=select->grantoption=false",
+        "server=server1->uri=hdfs://localhost:20500/test-warehouse->action=all",
+        "server=server2->db=tpch->action=all"));
+    // Database privilege.
+    assertTrue(visible.isDbVisible("functional"));
+    assertTrue(visible.isTableVisible("FUNCTIONAL", "alltypes"));
+    assertTrue(visible.isColumnVisible("functional", "alltypes", "id"));
+    // Table privilege.
+    assertTrue(visible.isDbVisible("functional_parquet"));
+    assertTrue(visible.isTableVisible("functional_parquet", "alltypes"));
+    assertFalse(visible.isTableVisible("functional_parquet", "alltypessmall"));
+    assertTrue(visible.isColumnVisible("functional_parquet", "alltypes", "int_col"));
+    // Column privilege.
+    assertTrue(visible.isDbVisible("functional_avro"));
+    assertTrue(visible.isTableVisible("functional_avro", "alltypessmall"));
+    assertTrue(visible.isColumnVisible("functional_avro", "alltypessmall", "ID"));
+    assertFalse(visible.isColumnVisible("functional_avro", "alltypessmall", "int_col"));
+    assertFalse(visible.isTableVisible("functional_avro", "alltypes"));
+    // URI privileges and privileges on other servers are ignored.
+    assertFalse(visible.isDbVisible("tpch"));
+    assertFalse(visible.isDbVisible("functional_seq"));
+
+    // Server privileges and wildcards make everything visible.
+    for (String privilege: new String[] {"server=server1->action=all",
+        "server=*->action=select", "server=server1->db=*->action=select"}) {
+      visible = VisibleObjects.create("server1", Lists.newArrayList(privilege));
+      assertTrue(visible.isDbVisible("tpch"));
+      assertTrue(visible.isColumnVisible("tpch", "lineitem", "l_orderkey"));
+    }
+    visible = VisibleObjects.create("server1",
+        Lists.newArrayList("server=server1->db=tpch->table=*->action=select"));
+    assertTrue(visible.isTableVisible("tpch", "lineitem"));
+    assertFalse(visible.isDbVisible("functional"));
+
+    visible = VisibleObjects.createAllVisible();
+    assertTrue(visible.isColumnVisible("functional", "alltypes", "id"));
+  }
+}
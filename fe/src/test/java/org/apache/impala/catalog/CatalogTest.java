@@ -18,6 +18,7 @@
 package org.apache.impala.catalog;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -609,7 +610,7 @@ public class CatalogTest {
       throws CatalogException {
     TGetPartitionStatsRequest req = new TGetPartitionStatsRequest();
     req.setTable_name(new TTableName(dbName, tableName));
-    return catalog_.getPartitionStats(req);
+    return catalog_.getPartitionStats(req).getPartition_stats();
   }
 
   // Expect expCount partitions have statistics (though not incremental statistics).
@@ -683,6 +684,31 @@ public class CatalogTest {
     }
   }
 
+  /**
+   * Tests that HMS tables are served without loading the tables.
+   */
+  @Test
+  public void testGetHmsTables() throws CatalogException {
+    catalog_.getOrLoadTable("functional", "alltypes");
+    catalog_.invalidateTable(new TTableName("functional", "alltypessmall"),
+        /*tblWasRemoved=*/new Reference<Boolean>(),
+        /*dbWasAdded=*/new Reference<Boolean>());
+    List<org.apache.hadoop.hive.metastore.api.Table> msTbls = catalog_.getHmsTables(
+        "functional", Lists.newArrayList("alltypes", "alltypessmall", "doesnotexist"));
+    assertEquals(2, msTbls.size());
+    Set<String> tableNames = new HashSet<>();
+    for (org.apache.hadoop.hive.metastore.api.Table msTbl: msTbls) {
+      // 11 columns and the year and month partition columns.
+      assertEquals(13, msTbl.getSd().getColsSize() + msTbl.getPartitionKeysSize());
+      tableNames.add(msTbl.getTableName());
+    }
+    assertEquals(Sets.newHashSet("alltypes", "alltypessmall"), tableNames);
+    // Fetching the HMS table does not load the table.
+    assertFalse(catalog_.getDb("functional").getTable("alltypessmall").isLoaded());
+    assertTrue(catalog_.getHmsTables("doesnotexist",
+        Lists.newArrayList("alltypes")).isEmpty());
+  }
+
   @Test
   public void testInternalHBaseTable() throws CatalogException {
     // Cast will fail if table not an HBaseTable
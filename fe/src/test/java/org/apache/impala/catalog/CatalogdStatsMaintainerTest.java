@@ -0,0 +1,132 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.impala.testutil.CatalogServiceTestCatalog;
+import org.apache.impala.thrift.TGetCatalogServerMetricsResponse;
+import org.apache.impala.thrift.TGetCatalogUsageResponse;
+import org.apache.impala.thrift.TTableStatsFreshness;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CatalogdStatsMaintainerTest {
+  private static final String DB_NAME = "functional";
+  private static final String TBL_NAME = "alltypes";
+
+  private static CatalogServiceCatalog catalog_;
+  private static long numRows_;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    catalog_ = CatalogServiceTestCatalog.create();
+    numRows_ = catalog_.getOrLoadTable(DB_NAME, TBL_NAME).getNumRows();
+    assertTrue(numRows_ > 0);
+  }
+
+  @AfterClass
+  public static void tearDown() { catalog_.close(); }
+
+  private static TTableStatsFreshness getFreshness(CatalogdStatsMaintainer maintainer) {
+    maintainer.evaluate();
+    for (TTableStatsFreshness freshness: maintainer.getStaleTables()) {
+      if (freshness.getTable_name().getDb_name().equals(DB_NAME) &&
+          freshness.getTable_name().getTable_name().equals(TBL_NAME)) {
+        return freshness;
+      }
+    }
+    return null;
+  }
+
+  @Test
+  public void testModifiedRows() {
+    CatalogdStatsMaintainer maintainer = new CatalogdStatsMaintainer(catalog_,
+        /*intervalSec=*/1, /*staleRatio=*/0.1, /*budgetBytes=*/Long.MAX_VALUE);
+    assertNull(getFreshness(maintainer));
+    // Modifications below the stale ratio.
+    maintainer.recordModification(DB_NAME, TBL_NAME, numRows_ / 20);
+    assertNull(getFreshness(maintainer));
+    maintainer.recordModification(DB_NAME, TBL_NAME, numRows_ / 10);
+    TTableStatsFreshness freshness = getFreshness(maintainer);
+    assertNotNull(freshness);
+    assertEquals(numRows_, freshness.getNum_rows());
+    assertEquals(numRows_ / 20 + numRows_ / 10, freshness.getNum_modified_rows());
+    assertTrue(freshness.getRecommended_stmt(),
+        freshness.getRecommended_stmt().endsWith("STATS functional.alltypes"));
+    // Computing the stats resets the modifications.
+    maintainer.recordStatsComputed(DB_NAME, TBL_NAME);
+    assertNull(getFreshness(maintainer));
+  }
+
+  @Test
+  public void testUnknownModifications() {
+    CatalogdStatsMaintainer maintainer = new CatalogdStatsMaintainer(catalog_,
+        /*intervalSec=*/1, /*staleRatio=*/0.1, /*budgetBytes=*/Long.MAX_VALUE);
+    maintainer.recordModification(DB_NAME, TBL_NAME,
+        CatalogdStatsMaintainer.UNKNOWN_NUM_ROWS);
+    TTableStatsFreshness freshness = getFreshness(maintainer);
+    assertNotNull(freshness);
+    assertEquals(CatalogdStatsMaintainer.UNKNOWN_NUM_ROWS,
+        freshness.getNum_modified_rows());
+  }
+
+  @Test
+  public void testBudget() {
+    // Stats extrapolation is disabled, so tables that exceed the budget cannot be
+    // sampled and get no recommended statement.
+    CatalogdStatsMaintainer maintainer = new CatalogdStatsMaintainer(catalog_,
+        /*intervalSec=*/1, /*staleRatio=*/0.1, /*budgetBytes=*/0);
+    maintainer.recordModification(DB_NAME, TBL_NAME, numRows_);
+    TTableStatsFreshness freshness = getFreshness(maintainer);
+    assertNotNull(freshness);
+    assertFalse(freshness.isSetRecommended_stmt());
+  }
+
+  @Test
+  public void testEvaluationSeq() {
+    CatalogdStatsMaintainer maintainer = new CatalogdStatsMaintainer(catalog_,
+        /*intervalSec=*/1, /*staleRatio=*/0.1, /*budgetBytes=*/Long.MAX_VALUE);
+    TGetCatalogUsageResponse usage = new TGetCatalogUsageResponse();
+    maintainer.populateUsage(usage);
+    assertEquals(0, usage.getStats_evaluation_seq());
+    assertTrue(usage.getStale_stats_tables().isEmpty());
+
+    // Every evaluation gets a new sequence number, which the catalogd backend uses to
+    // run the recommended statements of an evaluation only once.
+    maintainer.recordModification(DB_NAME, TBL_NAME, numRows_);
+    assertNotNull(getFreshness(maintainer));
+    maintainer.populateUsage(usage);
+    assertEquals(1, usage.getStats_evaluation_seq());
+    assertEquals(maintainer.getStaleTables(), usage.getStale_stats_tables());
+    assertNotNull(getFreshness(maintainer));
+    maintainer.populateUsage(usage);
+    assertEquals(2, usage.getStats_evaluation_seq());
+
+    TGetCatalogServerMetricsResponse metrics = new TGetCatalogServerMetricsResponse();
+    maintainer.populateMetrics(metrics);
+    assertEquals(2, metrics.getStats_maintenance_num_evaluations());
+    assertEquals(maintainer.getStaleTables().size(),
+        metrics.getStats_maintenance_num_stale_tables());
+  }
+}
@@ -0,0 +1,172 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.impala.common.ImpalaException;
+import org.apache.impala.thrift.TIntermediateColumnStats;
+import org.apache.impala.thrift.TPartitionStats;
+import org.apache.impala.thrift.TTableStats;
+import org.junit.Test;
+
+public class CompactPartitionStatsTest {
+  private static final int HLL_LEN = 1024;
+
+  private static TIntermediateColumnStats makeColStats(byte[] ndv) {
+    TIntermediateColumnStats colStats = new TIntermediateColumnStats();
+    if (ndv != null) {
+      colStats.setIntermediate_ndv(ndv);
+      colStats.setIs_ndv_encoded(false);
+    }
+    colStats.setNum_nulls(-1);
+    colStats.setMax_width(17);
+    colStats.setAvg_width(3.25);
+    colStats.setNum_rows(1000);
+    return colStats;
+  }
+
+  // Returns HLL registers where 'numSet' random registers have values up to 'maxValue'.
+  private static byte[] makeNdv(Random r, int numSet, int maxValue) {
+    byte[] ndv = new byte[HLL_LEN];
+    for (int i = 0; i < numSet; ++i) {
+      ndv[r.nextInt(HLL_LEN)] = (byte) (1 + r.nextInt(maxValue));
+    }
+    return ndv;
+  }
+
+  private static TPartitionStats makeStats(Map<String, TIntermediateColumnStats> cols) {
+    TPartitionStats stats = new TPartitionStats();
+    stats.setStats(new TTableStats(1000));
+    if (cols != null) stats.setIntermediate_col_stats(cols);
+    return stats;
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Random r = new Random(42);
+    Map<String, TIntermediateColumnStats> cols = new HashMap<>();
+    // Sparse, packed and raw NDV encodings and a column without NDV.
+    cols.put("sparse", makeColStats(makeNdv(r, 10, 20)));
+    cols.put("dense", makeColStats(makeNdv(r, 5000, 55)));
+    cols.put("raw", makeColStats(makeNdv(r, 5000, 100)));
+    cols.put("empty", makeColStats(new byte[HLL_LEN]));
+    cols.put("no_ndv", makeColStats(null));
+    TPartitionStats stats = makeStats(cols);
+    stats.getStats().setTotal_file_bytes(12345);
+
+    byte[] encoded = CompactPartitionStats.encode(stats);
+    assertTrue(CompactPartitionStats.isCompact(encoded));
+    assertEquals(stats, CompactPartitionStats.decode(encoded));
+    // Decoding through PartitionStatsUtil detects the encoding.
+    assertEquals(stats, PartitionStatsUtil.partStatsFromCompressedBytes(encoded, null));
+    // The deflate-compressed representation is still supported.
+    byte[] compressed = PartitionStatsUtil.partStatsToCompressedBytes(stats);
+    assertFalse(CompactPartitionStats.isCompact(compressed));
+    assertEquals(stats,
+        PartitionStatsUtil.partStatsFromCompressedBytes(compressed, null));
+  }
+
+  @Test
+  public void testEncodedNdv() throws Exception {
+    // RLE-encoded registers are stored decoded: 3 times 5, 1021 times 0.
+    byte[] rle = new byte[] {2, 5, (byte) 255, 0, (byte) 255, 0, (byte) 255, 0,
+        (byte) 252, 0};
+    TIntermediateColumnStats colStats = makeColStats(rle);
+    colStats.setIs_ndv_encoded(true);
+    Map<String, TIntermediateColumnStats> cols = new HashMap<>();
+    cols.put("c", colStats);
+    CompactPartitionStats compact =
+        new CompactPartitionStats(CompactPartitionStats.encode(makeStats(cols)));
+    assertEquals("c", compact.getColumnName(0));
+    TIntermediateColumnStats decoded = compact.getColumnStats(0);
+    assertFalse(decoded.isIs_ndv_encoded());
+    assertArrayEquals(IncrementalStatsAggregate.decodeNdv(rle, true),
+        decoded.getIntermediate_ndv());
+  }
+
+  @Test
+  public void testLazyDecoding() throws Exception {
+    Random r = new Random(7);
+    Map<String, TIntermediateColumnStats> cols = new HashMap<>();
+    for (int i = 0; i < 100; ++i) {
+      cols.put("col" + i, makeColStats(makeNdv(r, 200, 30)));
+    }
+    CompactPartitionStats compact =
+        new CompactPartitionStats(CompactPartitionStats.encode(makeStats(cols)));
+    assertEquals(1000, compact.getNumRows());
+    assertTrue(compact.hasIntermediateColStats());
+    assertEquals(100, compact.getNumColumns());
+    for (int i = 0; i < compact.getNumColumns(); ++i) {
+      assertEquals(cols.get(compact.getColumnName(i)), compact.getColumnStats(i));
+    }
+  }
+
+  @Test
+  public void testNoIncrementalStats() throws Exception {
+    TPartitionStats stats = makeStats(null);
+    byte[] encoded = CompactPartitionStats.encode(stats);
+    CompactPartitionStats compact = new CompactPartitionStats(encoded);
+    assertFalse(compact.hasIntermediateColStats());
+    assertEquals(stats, compact.toThrift());
+  }
+
+  @Test
+  public void testCorruptData() throws Exception {
+    Map<String, TIntermediateColumnStats> cols = new HashMap<>();
+    cols.put("c", makeColStats(makeNdv(new Random(1), 5000, 55)));
+    byte[] encoded = CompactPartitionStats.encode(makeStats(cols));
+    try {
+      CompactPartitionStats.decode(Arrays.copyOf(encoded, encoded.length - 1));
+      fail("Expected truncated data to fail");
+    } catch (ImpalaException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("Corrupt"));
+    }
+  }
+
+  @Test
+  public void testCorruptSparseNdv() throws Exception {
+    byte[] ndv = new byte[HLL_LEN];
+    ndv[5] = 3;
+    Map<String, TIntermediateColumnStats> cols = new HashMap<>();
+    cols.put("c", makeColStats(ndv));
+    byte[] encoded = CompactPartitionStats.encode(makeStats(cols));
+    // The column body ends with the number of non-zero registers and a single
+    // (index delta, value) pair.
+    int deltaPos = encoded.length - 2;
+    assertEquals(1, encoded[deltaPos - 1]);
+    assertEquals(6, encoded[deltaPos]);
+    // Index deltas are positive, a delta of 0 would point before the first register.
+    encoded[deltaPos] = 0;
+    try {
+      CompactPartitionStats.decode(encoded);
+      fail("Expected an invalid index delta to fail");
+    } catch (ImpalaException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("Corrupt"));
+    }
+  }
+}
@@ -0,0 +1,201 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.impala.common.ImpalaException;
+import org.apache.impala.service.CatalogOpExecutor;
+import org.apache.impala.testutil.CatalogServiceTestCatalog;
+import org.apache.impala.thrift.TAlterTableParams;
+import org.apache.impala.thrift.TAlterTableType;
+import org.apache.impala.thrift.TAlterTableUpdateStatsParams;
+import org.apache.impala.thrift.TColumn;
+import org.apache.impala.thrift.TColumnStats;
+import org.apache.impala.thrift.TColumnType;
+import org.apache.impala.thrift.TCreateDbParams;
+import org.apache.impala.thrift.TCreateTableParams;
+import org.apache.impala.thrift.TDdlExecRequest;
+import org.apache.impala.thrift.TDdlType;
+import org.apache.impala.thrift.TDropDbParams;
+import org.apache.impala.thrift.TDropStatsParams;
+import org.apache.impala.thrift.THdfsFileFormat;
+import org.apache.impala.thrift.TPrimitiveType;
+import org.apache.impala.thrift.TScalarType;
+import org.apache.impala.thrift.TTableName;
+import org.apache.impala.thrift.TTableStats;
+import org.apache.impala.thrift.TTypeNode;
+import org.apache.impala.thrift.TTypeNodeType;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests that the column histograms computed by COMPUTE STATS are stored in the table
+ * properties and that DROP STATS removes them.
+ */
+public class HistogramDdlTest {
+  private static final String TEST_DB = "test_histogram_ddl_db";
+  private static final String TEST_TBL = "tbl";
+
+  private static CatalogServiceCatalog catalog_;
+  private static CatalogOpExecutor catalogOpExecutor_;
+
+  @BeforeClass
+  public static void setUpClass() {
+    catalog_ = CatalogServiceTestCatalog.create();
+    catalogOpExecutor_ = new CatalogOpExecutor(catalog_);
+  }
+
+  @AfterClass
+  public static void tearDownClass() { catalog_.close(); }
+
+  @Before
+  public void setUp() throws ImpalaException {
+    catalogOpExecutor_.execDdlRequest(dropDbRequest());
+    TDdlExecRequest createDb = new TDdlExecRequest();
+    createDb.setDdl_type(TDdlType.CREATE_DATABASE);
+    TCreateDbParams createDbParams = new TCreateDbParams();
+    createDbParams.setDb(TEST_DB);
+    createDb.setCreate_db_params(createDbParams);
+    catalogOpExecutor_.execDdlRequest(createDb);
+
+    TDdlExecRequest createTbl = new TDdlExecRequest();
+    createTbl.setDdl_type(TDdlType.CREATE_TABLE);
+    TCreateTableParams createTblParams = new TCreateTableParams();
+    createTblParams.setTable_name(new TTableName(TEST_DB, TEST_TBL));
+    createTblParams.setFile_format(THdfsFileFormat.PARQUET);
+    createTblParams.setIs_external(false);
+    createTblParams.setIf_not_exists(false);
+    createTblParams.setColumns(Lists.newArrayList(
+        getScalarColumn("i", TPrimitiveType.INT),
+        getScalarColumn("s", TPrimitiveType.STRING)));
+    createTbl.setCreate_table_params(createTblParams);
+    catalogOpExecutor_.execDdlRequest(createTbl);
+  }
+
+  @After
+  public void tearDown() throws ImpalaException {
+    catalogOpExecutor_.execDdlRequest(dropDbRequest());
+  }
+
+  private static TDdlExecRequest dropDbRequest() {
+    TDdlExecRequest request = new TDdlExecRequest();
+    request.setDdl_type(TDdlType.DROP_DATABASE);
+    TDropDbParams dropDbParams = new TDropDbParams();
+    dropDbParams.setDb(TEST_DB);
+    dropDbParams.setIf_exists(true);
+    dropDbParams.setCascade(true);
+    request.setDrop_db_params(dropDbParams);
+    return request;
+  }
+
+  private static TColumn getScalarColumn(String colName, TPrimitiveType type) {
+    TTypeNode typeNode = new TTypeNode(TTypeNodeType.SCALAR);
+    typeNode.setScalar_type(new TScalarType(type));
+    return new TColumn(colName, new TColumnType(Arrays.asList(typeNode)));
+  }
+
+  /**
+   * Returns column stats with the given histogram bounds, or without a histogram if
+   * 'bounds' is null.
+   */
+  private static TColumnStats getColumnStats(List<Double> bounds) {
+    TColumnStats colStats = new TColumnStats(4, 4, 3, 0);
+    if (bounds != null) colStats.setHistogram_bounds(bounds);
+    return colStats;
+  }
+
+  /**
+   * Updates the table and column stats of the test table like COMPUTE STATS does.
+   */
+  private static void updateStats(Map<String, TColumnStats> colStats)
+      throws ImpalaException {
+    TAlterTableUpdateStatsParams updateStatsParams = new TAlterTableUpdateStatsParams();
+    updateStatsParams.setTable_name(new TTableName(TEST_DB, TEST_TBL));
+    TTableStats tableStats = new TTableStats(100);
+    tableStats.setTotal_file_bytes(0);
+    updateStatsParams.setTable_stats(tableStats);
+    updateStatsParams.setColumn_stats(colStats);
+    TAlterTableParams alterTableParams = new TAlterTableParams();
+    alterTableParams.setAlter_type(TAlterTableType.UPDATE_STATS);
+    alterTableParams.setTable_name(new TTableName(TEST_DB, TEST_TBL));
+    alterTableParams.setUpdate_stats_params(updateStatsParams);
+    TDdlExecRequest request = new TDdlExecRequest();
+    request.setDdl_type(TDdlType.ALTER_TABLE);
+    request.setAlter_table_params(alterTableParams);
+    catalogOpExecutor_.execDdlRequest(request);
+  }
+
+  private static void dropStats() throws ImpalaException {
+    TDdlExecRequest request = new TDdlExecRequest();
+    request.setDdl_type(TDdlType.DROP_STATS);
+    request.setDrop_stats_params(
+        new TDropStatsParams(new TTableName(TEST_DB, TEST_TBL)));
+    catalogOpExecutor_.execDdlRequest(request);
+  }
+
+  private static String getHistogramProperty(String colName) throws CatalogException {
+    Table tbl = catalog_.getOrLoadTable(TEST_DB, TEST_TBL);
+    return tbl.getMetaStoreTable().getParameters().get(
+        Histogram.getPropertyKey(colName));
+  }
+
+  private static Histogram getHistogram(String colName) throws CatalogException {
+    Table tbl = catalog_.getOrLoadTable(TEST_DB, TEST_TBL);
+    return tbl.getColumn(colName).getStats().getHistogram();
+  }
+
+  @Test
+  public void testComputeAndDropStats() throws ImpalaException {
+    List<Double> bounds = Lists.newArrayList(1.0, 2.0, 2.0, 3.0);
+    Map<String, TColumnStats> colStats = new HashMap<>();
+    colStats.put("i", getColumnStats(bounds));
+    // Histograms are not stored for STRING columns.
+    colStats.put("s", getColumnStats(Lists.newArrayList(1.0, 2.0)));
+    updateStats(colStats);
+    assertEquals("1,2*2,3", getHistogramProperty("i"));
+    assertEquals(new Histogram(bounds), getHistogram("i"));
+    assertNull(getHistogramProperty("s"));
+    assertNull(getHistogram("s"));
+
+    // New column stats without a histogram remove the previous histogram.
+    colStats.put("i", getColumnStats(null));
+    updateStats(colStats);
+    assertNull(getHistogramProperty("i"));
+    assertNull(getHistogram("i"));
+
+    // DROP STATS removes the histograms.
+    colStats.put("i", getColumnStats(bounds));
+    updateStats(colStats);
+    assertEquals("1,2*2,3", getHistogramProperty("i"));
+    dropStats();
+    assertNull(getHistogramProperty("i"));
+    assertNull(getHistogram("i"));
+  }
+}
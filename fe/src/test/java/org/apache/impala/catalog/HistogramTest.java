@@ -0,0 +1,127 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.impala.thrift.TColumnStats;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class HistogramTest {
+  private static final double EPSILON = 1e-9;
+
+  /**
+   * Returns a histogram with 'n' buckets over the uniformly distributed values 1..n.
+   */
+  private static Histogram createUniform(int n) {
+    List<Double> bounds = new ArrayList<>();
+    for (int i = 1; i <= n; ++i) bounds.add((double) i);
+    return new Histogram(bounds);
+  }
+
+  @Test
+  public void testFractionLessThan() {
+    Histogram histogram = createUniform(10);
+    assertEquals(0.0, histogram.getFractionLessThan(0, false), EPSILON);
+    assertEquals(0.0, histogram.getFractionLessThan(1, false), EPSILON);
+    assertEquals(0.1, histogram.getFractionLessThan(1, true), EPSILON);
+    assertEquals(0.45, histogram.getFractionLessThan(4.5, false), EPSILON);
+    assertEquals(0.5, histogram.getFractionLessThan(5, true), EPSILON);
+    assertEquals(0.9, histogram.getFractionLessThan(10, false), EPSILON);
+    assertEquals(1.0, histogram.getFractionLessThan(10, true), EPSILON);
+    assertEquals(1.0, histogram.getFractionLessThan(100, false), EPSILON);
+  }
+
+  @Test
+  public void testFrequentValues() {
+    // 7 is the bound of 4 out of 10 buckets.
+    Histogram histogram = new Histogram(
+        Lists.newArrayList(1.0, 2.0, 7.0, 7.0, 7.0, 7.0, 8.0, 9.0, 10.0, 20.0));
+    Map<Double, Double> frequentValues = histogram.getFrequentValues();
+    assertEquals(1, frequentValues.size());
+    assertEquals(0.4, frequentValues.get(7.0), EPSILON);
+    assertEquals(0.4, histogram.getFrequentValueFraction(7), EPSILON);
+    assertEquals(-1, histogram.getFrequentValueFraction(8), EPSILON);
+    // The values other than 7 share the remaining 60% of the rows.
+    assertEquals(0.4, histogram.getEqualityFraction(7, 13), EPSILON);
+    assertEquals(0.05, histogram.getEqualityFraction(3, 13), EPSILON);
+    assertEquals(-1, histogram.getEqualityFraction(3, 1), EPSILON);
+    // Range estimates account for the frequent value.
+    assertEquals(0.2, histogram.getFractionLessThan(7, false), EPSILON);
+    assertEquals(0.6, histogram.getFractionLessThan(7, true), EPSILON);
+  }
+
+  @Test
+  public void testPropertyValue() {
+    Histogram histogram = new Histogram(
+        Lists.newArrayList(-1.5, 2.0, 7.0, 7.0, 7.0, 1e20));
+    String value = histogram.toPropertyValue();
+    assertEquals("-1.5,2,7*3,1.0E20", value);
+    assertEquals(histogram, Histogram.fromPropertyValue(value));
+    assertEquals(histogram, Histogram.fromPropertyValue("-1.5, 2, 7 * 3, 1e20"));
+
+    assertNull(Histogram.fromPropertyValue(null));
+    assertNull(Histogram.fromPropertyValue(""));
+    assertNull(Histogram.fromPropertyValue("1,abc"));
+    assertNull(Histogram.fromPropertyValue("1,2*0"));
+    assertNull(Histogram.fromPropertyValue("NaN"));
+  }
+
+  @Test
+  public void testCoarsening() {
+    List<Double> bounds = new ArrayList<>();
+    for (int i = 1; i <= 1000; ++i) bounds.add(i + 0.123456789);
+    Histogram histogram = new Histogram(bounds);
+    String value = histogram.toPropertyValue();
+    assertTrue(value.length() <= Histogram.MAX_PROPERTY_VALUE_LENGTH);
+    Histogram coarsened = Histogram.fromPropertyValue(value);
+    assertTrue(coarsened.getNumBuckets() < histogram.getNumBuckets());
+    // The quantiles are preserved.
+    assertEquals(histogram.getFractionLessThan(500, true),
+        coarsened.getFractionLessThan(500, true), 0.01);
+  }
+
+  @Test
+  public void testColumnStats() {
+    ColumnStats stats = new ColumnStats(Type.INT);
+    TColumnStats tstats = stats.toThrift();
+    assertFalse(tstats.isSetHistogram_bounds());
+    Histogram histogram = createUniform(4);
+    stats.setHistogram(histogram);
+    tstats = stats.toThrift();
+    assertEquals(histogram.getBounds(), tstats.getHistogram_bounds());
+    ColumnStats copy = new ColumnStats(Type.INT);
+    copy.update(Type.INT, tstats);
+    assertEquals(histogram, copy.getHistogram());
+    assertEquals(histogram, copy.clone().getHistogram());
+    // Combined stats have no histogram.
+    assertNull(copy.add(stats).getHistogram());
+    assertTrue(Histogram.isSupportedColType(Type.BIGINT));
+    assertFalse(Histogram.isSupportedColType(Type.STRING));
+    assertFalse(Histogram.isSupportedColType(Type.DOUBLE));
+  }
+}
@@ -0,0 +1,178 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.impala.catalog.ImpaladCatalog.CatalogObjectUpdate;
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.testutil.CatalogServiceTestCatalog;
+import org.apache.impala.testutil.TestUtils;
+import org.apache.impala.thrift.TBackendGflags;
+import org.apache.impala.thrift.TCatalog;
+import org.apache.impala.thrift.TCatalogObject;
+import org.apache.impala.thrift.TCatalogObjectType;
+import org.apache.impala.thrift.TTable;
+import org.apache.impala.thrift.TUpdateCatalogCacheRequest;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the application of catalog updates to the ImpaladCatalog with parallel
+ * deserialization, see --num_catalog_update_threads.
+ */
+public class ImpaladCatalogTest {
+  private static CatalogServiceCatalog catalog_ = CatalogServiceTestCatalog.create();
+
+  private int numCatalogUpdateThreads_;
+
+  @AfterClass
+  public static void tearDownClass() { catalog_.close(); }
+
+  @Before
+  public void setUp() {
+    // Restored in tearDown().
+    TBackendGflags gflags = BackendConfig.INSTANCE.getBackendCfg();
+    numCatalogUpdateThreads_ = gflags.getNum_catalog_update_threads();
+    gflags.setNum_catalog_update_threads(4);
+  }
+
+  @After
+  public void tearDown() {
+    BackendConfig.INSTANCE.getBackendCfg().setNum_catalog_update_threads(
+        numCatalogUpdateThreads_);
+  }
+
+  /**
+   * Returns the object that carries the service id and version of a topic update. The
+   * impalad has not received a topic update yet, so its service id is the initial one,
+   * which is also the id of the test catalog server.
+   */
+  private static TCatalogObject createCatalogObject(ImpaladCatalog impaladCatalog) {
+    TCatalogObject obj = new TCatalogObject(TCatalogObjectType.CATALOG,
+        catalog_.getCatalogVersion());
+    obj.setCatalog(new TCatalog(impaladCatalog.getCatalogServiceId()));
+    return obj;
+  }
+
+  /**
+   * Returns the catalog object of the loaded table 'dbName'.'tblName'.
+   */
+  private static TCatalogObject getTableObject(String dbName, String tblName)
+      throws CatalogException {
+    return catalog_.getOrLoadTable(dbName, tblName).toTCatalogObject();
+  }
+
+  private static TUpdateCatalogCacheRequest createRequest() {
+    TUpdateCatalogCacheRequest req = new TUpdateCatalogCacheRequest();
+    req.setIs_delta(true);
+    return req;
+  }
+
+  @Test
+  public void testParallelUpdate() throws Exception {
+    ImpaladCatalog impaladCatalog = new ImpaladCatalog("127.0.0.1");
+    String[] tblNames = new String[] {"alltypes", "alltypessmall", "alltypestiny"};
+
+    // A database and a table of that database in the same update. The table is
+    // converted while the update is applied, after its database was added.
+    TCatalogObject dbObj = catalog_.getDb("functional").toTCatalogObject();
+    TCatalogObject alltypesObj = getTableObject("functional", tblNames[0]);
+    impaladCatalog.updateCatalog(createRequest(), TestUtils.serializeCatalogUpdate(
+        Lists.newArrayList(createCatalogObject(impaladCatalog), alltypesObj, dbObj),
+        Lists.<TCatalogObject>newArrayList()).iterator());
+    Db db = impaladCatalog.getDb("functional");
+    assertNotNull(db);
+    Table alltypes = db.getTable(tblNames[0]);
+    assertNotNull(alltypes);
+    assertSame(db, alltypes.getDb());
+    assertEquals(alltypesObj.getCatalog_version(), alltypes.getCatalogVersion());
+
+    // Tables of an existing database are converted in parallel before the update is
+    // applied. The deletion of a table is applied in the same update.
+    List<TCatalogObject> tblObjs =
+        Lists.newArrayList(createCatalogObject(impaladCatalog));
+    for (int i = 1; i < tblNames.length; ++i) {
+      tblObjs.add(getTableObject("functional", tblNames[i]));
+    }
+    TCatalogObject dropObj = new TCatalogObject(TCatalogObjectType.TABLE,
+        catalog_.getCatalogVersion() + 1);
+    dropObj.setTable(new TTable("functional", tblNames[0]));
+    impaladCatalog.updateCatalog(createRequest(), TestUtils.serializeCatalogUpdate(
+        tblObjs, Lists.newArrayList(dropObj)).iterator());
+    assertSame(db, impaladCatalog.getDb("functional"));
+    assertNull(db.getTable(tblNames[0]));
+    for (int i = 1; i < tblNames.length; ++i) {
+      Table tbl = db.getTable(tblNames[i]);
+      assertNotNull(tbl);
+      assertTrue(tbl.isLoaded());
+      assertSame(db, tbl.getDb());
+      assertEquals(tblObjs.get(i).getCatalog_version(), tbl.getCatalogVersion());
+    }
+  }
+
+  @Test
+  public void testParentDbReplacedDuringDeserialization() throws Exception {
+    ImpaladCatalog impaladCatalog = new ImpaladCatalog("127.0.0.1");
+    TCatalogObject dbObj = catalog_.getDb("functional").toTCatalogObject();
+    impaladCatalog.updateCatalog(createRequest(), TestUtils.serializeCatalogUpdate(
+        Lists.newArrayList(createCatalogObject(impaladCatalog), dbObj),
+        Lists.<TCatalogObject>newArrayList()).iterator());
+    Db oldDb = impaladCatalog.getDb("functional");
+
+    // The table is converted against the current database.
+    TCatalogObject tblObj = getTableObject("functional", "alltypestiny");
+    List<CatalogObjectUpdate> updates = impaladCatalog.deserializeUpdates(
+        TestUtils.serializeCatalogUpdate(Lists.newArrayList(tblObj),
+            Lists.<TCatalogObject>newArrayList()).iterator());
+    assertEquals(1, updates.size());
+    Table prebuiltTbl = updates.get(0).table;
+    assertNotNull(prebuiltTbl);
+    assertSame(oldDb, prebuiltTbl.getDb());
+
+    // A concurrent update replaces the database before the table is applied.
+    TCatalogObject newDbObj = dbObj.deepCopy();
+    newDbObj.setCatalog_version(dbObj.getCatalog_version() + 1);
+    impaladCatalog.updateCatalog(createRequest(), TestUtils.serializeCatalogUpdate(
+        Lists.newArrayList(newDbObj), Lists.<TCatalogObject>newArrayList()).iterator());
+    Db newDb = impaladCatalog.getDb("functional");
+    assertNotSame(oldDb, newDb);
+
+    // The table is converted again and added to the current database.
+    synchronized (impaladCatalog) {
+      impaladCatalog.applyUpdates(createRequest(), updates);
+    }
+    Table tbl = newDb.getTable("alltypestiny");
+    assertNotNull(tbl);
+    assertNotSame(prebuiltTbl, tbl);
+    assertSame(newDb, tbl.getDb());
+    assertTrue(tbl.isLoaded());
+    assertNull(oldDb.getTable("alltypestiny"));
+  }
+}
@@ -0,0 +1,157 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.impala.thrift.TIntermediateColumnStats;
+import org.apache.impala.thrift.TPartitionStats;
+import org.apache.impala.thrift.TTableStats;
+import org.junit.Test;
+
+public class IncrementalStatsAggregateTest {
+  private static final int HLL_LEN = 1024;
+
+  // Returns HLL registers that are all 0 except for 'value' at 'idx'.
+  private static byte[] makeNdv(int idx, byte value) {
+    byte[] ndv = new byte[HLL_LEN];
+    ndv[idx] = value;
+    return ndv;
+  }
+
+  private static TPartitionStats makeStats(long numRows, byte[] ndv, long numNulls,
+      int maxWidth, double avgWidth) {
+    TIntermediateColumnStats colStats = new TIntermediateColumnStats();
+    colStats.setIntermediate_ndv(ndv);
+    colStats.setIs_ndv_encoded(false);
+    colStats.setNum_nulls(numNulls);
+    colStats.setMax_width(maxWidth);
+    colStats.setAvg_width(avgWidth);
+    colStats.setNum_rows(numRows);
+    TPartitionStats stats = new TPartitionStats();
+    stats.setStats(new TTableStats(numRows));
+    Map<String, TIntermediateColumnStats> cols = new HashMap<>();
+    cols.put("c", colStats);
+    stats.setIntermediate_col_stats(cols);
+    return stats;
+  }
+
+  private static int getNdvRegister(IncrementalStatsAggregate aggregate, int idx) {
+    TPartitionStats stats = aggregate.toThrift();
+    return stats.getIntermediate_col_stats().get("c").getIntermediate_ndv()[idx];
+  }
+
+  @Test
+  public void testDecodeNdv() throws Exception {
+    // 3 times 5, 1 time 7, 3 * 256 + 252 times 0.
+    byte[] encoded = new byte[] {2, 5, 0, 7, (byte) 255, 0, (byte) 255, 0, (byte) 255, 0,
+        (byte) 251, 0};
+    byte[] decoded = IncrementalStatsAggregate.decodeNdv(encoded, true);
+    assertEquals(HLL_LEN, decoded.length);
+    assertEquals(5, decoded[2]);
+    assertEquals(7, decoded[3]);
+    assertEquals(0, decoded[4]);
+    assertEquals(0, decoded[HLL_LEN - 1]);
+    // Unencoded NDVs are returned as is.
+    byte[] ndv = makeNdv(1, (byte) 3);
+    assertArrayEquals(ndv, IncrementalStatsAggregate.decodeNdv(ndv, false));
+  }
+
+  @Test
+  public void testEncodeNdv() throws Exception {
+    byte[] ndv = makeNdv(3, (byte) 7);
+    byte[] encoded = IncrementalStatsAggregate.encodeNdv(ndv);
+    // 3 times 0, 1 time 7, 3 * 256 + 252 times 0.
+    assertArrayEquals(new byte[] {2, 0, 0, 7, (byte) 255, 0, (byte) 255, 0,
+        (byte) 255, 0, (byte) 251, 0}, encoded);
+    assertArrayEquals(ndv, IncrementalStatsAggregate.decodeNdv(encoded, true));
+    // Registers that alternate don't get smaller.
+    for (int i = 0; i < HLL_LEN; i += 2) ndv[i] = 1;
+    assertNull(IncrementalStatsAggregate.encodeNdv(ndv));
+  }
+
+  @Test
+  public void testMerge() throws Exception {
+    IncrementalStatsAggregate aggregate = new IncrementalStatsAggregate();
+    assertNull(aggregate.toThrift());
+    aggregate.add(makeStats(10, makeNdv(1, (byte) 3), 2, 8, 4.0));
+    aggregate.add(makeStats(30, makeNdv(2, (byte) 5), -1, 6, 2.0));
+    TPartitionStats merged = aggregate.toThrift();
+    assertEquals(40, merged.getStats().getNum_rows());
+    TIntermediateColumnStats col = merged.getIntermediate_col_stats().get("c");
+    assertFalse(col.isIs_ndv_encoded());
+    assertEquals(3, col.getIntermediate_ndv()[1]);
+    assertEquals(5, col.getIntermediate_ndv()[2]);
+    // Only counted nulls are added up.
+    assertEquals(2, col.getNum_nulls());
+    assertEquals(8, col.getMax_width());
+    assertEquals(2.5, col.getAvg_width(), 0.0001);
+    assertEquals(40, col.getNum_rows());
+  }
+
+  @Test
+  public void testIncrementalUpdate() throws Exception {
+    byte[] p1 = PartitionStatsUtil.partStatsToCompressedBytes(
+        makeStats(10, makeNdv(1, (byte) 3), 0, 1, 1.0));
+    byte[] p2 = PartitionStatsUtil.partStatsToCompressedBytes(
+        makeStats(20, makeNdv(1, (byte) 4), 0, 1, 1.0));
+    Map<Long, byte[]> partStats = new HashMap<>();
+    partStats.put(1L, p1);
+    IncrementalStatsAggregate aggregate = new IncrementalStatsAggregate();
+    assertEquals(1, aggregate.update(partStats));
+    assertEquals(0, aggregate.update(partStats));
+    // A new partition is merged into the existing aggregate.
+    partStats.put(2L, p2);
+    assertEquals(1, aggregate.update(partStats));
+    assertEquals(30, aggregate.toThrift().getStats().getNum_rows());
+    assertEquals(4, getNdvRegister(aggregate, 1));
+    // Changed stats rebuild the aggregate.
+    partStats.put(2L, PartitionStatsUtil.partStatsToCompressedBytes(
+        makeStats(5, makeNdv(1, (byte) 1), 0, 1, 1.0)));
+    assertEquals(2, aggregate.update(partStats));
+    assertEquals(15, aggregate.toThrift().getStats().getNum_rows());
+    assertEquals(3, getNdvRegister(aggregate, 1));
+    // So do removed partitions.
+    partStats.remove(1L);
+    assertEquals(1, aggregate.update(partStats));
+    assertEquals(5, aggregate.toThrift().getStats().getNum_rows());
+    assertEquals(1, aggregate.getNumPartitions());
+  }
+
+  @Test
+  public void testMergeCompactStats() throws Exception {
+    // Stats encoded by CompactPartitionStats are merged column by column and give the
+    // same result as the deflate-compressed representation.
+    TPartitionStats s1 = makeStats(10, makeNdv(1, (byte) 3), 2, 8, 4.0);
+    TPartitionStats s2 = makeStats(30, makeNdv(2, (byte) 5), -1, 6, 2.0);
+    IncrementalStatsAggregate compact = new IncrementalStatsAggregate();
+    compact.add(1, CompactPartitionStats.encode(s1));
+    compact.add(2, CompactPartitionStats.encode(s2));
+    IncrementalStatsAggregate deflated = new IncrementalStatsAggregate();
+    deflated.add(1, PartitionStatsUtil.partStatsToCompressedBytes(s1));
+    deflated.add(2, PartitionStatsUtil.partStatsToCompressedBytes(s2));
+    assertEquals(2, compact.getNumPartitions());
+    assertEquals(deflated.toThrift(), compact.toThrift());
+  }
+}
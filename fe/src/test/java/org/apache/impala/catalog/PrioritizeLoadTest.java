@@ -0,0 +1,137 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.impala.common.Reference;
+import org.apache.impala.testutil.CatalogServiceTestCatalog;
+import org.apache.impala.thrift.TCatalogObject;
+import org.apache.impala.thrift.TCatalogObjectType;
+import org.apache.impala.thrift.TTable;
+import org.apache.impala.thrift.TTableName;
+import org.apache.impala.thrift.TUniqueId;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the prioritized loading of tables that returns the loaded tables directly to
+ * the coordinator, see --fetch_loaded_tables_directly.
+ */
+public class PrioritizeLoadTest {
+  private static CatalogServiceCatalog catalog_ = CatalogServiceTestCatalog.create();
+
+  @AfterClass
+  public static void tearDown() { catalog_.close(); }
+
+  /**
+   * Returns a catalog object descriptor of the table 'dbName'.'tblName'.
+   */
+  public static TCatalogObject createTableDesc(String dbName, String tblName) {
+    TCatalogObject desc = new TCatalogObject(TCatalogObjectType.TABLE, 0);
+    desc.setTable(new TTable(dbName, tblName));
+    return desc;
+  }
+
+  /**
+   * Invalidates 'dbName'.'tblName' in the catalog server so that it needs to be loaded.
+   */
+  private static void invalidate(String dbName, String tblName) throws CatalogException {
+    catalog_.invalidateTable(new TTableName(dbName, tblName), new Reference<Boolean>(),
+        new Reference<Boolean>());
+    assertFalse(catalog_.getTable(dbName, tblName).isLoaded());
+  }
+
+  @Test
+  public void testPrioritizeLoadAndWait() throws CatalogException {
+    invalidate("functional", "alltypes");
+    invalidate("functional", "alltypessmall");
+    List<TCatalogObject> loadedObjects = catalog_.prioritizeLoadAndWait(
+        Lists.newArrayList(createTableDesc("functional", "alltypes"),
+            createTableDesc("functional", "nonexistent"),
+            createTableDesc("functional", "alltypessmall")));
+    // Tables that don't exist are skipped.
+    assertEquals(2, loadedObjects.size());
+    String[] tblNames = new String[] {"alltypes", "alltypessmall"};
+    for (int i = 0; i < tblNames.length; ++i) {
+      Table tbl = catalog_.getTable("functional", tblNames[i]);
+      assertTrue(tbl.isLoaded());
+      TCatalogObject loadedObject = loadedObjects.get(i);
+      assertEquals(TCatalogObjectType.TABLE, loadedObject.getType());
+      assertEquals(tblNames[i], loadedObject.getTable().getTbl_name());
+      assertTrue(loadedObject.getTable().isSetHdfs_table());
+      // The version matches the one that is sent in the next topic update.
+      assertEquals(tbl.getCatalogVersion(), loadedObject.getCatalog_version());
+    }
+  }
+
+  /**
+   * Returns the loaded objects for the database and a table of the catalog server.
+   */
+  private static List<TCatalogObject> getLoadedObjects(String dbName, String tblName)
+      throws CatalogException {
+    List<TCatalogObject> loadedObjects = Lists.newArrayList(
+        catalog_.getDb(dbName).toTCatalogObject());
+    loadedObjects.addAll(catalog_.prioritizeLoadAndWait(
+        Lists.newArrayList(createTableDesc(dbName, tblName))));
+    return loadedObjects;
+  }
+
+  @Test
+  public void testAddLoadedObjects() throws CatalogException {
+    List<TCatalogObject> loadedObjects = getLoadedObjects("functional", "alltypestiny");
+    long version = loadedObjects.get(1).getCatalog_version();
+    // The impalad has not received a topic update yet, so its service id is the
+    // initial one, which is also the id of the test catalog server.
+    ImpaladCatalog impaladCatalog = new ImpaladCatalog("127.0.0.1");
+    assertNull(impaladCatalog.getDb("functional"));
+    impaladCatalog.addLoadedObjects(impaladCatalog.getCatalogServiceId(),
+        loadedObjects);
+    assertNotNull(impaladCatalog.getDb("functional"));
+    Table tbl = impaladCatalog.getDb("functional").getTable("alltypestiny");
+    assertNotNull(tbl);
+    assertTrue(tbl.isLoaded());
+    assertEquals(version, tbl.getCatalogVersion());
+
+    // Adding the same version again, like a later topic update does, keeps the table.
+    impaladCatalog.addLoadedObjects(impaladCatalog.getCatalogServiceId(),
+        loadedObjects);
+    assertSame(tbl, impaladCatalog.getDb("functional").getTable("alltypestiny"));
+  }
+
+  @Test
+  public void testAddLoadedObjectsServiceIdMismatch() throws CatalogException {
+    List<TCatalogObject> loadedObjects = getLoadedObjects("functional", "alltypestiny");
+    ImpaladCatalog impaladCatalog = new ImpaladCatalog("127.0.0.1");
+    // Objects from a different catalog server, e.g. after a restart, are dropped. The
+    // impalad gets them with the full topic update that follows the restart.
+    TUniqueId otherServiceId = new TUniqueId(1L, 2L);
+    assertFalse(otherServiceId.equals(impaladCatalog.getCatalogServiceId()));
+    impaladCatalog.addLoadedObjects(otherServiceId, loadedObjects);
+    assertNull(impaladCatalog.getDb("functional"));
+  }
+}
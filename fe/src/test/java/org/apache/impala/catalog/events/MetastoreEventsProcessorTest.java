@@ -684,6 +684,48 @@ public class MetastoreEventsProcessorTest {
     assertEquals(EventProcessorStatus.ACTIVE, eventsProcessor_.getStatus());
   }
 
+  /**
+   * Test makes sure that an insert event registered as in-flight by the catalog is
+   * detected as a self-event and does not refresh the table, while the same insert
+   * from outside refreshes it.
+   */
+  @Test
+  public void testSelfInsertEvents() throws Exception {
+    createDatabase(TEST_DB_NAME, null);
+    final String testTblName = "testSelfInsertEvents";
+    createTable(testTblName, false);
+    eventsProcessor_.processEvents();
+    Table tbl = catalog_.getOrLoadTable(TEST_DB_NAME, testTblName);
+    assertFalse("Table must be already loaded to verify correctness",
+        tbl instanceof IncompleteTable);
+    long numberOfSelfEventsBefore = eventsProcessor_.getMetrics()
+        .getCounter(MetastoreEventsProcessor.NUMBER_OF_SELF_EVENTS).getCount();
+
+    Path tblPath = new Path(tbl.getMetaStoreTable().getSd().getLocation());
+    List<String> newFiles = addFilesToDirectory(tblPath, "testFile.", 2, false);
+    catalog_.addInflightInsertEvent(tbl,
+        MetaStoreUtil.getInsertEventKey(null, newFiles, false));
+    try (MetaStoreClient metaStoreClient = catalog_.getMetaStoreClient()) {
+      MetaStoreUtil.fireInsertEvent(metaStoreClient.getHiveClient(), TEST_DB_NAME,
+          testTblName, null, newFiles, false);
+    }
+    // The self-event does not refresh the table.
+    verifyNumberOfFiles(tbl, 0);
+    assertEquals("Unexpected number of self-events generated",
+        numberOfSelfEventsBefore + 1, eventsProcessor_.getMetrics()
+            .getCounter(MetastoreEventsProcessor.NUMBER_OF_SELF_EVENTS).getCount());
+
+    // The in-flight insert event was consumed, so the same insert is now external.
+    try (MetaStoreClient metaStoreClient = catalog_.getMetaStoreClient()) {
+      MetaStoreUtil.fireInsertEvent(metaStoreClient.getHiveClient(), TEST_DB_NAME,
+          testTblName, null, newFiles, false);
+    }
+    verifyNumberOfFiles(tbl, 2);
+    assertEquals("Unexpected number of self-events generated",
+        numberOfSelfEventsBefore + 1, eventsProcessor_.getMetrics()
+            .getCounter(MetastoreEventsProcessor.NUMBER_OF_SELF_EVENTS).getCount());
+  }
+
   /**
    * Util method to create empty files in a given path
    * @param parentPath
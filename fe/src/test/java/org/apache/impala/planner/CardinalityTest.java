@@ -18,17 +18,27 @@
 package org.apache.impala.planner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.impala.catalog.Column;
+import org.apache.impala.catalog.Histogram;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.service.Frontend.PlanCtx;
 import org.apache.impala.testutil.TestUtils;
+import org.apache.impala.thrift.TExecFeedback;
 import org.apache.impala.thrift.TQueryCtx;
 import org.apache.impala.thrift.TQueryOptions;
+import org.apache.impala.thrift.TUniqueId;
 import org.junit.Test;
 
+import com.google.common.collect.Lists;
+
 /**
  * Test the planner's inference of tuple cardinality from metadata NDV and
  * resulting selectivity.
@@ -189,6 +199,34 @@ public class CardinalityTest extends PlannerTestBase {
     verifyCardinality(baseStmt + "nullrows.id, group_str", 156);
   }
 
+  /**
+   * Test the selectivity of predicates on a column with a histogram. The histogram
+   * only describes the non-NULL values, so its estimates are scaled by the fraction of
+   * non-NULL rows. functional.alltypesagg has 11000 rows, 2000 of which have a NULL
+   * tinyint_col.
+   */
+  @Test
+  public void testHistogramSelectivity() {
+    Column col =
+        catalog_.getOrLoadTable("functional", "alltypesagg").getColumn("tinyint_col");
+    Histogram histogram = col.getStats().getHistogram();
+    // 1 and 2 are frequent values with 40% and 20% of the non-NULL values.
+    col.getStats().setHistogram(new Histogram(
+        Lists.newArrayList(1.0, 1.0, 1.0, 1.0, 2.0, 2.0, 4.0, 6.0, 8.0, 9.0)));
+    try {
+      String baseStmt = "SELECT id FROM functional.alltypesagg WHERE ";
+      verifyCardinality(baseStmt + "tinyint_col = 1", 9000 * 4 / 10);
+      verifyCardinality(baseStmt + "tinyint_col IN (1, 2)", 9000 * 6 / 10);
+      // NULLs do not satisfy NOT IN either.
+      verifyCardinality(baseStmt + "tinyint_col NOT IN (1, 2)", 9000 * 4 / 10);
+      // 6 buckets are below 3, which is half-way into the next bucket.
+      verifyCardinality(baseStmt + "tinyint_col < 3", 9000 * 65 / 100);
+      verifyCardinality(baseStmt + "tinyint_col > 8", 9000 / 10);
+    } finally {
+      col.getStats().setHistogram(histogram);
+    }
+  }
+
   /**
    * Joins should multiply out cardinalities.
    */
@@ -210,6 +248,135 @@ public class CardinalityTest extends PlannerTestBase {
     verifyCardinality("SELECT a FROM functional.tinytable", -1);
   }
 
+  /**
+   * Test that the observed cardinalities of a completed query are used when the same
+   * plan nodes are planned again.
+   */
+  @Test
+  public void testExecFeedback() {
+    String query = "SELECT t1.id FROM functional.alltypes t1 " +
+        "JOIN functional.alltypestiny t2 ON t1.id = t2.id";
+    ExecFeedbackStore.INSTANCE.init(100, 3600);
+    try {
+      // Planning the query registers its plan nodes under the query id of the test
+      // query context.
+      PlanNode join = getPlan(query).get(0).getPlanRoot();
+      assertTrue(join instanceof JoinNode);
+      long estimate = join.getCardinality();
+      assertFalse(join.isCardinalityFromFeedback_);
+      Map<Integer, Long> cardinalities = new HashMap<>();
+      cardinalities.put(join.getId().asInt(), 5L);
+      cardinalities.put(join.getChild(1).getId().asInt(), 8L);
+      ExecFeedbackStore.INSTANCE.recordFeedback(
+          new TExecFeedback(new TUniqueId(), cardinalities));
+
+      join = getPlan(query).get(0).getPlanRoot();
+      assertEquals(5, join.getCardinality());
+      assertTrue(join.isCardinalityFromFeedback_);
+
+      // A join with different conjuncts does not match the observation.
+      PlanNode other =
+          getPlan(query + " WHERE t1.int_col = 1").get(0).getPlanRoot();
+      assertFalse(other.isCardinalityFromFeedback_);
+
+      // Without feedback, the estimate is used again.
+      ExecFeedbackStore.INSTANCE.clear();
+      verifyCardinality(query, estimate);
+    } finally {
+      ExecFeedbackStore.INSTANCE.init(0, 0);
+    }
+  }
+
+  /**
+   * Test that the observed cardinalities of plan nodes whose actual cardinality is not
+   * exact are not recorded, and that stale observations are not used.
+   */
+  @Test
+  public void testExecFeedbackExclusions() {
+    String query = "SELECT t1.id FROM functional.alltypes t1 " +
+        "JOIN functional.alltypestiny t2 ON t1.id = t2.id";
+    ExecFeedbackStore.INSTANCE.init(100, 3600);
+    try {
+      // The output of nodes below a limit may be truncated.
+      String limitQuery = query + " LIMIT 1";
+      PlanNode join = getPlan(limitQuery).get(0).getPlanRoot();
+      assertTrue(join.hasLimit());
+      recordFeedback(join, 1L, 8L);
+      join = getPlan(limitQuery).get(0).getPlanRoot();
+      assertFalse(join.isCardinalityFromFeedback_);
+      assertFalse(join.getChild(0).isCardinalityFromFeedback_);
+      // The build side is consumed entirely.
+      assertTrue(join.getChild(1).isCardinalityFromFeedback_);
+      ExecFeedbackStore.INSTANCE.clear();
+
+      // Scans that are the target of runtime filters.
+      join = getPlan(query).get(0).getPlanRoot();
+      PlanNode probeScan = join.getChild(0);
+      assertFalse(probeScan.getRuntimeFilters().isEmpty());
+      Map<Integer, Long> cardinalities = new HashMap<>();
+      cardinalities.put(probeScan.getId().asInt(), 8L);
+      cardinalities.put(join.getChild(1).getId().asInt(), 8L);
+      ExecFeedbackStore.INSTANCE.recordFeedback(
+          new TExecFeedback(new TUniqueId(), cardinalities));
+      join = getPlan(query).get(0).getPlanRoot();
+      assertFalse(join.getChild(0).isCardinalityFromFeedback_);
+      assertTrue(join.getChild(1).isCardinalityFromFeedback_);
+      ExecFeedbackStore.INSTANCE.clear();
+
+      // The probe side of a join with an empty build side may not be read at all. The
+      // probe side of an outer join is not the target of runtime filters.
+      String outerJoinQuery = "SELECT t1.id FROM functional.alltypes t1 " +
+          "LEFT OUTER JOIN functional.alltypestiny t2 ON t1.id = t2.id";
+      join = getPlan(outerJoinQuery).get(0).getPlanRoot();
+      probeScan = join.getChild(0);
+      assertTrue(probeScan.getRuntimeFilters().isEmpty());
+      cardinalities = new HashMap<>();
+      cardinalities.put(probeScan.getId().asInt(), 100L);
+      cardinalities.put(join.getChild(1).getId().asInt(), 0L);
+      ExecFeedbackStore.INSTANCE.recordFeedback(
+          new TExecFeedback(new TUniqueId(), cardinalities));
+      join = getPlan(outerJoinQuery).get(0).getPlanRoot();
+      assertFalse(join.getChild(0).isCardinalityFromFeedback_);
+      assertTrue(join.getChild(1).isCardinalityFromFeedback_);
+      assertEquals(0, join.getChild(1).getCardinality());
+      ExecFeedbackStore.INSTANCE.clear();
+
+      // An observation is not used once the estimate drifted too far from the estimate
+      // at the time of the observation.
+      join = getPlan(query).get(0).getPlanRoot();
+      long estimate = join.getCardinality();
+      assertTrue(estimate > 0);
+      recordFeedback(join, 5L, 8L);
+      String signature = join.feedbackSignature_;
+      assertEquals(5, ExecFeedbackStore.INSTANCE.getCardinality(signature, estimate));
+      long driftedEstimate =
+          (long) Math.ceil(estimate * ExecFeedbackStore.MAX_ESTIMATE_DRIFT) + 1;
+      assertEquals(-1,
+          ExecFeedbackStore.INSTANCE.getCardinality(signature, driftedEstimate));
+      ExecFeedbackStore.INSTANCE.clear();
+
+      // With the Parquet count(*) optimization, scans return one row per row group.
+      PlanNode agg = getPlan("SELECT count(*) FROM functional_parquet.alltypes")
+          .get(0).getPlanRoot();
+      assertTrue(agg.getChild(0) instanceof HdfsScanNode);
+      assertEquals(null, agg.getChild(0).feedbackSignature_);
+    } finally {
+      ExecFeedbackStore.INSTANCE.init(0, 0);
+    }
+  }
+
+  /**
+   * Records the feedback of the last planned query for 'join' and its build side.
+   */
+  private void recordFeedback(PlanNode join, long joinCardinality,
+      long buildCardinality) {
+    Map<Integer, Long> cardinalities = new HashMap<>();
+    cardinalities.put(join.getId().asInt(), joinCardinality);
+    cardinalities.put(join.getChild(1).getId().asInt(), buildCardinality);
+    ExecFeedbackStore.INSTANCE.recordFeedback(
+        new TExecFeedback(new TUniqueId(), cardinalities));
+  }
+
   /**
    * Given a query and an expected cardinality, checks that the root
    * node of the single-fragment plan has the expected cardinality.
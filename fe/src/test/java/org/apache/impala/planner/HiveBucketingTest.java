@@ -0,0 +1,86 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.planner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.impala.analysis.Expr;
+import org.apache.impala.analysis.NumericLiteral;
+import org.apache.impala.catalog.Type;
+import org.apache.impala.common.ImpalaException;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the detection of Hive bucket files and the compatibility of partitions by
+ * Hive buckets.
+ */
+public class HiveBucketingTest {
+
+  @Test
+  public void testBucketId() {
+    assertEquals(0, HdfsScanNode.getBucketId("000000_0"));
+    assertEquals(12, HdfsScanNode.getBucketId("000012_1"));
+    assertEquals(3, HdfsScanNode.getBucketId("000003_0_copy_2"));
+    assertEquals(7, HdfsScanNode.getBucketId("000007_0.gz"));
+    // Files that were not written by Hive.
+    assertEquals(-1, HdfsScanNode.getBucketId(
+        "8e4bf3d8c0e2b6d4_1c5a1b8a00000000_1254_data.0.parq"));
+    assertEquals(-1, HdfsScanNode.getBucketId("000001"));
+    assertEquals(-1, HdfsScanNode.getBucketId("bucket_00001"));
+    assertEquals(-1, HdfsScanNode.getBucketId("_000001_0"));
+    assertEquals(-1, HdfsScanNode.getBucketId("99999999999_0"));
+  }
+
+  private static List<Expr> createExprs(Type... types) throws ImpalaException {
+    List<Expr> exprs = Lists.newArrayList();
+    for (Type type: types) exprs.add(new NumericLiteral("1", type));
+    return exprs;
+  }
+
+  @Test
+  public void testCompatBuckets() throws ImpalaException {
+    DataPartition partition =
+        DataPartition.bucketPartitioned(createExprs(Type.INT, Type.BIGINT), 8, 2);
+    assertTrue(partition.isBucketPartitioned());
+    assertTrue(partition.isPartitioned());
+    assertFalse(partition.isHashPartitioned());
+    assertEquals(8, partition.getNumBuckets());
+    assertTrue(partition.hasCompatBuckets(
+        DataPartition.bucketPartitioned(createExprs(Type.INT, Type.BIGINT), 8, 2)));
+    // The bucket count, bucketing version and column types must be identical.
+    assertFalse(partition.hasCompatBuckets(
+        DataPartition.bucketPartitioned(createExprs(Type.INT, Type.BIGINT), 4, 2)));
+    assertFalse(partition.hasCompatBuckets(
+        DataPartition.bucketPartitioned(createExprs(Type.INT, Type.BIGINT), 8, 1)));
+    assertFalse(partition.hasCompatBuckets(
+        DataPartition.bucketPartitioned(createExprs(Type.INT, Type.INT), 8, 2)));
+    assertFalse(partition.hasCompatBuckets(
+        DataPartition.bucketPartitioned(createExprs(Type.INT), 8, 2)));
+    // Hash partitions are never compatible with bucket partitions.
+    assertFalse(partition.hasCompatBuckets(
+        DataPartition.hashPartitioned(createExprs(Type.INT, Type.BIGINT))));
+    assertFalse(partition.equals(
+        DataPartition.hashPartitioned(createExprs(Type.INT, Type.BIGINT))));
+  }
+}
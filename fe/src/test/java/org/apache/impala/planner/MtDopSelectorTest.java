@@ -0,0 +1,156 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.planner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.impala.catalog.Table;
+import org.apache.impala.common.ImpalaException;
+import org.apache.impala.service.Frontend.PlanCtx;
+import org.apache.impala.testutil.TestUtils;
+import org.apache.impala.thrift.TExecRequest;
+import org.apache.impala.thrift.TQueryCtx;
+import org.apache.impala.thrift.TQueryOptions;
+import org.junit.Test;
+
+/**
+ * Tests the selection of the MT_DOP by the planner, see MtDopSelector.
+ */
+public class MtDopSelectorTest extends PlannerTestBase {
+
+  /**
+   * Plans 'query' with the given MAX_AUTO_MT_DOP and MT_DOP and returns the plan
+   * context with the captured plan and explain string. A negative 'mtDop' leaves
+   * MT_DOP unset.
+   */
+  private PlanCtx plan(String query, int maxAutoMtDop, int mtDop)
+      throws ImpalaException {
+    // The MT_DOP of the query is never selected for a query that does not need it.
+    return plan(query, maxAutoMtDop, mtDop, 0, Math.max(0, mtDop));
+  }
+
+  /**
+   * Same as above, but also sets MEM_LIMIT if 'memLimit' is positive and checks that
+   * the query is executed with 'expectedMtDop'.
+   */
+  private PlanCtx plan(String query, int maxAutoMtDop, int mtDop, long memLimit,
+      int expectedMtDop) throws ImpalaException {
+    TQueryCtx queryCtx = TestUtils.createQueryContext(
+        "default", System.getProperty("user.name"));
+    queryCtx.client_request.setStmt(query);
+    TQueryOptions queryOptions = queryCtx.client_request.getQuery_options();
+    queryOptions.setMax_auto_mt_dop(maxAutoMtDop);
+    if (mtDop >= 0) queryOptions.setMt_dop(mtDop);
+    if (memLimit > 0) queryOptions.setMem_limit(memLimit);
+    PlanCtx planCtx = new PlanCtx(queryCtx);
+    planCtx.requestPlanCapture();
+    TExecRequest execRequest = frontend_.createExecRequest(planCtx);
+    assertEquals(expectedMtDop, execRequest.getQuery_options().getMt_dop());
+    return planCtx;
+  }
+
+  /**
+   * Returns the fragment of the captured plan of 'planCtx' that contains an HDFS scan.
+   */
+  private static PlanFragment getScanFragment(PlanCtx planCtx) {
+    for (PlanFragment fragment: planCtx.getPlan().get(0).<PlanFragment>
+        getNodesPostOrder()) {
+      if (fragment.getPlanRoot().contains(HdfsScanNode.class)) return fragment;
+    }
+    return null;
+  }
+
+  @Test
+  public void testNotSelected() throws ImpalaException {
+    // Scanning a small table does not benefit from parallelism.
+    String explain = plan(
+        "select count(*) from functional.alltypes group by int_col", 8, -1)
+        .getExplainString();
+    assertTrue(explain, explain.contains("MT_DOP not selected by planner: the " +
+        "estimated work per host does not benefit"));
+
+    // Joins cannot be executed with MT_DOP.
+    explain = plan("select * from functional.alltypes a " +
+        "join functional.alltypestiny b on a.id = b.id", 8, -1).getExplainString();
+    assertTrue(explain, explain.contains(
+        "MT_DOP not selected by planner: the plan contains joins"));
+
+    // The selection is disabled by default and if MT_DOP is set.
+    explain = plan("select count(*) from functional.alltypes", 0, -1)
+        .getExplainString();
+    assertFalse(explain, explain.contains("MT_DOP"));
+    explain = plan("select count(*) from functional.alltypes", 8, 2)
+        .getExplainString();
+    assertFalse(explain, explain.contains("MT_DOP"));
+  }
+
+  @Test
+  public void testProcessedRows() throws ImpalaException {
+    PlanCtx planCtx =
+        plan("select count(*) from functional.alltypes group by int_col", 8, -1);
+    PlanFragment scanFragment = getScanFragment(planCtx);
+    assertNotNull(scanFragment);
+    // The scan reads all rows and the pre-aggregation consumes them.
+    assertEquals(7300 * 2, MtDopSelector.getProcessedRows(scanFragment));
+    assertEquals(0, scanFragment.getMaxInstancesPerHost());
+  }
+
+  @Test
+  public void testSelected() throws ImpalaException {
+    // Pretend that tpch.lineitem is large enough for the processed rows per host to
+    // call for more instances than the caps allow.
+    Table lineitem = catalog_.getOrLoadTable("tpch", "lineitem");
+    long numRows = lineitem.getTTableStats().getNum_rows();
+    lineitem.getTTableStats().setNum_rows(600L * 1000 * 1000);
+    try {
+      String query = "select count(*) from tpch.lineitem group by l_orderkey";
+      PlanCtx planCtx = plan(query, 4, -1, 0, 4);
+      String explain = planCtx.getExplainString();
+      assertTrue(explain, explain.contains("MT_DOP selected by planner: 4\n"));
+      assertTrue(explain, explain.contains(
+          "instances per host=4 (scan bytes per host="));
+      assertTrue(explain, explain.contains("limited by MAX_AUTO_MT_DOP=4"));
+
+      // The scan fragment runs with the MT_DOP of the query, while the unpartitioned
+      // root fragment is bounded to a single instance per host.
+      PlanFragment scanFragment = getScanFragment(planCtx);
+      assertNotNull(scanFragment);
+      assertEquals(4, scanFragment.getMaxInstancesPerHost());
+      assertEquals(4, scanFragment.getNumInstancesPerHost(4));
+      PlanFragment rootFragment = planCtx.getPlan().get(0);
+      assertFalse(rootFragment.isPartitioned());
+      assertEquals(1, rootFragment.getMaxInstancesPerHost());
+
+      // The number of cores bounds the selection, see PlannerTestBase.setUpTest().
+      explain = plan(query, 16, -1, 0, 8).getExplainString();
+      assertTrue(explain, explain.contains("MT_DOP selected by planner: 8\n"));
+      assertTrue(explain, explain.contains("limited by number of cores=8"));
+
+      // The estimated per-host memory of more than one instance per host does not fit
+      // into the MEM_LIMIT.
+      explain = plan(query, 4, -1, 1024L * 1024, 0).getExplainString();
+      assertTrue(explain, explain.contains("MT_DOP not selected by planner: the " +
+          "estimated per-host memory exceeds the memory limit=1.00MB"));
+    } finally {
+      lineitem.getTTableStats().setNum_rows(numRows);
+    }
+  }
+}
@@ -20,18 +20,26 @@ package org.apache.impala.planner;
 import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.impala.catalog.Catalog;
+import org.apache.impala.catalog.Column;
 import org.apache.impala.catalog.ColumnStats;
 import org.apache.impala.catalog.Db;
 import org.apache.impala.catalog.FeHBaseTable;
 import org.apache.impala.catalog.HBaseColumn;
+import org.apache.impala.catalog.Histogram;
 import org.apache.impala.catalog.Type;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.RuntimeEnv;
 import org.apache.impala.service.Frontend.PlanCtx;
+import org.apache.impala.service.FrontendProfile;
+import org.apache.impala.testutil.TestFileParser.TestCase;
 import org.apache.impala.testutil.TestUtils;
 import org.apache.impala.testutil.TestUtils.IgnoreValueFilter;
+import org.apache.impala.thrift.TCounter;
 import org.apache.impala.thrift.TExecRequest;
 import org.apache.impala.thrift.TExplainLevel;
 import org.apache.impala.thrift.TJoinDistributionMode;
@@ -43,6 +51,7 @@ import org.junit.Assume;
 import org.junit.Test;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
@@ -409,6 +418,27 @@ public class PlannerTest extends PlannerTestBase {
     runPlannerTestFile("disable-preaggregations", options);
   }
 
+  @Test
+  public void testEagerAggregation() {
+    TQueryOptions options = new TQueryOptions();
+    options.setEnable_eager_aggregation(true);
+    runPlannerTestFile("eager-aggregation", options);
+  }
+
+  @Test
+  public void testDeferFilteredScanRanges() {
+    TQueryOptions options = new TQueryOptions();
+    options.setDefer_filtered_scan_ranges(true);
+    runPlannerTestFile("defer-filtered-scan-ranges", options);
+  }
+
+  @Test
+  public void testHiveBucketing() {
+    TQueryOptions options = new TQueryOptions();
+    options.setUse_hive_bucketing(true);
+    runPlannerTestFile("hive-bucketing", options);
+  }
+
   @Test
   public void testRuntimeFilterPropagation() {
     TQueryOptions options = new TQueryOptions();
@@ -649,6 +679,30 @@ public class PlannerTest extends PlannerTestBase {
     runPlannerTestFile("min-max-runtime-filters", options);
   }
 
+  @Test
+  public void testRangeRuntimeFilters() {
+    // Histograms under which all values of functional_kudu.alltypes.int_col are below
+    // the values of functional_kudu.alltypestiny.int_col, so '<' filters between them
+    // are unselective.
+    Column targetCol =
+        catalog_.getOrLoadTable("functional_kudu", "alltypes").getColumn("int_col");
+    Column srcCol =
+        catalog_.getOrLoadTable("functional_kudu", "alltypestiny").getColumn("int_col");
+    Histogram targetHistogram = targetCol.getStats().getHistogram();
+    Histogram srcHistogram = srcCol.getStats().getHistogram();
+    targetCol.getStats().setHistogram(new Histogram(
+        Lists.newArrayList(1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0, 10.0)));
+    srcCol.getStats().setHistogram(new Histogram(Lists.newArrayList(100.0, 200.0)));
+    try {
+      TQueryOptions options = new TQueryOptions();
+      options.setEnable_range_runtime_filters(true);
+      runPlannerTestFile("range-runtime-filters", options);
+    } finally {
+      targetCol.getStats().setHistogram(targetHistogram);
+      srcCol.getStats().setHistogram(srcHistogram);
+    }
+  }
+
   @Test
   public void testCardinalityOverflow() throws ImpalaException {
     String tblName = "tpch.cardinality_overflow";
@@ -726,6 +780,102 @@ public class PlannerTest extends PlannerTestBase {
     checkCardinality(query, 0, Long.MAX_VALUE);
   }
 
+  /**
+   * Checks the plans of the dynamic programming join enumeration. Also plans the TPC-H
+   * and TPC-DS queries with it and checks that it produces the same joins as the greedy
+   * join ordering, i.e. it does not introduce cross joins, and that it changes the join
+   * order of some queries.
+   */
+  @Test
+  public void testDpJoinEnumeration() throws ImpalaException {
+    TQueryOptions options = defaultQueryOptions();
+    options.setMax_dp_join_relations(16);
+    runPlannerTestFile("join-order-dp", options);
+    int numChangedPlans = checkDpJoinEnumeration("tpch-all", "tpch");
+    numChangedPlans += checkDpJoinEnumeration("tpcds-all", "tpcds");
+    Assert.assertTrue(numChangedPlans > 0);
+  }
+
+  // Returns the number of queries in 'testFile' whose join order changed.
+  private int checkDpJoinEnumeration(String testFile, String dbName)
+      throws ImpalaException {
+    int numChangedPlans = 0;
+    for (TestCase testCase: getTestCases(testFile)) {
+      TQueryOptions options = defaultQueryOptions();
+      PlanNode greedyPlan = getPlanRoot(testCase.getQuery(), dbName, options);
+      options.setMax_dp_join_relations(16);
+      PlanNode dpPlan = getPlanRoot(testCase.getQuery(), dbName, options);
+      List<HashJoinNode> greedyHashJoins = new ArrayList<>();
+      greedyPlan.collectAll(Predicates.instanceOf(HashJoinNode.class), greedyHashJoins);
+      List<HashJoinNode> dpHashJoins = new ArrayList<>();
+      dpPlan.collectAll(Predicates.instanceOf(HashJoinNode.class), dpHashJoins);
+      List<NestedLoopJoinNode> greedyNlJoins = new ArrayList<>();
+      greedyPlan.collectAll(
+          Predicates.instanceOf(NestedLoopJoinNode.class), greedyNlJoins);
+      List<NestedLoopJoinNode> dpNlJoins = new ArrayList<>();
+      dpPlan.collectAll(Predicates.instanceOf(NestedLoopJoinNode.class), dpNlJoins);
+      Assert.assertEquals(testCase.getQuery(), greedyHashJoins.size(),
+          dpHashJoins.size());
+      Assert.assertEquals(testCase.getQuery(), greedyNlJoins.size(), dpNlJoins.size());
+      if (!getJoinOrder(greedyPlan).equals(getJoinOrder(dpPlan))) ++numChangedPlans;
+    }
+    return numChangedPlans;
+  }
+
+  private PlanNode getPlanRoot(String query, String dbName, TQueryOptions options)
+      throws ImpalaException {
+    TQueryCtx queryCtx =
+        TestUtils.createQueryContext(dbName, System.getProperty("user.name"));
+    queryCtx.client_request.setStmt(query);
+    queryCtx.client_request.setQuery_options(options);
+    PlanCtx planCtx = new PlanCtx(queryCtx);
+    planCtx.requestPlanCapture();
+    frontend_.createExecRequest(planCtx);
+    return planCtx.getPlan().get(0).getPlanRoot();
+  }
+
+  // Returns the inputs of all joins in the plan rooted at 'root', in pre-order.
+  private static String getJoinOrder(PlanNode root) {
+    List<JoinNode> joins = new ArrayList<>();
+    root.collectAll(Predicates.instanceOf(JoinNode.class), joins);
+    StringBuilder result = new StringBuilder();
+    for (JoinNode join: joins) {
+      result.append(join.getChild(0).getTblRefIds())
+          .append(join.getChild(1).getTblRefIds()).append(";");
+    }
+    return result.toString();
+  }
+
+  /**
+   * Checks that the time spent and the counters of the planner phases are added to the
+   * frontend profile.
+   */
+  @Test
+  public void testPlannerPhaseProfile() throws ImpalaException {
+    TQueryCtx queryCtx = TestUtils.createQueryContext(
+        "default", System.getProperty("user.name"));
+    queryCtx.client_request.setStmt(
+        "select count(*) from functional.alltypes where year = 2009");
+    TExecRequest execRequest = frontend_.createExecRequest(new PlanCtx(queryCtx));
+    Map<String, Long> counters = new HashMap<>();
+    for (TCounter counter: execRequest.getProfile().getCounters()) {
+      counters.put(counter.getName(), counter.getValue());
+    }
+    for (String phase: new String[] {"Parse", "MetadataLoad", "Analysis", "Planning",
+        "SingleNodePlan", "ValueTransferGraph", "PartitionPruning",
+        "ScanRangeGeneration", "DistributedPlan", "RuntimeFilterGeneration",
+        "ResourceEstimation"}) {
+      String name = FrontendProfile.PLANNER_PHASE_PREFIX + "." + phase + ".Time";
+      Assert.assertTrue(name, counters.containsKey(name));
+    }
+    String prefix = FrontendProfile.PLANNER_PHASE_PREFIX + ".";
+    assertEquals(1, (long) counters.get(prefix + "MetadataLoad.Tables"));
+    assertEquals(24, (long) counters.get(prefix + "PartitionPruning.Partitions"));
+    assertEquals(12,
+        (long) counters.get(prefix + "PartitionPruning.SelectedPartitions"));
+    assertEquals(12, (long) counters.get(prefix + "ScanRangeGeneration.Files"));
+  }
+
   @Test
   public void testHBaseScanNodeMemEstimates() {
     // Single key non-string column
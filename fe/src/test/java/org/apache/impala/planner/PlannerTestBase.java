@@ -897,6 +897,16 @@ public class PlannerTestBase extends FrontendTestBase {
     }
   }
 
+  /**
+   * Returns the test cases of the given planner test file.
+   */
+  protected List<TestCase> getTestCases(String testFile) {
+    String fileName = testDir_.resolve(testFile + ".test").toString();
+    TestFileParser queryFileParser = new TestFileParser(fileName, defaultQueryOptions());
+    queryFileParser.parseFile();
+    return queryFileParser.getTestCases();
+  }
+
   protected void runPlannerTestFile(String testFile) {
     runPlannerTestFile(testFile, "default", defaultQueryOptions(),
         Collections.<PlannerTestOption>emptySet());
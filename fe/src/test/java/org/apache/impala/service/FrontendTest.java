@@ -18,6 +18,7 @@
 package org.apache.impala.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -36,10 +37,12 @@ import org.apache.impala.catalog.PrimitiveType;
 import org.apache.impala.catalog.Table;
 import org.apache.impala.common.FrontendTestBase;
 import org.apache.impala.common.ImpalaException;
+import org.apache.impala.common.Reference;
 import org.apache.impala.thrift.TMetadataOpRequest;
 import org.apache.impala.thrift.TMetadataOpcode;
 import org.apache.impala.thrift.TResultRow;
 import org.apache.impala.thrift.TResultSet;
+import org.apache.impala.thrift.TTableName;
 import org.junit.Test;
 
 import com.google.common.collect.Lists;
@@ -280,6 +283,27 @@ public class FrontendTest extends FrontendTestBase {
     assertEquals("string_col", row.colVals.get(3).string_val.toLowerCase());
   }
 
+  @Test
+  public void TestGetColumnsOfUnloadedTable() throws ImpalaException {
+    // The columns of an unloaded table are derived from its HMS table.
+    catalog_.getSrcCatalog().invalidateTable(
+        new TTableName("functional", "alltypessmall"), new Reference<Boolean>(),
+        new Reference<Boolean>());
+    assertFalse(catalog_.getTable("functional", "alltypessmall").isLoaded());
+    TMetadataOpRequest req = new TMetadataOpRequest();
+    req.opcode = TMetadataOpcode.GET_COLUMNS;
+    req.get_columns_req = new TGetColumnsReq();
+    req.get_columns_req.setSchemaName("functional");
+    req.get_columns_req.setTableName("alltypessmall");
+    TResultSet resp = execMetadataOp(req);
+    // 11 columns followed by the clustering columns year and month, like in Hive.
+    assertEquals(13, resp.rows.size());
+    assertEquals("id", resp.rows.get(0).colVals.get(3).string_val.toLowerCase());
+    assertEquals("year", resp.rows.get(11).colVals.get(3).string_val.toLowerCase());
+    assertEquals("month", resp.rows.get(12).colVals.get(3).string_val.toLowerCase());
+    assertFalse(catalog_.getTable("functional", "alltypessmall").isLoaded());
+  }
+
   @Test
   public void TestGetCatalogs() throws ImpalaException {
     // Hive/Impala does not have catalog concept. Should return zero rows.
@@ -0,0 +1,70 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.impala.catalog.CatalogException;
+import org.apache.impala.catalog.CatalogServiceCatalog;
+import org.apache.impala.catalog.PrioritizeLoadTest;
+import org.apache.impala.testutil.CatalogServiceTestCatalog;
+import org.apache.impala.thrift.TErrorCode;
+import org.apache.impala.thrift.TPrioritizeLoadRequest;
+import org.apache.impala.thrift.TPrioritizeLoadResponse;
+import org.apache.impala.thrift.TUniqueId;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the handling of the requests of JniCatalog.
+ */
+public class JniCatalogTest {
+  private static CatalogServiceCatalog catalog_ = CatalogServiceTestCatalog.create();
+
+  @AfterClass
+  public static void tearDown() { catalog_.close(); }
+
+  @Test
+  public void testPrioritizeLoad() throws CatalogException {
+    TUniqueId serviceId = new TUniqueId(1L, 2L);
+    TPrioritizeLoadRequest request = new TPrioritizeLoadRequest();
+    request.setObject_descs(Lists.newArrayList(
+        PrioritizeLoadTest.createTableDesc("functional", "alltypesagg")));
+
+    // By default, the tables are only queued for loading.
+    TPrioritizeLoadResponse response =
+        JniCatalog.prioritizeLoad(catalog_, serviceId, request);
+    assertEquals(TErrorCode.OK, response.getStatus().getStatus_code());
+    assertFalse(response.isSetLoaded_objects());
+    assertFalse(response.isSetCatalog_service_id());
+
+    // The loaded tables are returned together with the service id if requested.
+    request.setWant_loaded_objects(true);
+    response = JniCatalog.prioritizeLoad(catalog_, serviceId, request);
+    assertEquals(TErrorCode.OK, response.getStatus().getStatus_code());
+    assertEquals(serviceId, response.getCatalog_service_id());
+    assertEquals(1, response.getLoaded_objectsSize());
+    assertEquals("alltypesagg", response.getLoaded_objects().get(0).getTable()
+        .getTbl_name());
+    assertTrue(catalog_.getTable("functional", "alltypesagg").isLoaded());
+  }
+}
@@ -31,6 +31,7 @@ import org.apache.impala.catalog.PrincipalPrivilege;
 import org.apache.impala.catalog.Role;
 import org.apache.impala.catalog.Table;
 import org.apache.impala.catalog.User;
+import org.apache.impala.common.InternalException;
 import org.apache.impala.thrift.TPrivilege;
 import org.apache.impala.util.PatternMatcher;
 
@@ -147,6 +148,20 @@ public class ImpaladTestCatalog extends ImpaladCatalog {
     for (TableName tbl: tableNames) getOrLoadTable(tbl.getDb(), tbl.getTbl());
   }
 
+  /**
+   * Fetches the HMS tables directly from the source catalog without involving the
+   * catalogd.
+   */
+  @Override
+  public List<org.apache.hadoop.hive.metastore.api.Table> getHmsTables(String dbName,
+      List<String> tableNames) throws InternalException {
+    try {
+      return srcCatalog_.getHmsTables(dbName, tableNames);
+    } catch (CatalogException e) {
+      throw new InternalException(e.getMessage(), e);
+    }
+  }
+
   /**
    * No-op. Metadata loading does not go through the catalogd/statestored in a
    * FE test environment.
@@ -0,0 +1,136 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.testutil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.impala.catalog.CompactPartitionStats;
+import org.apache.impala.catalog.IncrementalStatsAggregate;
+import org.apache.impala.catalog.PartitionStatsUtil;
+import org.apache.impala.thrift.TIntermediateColumnStats;
+import org.apache.impala.thrift.TPartitionStats;
+import org.apache.impala.thrift.TTableStats;
+
+/**
+ * Compares the memory footprint and decoding time of the deflate-compressed Thrift
+ * representation of incremental partition statistics with CompactPartitionStats.
+ * Generates the statistics of a wide partitioned table with a mix of low and high NDV
+ * columns, with RLE-encoded NDV registers like the backend produces them.
+ *
+ * Usage: PartitionStatsEncodingBenchmark [num_partitions] [num_columns]
+ */
+public class PartitionStatsEncodingBenchmark {
+  private static final int HLL_LEN = 1024;
+  private static final int NUM_ITERATIONS = 5;
+
+  // RLE-encodes 'ndv' like EncodeNdv() in incr-stats-util.cc.
+  private static byte[] encodeNdv(byte[] ndv) {
+    List<Byte> encoded = new ArrayList<>();
+    int i = 0;
+    while (i < ndv.length) {
+      int count = 1;
+      while (count < 256 && i + count < ndv.length && ndv[i + count] == ndv[i]) {
+        ++count;
+      }
+      encoded.add((byte) (count - 1));
+      encoded.add(ndv[i]);
+      i += count;
+    }
+    byte[] result = new byte[encoded.size()];
+    for (int j = 0; j < result.length; ++j) result[j] = encoded.get(j);
+    return result;
+  }
+
+  // Simulates the HLL registers of a column with 'ndv' distinct values.
+  private static byte[] makeNdv(Random r, int ndv) {
+    byte[] registers = new byte[HLL_LEN];
+    for (int i = 0; i < ndv; ++i) {
+      int idx = r.nextInt(HLL_LEN);
+      byte rank = (byte) (Long.numberOfLeadingZeros(r.nextLong() >>> 10) - 9);
+      if (rank > registers[idx]) registers[idx] = rank;
+    }
+    return registers;
+  }
+
+  private static TPartitionStats makeStats(Random r, int numColumns) {
+    Map<String, TIntermediateColumnStats> cols = new HashMap<>();
+    for (int i = 0; i < numColumns; ++i) {
+      TIntermediateColumnStats colStats = new TIntermediateColumnStats();
+      // Every fourth column has a high NDV.
+      colStats.setIntermediate_ndv(
+          encodeNdv(makeNdv(r, i % 4 == 0 ? 100000 : 1 + r.nextInt(200))));
+      colStats.setIs_ndv_encoded(true);
+      colStats.setNum_nulls(r.nextInt(1000));
+      colStats.setMax_width(8 + r.nextInt(32));
+      colStats.setAvg_width(8 + r.nextDouble() * 16);
+      colStats.setNum_rows(1000000);
+      cols.put("column_" + i, colStats);
+    }
+    TPartitionStats stats = new TPartitionStats();
+    stats.setStats(new TTableStats(1000000));
+    stats.setIntermediate_col_stats(cols);
+    return stats;
+  }
+
+  public static void main(String[] args) throws Exception {
+    int numPartitions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int numColumns = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    Random r = new Random(0);
+    List<byte[]> compressed = new ArrayList<>(numPartitions);
+    List<byte[]> compact = new ArrayList<>(numPartitions);
+    long compressedBytes = 0;
+    long compactBytes = 0;
+    for (int i = 0; i < numPartitions; ++i) {
+      TPartitionStats stats = makeStats(r, numColumns);
+      byte[] c = PartitionStatsUtil.partStatsToCompressedBytes(stats);
+      byte[] e = CompactPartitionStats.encode(stats);
+      compressed.add(c);
+      compact.add(e);
+      compressedBytes += c.length;
+      compactBytes += e.length;
+    }
+    System.out.println(String.format("%d partitions, %d columns", numPartitions,
+        numColumns));
+    System.out.println(String.format("deflate-compressed Thrift: %d bytes",
+        compressedBytes));
+    System.out.println(String.format("compact: %d bytes (%.1f%%)", compactBytes,
+        100.0 * compactBytes / compressedBytes));
+
+    for (int iter = 0; iter < NUM_ITERATIONS; ++iter) {
+      long start = System.nanoTime();
+      for (byte[] c: compressed) PartitionStatsUtil.partStatsFromCompressedBytes(c, null);
+      long compressedNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (byte[] e: compact) CompactPartitionStats.decode(e);
+      long compactNanos = System.nanoTime() - start;
+      // Merging of all partitions, as catalogd does for COMPUTE INCREMENTAL STATS.
+      // The compact stats are decoded column by column.
+      start = System.nanoTime();
+      IncrementalStatsAggregate aggregate = new IncrementalStatsAggregate();
+      for (int i = 0; i < compact.size(); ++i) aggregate.add(i, compact.get(i));
+      long mergeNanos = System.nanoTime() - start;
+      System.out.println(String.format("iteration %d: full decode deflate-compressed "
+          + "%d ms, compact %d ms, merge compact %d ms", iter,
+          compressedNanos / 1000000, compactNanos / 1000000, mergeNanos / 1000000));
+    }
+  }
+}
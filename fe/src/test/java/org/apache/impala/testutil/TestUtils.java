@@ -19,6 +19,7 @@ package org.apache.impala.testutil;
 
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -38,7 +39,9 @@ import javax.json.JsonWriterFactory;
 import javax.json.stream.JsonGenerator;
 
 import org.apache.impala.catalog.Catalog;
+import org.apache.impala.common.Pair;
 import org.apache.impala.common.RuntimeEnv;
+import org.apache.impala.thrift.TCatalogObject;
 import org.apache.impala.thrift.TClientRequest;
 import org.apache.impala.thrift.TNetworkAddress;
 import org.apache.impala.thrift.TQueryCtx;
@@ -46,6 +49,9 @@ import org.apache.impala.thrift.TQueryOptions;
 import org.apache.impala.thrift.TSessionState;
 import org.apache.impala.thrift.TSessionType;
 import org.apache.impala.thrift.TUniqueId;
+import org.apache.thrift.TException;
+import org.apache.thrift.TSerializer;
+import org.apache.thrift.protocol.TBinaryProtocol;
 import org.junit.Assume;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -357,4 +363,23 @@ public class TestUtils {
   public static void assumeKuduIsSupported() {
     Assume.assumeTrue(RuntimeEnv.INSTANCE.isKuduSupported());
   }
+
+  /**
+   * Returns the serialized objects of a catalog update that adds 'addedObjects' and
+   * deletes 'deletedObjects', in the form returned by the native update iterator, see
+   * ImpaladCatalog.updateCatalog().
+   */
+  public static List<Pair<Boolean, ByteBuffer>> serializeCatalogUpdate(
+      List<TCatalogObject> addedObjects, List<TCatalogObject> deletedObjects)
+      throws TException {
+    TSerializer serializer = new TSerializer(new TBinaryProtocol.Factory());
+    List<Pair<Boolean, ByteBuffer>> objects = new ArrayList<>();
+    for (TCatalogObject obj: addedObjects) {
+      objects.add(new Pair<>(false, ByteBuffer.wrap(serializer.serialize(obj))));
+    }
+    for (TCatalogObject obj: deletedObjects) {
+      objects.add(new Pair<>(true, ByteBuffer.wrap(serializer.serialize(obj))));
+    }
+    return objects;
+  }
 }
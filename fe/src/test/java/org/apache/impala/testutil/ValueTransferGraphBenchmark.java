@@ -0,0 +1,99 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.testutil;
+
+import java.util.Random;
+
+import org.apache.impala.util.Graph.RandomAccessibleGraph;
+import org.apache.impala.util.Graph.SccCondensedGraph;
+import org.apache.impala.util.Graph.WritableGraph;
+
+/**
+ * Measures the computation of the value transfer graph and the lookups done during
+ * conjunct assignment and runtime filter generation on synthetic slot graphs of wide
+ * joins, like the ones of generated queries. Every table has a join key that is
+ * inner-joined with the keys of a few other tables, which produces large SCCs, and a
+ * fraction of the joins are outer joins, which only transfer values in one direction.
+ * The remaining slots are not part of any join.
+ *
+ * Usage: ValueTransferGraphBenchmark [num_tables] [num_slots_per_table]
+ */
+public class ValueTransferGraphBenchmark {
+  private static final int NUM_ITERATIONS = 5;
+  private static final int NUM_KEYS_PER_TABLE = 3;
+
+  private static WritableGraph makeGraph(Random r, int numTables, int slotsPerTable) {
+    WritableGraph g = new WritableGraph(numTables * slotsPerTable);
+    for (int t = 1; t < numTables; ++t) {
+      for (int k = 0; k < NUM_KEYS_PER_TABLE; ++k) {
+        int src = t * slotsPerTable + k;
+        int dst = r.nextInt(t) * slotsPerTable + r.nextInt(NUM_KEYS_PER_TABLE);
+        g.addEdge(dst, src);
+        // Every fourth join is an outer join.
+        if (r.nextInt(4) != 0) g.addEdge(src, dst);
+      }
+    }
+    return g;
+  }
+
+  public static void main(String[] args) {
+    int numTables = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+    int slotsPerTable = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    WritableGraph g = makeGraph(new Random(0), numTables, slotsPerTable);
+    int numSlots = g.numVertices();
+    System.out.println(String.format("%d tables, %d slots", numTables, numSlots));
+
+    for (int iter = 0; iter < NUM_ITERATIONS; ++iter) {
+      long start = System.nanoTime();
+      RandomAccessibleGraph reference =
+          g.toRandomAccessible().reflexiveTransitiveClosure();
+      long bfsNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      SccCondensedGraph condensed =
+          SccCondensedGraph.condensedReflexiveTransitiveClosure(g);
+      long closureNanos = System.nanoTime() - start;
+      // Pairwise value transfer checks between the join keys, like the ones done
+      // during conjunct assignment.
+      start = System.nanoTime();
+      int numTransfers = 0;
+      for (int src = 0; src < numSlots; src += slotsPerTable) {
+        for (int dst = 0; dst < numSlots; ++dst) {
+          if (condensed.hasEdge(src, dst)) ++numTransfers;
+        }
+      }
+      long hasEdgeNanos = System.nanoTime() - start;
+      // Repeated target lookups, like the ones done during runtime filter generation.
+      start = System.nanoTime();
+      long numTargets = 0;
+      for (int i = 0; i < 10; ++i) {
+        for (int src = 0; src < numSlots; ++src) {
+          numTargets += condensed.sortedDstVids(src).length;
+        }
+      }
+      long targetsNanos = System.nanoTime() - start;
+      if (!condensed.validate(reference)) {
+        throw new IllegalStateException("Condensed closure doesn't match BFS closure");
+      }
+      System.out.println(String.format("iteration %d: BFS closure %d ms, condensed " +
+          "closure %d ms, %d transfer checks %d ms (%d transfers), target lookups " +
+          "%d ms (%d targets)", iter, bfsNanos / 1000000, closureNanos / 1000000,
+          (long) numSlots * ((numSlots + slotsPerTable - 1) / slotsPerTable),
+          hasEdgeNanos / 1000000, numTransfers, targetsNanos / 1000000, numTargets));
+    }
+  }
+}
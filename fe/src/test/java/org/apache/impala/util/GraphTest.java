@@ -0,0 +1,92 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.impala.util.Graph.RandomAccessibleGraph;
+import org.apache.impala.util.Graph.SccCondensedGraph;
+import org.apache.impala.util.Graph.WritableGraph;
+import org.junit.Test;
+
+/**
+ * Unit tests for the transitive closure of Graph.SccCondensedGraph.
+ */
+public class GraphTest {
+
+  /**
+   * Checks that the condensed closure of 'g' matches the closure computed by BFS.
+   */
+  private void assertClosureMatches(WritableGraph g) {
+    SccCondensedGraph condensed =
+        SccCondensedGraph.condensedReflexiveTransitiveClosure(g);
+    RandomAccessibleGraph reference = g.toRandomAccessible().reflexiveTransitiveClosure();
+    assertTrue(condensed.validate(reference));
+    for (int src = 0; src < g.numVertices(); ++src) {
+      for (int dst = 0; dst < g.numVertices(); ++dst) {
+        assertEquals(reference.hasEdge(src, dst), condensed.hasEdge(src, dst));
+      }
+    }
+  }
+
+  @Test
+  public void testClosure() {
+    // A cycle 0 -> 1 -> 2 -> 0 with a tail 2 -> 3 -> 4 and an isolated vertex 5.
+    WritableGraph g = new WritableGraph(6);
+    g.addEdge(0, 1);
+    g.addEdge(1, 2);
+    g.addEdge(2, 0);
+    g.addEdge(2, 3);
+    g.addEdge(3, 4);
+    g.addEdge(3, 4);
+    SccCondensedGraph condensed =
+        SccCondensedGraph.condensedReflexiveTransitiveClosure(g);
+    assertArrayEquals(new int[] {0, 1, 2, 3, 4}, condensed.sortedDstVids(1));
+    assertArrayEquals(new int[] {3, 4}, condensed.sortedDstVids(3));
+    assertArrayEquals(new int[] {5}, condensed.sortedDstVids(5));
+    assertTrue(condensed.hasEdge(2, 1));
+    assertTrue(condensed.hasEdge(0, 4));
+    assertFalse(condensed.hasEdge(4, 3));
+    assertFalse(condensed.hasEdge(0, 5));
+    assertEquals(condensed.sccId(0), condensed.sccId(2));
+    assertEquals(3, condensed.sccMembersByVid(1).length);
+    // Members of an SCC share the cached dsts.
+    assertSame(condensed.sortedDstVids(0), condensed.sortedDstVids(2));
+    assertClosureMatches(g);
+  }
+
+  @Test
+  public void testRandomClosure() {
+    Random r = new Random(0);
+    for (int i = 0; i < 50; ++i) {
+      int numVertices = 1 + r.nextInt(150);
+      int numEdges = r.nextInt(2 * numVertices);
+      WritableGraph g = new WritableGraph(numVertices);
+      for (int j = 0; j < numEdges; ++j) {
+        g.addEdge(r.nextInt(numVertices), r.nextInt(numVertices));
+      }
+      assertClosureMatches(g);
+    }
+  }
+}
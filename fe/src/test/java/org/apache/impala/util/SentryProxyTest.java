@@ -28,6 +28,7 @@ import org.apache.impala.catalog.User;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.Pair;
 import org.apache.impala.testutil.CatalogServiceTestCatalog;
+import org.apache.impala.thrift.TGetCatalogServerMetricsResponse;
 import org.apache.impala.thrift.TPrincipalType;
 import org.apache.impala.thrift.TPrivilege;
 import org.apache.impala.thrift.TPrivilegeLevel;
@@ -348,6 +349,60 @@ public class SentryProxyTest {
     }
   }
 
+  @Test
+  public void testIncrementalSync() throws ImpalaException {
+    String userName1 = String.format("%s_incremental_user_1", PRINCIPAL_NAME_PREFIX);
+    String userName2 = String.format("%s_incremental_user_2", PRINCIPAL_NAME_PREFIX);
+    try (CatalogServiceCatalog catalog = CatalogServiceTestCatalog.createWithAuth(
+        authzConfig_.getSentryConfig())) {
+      SentryPolicyServiceStub sentryService = createSentryPolicyServiceStub(
+          authzConfig_.getSentryConfig());
+      addSentryUserPrivileges(sentryService, userName1, "functional");
+      addSentryUserPrivileges(sentryService, userName2, "functional");
+      SentryProxy.SyncState syncState = new SentryProxy.SyncState();
+
+      // Two users and their privileges are added, as well as any roles that exist in
+      // Sentry.
+      TGetCatalogServerMetricsResponse metrics =
+          syncSentryAuthorization(catalog, sentryService, syncState);
+      assertEquals(1, metrics.getSentry_num_syncs());
+      assertTrue(metrics.getSentry_last_sync_num_changes() >= 4);
+      long numPrivileges = metrics.getSentry_last_sync_num_privileges();
+
+      // Nothing changed.
+      long catalogVersion = catalog.getCatalogVersion();
+      metrics = syncSentryAuthorization(catalog, sentryService, syncState);
+      assertEquals(2, metrics.getSentry_num_syncs());
+      assertEquals(0, metrics.getSentry_last_sync_num_changes());
+      assertEquals(catalogVersion, catalog.getCatalogVersion());
+
+      // Only the privileges of the second user changed.
+      sentryService.grantUserPrivilege(userName2, createUserPrivilege("functional_kudu"));
+      metrics = syncSentryAuthorization(catalog, sentryService, syncState);
+      assertEquals(numPrivileges + 1, metrics.getSentry_last_sync_num_privileges());
+      assertEquals(1, metrics.getSentry_last_sync_num_changes());
+      assertEquals(2, catalog.getAuthPolicy().getUser(userName2).getPrivileges().size());
+
+      // A modification of the catalog forces a comparison of all principals.
+      catalog.removeUserPrivilege(userName1,
+          "server=server1->db=functional->grantoption=false");
+      metrics = syncSentryAuthorization(catalog, sentryService, syncState);
+      assertEquals(1, metrics.getSentry_last_sync_num_changes());
+      checkCatalogUserPrivileges(catalog, userName1,
+          "server=server1->db=functional->grantoption=false");
+    }
+  }
+
+  private static TGetCatalogServerMetricsResponse syncSentryAuthorization(
+      CatalogServiceCatalog catalog, SentryPolicyService sentryService,
+      SentryProxy.SyncState syncState) {
+    SentryProxy.refreshSentryAuthorization(catalog, sentryService, USER, false, false,
+        new AuthorizationDelta(), new Object(), syncState);
+    TGetCatalogServerMetricsResponse metrics = new TGetCatalogServerMetricsResponse();
+    syncState.populateMetrics(metrics);
+    return metrics;
+  }
+
   private static void addCatalogPrincipalPrivileges(TPrincipalType type,
       CatalogServiceCatalog catalog, String principalName, String... dbNames) {
     try {
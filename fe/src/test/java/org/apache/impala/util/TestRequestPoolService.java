@@ -40,6 +40,7 @@ import org.apache.impala.yarn.server.resourcemanager.scheduler.fair.AllocationFi
 import org.apache.impala.authorization.User;
 import org.apache.impala.common.ByteUnits;
 import org.apache.impala.common.InternalException;
+import org.apache.impala.common.Pair;
 import org.apache.impala.common.RuntimeEnv;
 import org.apache.impala.thrift.TErrorCode;
 import org.apache.impala.thrift.TPoolConfig;
@@ -188,6 +189,28 @@ public class TestRequestPoolService {
         Iterables.getOnlyElement(result.getStatus().getError_msgs()));
   }
 
+  @Test
+  public void testCachedResolution() throws Exception {
+    createPoolService(ALLOCATION_FILE, LLAMA_CONFIG_FILE);
+    TResolveRequestPoolParams params =
+        new TResolveRequestPoolParams("userA", "root.queueA");
+    TResolveRequestPoolResult result = poolService_.resolveRequestPool(params);
+    Assert.assertEquals("root.queueA", result.getResolved_pool());
+    Assert.assertEquals(result, poolService_.resolveRequestPool(params));
+    Assert.assertEquals(Pair.create(1L, 1L), poolService_.getCacheHitsAndMisses());
+
+    // Requests that cannot be mapped to a pool are cached as well.
+    params = new TResolveRequestPoolParams("userA", "queueD");
+    result = poolService_.resolveRequestPool(params);
+    Assert.assertFalse(result.isSetResolved_pool());
+    Assert.assertEquals(result, poolService_.resolveRequestPool(params));
+    Assert.assertEquals(Pair.create(2L, 2L), poolService_.getCacheHitsAndMisses());
+
+    TPoolConfig config = poolService_.getPoolConfig("root.queueA");
+    Assert.assertEquals(config, poolService_.getPoolConfig("root.queueA"));
+    Assert.assertEquals(Pair.create(3L, 3L), poolService_.getCacheHitsAndMisses());
+  }
+
   @Test
   public void testPoolAcls() throws Exception {
     createPoolService(ALLOCATION_FILE, LLAMA_CONFIG_FILE);
@@ -2476,3 +2476,38 @@ insert overwrite table {db_name}{db_suffix}.{table_name}
 select id, date_string_col, case when id % 3 in (0, 1) then string_col end, date_string_col, case when id % 3 = 0 then string_col end
 from functional.alltypesagg
 ====
+---- DATASET
+functional
+---- BASE_TABLE_NAME
+bucketed_alltypes
+---- CREATE_HIVE
+-- Used for planning joins and aggregations on the Hive buckets of a table
+-- (USE_HIVE_BUCKETING). The data must be written by Hive to get its bucket files.
+CREATE EXTERNAL TABLE IF NOT EXISTS {db_name}{db_suffix}.{table_name} (
+  id int,
+  int_col int,
+  string_col string)
+CLUSTERED BY (id) INTO 4 BUCKETS
+STORED AS {file_format}
+LOCATION '{hdfs_location}';
+---- LOAD
+INSERT OVERWRITE TABLE {db_name}{db_suffix}.{table_name}
+SELECT id, int_col, string_col FROM functional.alltypes;
+====
+---- DATASET
+functional
+---- BASE_TABLE_NAME
+bucketed_alltypessmall
+---- CREATE_HIVE
+-- Bucketed like bucketed_alltypes, so that joins between them on 'id' need no
+-- exchanges.
+CREATE EXTERNAL TABLE IF NOT EXISTS {db_name}{db_suffix}.{table_name} (
+  id int,
+  int_col int,
+  string_col string)
+CLUSTERED BY (id) INTO 4 BUCKETS
+STORED AS {file_format}
+LOCATION '{hdfs_location}';
+---- LOAD
+INSERT OVERWRITE TABLE {db_name}{db_suffix}.{table_name}
+SELECT id, int_col, string_col FROM functional.alltypessmall;
@@ -0,0 +1,70 @@
+# Licensed to the Apache Software Foundation (ASF) under one
+# or more contributor license agreements.  See the NOTICE file
+# distributed with this work for additional information
+# regarding copyright ownership.  The ASF licenses this file
+# to you under the Apache License, Version 2.0 (the
+# "License"); you may not use this file except in compliance
+# with the License.  You may obtain a copy of the License at
+#
+#   http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing,
+# software distributed under the License is distributed on an
+# "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+# KIND, either express or implied.  See the License for the
+# specific language governing permissions and limitations
+# under the License.
+
+import pytest
+import time
+
+from tests.common.custom_cluster_test_suite import CustomClusterTestSuite
+
+
+class TestStatsMaintenance(CustomClusterTestSuite):
+  """Tests that catalogd computes the missing or stale statistics of tables in the
+  background when --stats_maintenance_coordinator is set."""
+
+  TIMEOUT_S = 60
+
+  @classmethod
+  def get_workload(cls):
+    return 'functional-query'
+
+  def _get_num_rows(self, tbl_name):
+    """Returns the row count of the unpartitioned table 'tbl_name'."""
+    result = self.client.execute("show table stats %s" % tbl_name)
+    return int(result.data[0].split('\t')[0])
+
+  def _wait_for_num_rows(self, tbl_name, expected_num_rows):
+    start_time = time.time()
+    while self._get_num_rows(tbl_name) != expected_num_rows:
+      assert time.time() - start_time < self.TIMEOUT_S, \
+          "Stats of %s were not computed in %ss" % (tbl_name, self.TIMEOUT_S)
+      time.sleep(1)
+
+  @pytest.mark.execute_serially
+  @CustomClusterTestSuite.with_args(
+      catalogd_args="--stats_maintenance_interval_s=1 "
+                    "--stats_maintenance_stale_ratio=0.5 "
+                    "--stats_maintenance_coordinator=localhost:21050")
+  def test_scheduled_compute_stats(self, unique_database):
+    tbl_name = "%s.tbl" % unique_database
+    self.client.execute("create table %s (i int)" % tbl_name)
+    self.client.execute("insert into %s values (1), (2), (3)" % tbl_name)
+    # The statistics are missing and get computed in the background.
+    self._wait_for_num_rows(tbl_name, 3)
+    catalogd = self.cluster.catalogd.service
+    num_runs = catalogd.get_metric_value("catalog.stats-maintenance.num-runs")
+    assert num_runs >= 1
+    assert catalogd.get_metric_value("catalog.stats-maintenance.num-evaluations") > 0
+
+    # Inserting less than half of the rows does not make the statistics stale.
+    self.client.execute("insert into %s values (4)" % tbl_name)
+    time.sleep(5)
+    assert self._get_num_rows(tbl_name) == 3
+
+    # Inserting more makes them stale, and they get computed again.
+    self.client.execute("insert into %s values (5), (6)" % tbl_name)
+    self._wait_for_num_rows(tbl_name, 6)
+    assert catalogd.get_metric_value("catalog.stats-maintenance.num-runs") > num_runs
@@ -17,6 +17,7 @@
 
 from os import path
 from tests.common.impala_test_suite import ImpalaTestSuite
+from tests.common.skip import SkipIfKudu
 from tests.common.test_dimensions import (
     create_exec_option_dimension,
     create_single_exec_option_dimension,
@@ -116,6 +117,31 @@ class TestStatsExtrapolation(ImpalaTestSuite):
       self.client.execute(
         "compute stats {0} tablesample system(10)".format(wide_test_tbl))
 
+  @SkipIfKudu.unsupported_env
+  def test_compute_stats_tablesample_kudu(self, vector, unique_database):
+    """Kudu tables are sampled by tablets. Checks that COMPUTE STATS TABLESAMPLE
+    extrapolates the row count of the sampled tablets to the whole table."""
+    tbl_name = "alltypes_kudu"
+    tbl = "{0}.{1}".format(unique_database, tbl_name)
+    # Hash partitioning spreads the rows evenly across the tablets.
+    self.client.execute("create table {0} primary key (id) partition by hash (id) "
+        "partitions 10 stored as kudu as select id, int_col, string_col "
+        "from functional.alltypes".format(tbl))
+    for perc, seed in [(10, 3), (30, 7), (50, 13)]:
+      self.client.execute("drop stats {0}".format(tbl))
+      self.client.execute("compute stats {0} tablesample system ({1}) repeatable ({2})"
+          .format(tbl, perc, seed))
+      params = self.hive_client.get_table(unique_database, tbl_name).parameters
+      self.appx_equals(int(params["numRows"]), 7300, 2)
+    # A sample of all tablets runs the regular COMPUTE STATS.
+    self.client.execute("drop stats {0}".format(tbl))
+    result = self.client.execute("compute stats {0} tablesample system (100)"
+        .format(tbl))
+    assert "Ignoring TABLESAMPLE because the effective sampling rate is 100%" in \
+        str(result.log)
+    params = self.hive_client.get_table(unique_database, tbl_name).parameters
+    assert int(params["numRows"]) == 7300
+
   def __set_extrapolation_tblprop(self, tbl):
     """Alters the given table to enable stats extrapolation via tblproperty."""
     self.client.execute("alter table {0} set "\
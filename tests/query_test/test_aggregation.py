@@ -405,6 +405,52 @@ class TestWideAggregationQueries(ImpalaTestSuite):
     assert expected == actual
 
 
+class TestEagerAggregation(ImpalaTestSuite):
+  """Checks that queries return the same results with and without the aggregation
+  pushed below their joins, see ENABLE_EAGER_AGGREGATION."""
+  @classmethod
+  def get_workload(self):
+    return 'functional-query'
+
+  @classmethod
+  def add_test_dimensions(cls):
+    super(TestEagerAggregation, cls).add_test_dimensions()
+    # The rewrite depends on the table and column stats of the text tables.
+    cls.ImpalaTestMatrix.add_dimension(
+        create_uncompressed_text_dimension(cls.get_workload()))
+
+  def test_eager_aggregation(self, vector):
+    queries = [
+      """select b.string_col, sum(a.int_col), count(*), max(a.bigint_col)
+      from alltypes a join alltypestiny b on a.tinyint_col = b.tinyint_col
+      group by b.string_col""",
+      """select b.string_col, count(a.int_col), min(a.smallint_col)
+      from alltypes a join alltypestiny b on a.tinyint_col = b.tinyint_col
+      where a.int_col > 1 and b.bool_col
+      group by b.string_col having min(a.int_col) > 1
+      order by sum(a.int_col)""",
+      """select b.string_col, c.string_col, sum(a.bigint_col), count(a.int_col)
+      from alltypes a join alltypestiny b on a.tinyint_col = b.tinyint_col
+      join alltypessmall c on a.smallint_col = c.smallint_col and c.id < 10
+      group by b.string_col, c.string_col""",
+      """select b.string_col, count(a.int_col)
+      from alltypesagg a join alltypestiny b on a.tinyint_col = b.tinyint_col
+      group by b.string_col"""]
+    table_format = vector.get_value('table_format')
+    exec_option = dict(vector.get_value('exec_option'))
+    for query in queries:
+      exec_option['enable_eager_aggregation'] = False
+      expected = self.execute_query(query, exec_option, table_format=table_format)
+      exec_option['enable_eager_aggregation'] = True
+      actual = self.execute_query(query, exec_option, table_format=table_format)
+      assert "group by: a." in actual.runtime_profile, query
+      types = actual.column_types
+      labels = actual.column_labels
+      assert QueryTestResult(parse_result_rows(expected), types, labels,
+          order_matters=False) == QueryTestResult(parse_result_rows(actual), types,
+          labels, order_matters=False)
+
+
 class TestTPCHAggregationQueries(ImpalaTestSuite):
   # Uses the TPC-H dataset in order to have larger aggregations.
 
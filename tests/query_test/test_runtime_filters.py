@@ -73,6 +73,37 @@ class TestRuntimeFilters(ImpalaTestSuite):
     assert re.search("Files rejected: 8 \(8\)", result.runtime_profile) is not None
     assert re.search("Splits rejected: [^0] \([^0]\)", result.runtime_profile) is None
 
+  def test_deferred_scan_ranges(self, vector, unique_database):
+    """Test that with DEFER_FILTERED_SCAN_RANGES the files of partitions that are pruned
+    by a runtime filter are never opened. The files of all months but the one that
+    passes the filter are overwritten with invalid data, so the query fails if any of
+    them is read."""
+    if vector.get_value('table_format').file_format != 'parquet':
+      pytest.skip()
+    tbl_name = "%s.alltypes" % unique_database
+    self.execute_query("create table %s like functional_parquet.alltypes" % tbl_name)
+    self.execute_query("insert into %s partition (year, month) "
+        "select * from functional_parquet.alltypes" % tbl_name)
+    for year in [2009, 2010]:
+      for month in range(2, 13):
+        part_dir = "test-warehouse/%s.db/alltypes/year=%d/month=%d" % (
+            unique_database, year, month)
+        for file_name in self.filesystem_client.ls(part_dir):
+          if file_name.startswith('.') or file_name.startswith('_'): continue
+          self.filesystem_client.create_file(
+              "%s/%s" % (part_dir, file_name), "invalid", overwrite=True)
+    query_options = {'RUNTIME_FILTER_MODE': 'GLOBAL',
+                     'RUNTIME_FILTER_WAIT_TIME_MS': str(WAIT_TIME_MS),
+                     'DEFER_FILTERED_SCAN_RANGES': 'true'}
+    result = self.execute_query("""select STRAIGHT_JOIN count(*) from %s p
+        join [BROADCAST] functional.alltypestiny b
+        on p.month = b.int_col and b.month = 1 and b.string_col = '1'""" % tbl_name,
+        query_options)
+    assert result.data == ['620']
+    assert re.search("Files rejected: [1-9]", result.runtime_profile) is not None
+    assert re.search("Deferred split specs expanded: [1-9][0-9]* of [1-9]",
+        result.runtime_profile) is not None
+
 @SkipIfLocal.multiple_impalad
 class TestBloomFilters(ImpalaTestSuite):
   @classmethod
@@ -33,7 +33,7 @@ class TestTableSample(ImpalaTestSuite):
     super(TestTableSample, cls).add_test_dimensions()
     cls.ImpalaTestMatrix.add_dimension(ImpalaTestDimension('repeatable', *[True, False]))
     cls.ImpalaTestMatrix.add_dimension(ImpalaTestDimension('filtered', *[True, False]))
-    # Tablesample is only supported on HDFS tables.
+    # The file-based sampling checks below only apply to HDFS tables.
     cls.ImpalaTestMatrix.add_constraint(lambda v:
       v.get_value('table_format').file_format != 'kudu' and
       v.get_value('table_format').file_format != 'hbase')